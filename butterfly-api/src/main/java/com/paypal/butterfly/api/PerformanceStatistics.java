@@ -0,0 +1,37 @@
+package com.paypal.butterfly.api;
+
+/**
+ * POJO containing performance figures, such as time spent and memory allocated,
+ * aggregated over one or more transformation utility executions
+ *
+ * @author facarvalho
+ */
+public interface PerformanceStatistics {
+
+    /**
+     * @return how many transformation utility executions
+     * these figures were aggregated from
+     */
+    int getPerformCount();
+
+    /**
+     * @return total wall clock time, in nanoseconds, spent
+     * performing the transformation utilities
+     */
+    long getWallTime();
+
+    /**
+     * @return total CPU time, in nanoseconds, spent by the threads
+     * performing the transformation utilities. Zero if the JVM
+     * does not support measuring thread CPU time
+     */
+    long getCpuTime();
+
+    /**
+     * @return total number of bytes allocated in heap by the threads
+     * performing the transformation utilities. Zero if the JVM
+     * does not support measuring thread memory allocation
+     */
+    long getAllocatedBytes();
+
+}
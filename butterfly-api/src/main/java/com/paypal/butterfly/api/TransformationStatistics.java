@@ -1,5 +1,8 @@
 package com.paypal.butterfly.api;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * POJO containing statistics about
  * the result of a transformation template execution
@@ -92,10 +95,59 @@ public interface TransformationStatistics {
      */
     int getTOExecutionResultErrorCount();
 
+    /**
+     * @return how many times transformation operations
+     * changed the content of a file. Files whose content
+     * would not change are not written, and not counted.
+     * Zero, unless supported by the implementation
+     */
+    default int getTOFilesTouchedCount() {
+        return 0;
+    }
+
+    /**
+     * @return how many bytes transformation operations
+     * wrote to the files whose content they changed.
+     * Zero, unless supported by the implementation
+     */
+    default long getTOBytesWritten() {
+        return 0;
+    }
+
     /**
      * @return how many manual instructions are
      * necessary to complete the transformation
      */
     int getManualInstructionsCount();
 
+    /**
+     * @return performance figures of every transformation utility and operation
+     * performed during the transformation, keyed by their names.
+     * Per file conditions evaluated by {@code FilterFiles} and {@code MultipleConditions}
+     * are accounted under the name of the utility that evaluated them.
+     * Empty, unless supported by the implementation
+     */
+    default Map<String, PerformanceStatistics> getUtilitiesPerformance() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @return performance figures of every transformation utility and operation
+     * performed during the transformation, aggregated by their class names.
+     * Empty, unless supported by the implementation
+     */
+    default Map<String, PerformanceStatistics> getUtilityClassesPerformance() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @return performance figures of every transformation utility parent
+     * (such as groups and loops) performed during the transformation, keyed by their names,
+     * each one aggregating the parent itself and all utilities under it.
+     * Empty, unless supported by the implementation
+     */
+    default Map<String, PerformanceStatistics> getParentsPerformance() {
+        return Collections.emptyMap();
+    }
+
 }
@@ -0,0 +1,227 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.api.TransformationRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Decides whether, and when, transformation requests are admitted
+ * by the transformation engine, limiting how many of them can be waiting
+ * to be performed, and also how much application content (in bytes and number
+ * of files) can be in flight (waiting or being performed) at the same time.
+ * <br>
+ * Requests are admitted in the same order they arrive. When a limit is reached,
+ * a new request is either rejected right away, or blocks until it can be admitted,
+ * depending on the {@link Policy}. A request whose application alone exceeds the
+ * size limits is still admitted, but only when no other request is in flight.
+ *
+ * @author facarvalho
+ */
+class AdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    /**
+     * What to do with a transformation request when it cannot be admitted right away
+     */
+    enum Policy {
+        BLOCK, REJECT
+    }
+
+    private final int maxQueueDepth;
+    private final Policy policy;
+    private final long maxBytes;
+    private final long maxFiles;
+
+    // Number of admitted requests that have not started being performed yet
+    private int queueDepth = 0;
+
+    // Size of all admitted requests that have not finished yet
+    private long inFlightBytes = 0;
+    private long inFlightFiles = 0;
+    private int inFlightCount = 0;
+
+    // Requests blocked waiting to be admitted, in arrival order
+    private final Deque<Ticket> waiting = new ArrayDeque<>();
+
+    /**
+     * Creates a new admission control. Limits equal or smaller than
+     * zero mean unlimited.
+     *
+     * @param maxQueueDepth maximum number of admitted requests waiting to be performed
+     * @param policy what to do when a request cannot be admitted right away
+     * @param maxBytes maximum number of application bytes in flight
+     * @param maxFiles maximum number of application files in flight
+     */
+    AdmissionControl(int maxQueueDepth, Policy policy, long maxBytes, long maxFiles) {
+        this.maxQueueDepth = maxQueueDepth;
+        this.policy = policy;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    static AdmissionControl fromSettings(EngineSettings settings) {
+        String policyName = settings.getString(EngineSettings.QUEUE_POLICY, Policy.BLOCK.name());
+        Policy policy;
+        try {
+            policy = Policy.valueOf(policyName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Property %s must be either block or reject, but it is %s", EngineSettings.QUEUE_POLICY, policyName), e);
+        }
+        return new AdmissionControl(
+                settings.getInt(EngineSettings.QUEUE_MAX_DEPTH, 0),
+                policy,
+                settings.getLong(EngineSettings.ADMISSION_MAX_BYTES, 0),
+                settings.getLong(EngineSettings.ADMISSION_MAX_FILES, 0));
+    }
+
+    /**
+     * Admits the given transformation request, blocking if necessary, according to the policy.
+     * The returned ticket must be used to notify when the request starts being performed,
+     * and when it is done
+     *
+     * @param transformationRequest the transformation request to be admitted
+     * @return the admission ticket
+     * @throws RejectedExecutionException if the request could not be admitted, or if
+     * the thread was interrupted while blocked
+     */
+    Ticket admit(TransformationRequest transformationRequest) {
+        Ticket ticket = new Ticket(transformationRequest);
+        synchronized (this) {
+            waiting.addLast(ticket);
+            try {
+                while (!(waiting.peekFirst() == ticket && tryAdmit(ticket))) {
+                    if (policy == Policy.REJECT) {
+                        String exceptionMessage = String.format("Transformation request %s has been rejected, since the transformation engine is at its limits (queue depth: %d, in flight bytes: %d, in flight files: %d)", transformationRequest.getId(), queueDepth, inFlightBytes, inFlightFiles);
+                        throw new RejectedExecutionException(exceptionMessage);
+                    }
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for transformation request " + transformationRequest.getId() + " to be admitted", e);
+            } finally {
+                if (!ticket.admitted) {
+                    waiting.remove(ticket);
+                    notifyAll();
+                }
+            }
+        }
+        return ticket;
+    }
+
+    /*
+     * Admits the ticket, if it fits within all limits
+     */
+    private boolean tryAdmit(Ticket ticket) {
+        if (maxQueueDepth > 0 && queueDepth >= maxQueueDepth) {
+            return false;
+        }
+        if (inFlightCount > 0
+                && (maxBytes > 0 && inFlightBytes + ticket.bytes > maxBytes
+                || maxFiles > 0 && inFlightFiles + ticket.files > maxFiles)) {
+            return false;
+        }
+
+        waiting.removeFirst();
+        ticket.admitted = true;
+        queueDepth++;
+        inFlightCount++;
+        inFlightBytes += ticket.bytes;
+        inFlightFiles += ticket.files;
+        notifyAll();
+
+        return true;
+    }
+
+    private synchronized void started(Ticket ticket) {
+        queueDepth--;
+        notifyAll();
+    }
+
+    private synchronized void finished(Ticket ticket) {
+        inFlightCount--;
+        inFlightBytes -= ticket.bytes;
+        inFlightFiles -= ticket.files;
+        notifyAll();
+    }
+
+    private boolean isSizeAware() {
+        return maxBytes > 0 || maxFiles > 0;
+    }
+
+    /**
+     * An admitted transformation request
+     */
+    class Ticket {
+
+        private final long bytes;
+        private final long files;
+        private boolean admitted = false;
+        private boolean started = false;
+
+        private Ticket(TransformationRequest transformationRequest) {
+            long[] size = (isSizeAware() ? getSize(transformationRequest.getApplication().getFolder()) : new long[]{0, 0});
+            bytes = size[0];
+            files = size[1];
+        }
+
+        /**
+         * Notifies the admitted request has started being performed
+         */
+        void started() {
+            started = true;
+            AdmissionControl.this.started(this);
+        }
+
+        /**
+         * Notifies the admitted request is done, regardless of its result
+         */
+        void finished() {
+            if (!started) {
+                AdmissionControl.this.started(this);
+            }
+            AdmissionControl.this.finished(this);
+        }
+
+    }
+
+    /*
+     * Returns the total number of bytes and files in the given folder
+     */
+    private static long[] getSize(File folder) {
+        long[] size = new long[2];
+        if (folder == null || !folder.isDirectory()) {
+            return size;
+        }
+        try {
+            Files.walkFileTree(folder.toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    size[0] += attrs.size();
+                    size[1]++;
+                    return FileVisitResult.CONTINUE;
+                }
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Size of application folder {} could not be fully calculated", folder, e);
+        }
+        return size;
+    }
+
+}
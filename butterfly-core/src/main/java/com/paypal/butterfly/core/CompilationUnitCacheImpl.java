@@ -0,0 +1,93 @@
+package com.paypal.butterfly.core;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.paypal.butterfly.extensions.api.CompilationUnitCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-transformation cache of parsed Java files.
+ * Every cached compilation unit is kept along with the version of the file
+ * at the moment it was parsed, so the file is only parsed again if its version changes.
+ * <br>
+ * Cached compilation units are never handed out, only copies of them, so callers
+ * can modify them, or attach data to them, without affecting each other.
+ * <br>
+ * Compilation units are softly referenced, which bounds the memory used by this cache,
+ * since they can be reclaimed by the garbage collector whenever memory is needed.
+ * Entries whose compilation units have been reclaimed are removed as the cache is used.
+ *
+ * @author facarvalho
+ */
+class CompilationUnitCacheImpl implements CompilationUnitCache {
+
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    // Entries whose compilation units have been reclaimed by the garbage collector
+    private final ReferenceQueue<CompilationUnit> reclaimedEntries = new ReferenceQueue<>();
+
+    @Override
+    public CompilationUnit getCompilationUnit(File javaFile) throws IOException {
+        removeReclaimedEntries();
+
+        Path path = javaFile.toPath().toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        Entry entry = entries.get(path);
+        CompilationUnit compilationUnit = (entry == null ? null : entry.get());
+        if (compilationUnit == null || entry.lastModified != lastModified || entry.size != size) {
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                compilationUnit = StaticJavaParser.parse(inputStream);
+            }
+            entries.put(path, new Entry(path, compilationUnit, lastModified, size, reclaimedEntries));
+        }
+        return compilationUnit.clone();
+    }
+
+    @Override
+    public void invalidate(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        if (entries.remove(path) == null) {
+            entries.keySet().removeIf(p -> p.startsWith(path));
+        }
+    }
+
+    private void removeReclaimedEntries() {
+        Reference<? extends CompilationUnit> reference;
+        while ((reference = reclaimedEntries.poll()) != null) {
+            Entry entry = (Entry) reference;
+
+            // Only if it has not been replaced by a newer entry
+            entries.remove(entry.path, entry);
+        }
+    }
+
+    private static final class Entry extends SoftReference<CompilationUnit> {
+
+        private final Path path;
+        private final long lastModified;
+        private final long size;
+
+        private Entry(Path path, CompilationUnit compilationUnit, long lastModified, long size, ReferenceQueue<CompilationUnit> queue) {
+            super(compilationUnit, queue);
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.extensions.api.DocumentCache;
+import com.paypal.butterfly.extensions.api.XmlParserPool;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-transformation cache of parsed XML files.
+ * Every cached document is kept along with the version of the file
+ * at the moment it was parsed, so the file is only parsed again if its version changes.
+ * <br>
+ * Cached documents are never handed out, only deep copies of them,
+ * since DOM documents are not thread-safe, not even for reading.
+ *
+ * @author facarvalho
+ */
+class DocumentCacheImpl implements DocumentCache {
+
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public Document getDocument(File xmlFile) throws IOException, SAXException {
+        Path path = xmlFile.toPath().toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        Entry entry = entries.get(path);
+        if (entry == null || entry.lastModified != lastModified || entry.size != size) {
+            Document document = XmlParserPool.getDocumentBuilder().parse(path.toFile());
+            entry = new Entry(document, lastModified, size);
+            entries.put(path, entry);
+        }
+        return entry.copyDocument();
+    }
+
+    @Override
+    public void invalidate(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        if (entries.remove(path) == null) {
+            entries.keySet().removeIf(p -> p.startsWith(path));
+        }
+    }
+
+    private static final class Entry {
+
+        private final Document document;
+        private final long lastModified;
+        private final long size;
+
+        private Entry(Document document, long lastModified, long size) {
+            this.document = document;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        // Cloning reads the cached document, which has to be serialized among threads
+        private synchronized Document copyDocument() {
+            Document copy = (Document) document.cloneNode(true);
+
+            // These are not copied when cloning
+            copy.setXmlVersion(document.getXmlVersion());
+            copy.setXmlStandalone(document.getXmlStandalone());
+            copy.setDocumentURI(document.getDocumentURI());
+
+            return copy;
+        }
+
+    }
+
+}
@@ -0,0 +1,289 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.api.Configuration;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.env.PropertyResolver;
+
+import java.util.Properties;
+
+/**
+ * Settings used to tune how the transformation engine performs
+ * transformations. Every setting is resolved first from the
+ * transformation request configuration properties (see {@link Configuration#getProperties()}),
+ * then from the Spring environment, if available, and finally from Java system properties.
+ * If none of them has it, its default value is used.
+ *
+ * @author facarvalho
+ */
+class EngineSettings {
+
+    /**
+     * If true, utilities in the same template are performed concurrently,
+     * whenever that is safe to be done
+     */
+    static final String PARALLEL_UTILITIES = "butterfly.parallel.utilities";
+
+    /**
+     * If true, children of the same utility parent (such as the operations
+     * created by a {@link com.paypal.butterfly.extensions.api.MultipleOperations})
+     * are performed concurrently, whenever that is safe to be done
+     */
+    static final String PARALLEL_CHILDREN = "butterfly.parallel.children";
+
+    /**
+     * If true, the per-file conditions evaluated by {@link com.paypal.butterfly.extensions.api.FilterFiles}
+     * and {@link com.paypal.butterfly.extensions.api.MultipleConditions} are performed concurrently
+     */
+    static final String PARALLEL_CONDITIONS = "butterfly.parallel.conditions";
+
+    /**
+     * Maximum number of threads used to perform utilities concurrently
+     * within a single transformation
+     */
+    static final String PARALLEL_THREADS = "butterfly.parallel.threads";
+
+    /**
+     * Maximum number of admitted transformation requests waiting to be performed.
+     * Zero, the default, means unlimited
+     */
+    static final String QUEUE_MAX_DEPTH = "butterfly.engine.queue.maxDepth";
+
+    /**
+     * What to do with a transformation request that cannot be admitted right away,
+     * {@code block} (the default) or {@code reject}
+     */
+    static final String QUEUE_POLICY = "butterfly.engine.queue.policy";
+
+    /**
+     * Maximum number of application bytes, summing all admitted transformation
+     * requests not finished yet. Zero, the default, means unlimited
+     */
+    static final String ADMISSION_MAX_BYTES = "butterfly.engine.admission.maxBytes";
+
+    /**
+     * Maximum number of application files, summing all admitted transformation
+     * requests not finished yet. Zero, the default, means unlimited
+     */
+    static final String ADMISSION_MAX_FILES = "butterfly.engine.admission.maxFiles";
+
+    /**
+     * Transformation request priority, used to decide which admitted request is
+     * performed first. The higher the number the higher the priority. The default is zero
+     */
+    static final String PRIORITY = "butterfly.priority";
+
+    /**
+     * Strategy used to create the threads transformations run on,
+     * {@code platform} (the default) or {@code virtual}.
+     * See {@link ExecutorStrategy}
+     */
+    static final String EXECUTOR_STRATEGY = "butterfly.engine.executor";
+
+    /**
+     * How the transformed application folder is materialized out of the original
+     * application folder, {@code copy} (the default), {@code parallel-copy},
+     * {@code hardlink} or {@code reflink}. See {@link OutputFolderMaterializer}
+     */
+    static final String MATERIALIZATION_STRATEGY = "butterfly.materialization.strategy";
+
+    /**
+     * Comma separated list of glob patterns, of paths relative to the original
+     * application folder, not to be materialized in the transformed application folder.
+     * Patterns starting with {@code **}{@code /} also match paths right under the application folder
+     */
+    static final String MATERIALIZATION_EXCLUDES = "butterfly.materialization.excludes";
+
+    /**
+     * Number of threads used to copy files when materializing the transformed application folder
+     */
+    static final String MATERIALIZATION_THREADS = "butterfly.materialization.threads";
+
+    /**
+     * If true, consecutive transformation operations against the same file keep
+     * it in memory, instead of reading it from, and writing it to, disk every time.
+     * See {@link com.paypal.butterfly.extensions.api.FileWorkingSet}
+     */
+    static final String WORKING_SET_ENABLED = "butterfly.workingset.enabled";
+
+    /**
+     * Maximum number of bytes kept in memory by the working set. When reached,
+     * the least recently used files are written to disk and removed from memory
+     */
+    static final String WORKING_SET_MAX_BYTES = "butterfly.workingset.maxBytes";
+
+    /**
+     * If true, which is the default, wall time, CPU time and heap allocation are measured
+     * for every transformation utility performed, and aggregated in the transformation statistics
+     */
+    static final String PERFORMANCE_STATISTICS = "butterfly.statistics.performance";
+
+    /**
+     * If true, which is the default, adjacent text operations against the same file
+     * (with no dependencies or conditions) are applied in a single streaming pass over it,
+     * when performed sequentially.
+     * See {@link com.paypal.butterfly.extensions.api.TransformationOperation#isFusible()}
+     */
+    static final String FUSE_OPERATIONS = "butterfly.operations.fuse";
+
+    /**
+     * If true, which is the default, an in-memory index of the transformed application file tree
+     * is built once per transformation, and shared by all utilities searching and checking files.
+     * See {@link com.paypal.butterfly.extensions.api.FileTreeIndex}
+     */
+    static final String FILE_TREE_INDEX_ENABLED = "butterfly.filetree.index.enabled";
+
+    /**
+     * If true, which is the default, parsed Maven POM files are cached during the transformation,
+     * and shared by all utilities reading them.
+     * See {@link com.paypal.butterfly.extensions.api.PomModelCache}
+     */
+    static final String POM_MODEL_CACHE_ENABLED = "butterfly.pom.model.cache.enabled";
+
+    /**
+     * If true, which is the default, parsed XML files are cached during the transformation,
+     * and shared by all XPath and XML element utilities reading them.
+     * See {@link com.paypal.butterfly.extensions.api.DocumentCache}
+     */
+    static final String DOCUMENT_CACHE_ENABLED = "butterfly.document.cache.enabled";
+
+    /**
+     * If true, which is the default, parsed Java files are cached during the transformation,
+     * and copies of them are handed out to Java conditions and utilities reading them.
+     * See {@link com.paypal.butterfly.extensions.api.CompilationUnitCache}
+     */
+    static final String COMPILATION_UNIT_CACHE_ENABLED = "butterfly.compilation.unit.cache.enabled";
+
+    private static final long WORKING_SET_MAX_BYTES_DEFAULT = 64L * 1024 * 1024;
+
+    private final PropertyResolver environment;
+
+    private final Properties requestProperties;
+
+    /**
+     * Creates engine settings backed by the Spring environment (or any other
+     * property resolver) and Java system properties
+     *
+     * @param environment the Spring environment, or null, if there is none
+     */
+    EngineSettings(PropertyResolver environment) {
+        this(environment, null);
+    }
+
+    private EngineSettings(PropertyResolver environment, Properties requestProperties) {
+        this.environment = environment;
+        this.requestProperties = requestProperties;
+    }
+
+    /**
+     * Returns a copy of these settings that also takes into consideration
+     * the configuration properties of the given transformation request configuration,
+     * which have precedence
+     *
+     * @param configuration the transformation request configuration
+     * @return a copy of these settings specific to a transformation request
+     */
+    EngineSettings forConfiguration(Configuration configuration) {
+        Properties properties = (configuration == null ? null : configuration.getProperties());
+        return new EngineSettings(environment, properties);
+    }
+
+    String getString(String name, String defaultValue) {
+        String value = null;
+        if (requestProperties != null) {
+            value = requestProperties.getProperty(name);
+        }
+        if (StringUtils.isBlank(value) && environment != null) {
+            value = environment.getProperty(name);
+        }
+        if (StringUtils.isBlank(value)) {
+            value = System.getProperty(name);
+        }
+        return (StringUtils.isBlank(value) ? defaultValue : value.trim());
+    }
+
+    boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name, null);
+        return (value == null ? defaultValue : Boolean.parseBoolean(value));
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Property %s must be an integer, but it is %s", name, value), e);
+        }
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Property %s must be a long integer, but it is %s", name, value), e);
+        }
+    }
+
+    int getPriority() {
+        return getInt(PRIORITY, 0);
+    }
+
+    ExecutorStrategy getExecutorStrategy() {
+        return ExecutorStrategy.fromName(getString(EXECUTOR_STRATEGY, ExecutorStrategy.PLATFORM.name()));
+    }
+
+    boolean isWorkingSetEnabled() {
+        return getBoolean(WORKING_SET_ENABLED, false);
+    }
+
+    long getWorkingSetMaxBytes() {
+        return getLong(WORKING_SET_MAX_BYTES, WORKING_SET_MAX_BYTES_DEFAULT);
+    }
+
+    boolean isPerformanceStatistics() {
+        return getBoolean(PERFORMANCE_STATISTICS, true);
+    }
+
+    boolean isFuseOperations() {
+        return getBoolean(FUSE_OPERATIONS, true);
+    }
+
+    boolean isFileTreeIndexEnabled() {
+        return getBoolean(FILE_TREE_INDEX_ENABLED, true);
+    }
+
+    boolean isPomModelCacheEnabled() {
+        return getBoolean(POM_MODEL_CACHE_ENABLED, true);
+    }
+
+    boolean isDocumentCacheEnabled() {
+        return getBoolean(DOCUMENT_CACHE_ENABLED, true);
+    }
+
+    boolean isCompilationUnitCacheEnabled() {
+        return getBoolean(COMPILATION_UNIT_CACHE_ENABLED, true);
+    }
+
+    boolean isParallelUtilities() {
+        return getBoolean(PARALLEL_UTILITIES, false);
+    }
+
+    boolean isParallelChildren() {
+        return getBoolean(PARALLEL_CHILDREN, false);
+    }
+
+    boolean isParallelConditions() {
+        return getBoolean(PARALLEL_CONDITIONS, false);
+    }
+
+    int getParallelThreads() {
+        return Math.max(1, getInt(PARALLEL_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+}
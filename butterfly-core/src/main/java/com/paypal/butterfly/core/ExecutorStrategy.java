@@ -0,0 +1,103 @@
+package com.paypal.butterfly.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Strategies used by the transformation engine to create the
+ * executor that runs transformations.
+ * The strategy is selected via {@link EngineSettings#EXECUTOR_STRATEGY}.
+ *
+ * @author facarvalho
+ */
+enum ExecutorStrategy {
+
+    /**
+     * A pool of platform threads, sized based on the number of available processors.
+     * Admitted transformation requests waiting for a thread are performed
+     * by priority, and then by arrival order. This is the default strategy.
+     */
+    PLATFORM {
+        @Override
+        ExecutorService createExecutor() {
+            return new ThreadPoolExecutor(MIN_THREAD_POOL_SIZE, MAX_THREAD_POOL_SIZE, 5, TimeUnit.MINUTES, new PriorityBlockingQueue<>());
+        }
+    },
+
+    /**
+     * One new virtual thread per transformation, which suits Butterfly transformations,
+     * since they spend most of their time blocked on IO. Since there is no
+     * waiting queue, transformation requests priority is not taken into consideration.
+     * If the JVM does not support virtual threads, {@link #PLATFORM} is used instead.
+     */
+    VIRTUAL {
+        @Override
+        ExecutorService createExecutor() {
+            if (newVirtualThreadPerTaskExecutor == null) {
+                logger.warn("Virtual threads are not supported by this JVM, using platform threads instead");
+                return PLATFORM.createExecutor();
+            }
+            try {
+                return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new InternalException("Virtual threads executor could not be created", e);
+            }
+        }
+    };
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorStrategy.class);
+
+    // One thread per core is not enough because most Butterfly transformations are IO heavy
+    private static final int MIN_THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    private static final int MAX_THREAD_POOL_SIZE = MIN_THREAD_POOL_SIZE * 2;
+
+    // Butterfly is compiled for Java 8, that is why virtual threads are looked up via reflection
+    private static final Method newVirtualThreadPerTaskExecutor = getNewVirtualThreadPerTaskExecutor();
+
+    private static Method getNewVirtualThreadPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if the current JVM supports virtual threads
+     *
+     * @return true if the current JVM supports virtual threads
+     */
+    static boolean isVirtualThreadsSupported() {
+        return newVirtualThreadPerTaskExecutor != null;
+    }
+
+    /**
+     * Returns the strategy with the given name, case insensitive
+     *
+     * @param name the strategy name
+     * @return the strategy with the given name
+     * @throws IllegalArgumentException if there is no strategy with the given name
+     */
+    static ExecutorStrategy fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Property %s must be either platform or virtual, but it is %s", EngineSettings.EXECUTOR_STRATEGY, name), e);
+        }
+    }
+
+    /**
+     * Creates a new executor to run transformations
+     *
+     * @return a new executor to run transformations
+     */
+    abstract ExecutorService createExecutor();
+
+}
@@ -0,0 +1,421 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.extensions.api.FileTreeIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-transformation in-memory index of the transformed application file tree.
+ * The index is built, with one single walk through the application folder,
+ * the first time it is queried, and from then on it is only partially refreshed,
+ * when files are known to have been created, moved or removed.
+ * <br>
+ * Symbolic links, and files that could not be read when indexed, are not followed,
+ * and queries about them, or about anything under them, are answered straight from disk.
+ * <br>
+ * File visitors are never called while holding the index lock, so they can refresh the index,
+ * although changes made during a walk are not seen by that same walk.
+ *
+ * @author facarvalho
+ */
+class FileTreeIndexImpl implements FileTreeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileTreeIndexImpl.class);
+
+    // Returned by lookups whose answers must come from disk
+    private static final Node DISK = new Node("", Type.UNKNOWN, null);
+
+    private final File rootFolder;
+    private final Path root;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Null until the index is built, or after it has been discarded
+    private Node rootNode;
+
+    /**
+     * Creates a new, still empty, index for the given folder
+     *
+     * @param rootFolder the transformed application folder
+     */
+    FileTreeIndexImpl(File rootFolder) {
+        this.rootFolder = rootFolder;
+        this.root = toPath(rootFolder);
+    }
+
+    @Override
+    public boolean exists(File file) {
+        Node node = lookup(file);
+        if (node == DISK) {
+            return file.exists();
+        }
+        return node != null;
+    }
+
+    @Override
+    public boolean isFile(File file) {
+        Node node = lookup(file);
+        if (node == DISK) {
+            return file.isFile();
+        }
+        return node != null && node.type == Type.FILE;
+    }
+
+    @Override
+    public boolean isDirectory(File file) {
+        Node node = lookup(file);
+        if (node == DISK) {
+            return file.isDirectory();
+        }
+        return node != null && node.type == Type.DIRECTORY;
+    }
+
+    @Override
+    public void walkFileTree(Path start, int maxDepth, FileVisitor<? super Path> visitor) throws IOException {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("'maxDepth' is negative");
+        }
+        Node node = lookup(start.toFile());
+        if (node == DISK) {
+            Files.walkFileTree(start, EnumSet.noneOf(FileVisitOption.class), maxDepth, visitor);
+        } else if (node == null) {
+            visitor.visitFileFailed(start, new NoSuchFileException(start.toString()));
+        } else {
+            walk(start, node, 0, maxDepth, visitor);
+        }
+    }
+
+    @Override
+    public void refresh(File file) {
+        Path path = toPath(file);
+        if (!path.startsWith(root)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rootNode == null) {
+                return;
+            }
+            if (path.equals(root)) {
+                // Discarded, to be built again only if queried again
+                rootNode = null;
+                return;
+            }
+
+            // Finding the deepest indexed folder containing the given file,
+            // and then scanning again its entry in the path to the given file
+            Path relative = root.relativize(path);
+            Node parent = rootNode;
+            Path current = root;
+            for (int i = 0; i < relative.getNameCount(); i++) {
+                String name = relative.getName(i).toString();
+                current = current.resolve(name);
+                Node child = parent.children.get(name);
+                if (child == null || child.type != Type.DIRECTORY || i == relative.getNameCount() - 1) {
+                    Node scanned = scan(current);
+                    if (scanned == null) {
+                        parent.children.remove(name);
+                    } else {
+                        parent.children.put(name, scanned);
+                    }
+                    return;
+                }
+                parent = child;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Returns the indexed node of the given file, DISK if it has to be checked from disk,
+     * or null if it does not exist
+     */
+    private Node lookup(File file) {
+        Path path = toPath(file);
+        if (!path.startsWith(root)) {
+            return DISK;
+        }
+        Node rootNode = acquire();
+        if (rootNode == null) {
+            return DISK;
+        }
+        try {
+            return find(rootNode, path);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Returns the root node, building the index first if necessary, with the read lock held,
+     * or null, without holding the read lock, if the index could not be built
+     */
+    private Node acquire() {
+        while (true) {
+            lock.readLock().lock();
+            if (rootNode != null) {
+                return rootNode;
+            }
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                if (rootNode == null) {
+                    Node scanned = scan(root);
+                    if (scanned == null || scanned.type != Type.DIRECTORY) {
+                        logger.warn("File tree index could not be built for {}", rootFolder);
+                        return null;
+                    }
+                    rootNode = scanned;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Node find(Node rootNode, Path path) {
+        if (!path.startsWith(root)) {
+            return DISK;
+        }
+        Path relative = root.relativize(path);
+        Node node = rootNode;
+        for (int i = 0; i < relative.getNameCount(); i++) {
+            String name = relative.getName(i).toString();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (node.type == Type.UNKNOWN) {
+                return DISK;
+            }
+            if (node.type != Type.DIRECTORY) {
+                return null;
+            }
+            node = node.children.get(name);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node.type == Type.UNKNOWN ? DISK : node;
+    }
+
+    /*
+     * Mimics Files.walkFileTree, visiting indexed nodes instead of files in disk.
+     * The children of every folder are copied, holding the read lock, before they are visited
+     */
+    private FileVisitResult walk(Path path, Node node, int depth, int maxDepth, FileVisitor<? super Path> visitor) throws IOException {
+        if (node.failure != null) {
+            return visitor.visitFileFailed(path, node.failure);
+        }
+        if (node.type != Type.DIRECTORY || depth >= maxDepth) {
+            return visitor.visitFile(path, new NodeAttributes(path, node));
+        }
+        FileVisitResult result = visitor.preVisitDirectory(path, new NodeAttributes(path, node));
+        if (result != FileVisitResult.CONTINUE) {
+            return result == FileVisitResult.SKIP_SUBTREE ? FileVisitResult.CONTINUE : result;
+        }
+        Node[] children;
+        lock.readLock().lock();
+        try {
+            children = node.children.values().toArray(new Node[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (Node child : children) {
+            result = walk(path.resolve(child.name), child, depth + 1, maxDepth, visitor);
+            if (result == FileVisitResult.TERMINATE) {
+                return result;
+            }
+            if (result == FileVisitResult.SKIP_SIBLINGS) {
+                break;
+            }
+        }
+        return visitor.postVisitDirectory(path, null);
+    }
+
+    /*
+     * Scans the given file, or folder, and everything under it, from disk,
+     * returning null if it does not exist
+     */
+    private static Node scan(Path path) {
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return null;
+        }
+        Deque<Node> folders = new ArrayDeque<>();
+        Node[] top = new Node[1];
+        try {
+            Files.walkFileTree(path, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    Node node = add(dir, Type.DIRECTORY, null);
+                    node.children = new LinkedHashMap<>();
+                    folders.push(node);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    Type type;
+                    if (attrs.isRegularFile()) {
+                        type = Type.FILE;
+                    } else if (attrs.isSymbolicLink()) {
+                        type = Type.UNKNOWN;
+                    } else {
+                        type = Type.OTHER;
+                    }
+                    add(file, type, null);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    add(file, Type.UNKNOWN, exc);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                    Node node = folders.pop();
+                    if (exc != null) {
+                        // The folder could not be fully listed, so it is not indexed
+                        node.type = Type.UNKNOWN;
+                        node.children = null;
+                        node.failure = exc;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                private Node add(Path file, Type type, IOException failure) {
+                    Path fileName = file.getFileName();
+                    Node node = new Node(fileName == null ? "" : fileName.toString(), type, failure);
+                    if (folders.isEmpty()) {
+                        top[0] = node;
+                    } else {
+                        folders.peek().children.put(node.name, node);
+                    }
+                    return node;
+                }
+            });
+        } catch (IOException e) {
+            // Not expected, since the visitor above never throws exceptions
+            logger.warn("File tree index could not scan " + path, e);
+            return new Node(path.getFileName().toString(), Type.UNKNOWN, e);
+        }
+        return top[0];
+    }
+
+    private static Path toPath(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    private enum Type {
+        FILE, DIRECTORY, OTHER,
+
+        // Symbolic links, and files that could not be read, which are not indexed
+        UNKNOWN
+    }
+
+    /*
+     * An indexed file or folder. Only its type is known
+     */
+    private static final class Node {
+
+        private final String name;
+        private Type type;
+        private IOException failure;
+
+        // Only set for folders, keeping the order entries were originally listed
+        private Map<String, Node> children;
+
+        private Node(String name, Type type, IOException failure) {
+            this.name = name;
+            this.type = type;
+            this.failure = failure;
+        }
+
+    }
+
+    /*
+     * Attributes given to file visitors. Type related attributes come from the index,
+     * while the other ones are read from disk, only if they are asked for
+     */
+    private static final class NodeAttributes implements BasicFileAttributes {
+
+        private final Path path;
+        private final Node node;
+        private BasicFileAttributes diskAttributes;
+
+        private NodeAttributes(Path path, Node node) {
+            this.path = path;
+            this.node = node;
+        }
+
+        private BasicFileAttributes getDiskAttributes() {
+            if (diskAttributes == null) {
+                try {
+                    diskAttributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Attributes of " + path + " could not be read", e);
+                }
+            }
+            return diskAttributes;
+        }
+
+        @Override
+        public FileTime lastModifiedTime() {
+            return getDiskAttributes().lastModifiedTime();
+        }
+
+        @Override
+        public FileTime lastAccessTime() {
+            return getDiskAttributes().lastAccessTime();
+        }
+
+        @Override
+        public FileTime creationTime() {
+            return getDiskAttributes().creationTime();
+        }
+
+        @Override
+        public boolean isRegularFile() {
+            return node.type == Type.FILE;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return node.type == Type.DIRECTORY;
+        }
+
+        @Override
+        public boolean isSymbolicLink() {
+            return node.type == Type.UNKNOWN && node.failure == null;
+        }
+
+        @Override
+        public boolean isOther() {
+            return node.type == Type.OTHER;
+        }
+
+        @Override
+        public long size() {
+            return getDiskAttributes().size();
+        }
+
+        @Override
+        public Object fileKey() {
+            return getDiskAttributes().fileKey();
+        }
+
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.extensions.api.FileWorkingSet;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Per-transformation in-memory working set of application files.
+ * Files are kept in memory up to a maximum number of bytes. When that limit is
+ * reached, the least recently used files are evicted, being written to disk
+ * first if they have been modified (spilled).
+ *
+ * @author facarvalho
+ */
+class FileWorkingSetImpl implements FileWorkingSet {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileWorkingSetImpl.class);
+
+    private final long maxBytes;
+
+    // Files in memory, from the least to the most recently used
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes = 0;
+
+    /**
+     * Creates a new working set
+     *
+     * @param maxBytes maximum number of bytes kept in memory
+     */
+    FileWorkingSetImpl(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized byte[] read(File file) throws IOException {
+        Path path = toPath(file);
+        Entry entry = entries.get(path);
+        if (entry != null) {
+            return entry.content.clone();
+        }
+        byte[] content;
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            content = IOUtils.toByteArray(inputStream);
+        }
+        put(path, new Entry(content, false));
+        return content.clone();
+    }
+
+    @Override
+    public synchronized boolean write(File file, byte[] content) throws IOException {
+        Path path = toPath(file);
+        Entry entry = entries.get(path);
+        if (entry != null ? Arrays.equals(entry.content, content) : hasContent(file, content)) {
+            return false;
+        }
+        put(path, new Entry(content.clone(), true));
+        return true;
+    }
+
+    /**
+     * Writes to disk all modified files in the given file, or folder
+     *
+     * @param file the file, or folder, whose modified files should be written to disk
+     * @throws IOException if any file could not be written
+     */
+    synchronized void flush(File file) throws IOException {
+        Path prefix = toPath(file);
+        for (Map.Entry<Path, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().dirty && entry.getKey().startsWith(prefix)) {
+                writeToDisk(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Removes from memory all files in the given file, or folder, without writing them to disk.
+     * This must be called after they have been flushed, and then possibly modified
+     * straight in disk
+     *
+     * @param file the file, or folder, whose files should be removed from memory
+     */
+    synchronized void invalidate(File file) {
+        Path prefix = toPath(file);
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Entry> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                if (entry.getValue().dirty) {
+                    logger.warn("Modified file {} has been removed from working set without being written to disk", entry.getKey());
+                }
+                bytes -= entry.getValue().content.length;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns true if the working set has any file modified in memory
+     *
+     * @return true if the working set has any file modified in memory
+     */
+    synchronized boolean isDirty() {
+        for (Entry entry : entries.values()) {
+            if (entry.dirty) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(Path path, Entry entry) throws IOException {
+        Entry previous = entries.remove(path);
+        if (previous != null) {
+            bytes -= previous.content.length;
+        }
+        if (entry.content.length > maxBytes) {
+            // Too big to be kept in memory
+            if (entry.dirty) {
+                writeToDisk(path, entry);
+            }
+            return;
+        }
+        entries.put(path, entry);
+        bytes += entry.content.length;
+
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Path, Entry> eldest = iterator.next();
+            if (eldest.getValue().dirty) {
+                logger.debug("Spilling {} to disk", eldest.getKey());
+                writeToDisk(eldest.getKey(), eldest.getValue());
+            }
+            bytes -= eldest.getValue().content.length;
+            iterator.remove();
+        }
+    }
+
+    /*
+     * Returns true if the given file exists in disk and has exactly the given content
+     */
+    private static boolean hasContent(File file, byte[] content) throws IOException {
+        if (!file.isFile() || file.length() != content.length) {
+            return false;
+        }
+        return Arrays.equals(Files.readAllBytes(file.toPath()), content);
+    }
+
+    private static void writeToDisk(Path path, Entry entry) throws IOException {
+        Files.write(path, entry.content);
+        entry.dirty = false;
+    }
+
+    private static Path toPath(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    private static class Entry {
+        private final byte[] content;
+        private boolean dirty;
+
+        private Entry(byte[] content, boolean dirty) {
+            this.content = content;
+            this.dirty = dirty;
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.extensions.api.FusedStage;
+import com.paypal.butterfly.extensions.api.TOExecutionResult;
+import com.paypal.butterfly.extensions.api.TransformationOperation;
+import com.paypal.butterfly.extensions.api.TransformationUtility;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single streaming pass over the content of a text file, applying a run of adjacent
+ * fusible transformation operations against it (see {@link TransformationOperation#isFusible()}),
+ * instead of reading and writing the whole file once per operation.
+ * <br>
+ * The pass happens when the first operation in the run is performed, so it is accounted
+ * to it in the performance statistics. Every operation in the run, including the first one,
+ * is still performed regularly, getting its own execution result out of the pass.
+ * If the pass fails for any reason, the file is left untouched, and every operation
+ * is executed on its own, as if it had never been fused.
+ * That is also the case if an operation set to abort on failure results in error,
+ * so the operations after it are not applied, and the transformation is aborted
+ * exactly as it would have been if they had never been fused.
+ *
+ * @author facarvalho
+ */
+class FusedPass {
+
+    private static final Logger logger = LoggerFactory.getLogger(FusedPass.class);
+
+    private final List<TransformationOperation<?>> operations;
+    private final File file;
+    private final File transformedAppFolder;
+    private final TransformationContextImpl transformationContext;
+    private final FileWorkingSetImpl fileWorkingSet;
+
+    private boolean performed = false;
+
+    // Null if the pass has failed
+    private List<TOExecutionResult> results;
+
+    private FusedPass(List<TransformationOperation<?>> operations, File file, File transformedAppFolder, TransformationContextImpl transformationContext, FileWorkingSetImpl fileWorkingSet) {
+        this.operations = operations;
+        this.file = file;
+        this.transformedAppFolder = transformedAppFolder;
+        this.transformationContext = transformationContext;
+        this.fileWorkingSet = fileWorkingSet;
+    }
+
+    /**
+     * Finds the run of adjacent fusible operations against the same file starting at the given
+     * utility, and, if there are at least two of them, sets them up to be applied in a single pass.
+     * Operations with dependencies or conditions are never fused, since they might not be executed.
+     *
+     * @param utilities the list of sibling utilities to be performed sequentially
+     * @param index the index of the utility that is about to be performed
+     * @param transformedAppFolder the folder where the transformed application code is
+     * @param transformationContext the transformation context object
+     * @param fileWorkingSet the file working set, or null, if there is none
+     * @return the number of utilities, starting at {@code index}, that have been fused, or 1, if none
+     */
+    static int fuse(List<TransformationUtility> utilities, int index, File transformedAppFolder, TransformationContextImpl transformationContext, FileWorkingSetImpl fileWorkingSet) {
+        if (!isFusible(utilities.get(index))) {
+            return 1;
+        }
+        File file = UtilitiesGraph.getFootprint(utilities.get(index), transformedAppFolder, transformationContext);
+        if (!file.isFile()) {
+            return 1;
+        }
+        List<TransformationOperation<?>> operations = new ArrayList<>();
+        for (int i = index; i < utilities.size(); i++) {
+            TransformationUtility utility = utilities.get(i);
+            if (!isFusible(utility) || !file.equals(UtilitiesGraph.getFootprint(utility, transformedAppFolder, transformationContext))) {
+                break;
+            }
+            operations.add((TransformationOperation<?>) utility);
+        }
+        if (operations.size() < 2) {
+            return 1;
+        }
+
+        FusedPass fusedPass = new FusedPass(operations, file, transformedAppFolder, transformationContext, fileWorkingSet);
+        for (int i = 0; i < operations.size(); i++) {
+            int operationIndex = i;
+            operations.get(i).setFusedResultSupplier(() -> fusedPass.getResult(operationIndex));
+        }
+        logger.debug("{} operations against {} are fused in a single pass", operations.size(), file);
+
+        return operations.size();
+    }
+
+    private static boolean isFusible(TransformationUtility utility) {
+        if (!(utility instanceof TransformationOperation)) {
+            return false;
+        }
+        TransformationOperation<?> operation = (TransformationOperation<?>) utility;
+        return operation.isFusible()
+                && !operation.hasBeenPerformed()
+                && operation.getReferencedResults().isEmpty()
+                && operation.getIfConditionAttributeName() == null
+                && operation.getUnlessConditionAttributeName() == null
+                && operation.getUtilityCondition() == null;
+    }
+
+    /*
+     * Returns the execution result of the operation at the given index in the run,
+     * performing the pass first if not performed yet. Returns null if the pass has failed
+     */
+    private synchronized TOExecutionResult getResult(int index) {
+        if (!performed) {
+            performed = true;
+            results = perform();
+        }
+        return (results == null ? null : results.get(index));
+    }
+
+    private List<TOExecutionResult> perform() {
+        boolean workingSet = fileWorkingSet != null && operations.stream().allMatch(TransformationOperation::isWorkingSetAware);
+        try {
+            byte[] content;
+            if (workingSet) {
+                content = fileWorkingSet.read(file);
+            } else {
+                if (fileWorkingSet != null) {
+                    fileWorkingSet.flush(file);
+                }
+                content = Files.readAllBytes(file.toPath());
+            }
+
+            List<FusedStage> stages = new ArrayList<>(operations.size());
+            Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+            for (TransformationOperation<?> operation : operations) {
+                FusedStage stage = operation.fusedStage(reader, transformedAppFolder, transformationContext);
+                stages.add(stage);
+                reader = stage;
+            }
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length);
+            try (Reader lastStage = reader; Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+                IOUtils.copy(lastStage, writer);
+            }
+
+            List<TOExecutionResult> results = new ArrayList<>(stages.size());
+            for (int i = 0; i < stages.size(); i++) {
+                TOExecutionResult result = stages.get(i).getResult();
+                if (result.getType().equals(TOExecutionResult.Type.ERROR) && operations.get(i).isAbortOnFailure()) {
+                    logger.debug("Operation {} fused over {} has failed and aborts the transformation, its run will be executed one by one", operations.get(i).getName(), file);
+                    return null;
+                }
+                results.add(result);
+            }
+
+            byte[] newContent = outputStream.toByteArray();
+            if (!Arrays.equals(newContent, content)) {
+                if (workingSet) {
+                    fileWorkingSet.write(file, newContent);
+                } else {
+                    Files.write(file.toPath(), newContent);
+                    if (fileWorkingSet != null) {
+                        fileWorkingSet.invalidate(file);
+                    }
+                }
+
+                // The file is written only once for the whole pass, which is accounted to its last operation
+                results.get(results.size() - 1).addWrites(1, newContent.length);
+            }
+            return results;
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Fused pass over {} has failed, its operations will be executed one by one", file, e);
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,460 @@
+package com.paypal.butterfly.core;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Materializes the transformed application folder, out of the original
+ * application folder, before the first transformation utility is performed.
+ * <br>
+ * The following strategies are supported (see {@link Strategy}):
+ * <ol>
+ *     <li>{@code copy}: a regular recursive copy (the default)</li>
+ *     <li>{@code parallel-copy}: a recursive copy where files are copied concurrently</li>
+ *     <li>{@code hardlink}: files are hard linked, instead of copied, and the links are broken
+ *     right before they are modified (see {@link #unlink(File)})</li>
+ *     <li>{@code reflink}: files are cloned using copy-on-write, where the file system supports it</li>
+ * </ol>
+ * Hard links and reflinks require the original and the transformed application
+ * folders to be in the same file system. Whenever that is not possible, files are just copied.
+ * <br>
+ * Files and folders whose paths, relative to the original application folder,
+ * match any of the exclusion globs are not materialized at all. That is useful for
+ * folders no transformation template ever reads, such as {@code target} or {@code node_modules}.
+ * Globs starting with {@code **}{@code /} match at any depth, including right under the application folder,
+ * so {@code **}{@code /node_modules} excludes both {@code node_modules} and {@code web/node_modules}.
+ *
+ * @author facarvalho
+ */
+class OutputFolderMaterializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutputFolderMaterializer.class);
+
+    /**
+     * How transformed application files are created
+     */
+    enum Strategy {
+        COPY, PARALLEL_COPY, HARDLINK, REFLINK;
+
+        static Strategy fromName(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("Property %s must be copy, parallel-copy, hardlink or reflink, but it is %s", EngineSettings.MATERIALIZATION_STRATEGY, name), e);
+            }
+        }
+    }
+
+    // Number of files cloned by each reflink process
+    private static final int REFLINK_BATCH_SIZE = 256;
+
+    private final Strategy strategy;
+    private final List<PathMatcher> excludes;
+    private final int threads;
+
+    // Transformed application files still hard linked to the original application files
+    private final Set<Path> linkedFiles = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new output folder materializer
+     *
+     * @param strategy the materialization strategy
+     * @param excludes glob patterns of paths, relative to the original application folder, not to be materialized
+     * @param threads the number of threads used to copy files concurrently, when applicable
+     */
+    OutputFolderMaterializer(Strategy strategy, List<String> excludes, int threads) {
+        this.strategy = strategy;
+        this.threads = Math.max(1, threads);
+        this.excludes = new ArrayList<>();
+        FileSystem fileSystem = FileSystems.getDefault();
+        for (String exclude : excludes) {
+            this.excludes.add(fileSystem.getPathMatcher("glob:" + exclude));
+            if (exclude.startsWith("**/")) {
+                // Glob **/ requires at least one parent folder, so paths right under the root are matched separately
+                this.excludes.add(fileSystem.getPathMatcher("glob:" + exclude.substring(3)));
+            }
+        }
+    }
+
+    static OutputFolderMaterializer fromSettings(EngineSettings settings) {
+        Strategy strategy = Strategy.fromName(settings.getString(EngineSettings.MATERIALIZATION_STRATEGY, Strategy.COPY.name()));
+        List<String> excludes = new ArrayList<>();
+        for (String exclude : StringUtils.split(settings.getString(EngineSettings.MATERIALIZATION_EXCLUDES, ""), ',')) {
+            if (StringUtils.isNotBlank(exclude)) {
+                excludes.add(exclude.trim());
+            }
+        }
+        int threads = settings.getInt(EngineSettings.MATERIALIZATION_THREADS, Runtime.getRuntime().availableProcessors());
+        return new OutputFolderMaterializer(strategy, excludes, threads);
+    }
+
+    Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns true if the given path, relative to the original application folder, is excluded
+     *
+     * @param relativePath a path relative to the original application folder
+     * @return true if the given path is excluded
+     */
+    boolean isExcluded(Path relativePath) {
+        for (PathMatcher exclude : excludes) {
+            if (exclude.matches(relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Materializes the content of {@code source} into {@code target},
+     * which must already exist
+     *
+     * @param source the original application folder
+     * @param target the transformed application folder
+     * @throws IOException if any file could not be materialized
+     */
+    void materialize(File source, File target) throws IOException {
+        long start = System.currentTimeMillis();
+        switch (strategy) {
+            case COPY:
+                if (excludes.isEmpty()) {
+                    FileUtils.copyDirectory(source, target);
+                } else {
+                    Path sourcePath = source.toPath();
+                    FileUtils.copyDirectory(source, target, file -> !isExcluded(sourcePath.relativize(file.toPath())));
+                }
+                break;
+            case PARALLEL_COPY:
+                materializeTree(source.toPath(), target.toPath(), new ParallelCopier());
+                break;
+            case HARDLINK:
+                materializeTree(source.toPath(), target.toPath(), new Linker());
+                break;
+            case REFLINK:
+                materializeTree(source.toPath(), target.toPath(), new Reflinker());
+                break;
+        }
+        logger.debug("Transformed application folder materialized ({}) in {} ms", strategy, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns true if there is at least one transformed application file
+     * still hard linked to its original application file
+     *
+     * @return true if there is at least one hard linked file
+     */
+    boolean hasLinkedFiles() {
+        return !linkedFiles.isEmpty();
+    }
+
+    /**
+     * Breaks the hard link between the given transformed application file
+     * and its original application file, if there is any, by replacing it with a copy.
+     * If a folder is given, all files under it are unlinked.
+     * This must be called right before a file is modified
+     *
+     * @param file the transformed application file, or folder, to be unlinked
+     * @throws IOException if the hard link could not be broken
+     */
+    void unlink(File file) throws IOException {
+        if (linkedFiles.isEmpty()) {
+            return;
+        }
+        Path path = file.toPath().toAbsolutePath().normalize();
+        if (linkedFiles.remove(path)) {
+            breakLink(path);
+            return;
+        }
+        List<Path> under = new ArrayList<>();
+        for (Path linkedFile : linkedFiles) {
+            if (linkedFile.startsWith(path)) {
+                under.add(linkedFile);
+            }
+        }
+        for (Path linkedFile : under) {
+            if (linkedFiles.remove(linkedFile)) {
+                breakLink(linkedFile);
+            }
+        }
+    }
+
+    private static void breakLink(Path path) throws IOException {
+        if (!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+            // It has been deleted, or replaced by a brand new file, already
+            return;
+        }
+        Path copy = path.resolveSibling(path.getFileName() + ".butterfly-unlink");
+        Files.copy(path, copy, StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+        try {
+            Files.move(copy, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(copy, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Moves the whole content of {@code source} into {@code target}, which must already exist,
+     * except for the children of {@code source} named in {@code kept}, which are copied instead.
+     * Each child is renamed atomically where possible, falling back to being copied and deleted
+     * otherwise (when {@code source} and {@code target} are in different file systems, for example)
+     *
+     * @param source the folder whose content is moved
+     * @param target the folder the content is moved to
+     * @param kept names of children of {@code source} to be copied, instead of moved
+     * @throws IOException if the content could not be moved
+     */
+    void moveContent(File source, File target, String... kept) throws IOException {
+        List<String> keptNames = Arrays.asList(kept);
+        boolean renaming = true;
+        File[] children = source.listFiles();
+        if (children == null) {
+            throw new IOException("Folder could not be listed: " + source);
+        }
+        for (File child : children) {
+            Path relativePath = source.toPath().relativize(child.toPath());
+            File destination = new File(target, child.getName());
+            if (keptNames.contains(child.getName())) {
+                if (!isExcluded(relativePath)) {
+                    if (child.isDirectory()) {
+                        FileUtils.copyDirectory(child, destination);
+                    } else {
+                        FileUtils.copyFile(child, destination);
+                    }
+                }
+                continue;
+            }
+            if (renaming) {
+                try {
+                    Files.move(child.toPath(), destination.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    continue;
+                } catch (AtomicMoveNotSupportedException e) {
+                    logger.debug("Atomic rename from {} to {} is not supported, copying instead", source, target);
+                    renaming = false;
+                }
+            }
+            if (child.isDirectory()) {
+                FileUtils.copyDirectory(child, destination);
+            } else {
+                FileUtils.copyFile(child, destination);
+            }
+            FileUtils.forceDelete(child);
+        }
+    }
+
+    /*
+     * Walks the source tree, creating folders in the target tree, and handing over
+     * regular files to the given file materializer
+     */
+    private void materializeTree(Path source, Path target, FileMaterializer fileMaterializer) throws IOException {
+        Map<Path, FileTime> folderTimes = new HashMap<>();
+        try {
+            Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    Path relativePath = source.relativize(dir);
+                    if (relativePath.toString().length() > 0 && isExcluded(relativePath)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    Path targetDir = target.resolve(relativePath.toString());
+                    Files.createDirectories(targetDir);
+                    folderTimes.put(targetDir, attrs.lastModifiedTime());
+                    return FileVisitResult.CONTINUE;
+                }
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Path relativePath = source.relativize(file);
+                    if (!isExcluded(relativePath)) {
+                        fileMaterializer.materialize(file, target.resolve(relativePath.toString()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            fileMaterializer.finish();
+        } finally {
+            fileMaterializer.close();
+        }
+
+        // Same as FileUtils.copyDirectory, folders keep their original last modified time
+        for (Map.Entry<Path, FileTime> folderTime : folderTimes.entrySet()) {
+            Files.setLastModifiedTime(folderTime.getKey(), folderTime.getValue());
+        }
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /*
+     * Materializes each regular file visited in the source tree
+     */
+    private interface FileMaterializer {
+
+        void materialize(Path source, Path target) throws IOException;
+
+        // Waits for any pending file to be materialized
+        default void finish() throws IOException {
+        }
+
+        // Releases any resources, regardless of whether all files were materialized
+        default void close() {
+        }
+
+    }
+
+    private class ParallelCopier implements FileMaterializer {
+
+        private final ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("butterfly-materializer-%d").setDaemon(true).build());
+        private final List<Future<?>> futures = new ArrayList<>();
+
+        @Override
+        public void materialize(Path source, Path target) {
+            futures.add(executor.submit(() -> {
+                copy(source, target);
+                return null;
+            }));
+        }
+
+        @Override
+        public void finish() throws IOException {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while copying files", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException("File could not be copied", e.getCause());
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+
+    }
+
+    private class Linker implements FileMaterializer {
+
+        private boolean linking = true;
+
+        @Override
+        public void materialize(Path source, Path target) throws IOException {
+            if (linking) {
+                try {
+                    Files.createLink(target, source);
+                    linkedFiles.add(target.toAbsolutePath().normalize());
+                    return;
+                } catch (UnsupportedOperationException | IOException e) {
+                    logger.warn("Hard links are not supported from {} to {}, copying files instead", source, target);
+                    linking = false;
+                }
+            }
+            copy(source, target);
+        }
+
+    }
+
+    private class Reflinker implements FileMaterializer {
+
+        // Files waiting to be cloned, per target folder
+        private final Map<Path, List<Path>> batches = new LinkedHashMap<>();
+        private int batched = 0;
+
+        // Used whenever reflinks are not supported
+        private ParallelCopier copier;
+
+        @Override
+        public void materialize(Path source, Path target) throws IOException {
+            if (copier != null) {
+                copier.materialize(source, target);
+                return;
+            }
+            batches.computeIfAbsent(target.getParent(), p -> new ArrayList<>()).add(source);
+            if (++batched >= REFLINK_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            for (Map.Entry<Path, List<Path>> batch : batches.entrySet()) {
+                if (copier == null && !reflink(batch.getValue(), batch.getKey())) {
+                    logger.warn("Reflinks are not supported in {}, copying files instead", batch.getKey());
+                    copier = new ParallelCopier();
+                }
+                if (copier != null) {
+                    for (Path source : batch.getValue()) {
+                        copier.materialize(source, batch.getKey().resolve(source.getFileName().toString()));
+                    }
+                }
+            }
+            batches.clear();
+            batched = 0;
+        }
+
+        private boolean reflink(List<Path> sources, Path targetDir) throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add("cp");
+            command.add("--reflink=always");
+            command.add("--preserve=mode,timestamps");
+            command.add("-t");
+            command.add(targetDir.toString());
+            for (Path source : sources) {
+                command.add(source.toString());
+            }
+            try {
+                Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+                String output = IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8);
+                int exitValue = process.waitFor();
+                if (exitValue != 0) {
+                    logger.debug("Reflink failed with exit value {}: {}", exitValue, output);
+                    return false;
+                }
+                return true;
+            } catch (IOException e) {
+                // The cp command is not available
+                logger.debug("Reflink failed", e);
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while cloning files", e);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            flush();
+            if (copier != null) {
+                copier.finish();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (copier != null) {
+                copier.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.extensions.api.TransformationUtility;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures wall time, CPU time and heap allocation of the current thread
+ * while a transformation utility is performed, registering them in the
+ * transformation context statistics when stopped.
+ * Probes must be started and stopped by the same thread.
+ *
+ * @author facarvalho
+ */
+class PerformanceProbe {
+
+    // Used when performance statistics are disabled
+    static final PerformanceProbe DISABLED = new PerformanceProbe(0, 0, 0) {
+        @Override
+        void stop(TransformationUtility utility, TransformationContextImpl transformationContext) {
+        }
+    };
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    // Only HotSpot based JVMs are able to measure thread memory allocation
+    private static final boolean allocationMeasurable = isAllocationMeasurable();
+
+    private final long wallTime;
+    private final long cpuTime;
+    private final long allocatedBytes;
+
+    private PerformanceProbe(long wallTime, long cpuTime, long allocatedBytes) {
+        this.wallTime = wallTime;
+        this.cpuTime = cpuTime;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /*
+     * Checks reflectively if the HotSpot specific API is available,
+     * so it is never linked by JVMs that don't have it
+     */
+    private static boolean isAllocationMeasurable() {
+        try {
+            Class<?> allocationMXBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+            return allocationMXBeanClass.isInstance(threadMXBean) && HotSpotAllocation.isEnabled();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Starts measuring the current thread
+     *
+     * @return a new probe, to be stopped by the current thread
+     */
+    static PerformanceProbe start() {
+        return new PerformanceProbe(System.nanoTime(), getCpuTime(), getAllocatedBytes());
+    }
+
+    /**
+     * Stops measuring the current thread, registering the figures measured since
+     * this probe was started in the statistics of the given transformation context
+     *
+     * @param utility the transformation utility the figures are accounted to
+     * @param transformationContext the transformation context whose statistics are updated
+     */
+    void stop(TransformationUtility utility, TransformationContextImpl transformationContext) {
+        long wallTime = System.nanoTime() - this.wallTime;
+        long cpuTime = delta(this.cpuTime, getCpuTime());
+        long allocatedBytes = delta(this.allocatedBytes, getAllocatedBytes());
+        transformationContext.registerPerformance(utility, wallTime, cpuTime, allocatedBytes);
+    }
+
+    // Returns -1 if not supported, which is also the case for virtual threads
+    private static long getCpuTime() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    // Returns -1 if not supported, which is also the case for virtual threads
+    private static long getAllocatedBytes() {
+        return allocationMeasurable ? HotSpotAllocation.getAllocatedBytes() : -1;
+    }
+
+    private static long delta(long start, long end) {
+        return start < 0 || end < 0 ? 0 : end - start;
+    }
+
+    /*
+     * The only class referring to the HotSpot specific API, which is
+     * loaded only after it is known to be available
+     */
+    private static final class HotSpotAllocation {
+
+        private static final com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+
+        private static boolean isEnabled() {
+            return allocationMXBean.isThreadAllocatedMemorySupported() && allocationMXBean.isThreadAllocatedMemoryEnabled();
+        }
+
+        private static long getAllocatedBytes() {
+            return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+    }
+
+}
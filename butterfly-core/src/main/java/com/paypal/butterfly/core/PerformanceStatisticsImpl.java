@@ -0,0 +1,46 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.api.PerformanceStatistics;
+
+/**
+ * POJO to hold performance figures aggregated
+ * over one or more transformation utility executions
+ *
+ * @author facarvalho
+ */
+@SuppressWarnings("PMD.DefaultPackage")
+class PerformanceStatisticsImpl implements PerformanceStatistics {
+
+    private int performCount = 0;
+    private long wallTime = 0;
+    private long cpuTime = 0;
+    private long allocatedBytes = 0;
+
+    void add(long wallTime, long cpuTime, long allocatedBytes) {
+        performCount++;
+        this.wallTime += wallTime;
+        this.cpuTime += cpuTime;
+        this.allocatedBytes += allocatedBytes;
+    }
+
+    @Override
+    public int getPerformCount() {
+        return performCount;
+    }
+
+    @Override
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    @Override
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+}
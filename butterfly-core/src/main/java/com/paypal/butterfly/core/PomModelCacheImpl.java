@@ -0,0 +1,113 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.extensions.api.PomModelCache;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-transformation cache of parsed Maven POM files.
+ * Every cached model is kept along with the content it was parsed from, and, if it was read from disk,
+ * with the version of the file at that moment, so the file is only read again if its version changes,
+ * and only parsed again if its content changes.
+ * <br>
+ * Cached models are never handed out, only copies of them.
+ * Files are cached by their real paths (see {@link Path#toRealPath(java.nio.file.LinkOption...)}).
+ *
+ * @author facarvalho
+ */
+class PomModelCacheImpl implements PomModelCache {
+
+    // Version of entries whose content has not been read from disk
+    private static final long NO_VERSION = -1;
+
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public Model getModel(File pomFile) throws IOException, XmlPullParserException {
+        Path path = toPath(pomFile);
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        Entry entry = entries.get(path);
+        if (entry != null && entry.lastModified == lastModified && entry.size == size) {
+            return entry.model.clone();
+        }
+        return getModel(path, Files.readAllBytes(path), lastModified, size);
+    }
+
+    @Override
+    public Model getModel(File pomFile, byte[] content) throws IOException, XmlPullParserException {
+        return getModel(toPath(pomFile), content, NO_VERSION, NO_VERSION);
+    }
+
+    @Override
+    public void invalidate(File file) {
+        Path path = toPath(file);
+        if (entries.remove(path) == null) {
+            entries.keySet().removeIf(p -> p.startsWith(path));
+        }
+    }
+
+    private Model getModel(Path path, byte[] content, long lastModified, long size) throws IOException, XmlPullParserException {
+        Entry entry = entries.get(path);
+        Model model;
+        if (entry != null && Arrays.equals(entry.content, content)) {
+            if (lastModified == NO_VERSION || entry.lastModified == lastModified && entry.size == size) {
+                return entry.model.clone();
+            }
+
+            // Same content, just a newer version of the file, so it is not parsed again
+            model = entry.model;
+        } else {
+            model = new MavenXpp3Reader().read(new ByteArrayInputStream(content));
+        }
+        entries.put(path, new Entry(model, (lastModified == NO_VERSION ? content.clone() : content), lastModified, size));
+        return model.clone();
+    }
+
+    /*
+     * Returns the real path of the given file, so it is cached only once regardless of the symbolic links
+     * in the path it is referred to by. Files that don't exist, such as removed files being invalidated,
+     * get the real path of their closest existing parent folder, followed by the rest of their normalized path
+     */
+    private static Path toPath(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        for (Path existing = path; existing != null; existing = existing.getParent()) {
+            try {
+                return existing.toRealPath().resolve(existing.relativize(path));
+            } catch (IOException e) {
+                // It doesn't exist, so its parent folder is tried
+            }
+        }
+        return path;
+    }
+
+    private static final class Entry {
+
+        private final Model model;
+        private final byte[] content;
+        private final long lastModified;
+        private final long size;
+
+        private Entry(Model model, byte[] content, long lastModified, long size) {
+            this.model = model;
+            this.content = content;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -1,8 +1,14 @@
 package com.paypal.butterfly.core;
 
+import com.paypal.butterfly.extensions.api.CompilationUnitCache;
+import com.paypal.butterfly.extensions.api.DocumentCache;
+import com.paypal.butterfly.extensions.api.FileTreeIndex;
+import com.paypal.butterfly.extensions.api.FileWorkingSet;
 import com.paypal.butterfly.extensions.api.PerformResult;
+import com.paypal.butterfly.extensions.api.PomModelCache;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationTemplate;
+import com.paypal.butterfly.extensions.api.TransformationUtility;
 import com.paypal.butterfly.api.AbortDetails;
 import com.paypal.butterfly.api.TransformationStatistics;
 import com.paypal.butterfly.extensions.api.utilities.ManualInstructionRecord;
@@ -23,18 +29,49 @@ import java.util.*;
 class TransformationContextImpl implements TransformationContext {
 
     private TransformationTemplate transformationTemplate;
-    private Map<String, Object> attributes = new HashMap<>();
-    private Map<String, PerformResult> results = new HashMap<>();
-    private List<ManualInstructionRecord> manualInstructionRecords = new ArrayList<>();
+    // Synchronized, since utilities might be performed concurrently (see UtilitiesGraph)
+    private Map<String, Object> attributes = Collections.synchronizedMap(new HashMap<>());
+    private Map<String, PerformResult> results = Collections.synchronizedMap(new HashMap<>());
+    private List<ManualInstructionRecord> manualInstructionRecords = Collections.synchronizedList(new ArrayList<>());
     private boolean successfulTransformation = true;
     private boolean collectStats = false;
     private TransformationStatisticsImpl statistics;
     private String upgradeCorrelationId;
     private AbortDetails abortDetails;
+    private FileWorkingSetImpl fileWorkingSet;
+    private FileTreeIndexImpl fileTreeIndex;
+    private PomModelCacheImpl pomModelCache;
+    private DocumentCacheImpl documentCache;
+    private CompilationUnitCacheImpl compilationUnitCache;
 
     private TransformationContextImpl() {
     }
 
+    TransformationContextImpl setFileWorkingSet(FileWorkingSetImpl fileWorkingSet) {
+        this.fileWorkingSet = fileWorkingSet;
+        return this;
+    }
+
+    TransformationContextImpl setFileTreeIndex(FileTreeIndexImpl fileTreeIndex) {
+        this.fileTreeIndex = fileTreeIndex;
+        return this;
+    }
+
+    TransformationContextImpl setPomModelCache(PomModelCacheImpl pomModelCache) {
+        this.pomModelCache = pomModelCache;
+        return this;
+    }
+
+    TransformationContextImpl setDocumentCache(DocumentCacheImpl documentCache) {
+        this.documentCache = documentCache;
+        return this;
+    }
+
+    TransformationContextImpl setCompilationUnitCache(CompilationUnitCacheImpl compilationUnitCache) {
+        this.compilationUnitCache = compilationUnitCache;
+        return this;
+    }
+
     TransformationContextImpl setCollectStats(boolean collectStats) {
         this.collectStats = collectStats;
         if (collectStats) {
@@ -62,6 +99,7 @@ class TransformationContextImpl implements TransformationContext {
             // TransformationContextException could be a good one, however, it is a checked exception, we definitely need a runtime exception here.
             throw new IllegalArgumentException("Transformation context attribute key cannot be null");
         }
+        UtilitiesGraph.awaitProducer(name, false);
         return attributes.get(name);
     }
 
@@ -70,11 +108,38 @@ class TransformationContextImpl implements TransformationContext {
         if(StringUtils.isBlank(utilityName)) {
             throw new IllegalArgumentException("Result key cannot be null");
         }
+        UtilitiesGraph.awaitProducer(utilityName, true);
         return results.get(utilityName);
     }
 
+    @Override
+    public FileWorkingSet getFileWorkingSet() {
+        return fileWorkingSet;
+    }
+
+    @Override
+    public FileTreeIndex getFileTreeIndex() {
+        return fileTreeIndex;
+    }
+
+    @Override
+    public PomModelCache getPomModelCache() {
+        return pomModelCache;
+    }
+
+    @Override
+    public DocumentCache getDocumentCache() {
+        return documentCache;
+    }
+
+    @Override
+    public CompilationUnitCache getCompilationUnitCache() {
+        return compilationUnitCache;
+    }
+
     @Override
     public boolean contains(String name) {
+        UtilitiesGraph.awaitProducer(name, false);
         return attributes.containsKey(name);
     }
 
@@ -137,6 +202,21 @@ class TransformationContextImpl implements TransformationContext {
         return this;
     }
 
+    /**
+     * Registers the performance figures measured while performing a transformation utility
+     *
+     * @param utility the transformation utility the figures are accounted to
+     * @param wallTime wall clock time, in nanoseconds
+     * @param cpuTime thread CPU time, in nanoseconds
+     * @param allocatedBytes number of bytes allocated in heap by the thread
+     */
+    TransformationContextImpl registerPerformance(TransformationUtility utility, long wallTime, long cpuTime, long allocatedBytes) {
+        if (collectStats) {
+            statistics.registerPerformance(utility, wallTime, cpuTime, allocatedBytes);
+        }
+        return this;
+    }
+
     /**
      * Returns the {@link TransformationTemplate} object
      * whose execution originated this context object
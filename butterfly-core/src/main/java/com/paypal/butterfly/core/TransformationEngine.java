@@ -11,8 +11,10 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The transformation engine in charge of
@@ -32,11 +34,14 @@ class TransformationEngine {
 
     private TransformationValidator validator;
 
-    // One thread per core is not enough because most Butterfly transformations are IO heavy
-    private static final int MIN_THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
-    private static final int MAX_THREAD_POOL_SIZE = MIN_THREAD_POOL_SIZE * 2;
+    private EngineSettings engineSettings;
 
-    private ExecutorService executor = new ThreadPoolExecutor(MIN_THREAD_POOL_SIZE, MAX_THREAD_POOL_SIZE, 5, TimeUnit.MINUTES, new LinkedBlockingQueue<>());
+    private AdmissionControl admissionControl;
+
+    // Executors are created lazily, the first time a transformation request selects their strategy
+    private final Map<ExecutorStrategy, ExecutorService> executors = new EnumMap<>(ExecutorStrategy.class);
+
+    private final AtomicLong sequence = new AtomicLong();
 
     @PostConstruct
     void setupListeners() {
@@ -48,25 +53,95 @@ class TransformationEngine {
 
         validator = applicationContext.getBean(TransformationValidator.class);
         manualInstructionsHandler = applicationContext.getBean(ManualInstructionsHandler.class);
+        engineSettings = new EngineSettings(applicationContext.getEnvironment());
+        admissionControl = AdmissionControl.fromSettings(engineSettings);
     }
 
     /**
      * Perform an application transformation based on the specified {@link TransformationRequest}
      * object
+     * <br>
+     * The transformation request is first submitted to admission control (see {@link AdmissionControl}),
+     * which might block this call, or reject the request. In the latter case, the returned
+     * {@link CompletableFuture} is completed exceptionally with a {@link RejectedExecutionException}.
+     * Once admitted, the transformation runs on a thread created according to the
+     * {@link ExecutorStrategy} set in the transformation request configuration, or in the Spring environment.
      *
      * @param transformationRequest the transformationRequest object
      * @return a {@link CompletableFuture} object referring to the result after performing this transformation request
      */
     CompletableFuture<TransformationResult> perform(TransformationRequest transformationRequest) {
-        return CompletableFuture.supplyAsync(
-                Transformer.createTransformer(transformationRequest, transformationListeners, manualInstructionsHandler, validator),
-                executor
-        );
+        CompletableFuture<TransformationResult> future = new CompletableFuture<>();
+        Transformer transformer = Transformer.createTransformer(transformationRequest, transformationListeners, manualInstructionsHandler, validator, engineSettings);
+
+        int priority;
+        ExecutorService executor;
+        AdmissionControl.Ticket ticket;
+        try {
+            EngineSettings requestSettings = engineSettings.forConfiguration(transformationRequest.getConfiguration());
+            priority = requestSettings.getPriority();
+            executor = getExecutor(requestSettings.getExecutorStrategy());
+            ticket = admissionControl.admit(transformationRequest);
+        } catch (IllegalArgumentException | RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        try {
+            executor.execute(new PrioritizedTask(priority, sequence.getAndIncrement(), () -> {
+                ticket.started();
+                try {
+                    future.complete(transformer.get());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    ticket.finished();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            ticket.finished();
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /*
+     * A task waiting in the executor queue, ordered by priority (highest first),
+     * and then by arrival order
+     */
+    private static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+        private final int priority;
+        private final long sequence;
+        private final Runnable task;
+
+        private PrioritizedTask(int priority, long sequence, Runnable task) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int comparison = Integer.compare(other.priority, priority);
+            return (comparison != 0 ? comparison : Long.compare(sequence, other.sequence));
+        }
+
+    }
+
+    private synchronized ExecutorService getExecutor(ExecutorStrategy executorStrategy) {
+        return executors.computeIfAbsent(executorStrategy, ExecutorStrategy::createExecutor);
     }
 
     @PreDestroy
-    void shutdownExecutor() {
-        executor.shutdown();
+    synchronized void shutdownExecutor() {
+        executors.values().forEach(ExecutorService::shutdown);
     }
 
 }
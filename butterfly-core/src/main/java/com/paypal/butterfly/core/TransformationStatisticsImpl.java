@@ -1,10 +1,15 @@
 package com.paypal.butterfly.core;
 
 import com.paypal.butterfly.extensions.api.*;
+import com.paypal.butterfly.api.PerformanceStatistics;
 import com.paypal.butterfly.api.TransformationStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * POJO to hold transformation statistics
  *
@@ -30,6 +35,11 @@ class TransformationStatisticsImpl implements TransformationStatistics {
     // Number of necessary manual instructions (if any)
     private int manualInstructionsCount = 0;
 
+    // Performance figures per utility name, utility class name and utility parent name
+    private final Map<String, PerformanceStatisticsImpl> utilitiesPerformance = new LinkedHashMap<>();
+    private final Map<String, PerformanceStatisticsImpl> utilityClassesPerformance = new LinkedHashMap<>();
+    private final Map<String, PerformanceStatisticsImpl> parentsPerformance = new LinkedHashMap<>();
+
     void registerResult(PerformResult result) {
 
         ExecutionResult executionResult = null;
@@ -59,6 +69,8 @@ class TransformationStatisticsImpl implements TransformationStatistics {
             operationsCount++;
             if (executionResult != null) {
                 TOExecutionResult toExecutionResult = (TOExecutionResult) executionResult;
+                executionResults.operations.filesTouchedCount += toExecutionResult.getFilesTouched();
+                executionResults.operations.bytesWritten += toExecutionResult.getBytesWritten();
                 switch (toExecutionResult.getType()) {
                     case NO_OP:
                         executionResults.operations.noOpCount++;
@@ -102,6 +114,20 @@ class TransformationStatisticsImpl implements TransformationStatistics {
         }
     }
 
+    // Synchronized, since utilities might be performed concurrently (see UtilitiesGraph)
+    synchronized void registerPerformance(TransformationUtility utility, long wallTime, long cpuTime, long allocatedBytes) {
+        utilitiesPerformance.computeIfAbsent(utility.getName(), n -> new PerformanceStatisticsImpl()).add(wallTime, cpuTime, allocatedBytes);
+        utilityClassesPerformance.computeIfAbsent(utility.getClass().getName(), n -> new PerformanceStatisticsImpl()).add(wallTime, cpuTime, allocatedBytes);
+
+        // Transformation templates and upgrade steps are parents too, but not utilities
+        Object parent = (utility instanceof TransformationUtilityParent ? utility : utility.getParent());
+        while (parent instanceof TransformationUtility) {
+            TransformationUtility parentUtility = (TransformationUtility) parent;
+            parentsPerformance.computeIfAbsent(parentUtility.getName(), n -> new PerformanceStatisticsImpl()).add(wallTime, cpuTime, allocatedBytes);
+            parent = parentUtility.getParent();
+        }
+    }
+
     void addManualInstruction() {
         manualInstructionsCount++;
     }
@@ -176,11 +202,36 @@ class TransformationStatisticsImpl implements TransformationStatistics {
         return executionResults.operations.errorCount;
     }
 
+    @Override
+    public int getTOFilesTouchedCount() {
+        return executionResults.operations.filesTouchedCount;
+    }
+
+    @Override
+    public long getTOBytesWritten() {
+        return executionResults.operations.bytesWritten;
+    }
+
     @Override
     public int getManualInstructionsCount() {
         return manualInstructionsCount;
     }
 
+    @Override
+    public synchronized Map<String, PerformanceStatistics> getUtilitiesPerformance() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(utilitiesPerformance));
+    }
+
+    @Override
+    public synchronized Map<String, PerformanceStatistics> getUtilityClassesPerformance() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(utilityClassesPerformance));
+    }
+
+    @Override
+    public synchronized Map<String, PerformanceStatistics> getParentsPerformance() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(parentsPerformance));
+    }
+
     // Statistics per perform result
     private static class PerformResults {
         private int errorCount = 0;
@@ -207,6 +258,8 @@ class TransformationStatisticsImpl implements TransformationStatistics {
             private int successCount = 0;
             private int warningCount = 0;
             private int errorCount = 0;
+            private int filesTouchedCount = 0;
+            private long bytesWritten = 0;
         }
     }
     
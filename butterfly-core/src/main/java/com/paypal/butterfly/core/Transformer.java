@@ -1,5 +1,6 @@
 package com.paypal.butterfly.core;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.paypal.butterfly.api.*;
 import com.paypal.butterfly.api.exception.TransformationException;
 import com.paypal.butterfly.extensions.api.*;
@@ -8,7 +9,6 @@ import com.paypal.butterfly.extensions.api.upgrade.UpgradeStep;
 import com.paypal.butterfly.extensions.api.utilities.Abort;
 import com.paypal.butterfly.extensions.api.utilities.ManualInstruction;
 import com.paypal.butterfly.extensions.api.utilities.ManualInstructionRecord;
-import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,7 +20,9 @@ import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.concurrent.Callable;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -47,16 +49,41 @@ class Transformer implements Supplier<TransformationResult> {
 
     private TransformationRequest transformationRequest;
 
+    private EngineSettings engineSettings;
+
+    // Used to perform utilities concurrently, only if enabled (see EngineSettings)
+    private ExecutorService utilitiesExecutor;
+    private boolean parallelUtilities;
+    private boolean parallelChildren;
+    private boolean parallelConditions;
+
+    private OutputFolderMaterializer materializer;
+
+    private FileWorkingSetImpl fileWorkingSet;
+
+    private FileTreeIndexImpl fileTreeIndex;
+
+    private PomModelCacheImpl pomModelCache;
+
+    private DocumentCacheImpl documentCache;
+
+    private CompilationUnitCacheImpl compilationUnitCache;
+
+    private boolean performanceStatistics;
+
+    private boolean fuseOperations;
+
     private Transformer() {
     }
 
-    static Transformer createTransformer(TransformationRequest request, Collection<TransformationListener> listeners, ManualInstructionsHandler handler, TransformationValidator validator) {
+    static Transformer createTransformer(TransformationRequest request, Collection<TransformationListener> listeners, ManualInstructionsHandler handler, TransformationValidator validator, EngineSettings settings) {
         Transformer transformer = new Transformer();
 
         transformer.transformationRequest = request;
         transformer.transformationListeners = listeners;
         transformer.manualInstructionsHandler = handler;
         transformer.validator = validator;
+        transformer.engineSettings = settings;
 
         return transformer;
     }
@@ -74,10 +101,43 @@ class Transformer implements Supplier<TransformationResult> {
         logger.info("Extension version:\t\t\t\t{}", transformationRequest.getExtensionVersion());
         logger.info("Transformation template:\t\t\t{}", transformationRequest.getTemplateClassName());
 
+        EngineSettings settings = engineSettings.forConfiguration(transformationRequest.getConfiguration());
+        materializer = OutputFolderMaterializer.fromSettings(settings);
+        if (settings.isWorkingSetEnabled()) {
+            fileWorkingSet = new FileWorkingSetImpl(settings.getWorkingSetMaxBytes());
+        }
+        performanceStatistics = settings.isPerformanceStatistics();
+        fuseOperations = settings.isFuseOperations();
+
         File transformedAppFolder = prepareOutputFolder(transformationRequest);
+        fileTreeIndex = settings.isFileTreeIndexEnabled() ? new FileTreeIndexImpl(transformedAppFolder) : null;
+        pomModelCache = settings.isPomModelCacheEnabled() ? new PomModelCacheImpl() : null;
+        documentCache = settings.isDocumentCacheEnabled() ? new DocumentCacheImpl() : null;
+        compilationUnitCache = settings.isCompilationUnitCacheEnabled() ? new CompilationUnitCacheImpl() : null;
         List<TransformationContextImpl> transformationContexts = new ArrayList<>();
 
-        TransformationResult transformationResult = performTransformation(transformedAppFolder, transformationRequest, transformationContexts);
+        parallelUtilities = settings.isParallelUtilities();
+        parallelChildren = settings.isParallelChildren();
+        parallelConditions = settings.isParallelConditions();
+        if (parallelUtilities || parallelChildren || parallelConditions) {
+            int threads = settings.getParallelThreads();
+            List<String> scope = new ArrayList<>();
+            if (parallelUtilities) scope.add("utilities");
+            if (parallelChildren) scope.add("utility parents children");
+            if (parallelConditions) scope.add("multiple file conditions");
+            logger.info("Parallel mode enabled for {}, using up to {} threads", String.join(", ", scope), threads);
+            ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("butterfly-utilities-" + transformationRequest.getId() + "-%d").setDaemon(true).build();
+            utilitiesExecutor = Executors.newFixedThreadPool(threads, threadFactory);
+        }
+
+        TransformationResult transformationResult;
+        try {
+            transformationResult = performTransformation(transformedAppFolder, transformationRequest, transformationContexts);
+        } finally {
+            if (utilitiesExecutor != null) {
+                utilitiesExecutor.shutdownNow();
+            }
+        }
 
         if (transformationResult.isSuccessful()) {
             manualInstructionsHandler.processManualInstructions(transformationResult, transformationContexts);
@@ -190,6 +250,11 @@ class Transformer implements Supplier<TransformationResult> {
         TransformationContextImpl transformationContext = TransformationContextImpl.getTransformationContext(previousTransformationContext);
         transformationContext.setTransformationTemplate(template);
         transformationContext.setProperties(transformationRequest.getConfiguration().getProperties());
+        transformationContext.setFileWorkingSet(fileWorkingSet);
+        transformationContext.setFileTreeIndex(fileTreeIndex);
+        transformationContext.setPomModelCache(pomModelCache);
+        transformationContext.setDocumentCache(documentCache);
+        transformationContext.setCompilationUnitCache(compilationUnitCache);
 
         if (template.isBlank()) {
             File baseline = ((AbstractTransformationRequest) transformationRequest).getBaselineApplicationDir();
@@ -201,22 +266,195 @@ class Transformer implements Supplier<TransformationResult> {
         }
 
         try {
-            TransformationUtility utility;
-            for(Object transformationUtilityObj: utilities) {
-                utility = (TransformationUtility) transformationUtilityObj;
-                performUtility(utility, transformedAppFolder, transformationContext, String.valueOf(operationsExecutionOrder));
-                if (utility instanceof TransformationOperation || utility instanceof TransformationUtilityParent) {
-                    operationsExecutionOrder++;
+            if (parallelUtilities) {
+                performUtilitiesConcurrently(utilities, getExecutionOrders(utilities, null), transformedAppFolder, transformationContext);
+            } else {
+                TransformationUtility utility;
+                int fusedUntil = 0;
+                for(int i = 0; i < utilities.size(); i++) {
+                    utility = utilities.get(i);
+                    if (fuseOperations && i >= fusedUntil) {
+                        fusedUntil = i + FusedPass.fuse(utilities, i, transformedAppFolder, transformationContext, fileWorkingSet);
+                    }
+                    performUtility(utility, transformedAppFolder, transformationContext, String.valueOf(operationsExecutionOrder));
+                    if (utility instanceof TransformationOperation || utility instanceof TransformationUtilityParent) {
+                        operationsExecutionOrder++;
+                    }
                 }
             }
         } catch (TransformationException e) {
+            // Even if aborted, application files modified in memory are written to disk
+            flushFileWorkingSet(transformedAppFolder, transformationContext, false);
+
             // TODO save exception and abortion description into the transformationContext
             throw new InternalTransformationException(e, transformationContext);
         }
 
+        // Application files modified in memory are written to disk at the end of every template and upgrade step
+        flushFileWorkingSet(transformedAppFolder, transformationContext, true);
+
         return transformationContext;
     }
 
+    private void flushFileWorkingSet(File transformedAppFolder, TransformationContextImpl transformationContext, boolean failOnError) throws InternalTransformationException {
+        if (fileWorkingSet == null) {
+            return;
+        }
+        try {
+            fileWorkingSet.flush(transformedAppFolder);
+        } catch (IOException e) {
+            String exceptionMessage = "Application files modified in memory could not be written to disk";
+            if (failOnError) {
+                throw new InternalTransformationException(exceptionMessage, e, transformationContext);
+            }
+            logger.error(exceptionMessage, e);
+        }
+    }
+
+    /*
+     * Returns the execution order of each utility in the list, the same way they
+     * would be numbered if performed sequentially. If the utilities are children of
+     * a parent, its execution order must be informed, otherwise it must be null
+     */
+    private List<String> getExecutionOrders(List<TransformationUtility> utilities, String parentOrder) {
+        List<String> orders = new ArrayList<>(utilities.size());
+        int i = 1;
+        for (TransformationUtility utility : utilities) {
+            orders.add(parentOrder == null ? String.valueOf(i) : String.format(ORDER_FORMAT, parentOrder, i));
+            if (utility instanceof TransformationOperation || utility instanceof TransformationUtilityParent) {
+                i++;
+            }
+        }
+        return orders;
+    }
+
+    /*
+     * Performs a list of sibling utilities concurrently, whenever that is safe (see UtilitiesGraph).
+     * Regardless of that, their results are processed sequentially, in this thread, in the
+     * same order the utilities were declared. That keeps logging, execution order numbers,
+     * saved results and abortion behavior the same as when performing them sequentially.
+     */
+    private void performUtilitiesConcurrently(List<TransformationUtility> utilities, List<String> orders, File transformedAppFolder, TransformationContextImpl transformationContext) throws TransformationException {
+        UtilitiesGraph graph = new UtilitiesGraph(utilities, transformedAppFolder, transformationContext);
+        List<Future<PerformResult>> futures = new ArrayList<>(Collections.nCopies(utilities.size(), null));
+        int submitted = 0;
+        try {
+            for (int i = 0; i < utilities.size(); i++) {
+                while (submitted < utilities.size() && graph.isReady(submitted, i)) {
+                    TransformationUtility submittedUtility = utilities.get(submitted);
+                    Callable<PerformResult> task = graph.newPerformTask(submitted);
+                    futures.set(submitted, utilitiesExecutor.submit(() -> {
+                        PerformResult filesError = prepareFiles(submittedUtility, transformedAppFolder, transformationContext);
+                        if (filesError != null) {
+                            return filesError;
+                        }
+                        PerformanceProbe probe = startProbe();
+                        try {
+                            return task.call();
+                        } finally {
+                            probe.stop(submittedUtility, transformationContext);
+                            releaseFiles(submittedUtility, transformedAppFolder, transformationContext);
+                        }
+                    }));
+                    submitted++;
+                }
+                TransformationUtility utility = utilities.get(i);
+                if (submitted == i) {
+                    // Barriers are performed in this thread, after all prior utilities have been committed
+                    performUtility(utility, transformedAppFolder, transformationContext, orders.get(i));
+                    submitted++;
+                } else {
+                    Future<PerformResult> future = futures.get(i);
+                    processUtility(utility, () -> getPerformResult(future), transformedAppFolder, transformationContext, orders.get(i));
+                }
+                graph.committed(i);
+            }
+        } finally {
+            // In case of abortion, utilities already being performed must finish before moving on
+            futures.stream().filter(Objects::nonNull).forEach(f -> f.cancel(false));
+            futures.stream().filter(Objects::nonNull).forEach(Transformer::awaitQuietly);
+        }
+    }
+
+    /*
+     * Returns the perform result of a utility performed by another thread,
+     * rethrowing any runtime exception thrown when performing it
+     */
+    private static PerformResult getPerformResult(Future<PerformResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalException("Interrupted while waiting for utility to be performed", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new InternalException("Utility could not be performed", e.getCause());
+        }
+    }
+
+    private static void awaitQuietly(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            // Nothing to be done here, since the utility result has already been processed, or it is not needed anymore
+        }
+    }
+
+    /*
+     * Submits conditions to be performed concurrently, returning their perform results
+     * futures in the same order. As soon as a condition result is known to decide the outcome
+     * (according to {@code decisive}), conditions after it that have not started yet are skipped,
+     * resulting in null, since their results would never be used. Their performance figures
+     * are accounted to {@code owner}, the utility evaluating them
+     */
+    private List<Future<PerformResult>> submitConditions(List<? extends TransformationUtility> conditions, TransformationUtility owner, Predicate<PerformResult> decisive, File transformedAppFolder, TransformationContextImpl transformationContext) {
+        AtomicInteger decidedIndex = new AtomicInteger(Integer.MAX_VALUE);
+        List<Future<PerformResult>> futures = new ArrayList<>(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            int index = i;
+            TransformationUtility condition = conditions.get(i);
+            futures.add(utilitiesExecutor.submit(() -> {
+                if (index > decidedIndex.get()) {
+                    return null;
+                }
+                PerformResult performResult;
+                try {
+                    performResult = performCondition(condition, owner, transformedAppFolder, transformationContext);
+                } catch (RuntimeException e) {
+                    decidedIndex.accumulateAndGet(index, Math::min);
+                    throw e;
+                }
+                if (decisive.test(performResult)) {
+                    decidedIndex.accumulateAndGet(index, Math::min);
+                }
+                return performResult;
+            }));
+        }
+        return futures;
+    }
+
+    /*
+     * Returns true only if the condition perform result is a successfully produced boolean value
+     */
+    private static boolean isConditionValue(PerformResult performResult) {
+        return performResult.getType().equals(PerformResult.Type.EXECUTION_RESULT) &&
+                (performResult.getExecutionResult().getType().equals(TUExecutionResult.Type.VALUE)
+                        || performResult.getExecutionResult().getType().equals(TUExecutionResult.Type.WARNING));
+    }
+
+    private static void cancelConditions(List<Future<PerformResult>> futures) {
+        if (futures != null) {
+            futures.forEach(f -> f.cancel(false));
+        }
+    }
+
     /*
      * Perform a condition against multiple files
      */
@@ -226,31 +464,46 @@ class Transformer implements Supplier<TransformationResult> {
         boolean allMode = utility.getMode().equals(MultipleConditions.Mode.ALL);
         boolean result = false;
 
-        for (File file : files) {
-            condition = utility.newConditionInstance(file);
+        List<UtilityCondition> conditions = null;
+        List<Future<PerformResult>> futures = null;
+        if (parallelConditions) {
+            conditions = files.stream().map(utility::newConditionInstance).collect(Collectors.toList());
+            Predicate<PerformResult> decisive = r -> !isConditionValue(r) || ((boolean) ((TUExecutionResult) r.getExecutionResult()).getValue()) != allMode;
+            futures = submitConditions(conditions, utility, decisive, transformedAppFolder, transformationContext);
+        }
+
+        int i = 0;
+        try {
+            for (File file : files) {
+                condition = (conditions == null ? utility.newConditionInstance(file) : conditions.get(i));
 
-            PerformResult innerPerformResult = condition.perform(transformedAppFolder, transformationContext);
-            processUtilityExecutionResult(condition, innerPerformResult, transformationContext);
+                PerformResult innerPerformResult = (futures == null ? performCondition(condition, utility, transformedAppFolder, transformationContext) : getPerformResult(futures.get(i)));
+                processUtilityExecutionResult(condition, innerPerformResult, transformationContext);
+                i++;
 
-            if(innerPerformResult.getType().equals(PerformResult.Type.EXECUTION_RESULT) &&
-                    (innerPerformResult.getExecutionResult().getType().equals(TUExecutionResult.Type.VALUE)
-                    || innerPerformResult.getExecutionResult().getType().equals(TUExecutionResult.Type.WARNING))) {
-                result = (boolean) ((TUExecutionResult) innerPerformResult.getExecutionResult()).getValue();
-                if (!result && allMode || result && !allMode) {
-                    break;
-                }
-            } else {
-                Exception innerException;
-                if (innerPerformResult.getType().equals(PerformResult.Type.ERROR)) {
-                    innerException = innerPerformResult.getException();
+                if(innerPerformResult.getType().equals(PerformResult.Type.EXECUTION_RESULT) &&
+                        (innerPerformResult.getExecutionResult().getType().equals(TUExecutionResult.Type.VALUE)
+                        || innerPerformResult.getExecutionResult().getType().equals(TUExecutionResult.Type.WARNING))) {
+                    result = (boolean) ((TUExecutionResult) innerPerformResult.getExecutionResult()).getValue();
+                    if (!result && allMode || result && !allMode) {
+                        break;
+                    }
                 } else {
-                    innerException = innerPerformResult.getExecutionResult().getException();
+                    Exception innerException;
+                    if (innerPerformResult.getType().equals(PerformResult.Type.ERROR)) {
+                        innerException = innerPerformResult.getException();
+                    } else {
+                        innerException = innerPerformResult.getExecutionResult().getException();
+                    }
+                    String exceptionMessage = String.format("Multiple utility condition %s execution failed when evaluating condition %s against file %s", utility.getName(), condition.getName(), file.getAbsolutePath());
+                    TransformationUtilityException outerException = new TransformationUtilityException(exceptionMessage, innerException);
+                    TUExecutionResult multipleExecutionResult = TUExecutionResult.error(utility, outerException);
+                    return PerformResult.executionResult(utility, multipleExecutionResult);
                 }
-                String exceptionMessage = String.format("Multiple utility condition %s execution failed when evaluating condition %s against file %s", utility.getName(), condition.getName(), file.getAbsolutePath());
-                TransformationUtilityException outerException = new TransformationUtilityException(exceptionMessage, innerException);
-                TUExecutionResult multipleExecutionResult = TUExecutionResult.error(utility, outerException);
-                return PerformResult.executionResult(utility, multipleExecutionResult);
             }
+        } finally {
+            // Outstanding evaluations are not needed anymore once the result is decided
+            cancelConditions(futures);
         }
 
         TUExecutionResult multipleExecutionResult = TUExecutionResult.value(utility, result);
@@ -268,35 +521,48 @@ class Transformer implements Supplier<TransformationResult> {
 
         int warnings = 0;
 
-        for (File file : files) {
-            condition = utility.newConditionInstance(file);
+        List<SingleCondition> conditions = null;
+        List<Future<PerformResult>> futures = null;
+        if (parallelConditions) {
+            conditions = files.stream().map(utility::newConditionInstance).collect(Collectors.toList());
+            futures = submitConditions(conditions, utility, r -> !isConditionValue(r), transformedAppFolder, transformationContext);
+        }
 
-            PerformResult innerPerformResult = condition.perform(transformedAppFolder, transformationContext);
+        int i = 0;
+        try {
+            for (File file : files) {
+                condition = (conditions == null ? utility.newConditionInstance(file) : conditions.get(i));
 
-            processUtilityExecutionResult(condition, innerPerformResult, transformationContext);
+                PerformResult innerPerformResult = (futures == null ? performCondition(condition, utility, transformedAppFolder, transformationContext) : getPerformResult(futures.get(i)));
+                i++;
 
-            if(innerPerformResult.getType().equals(PerformResult.Type.EXECUTION_RESULT) &&
-                    (innerPerformResult.getExecutionResult().getType().equals(TUExecutionResult.Type.VALUE)
-                            || innerPerformResult.getExecutionResult().getType().equals(TUExecutionResult.Type.WARNING))) {
-                conditionResult = (boolean) ((TUExecutionResult) innerPerformResult.getExecutionResult()).getValue();
-                if (conditionResult) {
-                    subList.add(file);
-                }
-                if (innerPerformResult.getExecutionResult().getType().equals(TUExecutionResult.Type.WARNING)) {
-                    warnings++;
-                }
-            } else {
-                Exception innerException;
-                if (innerPerformResult.getType().equals(PerformResult.Type.ERROR)) {
-                    innerException = innerPerformResult.getException();
+                processUtilityExecutionResult(condition, innerPerformResult, transformationContext);
+
+                if(innerPerformResult.getType().equals(PerformResult.Type.EXECUTION_RESULT) &&
+                        (innerPerformResult.getExecutionResult().getType().equals(TUExecutionResult.Type.VALUE)
+                                || innerPerformResult.getExecutionResult().getType().equals(TUExecutionResult.Type.WARNING))) {
+                    conditionResult = (boolean) ((TUExecutionResult) innerPerformResult.getExecutionResult()).getValue();
+                    if (conditionResult) {
+                        subList.add(file);
+                    }
+                    if (innerPerformResult.getExecutionResult().getType().equals(TUExecutionResult.Type.WARNING)) {
+                        warnings++;
+                    }
                 } else {
-                    innerException = innerPerformResult.getExecutionResult().getException();
+                    Exception innerException;
+                    if (innerPerformResult.getType().equals(PerformResult.Type.ERROR)) {
+                        innerException = innerPerformResult.getException();
+                    } else {
+                        innerException = innerPerformResult.getExecutionResult().getException();
+                    }
+                    String exceptionMessage = String.format("FilterFiles %s failed when evaluating condition %s against file %s", utility.getName(), condition.getName(), file.getAbsolutePath());
+                    TransformationUtilityException outerException = new TransformationUtilityException(exceptionMessage, innerException);
+                    TUExecutionResult multipleExecutionResult = TUExecutionResult.error(utility, outerException);
+                    return PerformResult.executionResult(utility, multipleExecutionResult);
                 }
-                String exceptionMessage = String.format("FilterFiles %s failed when evaluating condition %s against file %s", utility.getName(), condition.getName(), file.getAbsolutePath());
-                TransformationUtilityException outerException = new TransformationUtilityException(exceptionMessage, innerException);
-                TUExecutionResult multipleExecutionResult = TUExecutionResult.error(utility, outerException);
-                return PerformResult.executionResult(utility, multipleExecutionResult);
             }
+        } finally {
+            cancelConditions(futures);
         }
 
         TUExecutionResult filterFilesExecutionResult;
@@ -321,9 +587,21 @@ class Transformer implements Supplier<TransformationResult> {
         // TODO print number of \t based on depth of parents
         logger.info("\t{}\t - Executing utilities parent {}", order, utilityParent.getName());
 
+        if (parallelChildren) {
+            List<TransformationUtility> children = utilityParent.getChildren();
+            performUtilitiesConcurrently(children, getExecutionOrders(children, order), transformedAppFolder, transformationContext);
+            return;
+        }
+
         String childOrder;
         int i = 1;
-        for(TransformationUtility utility : utilityParent.getChildren()) {
+        int fusedUntil = 0;
+        List<TransformationUtility> children = utilityParent.getChildren();
+        for(int c = 0; c < children.size(); c++) {
+            TransformationUtility utility = children.get(c);
+            if (fuseOperations && c >= fusedUntil) {
+                fusedUntil = c + FusedPass.fuse(children, c, transformedAppFolder, transformationContext, fileWorkingSet);
+            }
             childOrder = String.format(ORDER_FORMAT, order, i);
             performUtility(utility, transformedAppFolder, transformationContext, childOrder);
             if (utility instanceof TransformationOperation || utility instanceof TransformationUtilityParent) {
@@ -337,10 +615,137 @@ class Transformer implements Supplier<TransformationResult> {
      * actually a transformation operation
      */
     private void performUtility(TransformationUtility utility, File transformedAppFolder, TransformationContextImpl transformationContext, String order) throws TransformationException {
+        processUtility(utility, () -> {
+            PerformResult filesError = prepareFiles(utility, transformedAppFolder, transformationContext);
+            if (filesError != null) {
+                return filesError;
+            }
+            PerformanceProbe probe = startProbe();
+            try {
+                return utility.perform(transformedAppFolder, transformationContext);
+            } finally {
+                probe.stop(utility, transformationContext);
+                releaseFiles(utility, transformedAppFolder, transformationContext);
+            }
+        }, transformedAppFolder, transformationContext, order);
+    }
+
+    /*
+     * Makes the application files the given utility touches ready for it, right before it is performed:
+     * - If the transformed application folder was materialized with hard links, breaks the links of the
+     *   files it might modify, as declared by operations, so the original application files are never modified
+     * - If there is a working set, and the utility is not aware of it, writes to disk the files it might
+     *   read that have been modified in memory
+     * Returns an error perform result if that fails, or null otherwise
+     */
+    private PerformResult prepareFiles(TransformationUtility utility, File transformedAppFolder, TransformationContextImpl transformationContext) {
+        boolean unlink = materializer != null && materializer.hasLinkedFiles() && isWriter(utility);
+        boolean flush = fileWorkingSet != null && !isWorkingSetAware(utility);
+        if (!unlink && !flush) {
+            return null;
+        }
+        File file = UtilitiesGraph.getFootprint(utility, transformedAppFolder, transformationContext);
+        try {
+            if (unlink) {
+                for (File modifiedFile : getModifiedFiles(utility, file, transformedAppFolder, transformationContext)) {
+                    materializer.unlink(modifiedFile);
+                }
+            }
+            if (flush) {
+                fileWorkingSet.flush(file);
+            }
+            return null;
+        } catch (IOException e) {
+            String exceptionMessage = String.format("Transformed application file %s could not be prepared to be used by %s", file, utility.getName());
+            return PerformResult.error(utility, new TransformationUtilityException(exceptionMessage, e));
+        }
+    }
+
+    /*
+     * Right after the given utility is performed:
+     * - If there is a working set, and the utility is not aware of it, but might have modified
+     *   files straight in disk, removes them from the working set
+     * - If there is a file tree index, and the utility might modify files (which is the case of
+     *   operations, and of utilities that are not file scoped), but is not aware of the index,
+     *   refreshes the index entries of the files it might have created, moved or removed
+     *   (the whole index is discarded if that is unknown)
+     * - If there is a POM model cache, or a XML document cache, and the utility is an operation,
+     *   removes the files it might have modified from them (files modified by
+     *   any other utility are still detected by the caches, based on their versions)
+     */
+    private void releaseFiles(TransformationUtility utility, File transformedAppFolder, TransformationContextImpl transformationContext) {
+        if (fileWorkingSet != null && !isWorkingSetAware(utility) && isWriter(utility)) {
+            fileWorkingSet.invalidate(UtilitiesGraph.getFootprint(utility, transformedAppFolder, transformationContext));
+        }
+        if (fileTreeIndex != null && isWriter(utility) && !isFileTreeIndexAware(utility)) {
+            fileTreeIndex.refresh(UtilitiesGraph.getFootprint(utility, transformedAppFolder, transformationContext));
+        }
+        if ((pomModelCache != null || documentCache != null || compilationUnitCache != null) && utility instanceof TransformationOperation) {
+            File footprint = UtilitiesGraph.getFootprint(utility, transformedAppFolder, transformationContext);
+            if (pomModelCache != null) {
+                pomModelCache.invalidate(footprint);
+            }
+            if (documentCache != null) {
+                documentCache.invalidate(footprint);
+            }
+            if (compilationUnitCache != null) {
+                compilationUnitCache.invalidate(footprint);
+            }
+        }
+    }
+
+    private PerformanceProbe startProbe() {
+        return performanceStatistics ? PerformanceProbe.start() : PerformanceProbe.DISABLED;
+    }
+
+    /*
+     * Performs a per file condition, accounting its performance figures to {@code owner},
+     * the utility evaluating it
+     */
+    private PerformResult performCondition(TransformationUtility condition, TransformationUtility owner, File transformedAppFolder, TransformationContextImpl transformationContext) {
+        PerformanceProbe probe = startProbe();
+        try {
+            return condition.perform(transformedAppFolder, transformationContext);
+        } finally {
+            probe.stop(owner, transformationContext);
+        }
+    }
+
+    /*
+     * Returns the files the given writer might modify, as declared by it, if it is an operation,
+     * or its whole footprint otherwise
+     */
+    private static List<File> getModifiedFiles(TransformationUtility utility, File footprint, File transformedAppFolder, TransformationContextImpl transformationContext) {
+        List<File> modifiedFiles = null;
+        if (utility instanceof TransformationOperation) {
+            modifiedFiles = ((TransformationOperation<?>) utility).getModifiedFiles(transformedAppFolder, transformationContext);
+        }
+        return (modifiedFiles == null ? Collections.singletonList(footprint) : modifiedFiles);
+    }
+
+    private static boolean isWriter(TransformationUtility utility) {
+        // File scoped utilities that are not operations never modify files
+        return utility instanceof TransformationOperation || !utility.isFileScoped();
+    }
+
+    private static boolean isFileTreeIndexAware(TransformationUtility utility) {
+        return utility instanceof TransformationOperation && ((TransformationOperation) utility).isFileTreeIndexAware();
+    }
+
+    private static boolean isWorkingSetAware(TransformationUtility utility) {
+        return utility instanceof TransformationOperation && ((TransformationOperation) utility).isWorkingSetAware();
+    }
+
+    /*
+     * Process the perform result of a transformation utility, obtained from {@code performer},
+     * which either performs the utility right away or gets the result of it having been
+     * performed by another thread
+     */
+    private void processUtility(TransformationUtility utility, Supplier<PerformResult> performer, File transformedAppFolder, TransformationContextImpl transformationContext, String order) throws TransformationException {
         boolean isTO = utility instanceof TransformationOperation;
         PerformResult result = null;
         try {
-            result = utility.perform(transformedAppFolder, transformationContext);
+            result = performer.get();
 
             switch (result.getType()) {
                 case SKIPPED_CONDITION:
@@ -560,11 +965,8 @@ class Transformer implements Supplier<TransformationResult> {
         if (configuration.isModifyOriginalFolder()) {
             if (transformationRequest.isBlank()) {
                 try {
-                    FileUtils.copyDirectory(application.getFolder(), baselineAppFolder);
-                    for (File file : application.getFolder().listFiles()) {
-                        if (file.getName().equals(".git")) continue;
-                        FileUtils.forceDelete(file);
-                    }
+                    // Everything is moved to the baseline folder, except for .git, which is copied
+                    materializer.moveContent(application.getFolder(), baselineAppFolder, ".git");
                 } catch (IOException e) {
                     String exceptionMessage = String.format(
                             "An exception occurred when preparing the baseline application folder (%s). Check also if the original application folder (%s) is valid",
@@ -582,7 +984,7 @@ class Transformer implements Supplier<TransformationResult> {
             if(bDirCreated){
                 if (!transformationRequest.isBlank()) {
                     try {
-                        FileUtils.copyDirectory(application.getFolder(), transformedAppFolder);
+                        materializer.materialize(application.getFolder(), transformedAppFolder);
                     } catch (IOException e) {
                         String exceptionMessage = String.format(
                                 "An exception occurred when preparing the transformed application folder (%s). Check also if the original application folder (%s) is valid",
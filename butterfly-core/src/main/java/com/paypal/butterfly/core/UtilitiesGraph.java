@@ -0,0 +1,268 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.extensions.api.*;
+import com.paypal.butterfly.extensions.api.utilities.Log;
+import com.paypal.butterfly.extensions.api.utilities.ResultCondition;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * Dependency graph among a list of sibling transformation utilities
+ * (the utilities in a template, or the children of a utility parent),
+ * used to decide which of them can be performed concurrently.
+ * <br>
+ * Utilities are always committed (meaning, have their results processed and
+ * saved in the transformation context) one by one, in the same order they were declared.
+ * A utility can only start being performed, before all prior utilities have been committed,
+ * if none of the uncommitted ones:
+ * <ol>
+ *     <li>produces a transformation context attribute, or result, it declares to read
+ *     (see {@link TransformationUtility#dependsOn(String...)}, {@link TransformationUtility#executeIf(String)},
+ *     {@link TransformationUtility#executeUnless(String)}, {@link TransformationUtility#absolute(String)},
+ *     {@link TransformationUtility#set(String, String)} and {@link ResultCondition})</li>
+ *     <li>aborts the transformation in case of failure</li>
+ *     <li>touches a file, or folder, that overlaps with the ones it touches, given that at least one
+ *     of them modifies it (see {@link TransformationUtility#isFileScoped()}). That includes the second
+ *     file read by double conditions (see {@link TransformationUtility#getComparedFileAttribute()})</li>
+ * </ol>
+ * Utility parents, loops, multiple conditions, filters and logs are barriers, meaning they are
+ * performed only after all prior utilities have been committed, and no other utility
+ * is performed at the same time.
+ * <br>
+ * Transformation context attributes, and results, read by a utility without having been declared
+ * are also honored, since reading them blocks until the prior utility producing them is committed
+ * (see {@link #awaitProducer(String, boolean)}).
+ *
+ * @author facarvalho
+ */
+class UtilitiesGraph {
+
+    // The graph, and its position in it, of the utility being performed by the current thread
+    private static final ThreadLocal<Reader> currentReader = new ThreadLocal<>();
+
+    private final List<TransformationUtility> utilities;
+
+    private final File transformedAppFolder;
+
+    private final TransformationContextImpl transformationContext;
+
+    private final Node[] nodes;
+
+    // Index of the next utility to be committed
+    private int committed = 0;
+
+    UtilitiesGraph(List<TransformationUtility> utilities, File transformedAppFolder, TransformationContextImpl transformationContext) {
+        this.utilities = utilities;
+        this.transformedAppFolder = transformedAppFolder;
+        this.transformationContext = transformationContext;
+        nodes = new Node[utilities.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(utilities.get(i));
+        }
+    }
+
+    /**
+     * Returns true if the utility at index {@code index} is not a barrier,
+     * and can be performed right now, given that all utilities before
+     * {@code committed} have already been committed
+     *
+     * @param index the index of the utility to be performed
+     * @param committed the index of the next utility to be committed
+     * @return true if the utility can be performed right now
+     */
+    boolean isReady(int index, int committed) {
+        Node node = nodes[index];
+        if (node.barrier) {
+            return false;
+        }
+        for (int k = committed; k < index; k++) {
+            Node pending = nodes[k];
+            if (pending.fence || node.reads(pending)) {
+                return false;
+            }
+        }
+
+        // At this point any transformation context attribute defining
+        // this utility absolute file has already been committed
+        node.resolveFootprint();
+        for (int k = committed; k < index; k++) {
+            if (node.overlaps(nodes[k])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a task that performs the utility at index {@code index}
+     *
+     * @param index the index of the utility to be performed
+     * @return a task that performs the utility at index {@code index}
+     */
+    Callable<PerformResult> newPerformTask(int index) {
+        TransformationUtility utility = utilities.get(index);
+        return () -> {
+            currentReader.set(new Reader(this, index));
+            try {
+                return utility.perform(transformedAppFolder, transformationContext);
+            } finally {
+                currentReader.remove();
+            }
+        };
+    }
+
+    /**
+     * Marks the utility at index {@code index} as committed, releasing
+     * any utility waiting for an attribute or result produced by it
+     *
+     * @param index the index of the committed utility
+     */
+    synchronized void committed(int index) {
+        committed = index + 1;
+        notifyAll();
+    }
+
+    /**
+     * If the current thread is performing a utility out of a {@link UtilitiesGraph},
+     * blocks until any prior utility, producing the given transformation context
+     * attribute (or result), is committed. Otherwise, returns immediately.
+     *
+     * @param name the name of the transformation context attribute, or result
+     * @param result true if {@code name} refers to a result, false if to an attribute
+     */
+    static void awaitProducer(String name, boolean result) {
+        Reader reader = currentReader.get();
+        if (reader != null && name != null) {
+            reader.graph.await(reader.index, name, result);
+        }
+    }
+
+    private synchronized void await(int reader, String name, boolean result) {
+        for (int k = reader - 1; k >= committed; k--) {
+            if (nodes[k].produces(name, result)) {
+                try {
+                    while (committed <= k) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InternalException(String.format("Interrupted while waiting for %s to be committed", nodes[k].utility.getName()), e);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the file, or folder, the given utility touches, which is the whole
+     * transformed application folder if the utility is not file scoped, or if its
+     * file cannot be resolved yet
+     *
+     * @param utility the transformation utility
+     * @param transformedAppFolder the transformed application folder
+     * @param transformationContext the transformation context
+     * @return the file, or folder, the given utility touches
+     */
+    static File getFootprint(TransformationUtility<?> utility, File transformedAppFolder, TransformationContextImpl transformationContext) {
+        File file = utility.getScopedFile(transformedAppFolder, transformationContext);
+        if (file == null) {
+            // Unknown, or not scoped, means potentially the whole application
+            file = transformedAppFolder;
+        }
+        return file;
+    }
+
+    private static boolean overlaps(Path path1, Path path2) {
+        return path1 != null && path2 != null && (path1.startsWith(path2) || path2.startsWith(path1));
+    }
+
+    private static class Reader {
+        private final UtilitiesGraph graph;
+        private final int index;
+
+        private Reader(UtilitiesGraph graph, int index) {
+            this.graph = graph;
+            this.index = index;
+        }
+    }
+
+    private class Node {
+
+        private final TransformationUtility<?> utility;
+
+        private final boolean barrier;
+
+        private final boolean fence;
+
+        // Transformation context attribute and result produced by this utility, if any
+        private final String attribute;
+        private final String result;
+
+        // Transformation context attributes and results this utility declares to read
+        private final Set<String> referencedAttributes;
+        private final Set<String> referencedResults;
+
+        // File, or folder, this utility touches, and whether it modifies it
+        private Path footprint;
+        private boolean writes;
+
+        // Second file, or folder, this utility only reads, if it is, or has, a double condition
+        private Path comparedFootprint;
+
+        private Node(TransformationUtility<?> utility) {
+            this.utility = utility;
+            barrier = utility instanceof TransformationUtilityParent
+                    || utility instanceof TransformationUtilityLoop
+                    || utility instanceof MultipleConditions
+                    || utility instanceof FilterFiles
+                    || utility instanceof Log;
+            fence = utility.isAbortOnFailure();
+
+            boolean isTO = utility instanceof TransformationOperation;
+            boolean saveResult = utility.isSaveResult();
+            attribute = (saveResult && !isTO ? (utility.getContextAttributeName() != null ? utility.getContextAttributeName() : utility.getName()) : null);
+            result = (saveResult ? utility.getName() : null);
+
+            referencedAttributes = utility.getReferencedContextAttributes();
+            referencedResults = new HashSet<>(utility.getReferencedResults());
+            if (utility instanceof ResultCondition && ((ResultCondition) utility).getUtilityName() != null) {
+                referencedResults.add(((ResultCondition) utility).getUtilityName());
+            }
+        }
+
+        private boolean produces(String name, boolean isResult) {
+            return name.equals(isResult ? result : attribute);
+        }
+
+        private boolean reads(Node producer) {
+            return producer.attribute != null && referencedAttributes.contains(producer.attribute)
+                    || producer.result != null && referencedResults.contains(producer.result);
+        }
+
+        private void resolveFootprint() {
+            if (footprint != null) {
+                return;
+            }
+            footprint = getFootprint(utility, transformedAppFolder, transformationContext).toPath().toAbsolutePath().normalize();
+            writes = utility instanceof TransformationOperation || !utility.isFileScoped();
+
+            // At this point the attribute holding the compared file has already been committed as well
+            String comparedFileAttribute = utility.getComparedFileAttribute();
+            if (comparedFileAttribute != null) {
+                Object comparedFile = transformationContext.get(comparedFileAttribute);
+                comparedFootprint = (comparedFile instanceof File ? (File) comparedFile : transformedAppFolder).toPath().toAbsolutePath().normalize();
+            }
+        }
+
+        private boolean overlaps(Node other) {
+            return (writes || other.writes) && UtilitiesGraph.overlaps(footprint, other.footprint)
+                    || other.writes && UtilitiesGraph.overlaps(comparedFootprint, other.footprint)
+                    || writes && UtilitiesGraph.overlaps(footprint, other.comparedFootprint);
+        }
+
+    }
+
+}
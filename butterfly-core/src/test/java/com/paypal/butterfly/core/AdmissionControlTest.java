@@ -0,0 +1,149 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.api.TransformationRequest;
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.*;
+
+public class AdmissionControlTest extends TestHelper {
+
+    private TransformationRequest getNewTransformationRequest() {
+        return new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), getNewTestTransformationTemplate(), new ConfigurationImpl(null));
+    }
+
+    @Test
+    public void unlimitedTest() {
+        AdmissionControl admissionControl = new AdmissionControl(0, AdmissionControl.Policy.REJECT, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(admissionControl.admit(getNewTransformationRequest()));
+        }
+    }
+
+    @Test
+    public void queueDepthRejectTest() {
+        AdmissionControl admissionControl = new AdmissionControl(2, AdmissionControl.Policy.REJECT, 0, 0);
+        AdmissionControl.Ticket ticket1 = admissionControl.admit(getNewTransformationRequest());
+        admissionControl.admit(getNewTransformationRequest());
+
+        try {
+            admissionControl.admit(getNewTransformationRequest());
+            fail("Request should have been rejected");
+        } catch (RejectedExecutionException e) {
+            assertTrue(e.getMessage().contains("queue depth: 2"));
+        }
+
+        // Once a request starts being performed, it leaves the queue
+        ticket1.started();
+        assertNotNull(admissionControl.admit(getNewTransformationRequest()));
+    }
+
+    @Test
+    public void queueDepthBlockTest() throws InterruptedException {
+        AdmissionControl admissionControl = new AdmissionControl(1, AdmissionControl.Policy.BLOCK, 0, 0);
+        AdmissionControl.Ticket ticket1 = admissionControl.admit(getNewTransformationRequest());
+
+        CountDownLatch admitted = new CountDownLatch(1);
+        TransformationRequest transformationRequest = getNewTransformationRequest();
+        Thread thread = new Thread(() -> {
+            admissionControl.admit(transformationRequest);
+            admitted.countDown();
+        });
+        thread.start();
+
+        assertFalse(admitted.await(200, TimeUnit.MILLISECONDS));
+        ticket1.finished();
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        thread.join();
+    }
+
+    @Test
+    public void sizeAwareTest() throws InterruptedException {
+        // Big enough for one test application, but not for two
+        AdmissionControl admissionControl = new AdmissionControl(0, AdmissionControl.Policy.BLOCK, 0, 1);
+        AdmissionControl.Ticket ticket1 = admissionControl.admit(getNewTransformationRequest());
+        ticket1.started();
+
+        CountDownLatch admitted = new CountDownLatch(1);
+        TransformationRequest transformationRequest = getNewTransformationRequest();
+        Thread thread = new Thread(() -> {
+            admissionControl.admit(transformationRequest);
+            admitted.countDown();
+        });
+        thread.start();
+
+        assertFalse(admitted.await(200, TimeUnit.MILLISECONDS));
+        ticket1.finished();
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        thread.join();
+    }
+
+    @Test
+    public void oversizedTest() {
+        // A request larger than the limit alone is admitted only when nothing else is in flight
+        AdmissionControl admissionControl = new AdmissionControl(0, AdmissionControl.Policy.REJECT, 1, 0);
+        AdmissionControl.Ticket ticket1 = admissionControl.admit(getNewTransformationRequest());
+
+        try {
+            admissionControl.admit(getNewTransformationRequest());
+            fail("Request should have been rejected");
+        } catch (RejectedExecutionException e) {
+            assertTrue(e.getMessage().contains("has been rejected"));
+        }
+
+        ticket1.finished();
+        assertNotNull(admissionControl.admit(getNewTransformationRequest()));
+    }
+
+    @Test
+    public void interruptedTest() throws InterruptedException {
+        AdmissionControl admissionControl = new AdmissionControl(1, AdmissionControl.Policy.BLOCK, 0, 0);
+        admissionControl.admit(getNewTransformationRequest());
+
+        AtomicReference<Exception> exception = new AtomicReference<>();
+        TransformationRequest transformationRequest = getNewTransformationRequest();
+        Thread thread = new Thread(() -> {
+            try {
+                admissionControl.admit(transformationRequest);
+            } catch (RejectedExecutionException e) {
+                exception.set(e);
+            }
+        });
+        thread.start();
+        thread.interrupt();
+        thread.join(5000);
+
+        assertNotNull(exception.get());
+        assertTrue(exception.get().getCause() instanceof InterruptedException);
+    }
+
+    @Test
+    public void fromSettingsTest() {
+        Properties properties = new Properties();
+        properties.setProperty(EngineSettings.QUEUE_MAX_DEPTH, "1");
+        properties.setProperty(EngineSettings.QUEUE_POLICY, "reject");
+        EngineSettings engineSettings = new EngineSettings(null).forConfiguration(new ConfigurationImpl(properties));
+
+        AdmissionControl admissionControl = AdmissionControl.fromSettings(engineSettings);
+        admissionControl.admit(getNewTransformationRequest());
+        try {
+            admissionControl.admit(getNewTransformationRequest());
+            fail("Request should have been rejected");
+        } catch (RejectedExecutionException e) {
+            assertTrue(e.getMessage().contains("queue depth: 1"));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Property butterfly.engine.queue.policy must be either block or reject, but it is wait")
+    public void invalidPolicyTest() {
+        Properties properties = new Properties();
+        properties.setProperty(EngineSettings.QUEUE_POLICY, "wait");
+        AdmissionControl.fromSettings(new EngineSettings(null).forConfiguration(new ConfigurationImpl(properties)));
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.paypal.butterfly.core;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+public class CompilationUnitCacheImplTest extends TestHelper {
+
+    private static final DataKey<String> NAME_KEY = new DataKey<String>() {
+    };
+
+    @Test
+    public void copiesTest() throws IOException {
+        CompilationUnitCacheImpl compilationUnitCache = new CompilationUnitCacheImpl();
+        File javaFile = writeJavaFile("Foo");
+
+        CompilationUnit compilationUnit1 = compilationUnitCache.getCompilationUnit(javaFile);
+        assertEquals(getTypeName(compilationUnit1), "Foo");
+
+        compilationUnit1.getType(0).setName("Bar");
+        compilationUnit1.setData(NAME_KEY, "modified");
+
+        // Changes to handed out compilation units are not seen by other callers
+        CompilationUnit compilationUnit2 = compilationUnitCache.getCompilationUnit(new File(javaFile.getParentFile(), "./Foo.java"));
+        assertNotSame(compilationUnit2, compilationUnit1);
+        assertEquals(getTypeName(compilationUnit2), "Foo");
+        assertFalse(compilationUnit2.containsData(NAME_KEY));
+    }
+
+    @Test
+    public void versionTest() throws IOException {
+        CompilationUnitCacheImpl compilationUnitCache = new CompilationUnitCacheImpl();
+        File javaFile = writeJavaFile("Foo");
+        long lastModified = javaFile.lastModified();
+        assertEquals(getTypeName(compilationUnitCache.getCompilationUnit(javaFile)), "Foo");
+
+        // Same size and last modification time, so it is not parsed again
+        writeJavaFile("Bar");
+        assertTrue(javaFile.setLastModified(lastModified));
+        assertEquals(getTypeName(compilationUnitCache.getCompilationUnit(javaFile)), "Foo");
+
+        // Parsed again when its version changes
+        assertTrue(javaFile.setLastModified(lastModified - 10000));
+        assertEquals(getTypeName(compilationUnitCache.getCompilationUnit(javaFile)), "Bar");
+
+        // Parsed again when invalidated, even if its version has not changed
+        writeJavaFile("Baz");
+        assertTrue(javaFile.setLastModified(lastModified - 10000));
+        assertEquals(getTypeName(compilationUnitCache.getCompilationUnit(javaFile)), "Bar");
+        compilationUnitCache.invalidate(transformedAppFolder);
+        assertEquals(getTypeName(compilationUnitCache.getCompilationUnit(javaFile)), "Baz");
+    }
+
+    @Test(expectedExceptions = ParseProblemException.class)
+    public void invalidJavaTest() throws IOException {
+        CompilationUnitCacheImpl compilationUnitCache = new CompilationUnitCacheImpl();
+        File javaFile = new File(transformedAppFolder, "Foo.java");
+        FileUtils.writeStringToFile(javaFile, "public class Foo {", StandardCharsets.UTF_8);
+        compilationUnitCache.getCompilationUnit(javaFile);
+    }
+
+    private static String getTypeName(CompilationUnit compilationUnit) {
+        return compilationUnit.getType(0).getNameAsString();
+    }
+
+    // Always writes the same Foo.java file, with the same size, declaring a type with the given name
+    private File writeJavaFile(String typeName) throws IOException {
+        File javaFile = new File(transformedAppFolder, "Foo.java");
+        FileUtils.writeStringToFile(javaFile, "package com.test;\n\npublic class " + typeName + " {\n}\n", StandardCharsets.UTF_8);
+        return javaFile;
+    }
+
+}
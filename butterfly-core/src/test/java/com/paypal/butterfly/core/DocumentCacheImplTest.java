@@ -0,0 +1,72 @@
+package com.paypal.butterfly.core;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+public class DocumentCacheImplTest extends TestHelper {
+
+    @Test
+    public void copiesTest() throws IOException, SAXException {
+        DocumentCacheImpl documentCache = new DocumentCacheImpl();
+        File xmlFile = new File(transformedAppFolder, "pom.xml");
+
+        Document document1 = documentCache.getDocument(xmlFile);
+        assertEquals(getArtifactId(document1), "foo");
+        document1.getDocumentElement().getElementsByTagName("artifactId").item(0).setTextContent("bar");
+
+        Document document2 = documentCache.getDocument(new File(transformedAppFolder, "./pom.xml"));
+        assertNotSame(document2, document1);
+        assertEquals(getArtifactId(document2), "foo");
+    }
+
+    @Test
+    public void versionTest() throws IOException, SAXException {
+        DocumentCacheImpl documentCache = new DocumentCacheImpl();
+        File xmlFile = new File(transformedAppFolder, "pom.xml");
+        long lastModified = xmlFile.lastModified();
+        assertEquals(getArtifactId(documentCache.getDocument(xmlFile)), "foo");
+
+        // Same size and last modification time, so it is not parsed again
+        replaceArtifactId(xmlFile, "bar");
+        assertTrue(xmlFile.setLastModified(lastModified));
+        assertEquals(getArtifactId(documentCache.getDocument(xmlFile)), "foo");
+
+        // Parsed again when its version changes
+        assertTrue(xmlFile.setLastModified(lastModified - 10000));
+        assertEquals(getArtifactId(documentCache.getDocument(xmlFile)), "bar");
+
+        // Parsed again when invalidated, even if its version has not changed
+        replaceArtifactId(xmlFile, "baz");
+        assertTrue(xmlFile.setLastModified(lastModified - 10000));
+        assertEquals(getArtifactId(documentCache.getDocument(xmlFile)), "bar");
+        documentCache.invalidate(transformedAppFolder);
+        assertEquals(getArtifactId(documentCache.getDocument(xmlFile)), "baz");
+    }
+
+    @Test(expectedExceptions = SAXException.class)
+    public void invalidXmlTest() throws IOException, SAXException {
+        DocumentCacheImpl documentCache = new DocumentCacheImpl();
+        File xmlFile = new File(transformedAppFolder, "pom.xml");
+        FileUtils.writeStringToFile(xmlFile, "<project><foo></bar></project>", StandardCharsets.UTF_8);
+        documentCache.getDocument(xmlFile);
+    }
+
+    private static String getArtifactId(Document document) {
+        return document.getDocumentElement().getElementsByTagName("artifactId").item(0).getTextContent();
+    }
+
+    private static void replaceArtifactId(File xmlFile, String artifactId) throws IOException {
+        String content = FileUtils.readFileToString(xmlFile, StandardCharsets.UTF_8);
+        content = content.replaceFirst("<artifactId>[a-z]{3}</artifactId>", "<artifactId>" + artifactId + "</artifactId>");
+        FileUtils.writeStringToFile(xmlFile, content, StandardCharsets.UTF_8);
+    }
+
+}
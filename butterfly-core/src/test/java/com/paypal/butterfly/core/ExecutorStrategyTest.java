@@ -0,0 +1,57 @@
+package com.paypal.butterfly.core;
+
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.testng.Assert.*;
+
+public class ExecutorStrategyTest {
+
+    @Test
+    public void fromNameTest() {
+        assertEquals(ExecutorStrategy.fromName("platform"), ExecutorStrategy.PLATFORM);
+        assertEquals(ExecutorStrategy.fromName(" Virtual "), ExecutorStrategy.VIRTUAL);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Property butterfly.engine.executor must be either platform or virtual, but it is green")
+    public void invalidNameTest() {
+        ExecutorStrategy.fromName("green");
+    }
+
+    @Test
+    public void settingsTest() {
+        assertEquals(new EngineSettings(null).getExecutorStrategy(), ExecutorStrategy.PLATFORM);
+
+        Properties properties = new Properties();
+        properties.setProperty(EngineSettings.EXECUTOR_STRATEGY, "virtual");
+        assertEquals(new EngineSettings(null).forConfiguration(new ConfigurationImpl(properties)).getExecutorStrategy(), ExecutorStrategy.VIRTUAL);
+    }
+
+    @Test
+    public void platformTest() throws ExecutionException, InterruptedException {
+        ExecutorService executor = ExecutorStrategy.PLATFORM.createExecutor();
+        try {
+            assertTrue(executor instanceof ThreadPoolExecutor);
+            assertEquals(executor.submit(() -> "done").get(), "done");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void virtualTest() throws ExecutionException, InterruptedException {
+        ExecutorService executor = ExecutorStrategy.VIRTUAL.createExecutor();
+        try {
+            // Falls back to platform threads when virtual threads are not supported
+            assertEquals(executor instanceof ThreadPoolExecutor, !ExecutorStrategy.isVirtualThreadsSupported());
+            assertEquals(executor.submit(() -> "done").get(), "done");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.paypal.butterfly.core;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class FileTreeIndexImplTest extends TestHelper {
+
+    /*
+     * Records all visitor callbacks, in order
+     */
+    private static class RecordingVisitor extends SimpleFileVisitor<Path> {
+
+        private final List<String> calls = new ArrayList<>();
+        private final String skipped;
+
+        private RecordingVisitor(String skipped) {
+            this.skipped = skipped;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            calls.add("pre " + dir);
+            return dir.getFileName().toString().equals(skipped) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            calls.add("file " + file + " " + attrs.isRegularFile() + " " + attrs.isDirectory());
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+            calls.add("post " + dir);
+            return FileVisitResult.CONTINUE;
+        }
+
+    }
+
+    private void createFiles() throws IOException {
+        for (String name : new String[] {"src/main/java/A.java", "src/main/java/b/B.java", "src/main/resources/c.properties", "src/test/java/ATest.java", "README.md"}) {
+            FileUtils.writeStringToFile(new File(transformedAppFolder, name), name, StandardCharsets.UTF_8);
+        }
+    }
+
+    private List<String> walkFromDisk(Path start, int maxDepth, String skipped) throws IOException {
+        RecordingVisitor visitor = new RecordingVisitor(skipped);
+        Files.walkFileTree(start, EnumSet.noneOf(FileVisitOption.class), maxDepth, visitor);
+        return visitor.calls;
+    }
+
+    private List<String> walkFromIndex(FileTreeIndexImpl fileTreeIndex, Path start, int maxDepth, String skipped) throws IOException {
+        RecordingVisitor visitor = new RecordingVisitor(skipped);
+        fileTreeIndex.walkFileTree(start, maxDepth, visitor);
+        return visitor.calls;
+    }
+
+    @Test
+    public void walkFileTreeTest() throws IOException {
+        createFiles();
+        FileTreeIndexImpl fileTreeIndex = new FileTreeIndexImpl(transformedAppFolder);
+        Path root = transformedAppFolder.toPath();
+        Path src = new File(transformedAppFolder, "src").toPath();
+        Path relativeRoot = new File(transformedAppFolder, ".").toPath();
+
+        assertEquals(walkFromIndex(fileTreeIndex, root, Integer.MAX_VALUE, null), walkFromDisk(root, Integer.MAX_VALUE, null));
+        assertEquals(walkFromIndex(fileTreeIndex, root, 1, null), walkFromDisk(root, 1, null));
+        assertEquals(walkFromIndex(fileTreeIndex, root, 0, null), walkFromDisk(root, 0, null));
+        assertEquals(walkFromIndex(fileTreeIndex, src, Integer.MAX_VALUE, "java"), walkFromDisk(src, Integer.MAX_VALUE, "java"));
+        assertEquals(walkFromIndex(fileTreeIndex, relativeRoot, 2, null), walkFromDisk(relativeRoot, 2, null));
+
+        Path pom = new File(transformedAppFolder, "pom.xml").toPath();
+        assertEquals(walkFromIndex(fileTreeIndex, pom, Integer.MAX_VALUE, null), walkFromDisk(pom, Integer.MAX_VALUE, null));
+    }
+
+    @Test(expectedExceptions = NoSuchFileException.class)
+    public void walkFileTreeNotFoundTest() throws IOException {
+        FileTreeIndexImpl fileTreeIndex = new FileTreeIndexImpl(transformedAppFolder);
+        walkFromIndex(fileTreeIndex, new File(transformedAppFolder, "foo").toPath(), Integer.MAX_VALUE, null);
+    }
+
+    @Test
+    public void queriesTest() throws IOException {
+        createFiles();
+        FileTreeIndexImpl fileTreeIndex = new FileTreeIndexImpl(transformedAppFolder);
+        File pom = new File(transformedAppFolder, "pom.xml");
+        File src = new File(transformedAppFolder, "src");
+
+        assertTrue(fileTreeIndex.exists(transformedAppFolder));
+        assertTrue(fileTreeIndex.isDirectory(transformedAppFolder));
+        assertTrue(fileTreeIndex.exists(pom));
+        assertTrue(fileTreeIndex.isFile(pom));
+        assertFalse(fileTreeIndex.isDirectory(pom));
+        assertTrue(fileTreeIndex.exists(src));
+        assertFalse(fileTreeIndex.isFile(src));
+        assertTrue(fileTreeIndex.isDirectory(src));
+        assertTrue(fileTreeIndex.isDirectory(new File(transformedAppFolder, "./src/../src")));
+        assertFalse(fileTreeIndex.exists(new File(transformedAppFolder, "foo")));
+        assertFalse(fileTreeIndex.exists(new File(pom, "foo")));
+
+        // Files outside of the transformed application folder are checked straight from disk
+        assertTrue(fileTreeIndex.isDirectory(appFolder));
+        assertTrue(fileTreeIndex.isFile(new File(appFolder, "pom.xml")));
+        assertFalse(fileTreeIndex.exists(new File(appFolder, "foo")));
+    }
+
+    @Test
+    public void refreshTest() throws IOException {
+        FileTreeIndexImpl fileTreeIndex = new FileTreeIndexImpl(transformedAppFolder);
+        File pom = new File(transformedAppFolder, "pom.xml");
+        File newFile = new File(transformedAppFolder, "folder1/folder2/a.txt");
+        assertTrue(fileTreeIndex.exists(pom));
+
+        // Changes are not seen until they are refreshed
+        FileUtils.writeStringToFile(newFile, "a", StandardCharsets.UTF_8);
+        FileUtils.forceDelete(pom);
+        assertFalse(fileTreeIndex.exists(newFile));
+        assertTrue(fileTreeIndex.exists(pom));
+
+        fileTreeIndex.refresh(newFile);
+        fileTreeIndex.refresh(pom);
+        assertTrue(fileTreeIndex.isFile(newFile));
+        assertTrue(fileTreeIndex.isDirectory(newFile.getParentFile()));
+        assertFalse(fileTreeIndex.exists(pom));
+
+        // Replacing a file by a folder
+        FileUtils.forceDelete(newFile);
+        FileUtils.writeStringToFile(new File(newFile, "b.txt"), "b", StandardCharsets.UTF_8);
+        fileTreeIndex.refresh(newFile);
+        assertTrue(fileTreeIndex.isDirectory(newFile));
+        assertTrue(fileTreeIndex.isFile(new File(newFile, "b.txt")));
+
+        // Moving a folder
+        File folder1 = new File(transformedAppFolder, "folder1");
+        File folder3 = new File(transformedAppFolder, "folder3");
+        FileUtils.moveDirectory(folder1, folder3);
+        fileTreeIndex.refresh(folder1);
+        fileTreeIndex.refresh(folder3);
+        assertFalse(fileTreeIndex.exists(folder1));
+        assertTrue(fileTreeIndex.isFile(new File(transformedAppFolder, "folder3/folder2/a.txt/b.txt")));
+
+        Path root = transformedAppFolder.toPath();
+        assertEquals(walkFromIndex(fileTreeIndex, folder3.toPath(), Integer.MAX_VALUE, null), walkFromDisk(folder3.toPath(), Integer.MAX_VALUE, null));
+
+        // Refreshing the application folder itself rebuilds the whole index
+        FileUtils.writeStringToFile(pom, "pom", StandardCharsets.UTF_8);
+        fileTreeIndex.refresh(transformedAppFolder);
+        assertTrue(fileTreeIndex.isFile(pom));
+        assertEquals(walkFromIndex(fileTreeIndex, root, Integer.MAX_VALUE, null), walkFromDisk(root, Integer.MAX_VALUE, null));
+    }
+
+    @Test
+    public void walkFileTreeAttributesTest() throws IOException {
+        createFiles();
+        FileTreeIndexImpl fileTreeIndex = new FileTreeIndexImpl(transformedAppFolder);
+        List<String> attributes = new ArrayList<>();
+        fileTreeIndex.walkFileTree(transformedAppFolder.toPath(), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                BasicFileAttributes diskAttributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                assertEquals(attrs.size(), diskAttributes.size(), file.toString());
+                assertEquals(attrs.lastModifiedTime(), diskAttributes.lastModifiedTime(), file.toString());
+                assertEquals(attrs.creationTime(), diskAttributes.creationTime(), file.toString());
+                assertEquals(attrs.fileKey(), diskAttributes.fileKey(), file.toString());
+                attributes.add(file.getFileName() + " " + attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        assertTrue(attributes.contains("README.md 9"));
+    }
+
+    @Test(timeOut = 10000)
+    public void refreshWhileWalkingTest() throws IOException {
+        createFiles();
+        FileTreeIndexImpl fileTreeIndex = new FileTreeIndexImpl(transformedAppFolder);
+        File newFile = new File(transformedAppFolder, "src/main/java/b/C.java");
+        List<String> visited = new ArrayList<>();
+        fileTreeIndex.walkFileTree(transformedAppFolder.toPath(), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (file.getFileName().toString().equals("B.java")) {
+                    FileUtils.writeStringToFile(newFile, "C", StandardCharsets.UTF_8);
+                    fileTreeIndex.refresh(newFile);
+                }
+                visited.add(file.getFileName().toString());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        // The file created during the walk is not visited by it, but it is indexed
+        assertTrue(visited.contains("B.java"));
+        assertFalse(visited.contains("C.java"));
+        assertTrue(fileTreeIndex.isFile(newFile));
+    }
+
+}
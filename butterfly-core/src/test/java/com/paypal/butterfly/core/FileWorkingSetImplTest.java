@@ -0,0 +1,119 @@
+package com.paypal.butterfly.core;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+public class FileWorkingSetImplTest extends TestHelper {
+
+    private File createFile(String name, String content) throws IOException {
+        File file = new File(transformedAppFolder, name);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static String read(FileWorkingSetImpl fileWorkingSet, File file) throws IOException {
+        return new String(fileWorkingSet.read(file), StandardCharsets.UTF_8);
+    }
+
+    private static String readFromDisk(File file) throws IOException {
+        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writeBackTest() throws IOException {
+        File file = createFile("a.txt", "a");
+        FileWorkingSetImpl fileWorkingSet = new FileWorkingSetImpl(1024);
+
+        assertEquals(read(fileWorkingSet, file), "a");
+        fileWorkingSet.write(file, "b".getBytes(StandardCharsets.UTF_8));
+        fileWorkingSet.write(file, "c".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(read(fileWorkingSet, file), "c");
+        assertEquals(readFromDisk(file), "a");
+        assertTrue(fileWorkingSet.isDirty());
+
+        fileWorkingSet.flush(transformedAppFolder);
+        assertEquals(readFromDisk(file), "c");
+        assertFalse(fileWorkingSet.isDirty());
+    }
+
+    @Test
+    public void unchangedWriteTest() throws IOException {
+        File file1 = createFile("a.txt", "a");
+        File file2 = createFile("b.txt", "b");
+        FileWorkingSetImpl fileWorkingSet = new FileWorkingSetImpl(1024);
+
+        // Neither in memory nor in disk the content changes
+        assertEquals(read(fileWorkingSet, file1), "a");
+        assertFalse(fileWorkingSet.write(file1, "a".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(fileWorkingSet.write(file2, "b".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(fileWorkingSet.isDirty());
+
+        assertTrue(fileWorkingSet.write(file1, "c".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(fileWorkingSet.isDirty());
+    }
+
+    @Test
+    public void flushFolderTest() throws IOException {
+        File file1 = createFile("folder1/a.txt", "a");
+        File file2 = createFile("folder2/a.txt", "a");
+        FileWorkingSetImpl fileWorkingSet = new FileWorkingSetImpl(1024);
+        fileWorkingSet.write(file1, "b".getBytes(StandardCharsets.UTF_8));
+        fileWorkingSet.write(file2, "b".getBytes(StandardCharsets.UTF_8));
+
+        fileWorkingSet.flush(new File(transformedAppFolder, "folder1"));
+        assertEquals(readFromDisk(file1), "b");
+        assertEquals(readFromDisk(file2), "a");
+        assertTrue(fileWorkingSet.isDirty());
+    }
+
+    @Test
+    public void invalidateTest() throws IOException {
+        File file = createFile("a.txt", "a");
+        FileWorkingSetImpl fileWorkingSet = new FileWorkingSetImpl(1024);
+        assertEquals(read(fileWorkingSet, file), "a");
+
+        // Modified straight in disk
+        FileUtils.writeStringToFile(file, "b", StandardCharsets.UTF_8);
+        assertEquals(read(fileWorkingSet, file), "a");
+
+        fileWorkingSet.invalidate(transformedAppFolder);
+        assertEquals(read(fileWorkingSet, file), "b");
+    }
+
+    @Test
+    public void spillTest() throws IOException {
+        File file1 = createFile("1.txt", "1");
+        File file2 = createFile("2.txt", "2");
+        File file3 = createFile("3.txt", "3");
+        FileWorkingSetImpl fileWorkingSet = new FileWorkingSetImpl(10);
+
+        fileWorkingSet.write(file1, "11111".getBytes(StandardCharsets.UTF_8));
+        fileWorkingSet.write(file2, "22222".getBytes(StandardCharsets.UTF_8));
+        assertEquals(readFromDisk(file1), "1");
+
+        // File 1 is the least recently used one, so it is spilled to disk
+        fileWorkingSet.write(file3, "33333".getBytes(StandardCharsets.UTF_8));
+        assertEquals(readFromDisk(file1), "11111");
+        assertEquals(readFromDisk(file2), "2");
+        assertEquals(readFromDisk(file3), "3");
+
+        // Files bigger than the limit are written straight to disk
+        fileWorkingSet.write(file1, "111111111111".getBytes(StandardCharsets.UTF_8));
+        assertEquals(readFromDisk(file1), "111111111111");
+        assertEquals(read(fileWorkingSet, file1), "111111111111");
+    }
+
+    @Test(expectedExceptions = FileNotFoundException.class)
+    public void nonExistentFileTest() throws IOException {
+        new FileWorkingSetImpl(1024).read(new File(transformedAppFolder, "nonExistentFile.txt"));
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.paypal.butterfly.core;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.testng.Assert.*;
+
+public class OutputFolderMaterializerTest extends TestHelper {
+
+    private File createSourceFolder() throws IOException {
+        File source = new File(transformedAppFolder, "source");
+        FileUtils.writeStringToFile(new File(source, "README.md"), "readme", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(source, "src/main/App.java"), "class App {}", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(source, "target/App.class"), "binary", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(source, "web/node_modules/lib/index.js"), "js", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(source, "node_modules/lib/index.js"), "js", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(source, "web/index.html"), "html", StandardCharsets.UTF_8);
+        new File(source, "empty").mkdir();
+        return source;
+    }
+
+    @DataProvider
+    public Object[][] strategies() {
+        return Arrays.stream(OutputFolderMaterializer.Strategy.values()).map(s -> new Object[]{s}).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "strategies")
+    public void materializeTest(OutputFolderMaterializer.Strategy strategy) throws IOException {
+        File source = createSourceFolder();
+        File target = new File(transformedAppFolder, "target-" + strategy);
+        target.mkdir();
+
+        OutputFolderMaterializer materializer = new OutputFolderMaterializer(strategy, Arrays.asList("target", "**/node_modules"), 2);
+        materializer.materialize(source, target);
+
+        assertEquals(FileUtils.readFileToString(new File(target, "README.md"), StandardCharsets.UTF_8), "readme");
+        assertEquals(FileUtils.readFileToString(new File(target, "src/main/App.java"), StandardCharsets.UTF_8), "class App {}");
+        assertEquals(FileUtils.readFileToString(new File(target, "web/index.html"), StandardCharsets.UTF_8), "html");
+        assertTrue(new File(target, "empty").isDirectory());
+        assertFalse(new File(target, "target").exists());
+        assertFalse(new File(target, "web/node_modules").exists());
+        assertFalse(new File(target, "node_modules").exists());
+        assertEquals(new File(target, "README.md").lastModified(), new File(source, "README.md").lastModified());
+    }
+
+    @Test
+    public void noExclusionsTest() throws IOException {
+        File source = createSourceFolder();
+        File target = new File(transformedAppFolder, "target-all");
+        target.mkdir();
+
+        new OutputFolderMaterializer(OutputFolderMaterializer.Strategy.PARALLEL_COPY, Collections.emptyList(), 2).materialize(source, target);
+
+        assertEquals(FileUtils.readFileToString(new File(target, "target/App.class"), StandardCharsets.UTF_8), "binary");
+        assertEquals(FileUtils.readFileToString(new File(target, "web/node_modules/lib/index.js"), StandardCharsets.UTF_8), "js");
+    }
+
+    @Test
+    public void unlinkTest() throws IOException {
+        File source = createSourceFolder();
+        File target = new File(transformedAppFolder, "target-linked");
+        target.mkdir();
+
+        OutputFolderMaterializer materializer = new OutputFolderMaterializer(OutputFolderMaterializer.Strategy.HARDLINK, Collections.emptyList(), 1);
+        materializer.materialize(source, target);
+        assertTrue(materializer.hasLinkedFiles());
+
+        File readme = new File(target, "README.md");
+        materializer.unlink(readme);
+        FileUtils.writeStringToFile(readme, "changed", StandardCharsets.UTF_8);
+        assertEquals(FileUtils.readFileToString(new File(source, "README.md"), StandardCharsets.UTF_8), "readme");
+
+        materializer.unlink(new File(target, "src"));
+        FileUtils.writeStringToFile(new File(target, "src/main/App.java"), "changed", StandardCharsets.UTF_8);
+        assertEquals(FileUtils.readFileToString(new File(source, "src/main/App.java"), StandardCharsets.UTF_8), "class App {}");
+
+        // Files not unlinked yet are still the same as the original ones
+        assertTrue(Files.isSameFile(Paths.get(target.getPath(), "web/index.html"), Paths.get(source.getPath(), "web/index.html")));
+
+        materializer.unlink(target);
+        assertFalse(materializer.hasLinkedFiles());
+        assertFalse(Files.isSameFile(Paths.get(target.getPath(), "web/index.html"), Paths.get(source.getPath(), "web/index.html")));
+        assertEquals(FileUtils.readFileToString(new File(target, "web/index.html"), StandardCharsets.UTF_8), "html");
+    }
+
+    @Test
+    public void moveContentTest() throws IOException {
+        File source = createSourceFolder();
+        FileUtils.writeStringToFile(new File(source, ".git/HEAD"), "ref", StandardCharsets.UTF_8);
+        File target = new File(transformedAppFolder, "baseline");
+        target.mkdir();
+
+        new OutputFolderMaterializer(OutputFolderMaterializer.Strategy.COPY, Collections.emptyList(), 1).moveContent(source, target, ".git");
+
+        assertEquals(source.list(), new String[]{".git"});
+        assertEquals(FileUtils.readFileToString(new File(source, ".git/HEAD"), StandardCharsets.UTF_8), "ref");
+        assertEquals(FileUtils.readFileToString(new File(target, ".git/HEAD"), StandardCharsets.UTF_8), "ref");
+        assertEquals(FileUtils.readFileToString(new File(target, "src/main/App.java"), StandardCharsets.UTF_8), "class App {}");
+        assertEquals(FileUtils.readFileToString(new File(target, "target/App.class"), StandardCharsets.UTF_8), "binary");
+    }
+
+    @Test
+    public void fromSettingsTest() {
+        Properties properties = new Properties();
+        properties.setProperty(EngineSettings.MATERIALIZATION_STRATEGY, "parallel-copy");
+        properties.setProperty(EngineSettings.MATERIALIZATION_EXCLUDES, "target, **/node_modules");
+        EngineSettings engineSettings = new EngineSettings(null).forConfiguration(new ConfigurationImpl(properties));
+
+        OutputFolderMaterializer materializer = OutputFolderMaterializer.fromSettings(engineSettings);
+        assertEquals(materializer.getStrategy(), OutputFolderMaterializer.Strategy.PARALLEL_COPY);
+        assertTrue(materializer.isExcluded(Paths.get("target")));
+        assertTrue(materializer.isExcluded(Paths.get("web/node_modules")));
+        assertTrue(materializer.isExcluded(Paths.get("node_modules")));
+        assertFalse(materializer.isExcluded(Paths.get("web/node_modules/lib")));
+        assertFalse(materializer.isExcluded(Paths.get("src")));
+
+        assertEquals(OutputFolderMaterializer.fromSettings(new EngineSettings(null)).getStrategy(), OutputFolderMaterializer.Strategy.COPY);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Property butterfly.materialization.strategy must be copy, parallel-copy, hardlink or reflink, but it is rsync")
+    public void invalidStrategyTest() {
+        OutputFolderMaterializer.Strategy.fromName("rsync");
+    }
+
+}
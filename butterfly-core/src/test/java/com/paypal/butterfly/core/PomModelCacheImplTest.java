@@ -0,0 +1,120 @@
+package com.paypal.butterfly.core;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Model;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.*;
+
+public class PomModelCacheImplTest extends TestHelper {
+
+    @Test
+    public void copiesTest() throws IOException, XmlPullParserException {
+        PomModelCacheImpl pomModelCache = new PomModelCacheImpl();
+        File pomFile = new File(transformedAppFolder, "pom.xml");
+
+        Model model1 = pomModelCache.getModel(pomFile);
+        assertEquals(model1.getArtifactId(), "foo");
+        model1.setArtifactId("bar");
+
+        Model model2 = pomModelCache.getModel(new File(transformedAppFolder, "./pom.xml"));
+        assertNotSame(model2, model1);
+        assertEquals(model2.getArtifactId(), "foo");
+    }
+
+    @Test
+    public void versionTest() throws IOException, XmlPullParserException {
+        PomModelCacheImpl pomModelCache = new PomModelCacheImpl();
+        File pomFile = new File(transformedAppFolder, "pom.xml");
+        long lastModified = pomFile.lastModified();
+        assertEquals(pomModelCache.getModel(pomFile).getArtifactId(), "foo");
+
+        // Same size and last modification time, so it is not read again
+        replaceArtifactId(pomFile, "bar");
+        assertTrue(pomFile.setLastModified(lastModified));
+        assertEquals(pomModelCache.getModel(pomFile).getArtifactId(), "foo");
+
+        // Read again when its version changes
+        assertTrue(pomFile.setLastModified(lastModified - 10000));
+        assertEquals(pomModelCache.getModel(pomFile).getArtifactId(), "bar");
+
+        // Read again when invalidated, even if its version has not changed
+        replaceArtifactId(pomFile, "baz");
+        assertTrue(pomFile.setLastModified(lastModified - 10000));
+        assertEquals(pomModelCache.getModel(pomFile).getArtifactId(), "bar");
+        pomModelCache.invalidate(transformedAppFolder);
+        assertEquals(pomModelCache.getModel(pomFile).getArtifactId(), "baz");
+    }
+
+    @Test
+    public void contentTest() throws IOException, XmlPullParserException {
+        PomModelCacheImpl pomModelCache = new PomModelCacheImpl();
+        File pomFile = new File(transformedAppFolder, "pom.xml");
+        byte[] content = FileUtils.readFileToByteArray(pomFile);
+        byte[] newContent = new String(content, StandardCharsets.UTF_8).replace("<artifactId>foo</artifactId>", "<artifactId>bar</artifactId>").getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(pomModelCache.getModel(pomFile).getArtifactId(), "foo");
+        assertEquals(pomModelCache.getModel(pomFile, content).getArtifactId(), "foo");
+        assertEquals(pomModelCache.getModel(pomFile, newContent).getArtifactId(), "bar");
+
+        // Content given directly has no version, so the file is read again, but still not necessarily parsed
+        assertEquals(pomModelCache.getModel(pomFile).getArtifactId(), "foo");
+        FileUtils.writeByteArrayToFile(pomFile, newContent);
+        pomModelCache.getModel(pomFile, newContent);
+        assertEquals(pomModelCache.getModel(pomFile).getArtifactId(), "bar");
+    }
+
+    @Test
+    public void symbolicLinkTest() throws IOException, XmlPullParserException {
+        PomModelCacheImpl pomModelCache = new PomModelCacheImpl();
+        File pomFile = new File(transformedAppFolder, "pom.xml");
+        long lastModified = pomFile.lastModified();
+        Path linkFolder = Files.createTempDirectory("butterfly-link");
+        File link = Files.createSymbolicLink(linkFolder.resolve("app"), transformedAppFolder.toPath().toAbsolutePath()).toFile();
+        File linkedPomFile = new File(link, "pom.xml");
+
+        try {
+            assertEquals(pomModelCache.getModel(pomFile).getArtifactId(), "foo");
+
+            // The same file is cached only once, regardless of the path it is referred to by
+            replaceArtifactId(pomFile, "bar");
+            assertTrue(pomFile.setLastModified(lastModified));
+            assertEquals(pomModelCache.getModel(linkedPomFile).getArtifactId(), "foo");
+            pomModelCache.invalidate(link);
+            assertEquals(pomModelCache.getModel(pomFile).getArtifactId(), "bar");
+
+            // Removed files are invalidated as well
+            FileUtils.forceDelete(pomFile);
+            pomModelCache.invalidate(linkedPomFile);
+            FileUtils.writeStringToFile(new File(transformedAppFolder, "pom.xml"), FileUtils.readFileToString(new File(appFolder, "pom.xml"), StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+            replaceArtifactId(pomFile, "baz");
+            assertTrue(pomFile.setLastModified(lastModified));
+            assertEquals(pomModelCache.getModel(linkedPomFile).getArtifactId(), "baz");
+        } finally {
+            Files.delete(link.toPath());
+            Files.delete(linkFolder);
+        }
+    }
+
+    @Test(expectedExceptions = XmlPullParserException.class)
+    public void invalidPomTest() throws IOException, XmlPullParserException {
+        PomModelCacheImpl pomModelCache = new PomModelCacheImpl();
+        File pomFile = new File(transformedAppFolder, "pom.xml");
+        FileUtils.writeStringToFile(pomFile, "<project><foo></bar></project>", StandardCharsets.UTF_8);
+        pomModelCache.getModel(pomFile);
+    }
+
+    private static void replaceArtifactId(File pomFile, String artifactId) throws IOException {
+        String content = FileUtils.readFileToString(pomFile, StandardCharsets.UTF_8);
+        content = content.replaceFirst("<artifactId>[a-z]{3}</artifactId>", "<artifactId>" + artifactId + "</artifactId>");
+        FileUtils.writeStringToFile(pomFile, content, StandardCharsets.UTF_8);
+    }
+
+}
@@ -2,13 +2,21 @@ package com.paypal.butterfly.core;
 
 import com.google.common.io.Files;
 import com.paypal.butterfly.api.*;
-import com.paypal.butterfly.extensions.api.TransformationTemplate;
+import com.paypal.butterfly.extensions.api.*;
 import com.paypal.butterfly.extensions.api.exception.ApplicationValidationException;
+import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import com.paypal.butterfly.extensions.api.utilities.Abort;
 import com.paypal.butterfly.extensions.springboot.ButterflySpringBootExtension;
 import com.paypal.butterfly.extensions.springboot.JavaEEToSpringBoot;
 import com.paypal.butterfly.extensions.springboot.SpringBootUpgrade_1_5_6_to_1_5_7;
+import com.paypal.butterfly.utilities.file.FindFiles;
+import com.paypal.butterfly.utilities.operations.file.CopyFile;
+import com.paypal.butterfly.utilities.operations.file.RenameFile;
+import com.paypal.butterfly.utilities.operations.pom.PomAddProperty;
+import com.paypal.butterfly.utilities.operations.text.AddLine;
+import com.paypal.butterfly.utilities.operations.text.InsertLine;
+import com.paypal.butterfly.utilities.operations.text.ReplaceText;
 import org.apache.commons.io.FileUtils;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -20,10 +28,12 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URISyntaxException;
-import java.util.List;
-import java.util.Properties;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 import static org.testng.Assert.*;
 import static org.testng.AssertJUnit.assertNull;
@@ -81,6 +91,8 @@ public class TransformationEngineTest extends TestHelper {
         assertEquals(statistics.getTOExecutionResultNoOpCount(), 0);
         assertEquals(statistics.getTOExecutionResultSuccessCount(), 0);
         assertEquals(statistics.getTOExecutionResultWarningCount(), 0);
+        assertEquals(statistics.getTOFilesTouchedCount(), 0);
+        assertEquals(statistics.getTOBytesWritten(), 0);
         assertEquals(statistics.getUtilitiesCount(), 1);
         assertEquals(statistics.getTUExecutionResultErrorCount(), 0);
         assertEquals(statistics.getTUExecutionResultNullCount(), 0);
@@ -88,6 +100,37 @@ public class TransformationEngineTest extends TestHelper {
         assertEquals(statistics.getTUExecutionResultWarningCount(), 0);
     }
 
+    @Test
+    public void virtualExecutorTest() throws ExecutionException, InterruptedException {
+        Application application = new ApplicationImpl(transformedAppFolder);
+        Properties properties = new Properties();
+        properties.setProperty(EngineSettings.EXECUTOR_STRATEGY, "virtual");
+        Configuration configuration = new ConfigurationImpl(properties);
+
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        transformationTemplate.add(getNewTestTransformationUtility());
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(application, transformationTemplate, configuration);
+
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+
+        assertNotNull(transformationResult);
+        assertTrue(transformationResult.isSuccessful());
+        assertEquals(transformationResult.getMetrics().get(0).getStatistics().getTUExecutionResultValueCount(), 1);
+    }
+
+    @Test(expectedExceptions = ExecutionException.class, expectedExceptionsMessageRegExp = ".*Property butterfly.engine.executor must be either platform or virtual, but it is green")
+    public void invalidExecutorTest() throws ExecutionException, InterruptedException {
+        Application application = new ApplicationImpl(transformedAppFolder);
+        Properties properties = new Properties();
+        properties.setProperty(EngineSettings.EXECUTOR_STRATEGY, "green");
+        Configuration configuration = new ConfigurationImpl(properties);
+
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(application, transformationTemplate, configuration);
+
+        transformationEngine.perform(transformation).get();
+    }
+
     @Test
     public void javaEEToSpringBootTest() throws IOException, ExecutionException, InterruptedException {
         File appFolder = new File("../tests/sample-apps/echo");
@@ -135,6 +178,544 @@ public class TransformationEngineTest extends TestHelper {
         assertEquals(statistics.getManualInstructionsCount(), 0);
     }
 
+    @Test
+    public void javaEEToSpringBootParallelTest() throws IOException, ExecutionException, InterruptedException {
+        File appFolder = new File("../tests/sample-apps/echo");
+        File sequentialAppFolder = new File("./out/test/resources/echo-transformed-sequential");
+        File parallelAppFolder = new File("./out/test/resources/echo-transformed-parallel");
+        FileUtils.deleteDirectory(sequentialAppFolder);
+        FileUtils.deleteDirectory(parallelAppFolder);
+        FileUtils.copyDirectory(appFolder, sequentialAppFolder);
+        FileUtils.copyDirectory(appFolder, parallelAppFolder);
+
+        Properties properties = new Properties();
+        properties.put("changeReadme", "true");
+        properties.put("validate", "false");
+        TransformationResult sequentialResult = transformationEngine.perform(new TemplateTransformationRequest(new ApplicationImpl(sequentialAppFolder), new JavaEEToSpringBoot(), new ConfigurationImpl(properties))).get();
+
+        properties.put(EngineSettings.PARALLEL_UTILITIES, "true");
+        properties.put(EngineSettings.PARALLEL_THREADS, "4");
+        TransformationResult parallelResult = transformationEngine.perform(new TemplateTransformationRequest(new ApplicationImpl(parallelAppFolder), new JavaEEToSpringBoot(), new ConfigurationImpl(properties))).get();
+
+        assertTrue(sequentialResult.isSuccessful());
+        assertTrue(parallelResult.isSuccessful());
+        TransformationStatistics sequentialStatistics = sequentialResult.getMetrics().get(0).getStatistics();
+        TransformationStatistics parallelStatistics = parallelResult.getMetrics().get(0).getStatistics();
+        assertEquals(parallelStatistics.getUtilitiesCount(), sequentialStatistics.getUtilitiesCount());
+        assertEquals(parallelStatistics.getOperationsCount(), sequentialStatistics.getOperationsCount());
+        assertEquals(parallelStatistics.getPerformResultSkippedConditionCount(), sequentialStatistics.getPerformResultSkippedConditionCount());
+        assertEquals(parallelStatistics.getTUExecutionResultValueCount(), sequentialStatistics.getTUExecutionResultValueCount());
+        assertEquals(parallelStatistics.getTOExecutionResultSuccessCount(), sequentialStatistics.getTOExecutionResultSuccessCount());
+        assertEquals(parallelStatistics.getTOExecutionResultNoOpCount(), sequentialStatistics.getTOExecutionResultNoOpCount());
+
+        Collection<File> sequentialFiles = FileUtils.listFiles(sequentialAppFolder, null, true);
+        assertEquals(FileUtils.listFiles(parallelAppFolder, null, true).size(), sequentialFiles.size());
+        for (File sequentialFile : sequentialFiles) {
+            File parallelFile = new File(parallelAppFolder, sequentialAppFolder.toPath().relativize(sequentialFile.toPath()).toString());
+            assertTrue(FileUtils.contentEquals(sequentialFile, parallelFile), "File differs: " + parallelFile);
+        }
+    }
+
+    @Test
+    public void abortParallelTest() throws IOException, URISyntaxException, ExecutionException, InterruptedException {
+        File appFolder = new File(getClass().getResource("/test-app-2").toURI());
+
+        File transformedAppFolder = Files.createTempDir();
+        FileUtils.copyDirectory(appFolder, transformedAppFolder);
+
+        Properties properties = new Properties();
+        properties.put(EngineSettings.PARALLEL_UTILITIES, "true");
+        Configuration configuration = new ConfigurationImpl(properties);
+
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), new JavaEEToSpringBoot(), configuration);
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+
+        assertFalse(transformationResult.isSuccessful());
+        assertNotNull(transformationResult.getAbortDetails());
+        assertEquals(transformationResult.getAbortDetails().getUtilityName(), "ButterflySpringBootExtension:JavaEEToSpringBoot-2-Abort");
+        assertEquals(transformationResult.getAbortDetails().getAbortMessage(), "This application does not have a root pom.xml file");
+
+        TransformationStatistics statistics = transformationResult.getMetrics().get(0).getStatistics();
+        assertEquals(statistics.getTUExecutionResultValueCount(), 1);
+        assertEquals(statistics.getTUExecutionResultErrorCount(), 1);
+        assertEquals(statistics.getOperationsCount(), 0);
+    }
+
+    @Test
+    public void parallelChildrenTest() throws IOException, ExecutionException, InterruptedException {
+        File filesFolder = new File(transformedAppFolder, "files");
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            File file = new File(filesFolder, "file-" + i + ".txt");
+            FileUtils.writeStringToFile(file, "file " + i, StandardCharsets.UTF_8);
+            files.add(file);
+        }
+
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        String filesAttribute = transformationTemplate.add(new TransformationUtility() {
+            @Override
+            public String getDescription() {
+                return "Returns the files to be changed";
+            }
+            @Override
+            protected ExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+                return TUExecutionResult.value(this, files);
+            }
+        });
+        transformationTemplate.add(new MultipleOperations(new AppendTextOperation()).setFiles(filesAttribute));
+
+        Properties properties = new Properties();
+        properties.put(EngineSettings.PARALLEL_CHILDREN, "true");
+        properties.put(EngineSettings.PARALLEL_THREADS, "4");
+        Configuration configuration = new ConfigurationImpl(properties);
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), transformationTemplate, configuration);
+
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+
+        assertTrue(transformationResult.isSuccessful());
+        TransformationStatistics statistics = transformationResult.getMetrics().get(0).getStatistics();
+        assertEquals(statistics.getOperationsCount(), 40);
+        assertEquals(statistics.getTOExecutionResultSuccessCount(), 40);
+        for (int i = 0; i < 40; i++) {
+            assertEquals(FileUtils.readFileToString(files.get(i), StandardCharsets.UTF_8), "file " + i + " changed");
+        }
+    }
+
+    @Test
+    public void hardlinkMaterializationTest() throws IOException, ExecutionException, InterruptedException {
+        FileUtils.writeStringToFile(new File(transformedAppFolder, "files/changed.txt"), "file", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(transformedAppFolder, "files/unchanged.txt"), "file", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(transformedAppFolder, "target/excluded.txt"), "file", StandardCharsets.UTF_8);
+
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        transformationTemplate.add(new AppendTextOperation().relative("files/changed.txt"));
+
+        Properties properties = new Properties();
+        properties.put(EngineSettings.MATERIALIZATION_STRATEGY, "hardlink");
+        properties.put(EngineSettings.MATERIALIZATION_EXCLUDES, "target");
+        Configuration configuration = new ConfigurationImpl(properties, false);
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), transformationTemplate, configuration);
+
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+
+        assertTrue(transformationResult.isSuccessful());
+        File outputFolder = transformationResult.getTransformedApplicationDir();
+        assertNotEquals(outputFolder, transformedAppFolder);
+        assertEquals(FileUtils.readFileToString(new File(outputFolder, "files/changed.txt"), StandardCharsets.UTF_8), "file changed");
+        assertEquals(FileUtils.readFileToString(new File(outputFolder, "files/unchanged.txt"), StandardCharsets.UTF_8), "file");
+        assertFalse(new File(outputFolder, "target").exists());
+
+        // The original application is left untouched
+        assertEquals(FileUtils.readFileToString(new File(transformedAppFolder, "files/changed.txt"), StandardCharsets.UTF_8), "file");
+    }
+
+    @Test
+    public void hardlinkDeclaredFilesTest() throws IOException, ExecutionException, InterruptedException {
+        FileUtils.writeStringToFile(new File(transformedAppFolder, "files/copied.txt"), "new", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(transformedAppFolder, "files/renamed.txt"), "file", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(transformedAppFolder, "files/unchanged.txt"), "file", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(transformedAppFolder, "copies/copied.txt"), "old", StandardCharsets.UTF_8);
+
+        // Operations that are not file scoped only unlink the files they declare
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        transformationTemplate.add(new CopyFile().relative("files/copied.txt").setToRelative("copies"));
+        transformationTemplate.add(new RenameFile("new-name.txt").relative("files/renamed.txt"));
+        transformationTemplate.add(new AppendTextOperation().relative("files/new-name.txt"));
+
+        Properties properties = new Properties();
+        properties.put(EngineSettings.MATERIALIZATION_STRATEGY, "hardlink");
+        Configuration configuration = new ConfigurationImpl(properties, false);
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), transformationTemplate, configuration);
+
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+
+        assertTrue(transformationResult.isSuccessful());
+        File outputFolder = transformationResult.getTransformedApplicationDir();
+        assertEquals(FileUtils.readFileToString(new File(outputFolder, "copies/copied.txt"), StandardCharsets.UTF_8), "new");
+        assertEquals(FileUtils.readFileToString(new File(outputFolder, "files/new-name.txt"), StandardCharsets.UTF_8), "file changed");
+        assertTrue(java.nio.file.Files.isSameFile(new File(outputFolder, "files/unchanged.txt").toPath(), new File(transformedAppFolder, "files/unchanged.txt").toPath()));
+
+        // The original application is left untouched
+        assertEquals(FileUtils.readFileToString(new File(transformedAppFolder, "copies/copied.txt"), StandardCharsets.UTF_8), "old");
+        assertEquals(FileUtils.readFileToString(new File(transformedAppFolder, "files/renamed.txt"), StandardCharsets.UTF_8), "file");
+    }
+
+    @Test
+    public void fileTreeIndexTest() throws ExecutionException, InterruptedException {
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        String before = transformationTemplate.add(new FindFiles("generated\\.txt", true));
+
+        // A utility that is not file scoped might create files, so later searches must find them
+        transformationTemplate.add(new TransformationUtility() {
+            @Override
+            public String getDescription() {
+                return "Creates a file";
+            }
+            @Override
+            protected ExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+                try {
+                    FileUtils.writeStringToFile(new File(transformedAppFolder, "src/generated.txt"), "generated", StandardCharsets.UTF_8);
+                    return TUExecutionResult.nullResult(this);
+                } catch (IOException e) {
+                    return TUExecutionResult.error(this, e);
+                }
+            }
+        });
+        String after = transformationTemplate.add(new FindFiles("generated\\.txt", true));
+
+        List<Object> results = new ArrayList<>();
+        transformationTemplate.add(new TransformationUtility() {
+            @Override
+            public String getDescription() {
+                return "Collects search results";
+            }
+            @Override
+            protected ExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+                results.add(transformationContext.get(before));
+                results.add(transformationContext.get(after));
+                return TUExecutionResult.nullResult(this);
+            }
+        });
+
+        Properties properties = new Properties();
+        properties.put(EngineSettings.FILE_TREE_INDEX_ENABLED, "true");
+        Configuration configuration = new ConfigurationImpl(properties);
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), transformationTemplate, configuration);
+
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+
+        assertTrue(transformationResult.isSuccessful());
+        assertEquals(results.size(), 2);
+        assertTrue(((List<?>) results.get(0)).isEmpty());
+        assertEquals(results.get(1), Collections.singletonList(new File(transformedAppFolder, "src/generated.txt")));
+    }
+
+    @Test
+    public void workingSetTest() throws IOException, ExecutionException, InterruptedException {
+        File textFile = new File(transformedAppFolder, "file.txt");
+        FileUtils.writeStringToFile(textFile, "a", StandardCharsets.UTF_8);
+
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        transformationTemplate.add(new PomAddProperty("p1", "v1").relative("pom.xml"));
+        transformationTemplate.add(new PomAddProperty("p2", "v2").relative("pom.xml"));
+
+        // A utility not aware of the working set must find the changes in disk
+        List<String> pomContents = new ArrayList<>();
+        transformationTemplate.add(new TransformationUtility() {
+            @Override
+            public String getDescription() {
+                return "Reads the POM file";
+            }
+            @Override
+            protected ExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+                try {
+                    pomContents.add(FileUtils.readFileToString(getAbsoluteFile(transformedAppFolder, transformationContext), StandardCharsets.UTF_8));
+                    return TUExecutionResult.nullResult(this);
+                } catch (IOException e) {
+                    return TUExecutionResult.error(this, e);
+                }
+            }
+        }.relative("pom.xml"));
+        transformationTemplate.add(new PomAddProperty("p3", "v3").relative("pom.xml"));
+
+        // An operation not aware of the working set modifies the file straight in disk
+        transformationTemplate.add(new ReplaceText("a", "b").relative("file.txt"));
+        transformationTemplate.add(new AppendTextOperation().relative("file.txt"));
+        transformationTemplate.add(new ReplaceText("changed", "appended").relative("file.txt"));
+
+        Properties properties = new Properties();
+        properties.put(EngineSettings.WORKING_SET_ENABLED, "true");
+        Configuration configuration = new ConfigurationImpl(properties);
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), transformationTemplate, configuration);
+
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+
+        assertTrue(transformationResult.isSuccessful());
+        assertEquals(transformationResult.getMetrics().get(0).getStatistics().getTOExecutionResultSuccessCount(), 6);
+
+        String pom = FileUtils.readFileToString(new File(transformedAppFolder, "pom.xml"), StandardCharsets.UTF_8);
+        assertTrue(pom.contains("<p1>v1</p1>"));
+        assertTrue(pom.contains("<p2>v2</p2>"));
+        assertTrue(pom.contains("<p3>v3</p3>"));
+        assertEquals(FileUtils.readFileToString(textFile, StandardCharsets.UTF_8), "b appended");
+        assertEquals(pomContents.size(), 1);
+        assertTrue(pomContents.get(0).contains("<p2>v2</p2>"));
+        assertFalse(pomContents.get(0).contains("<p3>v3</p3>"));
+    }
+
+    @Test
+    public void fusedOperationsTest() throws IOException, ExecutionException, InterruptedException {
+        FileUtils.writeStringToFile(new File(transformedAppFolder, "file.txt"), "a\r\nx\r\na", StandardCharsets.UTF_8);
+        File unfusedAppFolder = new File(transformedAppFolder.getParentFile(), transformedAppFolder.getName() + "-unfused");
+        FileUtils.copyDirectory(transformedAppFolder, unfusedAppFolder);
+
+        TransformationResult fusedResult = performFusedOperationsTemplate(transformedAppFolder, true);
+        TransformationResult unfusedResult = performFusedOperationsTemplate(unfusedAppFolder, false);
+
+        assertTrue(fusedResult.isSuccessful());
+        assertTrue(unfusedResult.isSuccessful());
+
+        String fusedContent = FileUtils.readFileToString(new File(transformedAppFolder, "file.txt"), StandardCharsets.UTF_8);
+        assertEquals(fusedContent, "c\r\ninserted\r\nx\r\nc\r\nadded");
+        assertEquals(fusedContent, FileUtils.readFileToString(new File(unfusedAppFolder, "file.txt"), StandardCharsets.UTF_8));
+
+        TransformationStatistics fusedStatistics = fusedResult.getMetrics().get(0).getStatistics();
+        TransformationStatistics unfusedStatistics = unfusedResult.getMetrics().get(0).getStatistics();
+        assertEquals(fusedStatistics.getTOExecutionResultSuccessCount(), 4);
+        assertEquals(fusedStatistics.getTOExecutionResultNoOpCount(), 1);
+        assertEquals(fusedStatistics.getPerformResultErrorCount(), 1);
+        assertEquals(fusedStatistics.getTOExecutionResultSuccessCount(), unfusedStatistics.getTOExecutionResultSuccessCount());
+        assertEquals(fusedStatistics.getTOExecutionResultNoOpCount(), unfusedStatistics.getTOExecutionResultNoOpCount());
+        assertEquals(fusedStatistics.getPerformResultErrorCount(), unfusedStatistics.getPerformResultErrorCount());
+
+        // The fused pass writes the file only once, and the operation not changing it does not write it at all
+        assertEquals(fusedStatistics.getTOFilesTouchedCount(), 2);
+        assertEquals(unfusedStatistics.getTOFilesTouchedCount(), 4);
+        assertEquals(fusedStatistics.getTOBytesWritten(), "b\r\ninserted\r\nx\r\nb\r\nadded".length() + fusedContent.length());
+    }
+
+    private TransformationResult performFusedOperationsTemplate(File appFolder, boolean fuse) throws ExecutionException, InterruptedException {
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        transformationTemplate.add(new ReplaceText("a", "b").relative("file.txt").setFirstOnly(false));
+        transformationTemplate.add(new InsertLine("inserted", 2).relative("file.txt"));
+        transformationTemplate.add(new ReplaceText("z", "y").relative("file.txt"));
+        transformationTemplate.add(new AddLine("added").relative("file.txt"));
+
+        // This utility ends the first run of fused operations
+        transformationTemplate.add(getNewTestTransformationUtility().relative("file.txt"));
+
+        // The fused pass fails, so these operations are executed one by one
+        transformationTemplate.add(new ReplaceText("(", "d").relative("file.txt"));
+        transformationTemplate.add(new ReplaceText("b", "c").relative("file.txt").setFirstOnly(false));
+
+        Properties properties = new Properties();
+        properties.put(EngineSettings.FUSE_OPERATIONS, String.valueOf(fuse));
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(appFolder), transformationTemplate, new ConfigurationImpl(properties));
+        return transformationEngine.perform(transformation).get();
+    }
+
+    @Test
+    public void fusedOperationsAbortTest() throws IOException, ExecutionException, InterruptedException {
+        FileUtils.writeStringToFile(new File(transformedAppFolder, "file.txt"), "a", StandardCharsets.UTF_8);
+
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        transformationTemplate.add(new ReplaceText("a", "b").relative("file.txt"));
+        transformationTemplate.add(new FailingFusibleOperation().relative("file.txt").abortOnFailure("Fused operation has failed"));
+        transformationTemplate.add(new AddLine("added").relative("file.txt"));
+
+        Properties properties = new Properties();
+        properties.put(EngineSettings.FUSE_OPERATIONS, "true");
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), transformationTemplate, new ConfigurationImpl(properties));
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+
+        // The operation after the failed one is not applied
+        assertFalse(transformationResult.isSuccessful());
+        assertNotNull(transformationResult.getAbortDetails());
+        assertEquals(transformationResult.getAbortDetails().getAbortMessage(), "Fused operation has failed");
+        assertEquals(FileUtils.readFileToString(new File(transformedAppFolder, "file.txt"), StandardCharsets.UTF_8), "b");
+    }
+
+    @Test
+    public void performanceStatisticsTest() throws IOException, ExecutionException, InterruptedException {
+        FileUtils.writeStringToFile(new File(transformedAppFolder, "file.txt"), "a", StandardCharsets.UTF_8);
+
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        TransformationUtilityGroup group = new TransformationUtilityGroup();
+        transformationTemplate.add(group, "group");
+        String utility1 = group.add(getNewTestTransformationUtility().relative("pom.xml"));
+        String utility2 = group.add(getNewTestTransformationUtility().relative("pom.xml"));
+        String operation = group.add(new AppendTextOperation().relative("file.txt"));
+
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), transformationTemplate, new ConfigurationImpl(null));
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+
+        assertTrue(transformationResult.isSuccessful());
+        TransformationStatistics statistics = transformationResult.getMetrics().get(0).getStatistics();
+
+        Map<String, PerformanceStatistics> utilitiesPerformance = statistics.getUtilitiesPerformance();
+        assertEquals(utilitiesPerformance.keySet(), new HashSet<>(Arrays.asList("group", utility1, utility2, operation)));
+        for (PerformanceStatistics performanceStatistics : utilitiesPerformance.values()) {
+            assertEquals(performanceStatistics.getPerformCount(), 1);
+            assertTrue(performanceStatistics.getWallTime() > 0);
+            assertTrue(performanceStatistics.getCpuTime() >= 0);
+            assertTrue(performanceStatistics.getAllocatedBytes() >= 0);
+        }
+
+        Map<String, PerformanceStatistics> utilityClassesPerformance = statistics.getUtilityClassesPerformance();
+        assertEquals(utilityClassesPerformance.size(), 3);
+        assertEquals(utilityClassesPerformance.get(TransformationUtilityGroup.class.getName()).getPerformCount(), 1);
+        assertEquals(utilityClassesPerformance.get(AppendTextOperation.class.getName()).getPerformCount(), 1);
+        assertEquals(utilityClassesPerformance.get(getNewTestTransformationUtility().getClass().getName()).getPerformCount(), 2);
+
+        // The group subtree accounts for the group itself and its three children
+        Map<String, PerformanceStatistics> parentsPerformance = statistics.getParentsPerformance();
+        assertEquals(parentsPerformance.size(), 1);
+        PerformanceStatistics groupPerformance = parentsPerformance.get("group");
+        assertEquals(groupPerformance.getPerformCount(), 4);
+        long childrenWallTime = utilitiesPerformance.values().stream().mapToLong(PerformanceStatistics::getWallTime).sum();
+        assertEquals(groupPerformance.getWallTime(), childrenWallTime);
+
+        String json = transformationResult.toJson();
+        assertTrue(json.contains("\"parentsPerformance\": {"));
+        assertTrue(json.contains("\"allocatedBytes\": "));
+    }
+
+    @Test
+    public void performanceStatisticsDisabledTest() throws ExecutionException, InterruptedException {
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        transformationTemplate.add(getNewTestTransformationUtility());
+
+        Properties properties = new Properties();
+        properties.put(EngineSettings.PERFORMANCE_STATISTICS, "false");
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), transformationTemplate, new ConfigurationImpl(properties));
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+
+        assertTrue(transformationResult.isSuccessful());
+        TransformationStatistics statistics = transformationResult.getMetrics().get(0).getStatistics();
+        assertEquals(statistics.getUtilitiesCount(), 1);
+        assertTrue(statistics.getUtilitiesPerformance().isEmpty());
+        assertTrue(statistics.getParentsPerformance().isEmpty());
+    }
+
+    @Test
+    public void parallelConditionsTest() throws IOException, ExecutionException, InterruptedException {
+        File filesFolder = new File(transformedAppFolder, "files");
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            File file = new File(filesFolder, "file-" + i + ".txt");
+            FileUtils.writeStringToFile(file, (i % 3 == 0 ? "match " : "file ") + i, StandardCharsets.UTF_8);
+            files.add(file);
+        }
+
+        TransformationTemplate transformationTemplate = getNewTestTransformationTemplate();
+        String filesAttribute = transformationTemplate.add(new TransformationUtility() {
+            @Override
+            public String getDescription() {
+                return "Returns the files to be evaluated";
+            }
+            @Override
+            protected ExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+                return TUExecutionResult.value(this, files);
+            }
+        });
+        String filterFiles = transformationTemplate.add(new FilterFiles(new StartsWithMatchCondition()).setFiles(filesAttribute));
+        String allMatch = transformationTemplate.add(new MultipleConditions(new StartsWithMatchCondition()).setMode(MultipleConditions.Mode.ALL).setFiles(filesAttribute));
+        String anyMatch = transformationTemplate.add(new MultipleConditions(new StartsWithMatchCondition()).setFiles(filesAttribute));
+
+        Map<String, Object> values = new HashMap<>();
+        transformationTemplate.add(new TransformationUtility() {
+            @Override
+            public String getDescription() {
+                return "Collects the conditions results";
+            }
+            @Override
+            protected ExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+                values.put(filterFiles, transformationContext.get(filterFiles));
+                values.put(allMatch, transformationContext.get(allMatch));
+                values.put(anyMatch, transformationContext.get(anyMatch));
+                return TUExecutionResult.nullResult(this);
+            }
+        });
+
+        Properties properties = new Properties();
+        properties.put(EngineSettings.PARALLEL_CONDITIONS, "true");
+        properties.put(EngineSettings.PARALLEL_THREADS, "4");
+        Configuration configuration = new ConfigurationImpl(properties);
+        AbstractTransformationRequest transformation = new TemplateTransformationRequest(new ApplicationImpl(transformedAppFolder), transformationTemplate, configuration);
+
+        TransformationResult transformationResult = transformationEngine.perform(transformation).get();
+        assertTrue(transformationResult.isSuccessful());
+
+        // FilterFiles results must be in the same order the files are evaluated
+        Set<File> inputFiles = new HashSet<>();
+        inputFiles.addAll(files);
+        List<File> expectedFiles = inputFiles.stream().filter(f -> Integer.parseInt(f.getName().replaceAll("\\D", "")) % 3 == 0).collect(Collectors.toList());
+        assertEquals(values.get(filterFiles), expectedFiles);
+        assertEquals(values.get(allMatch), false);
+        assertEquals(values.get(anyMatch), true);
+    }
+
+    public static class StartsWithMatchCondition extends SingleCondition<StartsWithMatchCondition> {
+        @Override
+        public String getDescription() {
+            return "Checks if file starts with match";
+        }
+        @Override
+        protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+            try {
+                String content = FileUtils.readFileToString(getAbsoluteFile(transformedAppFolder, transformationContext), StandardCharsets.UTF_8);
+                return TUExecutionResult.value(this, content.startsWith("match"));
+            } catch (IOException e) {
+                return TUExecutionResult.error(this, e);
+            }
+        }
+    }
+
+    public static class AppendTextOperation extends TransformationOperation<AppendTextOperation> {
+        @Override
+        public String getDescription() {
+            return "Appends text to " + getRelativePath();
+        }
+        @Override
+        public boolean isFileScoped() {
+            return true;
+        }
+        @Override
+        protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+            File file = getAbsoluteFile(transformedAppFolder, transformationContext);
+            try {
+                FileUtils.writeStringToFile(file, " changed", StandardCharsets.UTF_8, true);
+                return TOExecutionResult.success(this, "Text appended to " + getRelativePath());
+            } catch (IOException e) {
+                return TOExecutionResult.error(this, e);
+            }
+        }
+    }
+
+    /*
+     * Fusible operation that leaves the file content untouched and always results in error
+     */
+    public static class FailingFusibleOperation extends TransformationOperation<FailingFusibleOperation> {
+        @Override
+        public String getDescription() {
+            return "Fails against " + getRelativePath();
+        }
+        @Override
+        public boolean isFileScoped() {
+            return true;
+        }
+        @Override
+        public boolean isFusible() {
+            return true;
+        }
+        @Override
+        protected FusedStage createFusedStage(Reader content, File transformedAppFolder, TransformationContext transformationContext) {
+            return new FusedStage() {
+                private TOExecutionResult result;
+                @Override
+                public int read(char[] cbuf, int off, int len) throws IOException {
+                    int read = content.read(cbuf, off, len);
+                    if (read == -1) {
+                        result = TOExecutionResult.error(FailingFusibleOperation.this, new TransformationOperationException("Failed"));
+                    }
+                    return read;
+                }
+                @Override
+                public TOExecutionResult getResult() {
+                    return result;
+                }
+                @Override
+                public void close() throws IOException {
+                    content.close();
+                }
+            };
+        }
+        @Override
+        protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+            return TOExecutionResult.error(this, new TransformationOperationException("Failed"));
+        }
+    }
+
     @Test(dependsOnMethods = "javaEEToSpringBootTest")
     public void springBootUpgradeTest() throws ExecutionException, InterruptedException {
 
@@ -0,0 +1,38 @@
+package com.paypal.butterfly.core;
+
+import com.paypal.butterfly.extensions.api.TransformationUtility;
+import com.paypal.butterfly.utilities.conditions.CompareFiles;
+import com.paypal.butterfly.utilities.conditions.FileExists;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class UtilitiesGraphTest extends TestHelper {
+
+    @Test
+    public void comparedFileTest() {
+        TransformationContextImpl transformationContext = TransformationContextImpl.getTransformationContext(null);
+        transformationContext.put("bFile", new File(transformedAppFolder, "b.txt"));
+        transformationContext.put("cFile", new File(transformedAppFolder, "c.txt"));
+
+        List<TransformationUtility> utilities = Arrays.asList(
+                new TransformationEngineTest.AppendTextOperation().relative("b.txt"),
+                new TransformationEngineTest.AppendTextOperation().relative("a.txt").executeIf(new FileExists()),
+                new TransformationEngineTest.AppendTextOperation().relative("a2.txt").executeIf(new CompareFiles("cFile")),
+                new TransformationEngineTest.AppendTextOperation().relative("a3.txt").executeIf(new CompareFiles("bFile")));
+        UtilitiesGraph graph = new UtilitiesGraph(utilities, transformedAppFolder, transformationContext);
+
+        assertTrue(graph.isReady(0, 0));
+        assertTrue(graph.isReady(1, 0));
+        assertTrue(graph.isReady(2, 0));
+
+        // The file compared by its condition is being modified by the first operation
+        assertFalse(graph.isReady(3, 0));
+        assertTrue(graph.isReady(3, 1));
+    }
+
+}
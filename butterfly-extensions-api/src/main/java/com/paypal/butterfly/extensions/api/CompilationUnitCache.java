@@ -0,0 +1,45 @@
+package com.paypal.butterfly.extensions.api;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Cache of parsed Java source files, kept during a transformation, allowing transformation
+ * utilities to get the JavaParser {@link CompilationUnit} of a Java file without parsing it every time,
+ * for example when several Java conditions, or Java file filters, are evaluated against the same source tree.
+ * <br>
+ * Java files are cached by their canonical path and version (last modification time and size),
+ * and only softly referenced, so the garbage collector may reclaim them when memory is needed,
+ * in which case they are just parsed again.
+ * Just like other caches, cached compilation units are never handed out, only copies of them,
+ * which is still cheaper than parsing, so callers are free to modify them.
+ * Butterfly invalidates the cached compilation units of the files transformation operations might have modified,
+ * right after they are performed.
+ *
+ * @author facarvalho
+ */
+public interface CompilationUnitCache {
+
+    /**
+     * Returns the compilation unit of the given Java file, as it is in disk,
+     * parsing it only if it is not cached yet, or if it has changed since it was cached.
+     * The returned compilation unit is a copy, owned by the caller
+     *
+     * @param javaFile the Java file
+     * @return the compilation unit of the given Java file
+     * @throws IOException if the Java file could not be read
+     * @throws com.github.javaparser.ParseProblemException if the Java file could not be parsed
+     */
+    CompilationUnit getCompilationUnit(File javaFile) throws IOException;
+
+    /**
+     * Removes from the cache the given Java file, or, if a folder is given,
+     * all Java files under it, since they might have been modified
+     *
+     * @param file the Java file, or folder, that might have been modified
+     */
+    void invalidate(File file);
+
+}
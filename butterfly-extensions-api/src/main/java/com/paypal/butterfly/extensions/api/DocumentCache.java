@@ -0,0 +1,44 @@
+package com.paypal.butterfly.extensions.api;
+
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Cache of parsed XML files, kept during a transformation, allowing transformation
+ * utilities to get the DOM {@link Document} of a XML file without parsing it every time,
+ * for example when several XPath expressions are evaluated against the same web.xml file.
+ * <br>
+ * XML files are parsed with the default configuration of {@link XmlParserPool#getDocumentBuilder()},
+ * and cached by their canonical path and version (last modification time and size).
+ * Every returned document is a deep copy of the cached one, which can be freely modified by the caller,
+ * although it does not keep the original XML encoding, which means it is not meant to be written back to disk.
+ * Butterfly invalidates the cached documents of the files transformation operations might have modified,
+ * right after they are performed.
+ *
+ * @author facarvalho
+ */
+public interface DocumentCache {
+
+    /**
+     * Returns the DOM document of the given XML file, as it is in disk,
+     * parsing it only if it is not cached yet, or if it has changed since it was cached
+     *
+     * @param xmlFile the XML file
+     * @return a copy of the DOM document of the given XML file
+     * @throws IOException if the XML file could not be read
+     * @throws SAXException if the XML file could not be parsed
+     */
+    Document getDocument(File xmlFile) throws IOException, SAXException;
+
+    /**
+     * Removes from the cache the given XML file, or, if a folder is given,
+     * all XML files under it, since they might have been modified
+     *
+     * @param file the XML file, or folder, that might have been modified
+     */
+    void invalidate(File file);
+
+}
@@ -0,0 +1,76 @@
+package com.paypal.butterfly.extensions.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitor;
+import java.nio.file.Path;
+
+/**
+ * In-memory index of the files and folders of the transformed application, kept during
+ * a transformation, allowing transformation utilities to search and check files without
+ * walking the application file tree from disk every time.
+ * <br>
+ * The index is built the first time it is queried, and then kept up to date by Butterfly
+ * and by the transformation operations that create, move or remove files. Transformation operations
+ * that change the application file tree, other than by modifying their own file, must either declare
+ * to be file tree index aware (see {@link TransformationOperation#isFileTreeIndexAware()}), and refresh
+ * the files they changed themselves, or leave it to Butterfly, which refreshes their whole footprint.
+ * Transformation utilities that are not file scoped (see {@link TransformationUtility#isFileScoped()})
+ * might change any file as well, so the whole index is refreshed after them.
+ * <br>
+ * Files outside of the transformed application folder are not indexed,
+ * and queries about them are answered straight from disk.
+ *
+ * @author facarvalho
+ */
+public interface FileTreeIndex {
+
+    /**
+     * Returns true if the given file, or folder, exists. See {@link File#exists()}
+     *
+     * @param file the file, or folder, to be checked
+     * @return true if the given file, or folder, exists
+     */
+    boolean exists(File file);
+
+    /**
+     * Returns true if the given file exists and is a regular file. See {@link File#isFile()}
+     *
+     * @param file the file to be checked
+     * @return true if the given file exists and is a regular file
+     */
+    boolean isFile(File file);
+
+    /**
+     * Returns true if the given folder exists and is a folder. See {@link File#isDirectory()}
+     *
+     * @param file the folder to be checked
+     * @return true if the given folder exists and is a folder
+     */
+    boolean isDirectory(File file);
+
+    /**
+     * Walks the file tree starting at the given file, or folder, just like
+     * {@link java.nio.file.Files#walkFileTree(Path, java.util.Set, int, FileVisitor)},
+     * not following symbolic links, visiting files and folders in the same order they would be visited
+     * from disk when the index was built. Only the types of indexed files are kept, so any other attribute
+     * given to the visitor is read from disk when asked for. The visitor can refresh the index, although
+     * changes made during the walk are not seen by the walk itself.
+     *
+     * @param start the file, or folder, to start walking from
+     * @param maxDepth the maximum number of folder levels to visit
+     * @param visitor the file visitor
+     * @throws IOException if thrown by the visitor, or if {@code start} does not exist
+     */
+    void walkFileTree(Path start, int maxDepth, FileVisitor<? super Path> visitor) throws IOException;
+
+    /**
+     * Updates the index with the current state in disk of the given file, or folder, and everything under it,
+     * which might have been created, modified or removed. The index is not rebuilt, unless the given file is
+     * the transformed application folder itself
+     *
+     * @param file the file, or folder, that might have changed
+     */
+    void refresh(File file);
+
+}
@@ -0,0 +1,43 @@
+package com.paypal.butterfly.extensions.api;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * In-memory working set of application files, kept during a transformation,
+ * allowing consecutive transformation operations against the same file to read and write
+ * its content without going to disk every time.
+ * <br>
+ * Only transformation operations that declare to be working set aware
+ * (see {@link TransformationOperation#isWorkingSetAware()}) read and write files through it.
+ * Butterfly makes sure files modified in the working set are written to disk before any
+ * other transformation utility that might read them is performed, and also at the end of
+ * every transformation template and upgrade step.
+ *
+ * @author facarvalho
+ */
+public interface FileWorkingSet {
+
+    /**
+     * Returns the content of the given file, from the working set if present there,
+     * or from disk otherwise
+     *
+     * @param file the file to be read
+     * @return the content of the given file
+     * @throws IOException if the file could not be read
+     */
+    byte[] read(File file) throws IOException;
+
+    /**
+     * Sets the new content of the given file, which might be written to disk only later.
+     * If the file already has exactly the given content, nothing changes,
+     * and the file is not written to disk because of this call.
+     *
+     * @param file the file to be written
+     * @param content the new content of the file
+     * @return true if the content of the file has changed, or false if it already had the given content
+     * @throws IOException if the file could not be written
+     */
+    boolean write(File file, byte[] content) throws IOException;
+
+}
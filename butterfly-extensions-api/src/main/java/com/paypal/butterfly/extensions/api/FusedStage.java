@@ -0,0 +1,27 @@
+package com.paypal.butterfly.extensions.api;
+
+import java.io.Reader;
+
+/**
+ * A stage of a single streaming pass over the content of a text file, shared by
+ * adjacent fusible transformation operations against that same file
+ * (see {@link TransformationOperation#isFusible()}).
+ * <br>
+ * It reads the file content as left by the previous stage, or the original one, if first,
+ * applying its transformation operation to it as it is read. Once read until its end,
+ * it provides the operation execution result, exactly the same it would have been if the
+ * operation had been performed on its own.
+ *
+ * @author facarvalho
+ */
+public abstract class FusedStage extends Reader {
+
+    /**
+     * Returns the execution result of the transformation operation this stage
+     * applies, or null, if this stage has not been read until its end yet
+     *
+     * @return the execution result of the transformation operation this stage applies
+     */
+    public abstract TOExecutionResult getResult();
+
+}
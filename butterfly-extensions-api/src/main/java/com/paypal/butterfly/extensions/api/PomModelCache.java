@@ -0,0 +1,53 @@
+package com.paypal.butterfly.extensions.api;
+
+import org.apache.maven.model.Model;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Cache of parsed Maven POM files, kept during a transformation, allowing transformation
+ * utilities to get the Maven {@link Model} of a POM file without parsing it every time.
+ * <br>
+ * POM files are cached by their canonical path and version (last modification time and size),
+ * and every returned model is a defensive copy of the cached one, which can be freely modified by the caller.
+ * Butterfly invalidates the cached models of the files transformation operations might have modified,
+ * right after they are performed.
+ *
+ * @author facarvalho
+ */
+public interface PomModelCache {
+
+    /**
+     * Returns the Maven model of the given POM file, as it is in disk,
+     * parsing it only if it is not cached yet, or if it has changed since it was cached
+     *
+     * @param pomFile the POM file
+     * @return a copy of the Maven model of the given POM file
+     * @throws IOException if the POM file could not be read
+     * @throws XmlPullParserException if the POM file could not be parsed
+     */
+    Model getModel(File pomFile) throws IOException, XmlPullParserException;
+
+    /**
+     * Returns the Maven model of the given POM file content, which might not have been written to disk yet,
+     * parsing it only if the given file is not cached with exactly this same content
+     *
+     * @param pomFile the POM file
+     * @param content the content of the POM file
+     * @return a copy of the Maven model of the given POM file content
+     * @throws IOException if the POM file content could not be read
+     * @throws XmlPullParserException if the POM file content could not be parsed
+     */
+    Model getModel(File pomFile, byte[] content) throws IOException, XmlPullParserException;
+
+    /**
+     * Removes from the cache the given POM file, or, if a folder is given,
+     * all POM files under it, since they might have been modified
+     *
+     * @param file the POM file, or folder, that might have been modified
+     */
+    void invalidate(File file);
+
+}
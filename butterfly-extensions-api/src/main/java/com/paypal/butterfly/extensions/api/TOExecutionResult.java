@@ -36,6 +36,10 @@ public class TOExecutionResult extends ExecutionResult<TransformationOperation,
         ERROR,
     }
 
+    // Number of files whose content has been changed by the operation, and number of bytes written to them
+    private int filesTouched = 0;
+    private long bytesWritten = 0;
+
     private TOExecutionResult(TransformationOperation transformationOperation, Type type) {
         super(transformationOperation, type);
     }
@@ -142,6 +146,41 @@ public class TOExecutionResult extends ExecutionResult<TransformationOperation,
         return new TOExecutionResult(transformationOperation, Type.ERROR, exception).setDetails(details);
     }
 
+    /**
+     * Registers that the operation has changed the content of the given number of files,
+     * writing the given number of bytes to them (to disk, or to the transformation working set).
+     * Files whose content would not change are never written, and not counted.
+     * <br>
+     * This method is called by Butterfly, and should not be called by transformation operations.
+     *
+     * @param filesTouched number of files whose content has been changed
+     * @param bytesWritten number of bytes written to those files
+     * @return this result object
+     */
+    public TOExecutionResult addWrites(int filesTouched, long bytesWritten) {
+        this.filesTouched += filesTouched;
+        this.bytesWritten += bytesWritten;
+        return this;
+    }
+
+    /**
+     * Returns the number of files whose content has been changed by the operation
+     *
+     * @return the number of files whose content has been changed by the operation
+     */
+    public int getFilesTouched() {
+        return filesTouched;
+    }
+
+    /**
+     * Returns the number of bytes written by the operation to the files it has changed
+     *
+     * @return the number of bytes written by the operation to the files it has changed
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
     @Override
     protected void changeTypeOnWarning() {
         if(getType().equals(Type.NO_OP) || getType().equals(Type.SUCCESS)) {
@@ -38,4 +38,54 @@ public interface TransformationContext {
      */
     boolean contains(String name);
 
-}
\ No newline at end of file
+    /**
+     * Returns the in-memory working set of application files of this transformation,
+     * or null, if there is none. See {@link FileWorkingSet}
+     *
+     * @return the in-memory working set of application files, or null, if there is none
+     */
+    default FileWorkingSet getFileWorkingSet() {
+        return null;
+    }
+
+    /**
+     * Returns the in-memory index of the transformed application files and folders
+     * of this transformation, or null, if there is none. See {@link FileTreeIndex}
+     *
+     * @return the in-memory index of the transformed application files and folders, or null, if there is none
+     */
+    default FileTreeIndex getFileTreeIndex() {
+        return null;
+    }
+
+    /**
+     * Returns the cache of parsed Maven POM files of this transformation,
+     * or null, if there is none. See {@link PomModelCache}
+     *
+     * @return the cache of parsed Maven POM files, or null, if there is none
+     */
+    default PomModelCache getPomModelCache() {
+        return null;
+    }
+
+    /**
+     * Returns the cache of parsed XML files of this transformation,
+     * or null, if there is none. See {@link DocumentCache}
+     *
+     * @return the cache of parsed XML files, or null, if there is none
+     */
+    default DocumentCache getDocumentCache() {
+        return null;
+    }
+
+    /**
+     * Returns the cache of parsed Java files of this transformation,
+     * or null, if there is none. See {@link CompilationUnitCache}
+     *
+     * @return the cache of parsed Java files, or null, if there is none
+     */
+    default CompilationUnitCache getCompilationUnitCache() {
+        return null;
+    }
+
+}
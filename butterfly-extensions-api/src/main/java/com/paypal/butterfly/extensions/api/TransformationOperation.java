@@ -1,12 +1,23 @@
 package com.paypal.butterfly.extensions.api;
 
 
+import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Special type of {@link TransformationUtility} that applies a modification to the project.
@@ -30,12 +41,29 @@ import java.nio.file.Files;
 public abstract class TransformationOperation<T extends TransformationOperation> extends TransformationUtility<T> {
 
     // An optional temporary read-only copy of the file to be modified
-    // This file gets automatically deleted after the transformation operation execution
+    // This file gets automatically deleted right after the transformation operation execution
     private File readFile;
 
+    // An optional temporary file, sibling of the file to be modified, to which its new content is written
+    // It replaces the file to be modified at the end of a successful transformation operation execution,
+    // or gets deleted otherwise
+    private File writeFile;
+    private File fileToBeModified;
+
+    // Set by Butterfly when this operation is applied fused with adjacent ones (see #isFusible()),
+    // supplying its execution result, or null, if it should be executed on its own after all
+    private Supplier<TOExecutionResult> fusedResultSupplier;
+
+    // Number of files whose content has been changed by the current execution, and number of bytes written to them
+    private int filesTouched;
+    private long bytesWritten;
+
     // A prefix used to name the temporary read-only file
     private static final String READ_FILE_PREFIX = "butterfly_";
 
+    // A prefix used to name the temporary write file, which is hidden, since it is created in the application folder
+    private static final String WRITE_FILE_PREFIX = ".butterfly_";
+
     public TransformationOperation() {
         // Different than regular Transformation Utilities, the default value here is null, which means
         // it must be set explicitly by the developer, unless an absolute path is set
@@ -47,6 +75,270 @@ public abstract class TransformationOperation<T extends TransformationOperation>
         throw new UnsupportedOperationException("Transformation operations must always save results");
     }
 
+    /**
+     * Returns true if this operation reads and writes files exclusively via
+     * {@link #readFileContent(File, TransformationContext)} and
+     * {@link #writeFileContent(File, byte[], TransformationContext)}, which means
+     * it can work against the in-memory working set of application files, if
+     * there is one (see {@link FileWorkingSet}).
+     * Operations overriding this method returning true must not read or write files in any other way.
+     *
+     * @return false, unless overridden
+     */
+    public boolean isWorkingSetAware() {
+        return false;
+    }
+
+    /**
+     * Returns the files, or folders (including their contents), whose existing content this operation
+     * might modify in place, or move, when performed, or null, if they are not known. Files this operation
+     * only creates, replaces atomically (see {@link #commitWriteFile(TOExecutionResult)}) or deletes
+     * don't need to be returned.
+     * <br>
+     * This is called right before this operation is performed, and is used by the transformation engine
+     * when the transformed application folder is materialized using hard links, so only the links of the
+     * returned files are broken, instead of the links of the whole transformed application.
+     * <br>
+     * By default, the file, or folder, this operation is set to perform against is returned
+     * if it is file scoped (see {@link #isFileScoped()}), or null otherwise.
+     *
+     * @param transformedAppFolder the folder where the transformed application code is
+     * @param transformationContext the transformation context object
+     * @return the files, or folders, this operation might modify, or null, if they are not known
+     */
+    public List<File> getModifiedFiles(File transformedAppFolder, TransformationContext transformationContext) {
+        File file = getScopedFile(transformedAppFolder, transformationContext);
+        return (file == null ? null : Collections.singletonList(file));
+    }
+
+    /**
+     * Returns true if this operation only reads and modifies its own text file, from its beginning
+     * to its end, in a way that can be expressed as a {@link FusedStage}
+     * (see {@link #createFusedStage(Reader, File, TransformationContext)}).
+     * <br>
+     * When a transformation template has adjacent fusible operations against the same file,
+     * with no dependencies or conditions, Butterfly applies them all in one single streaming
+     * pass over the file content, instead of reading and writing the whole file once per operation.
+     * Each operation still gets its own execution result, as if it had been performed on its own.
+     *
+     * @return false, unless overridden
+     */
+    public boolean isFusible() {
+        return false;
+    }
+
+    /**
+     * Returns a {@link FusedStage} that applies this operation to the file content read
+     * from {@code content}, as part of a single streaming pass shared with adjacent operations.
+     * Properties set via {@link #set(String, String)} are applied before that.
+     * <br>
+     * This method is called by Butterfly, and should not be called by transformation templates.
+     *
+     * @param content the file content, as left by the previous operation in the pass
+     * @param transformedAppFolder the folder where the transformed application code is
+     * @param transformationContext the transformation context object
+     * @return a stage that applies this operation to the given content
+     * @throws TransformationUtilityException if properties could not be applied from the transformation context
+     * @throws UnsupportedOperationException if this operation is not fusible
+     */
+    public final FusedStage fusedStage(Reader content, File transformedAppFolder, TransformationContext transformationContext) throws TransformationUtilityException {
+        if (!isFusible()) {
+            throw new UnsupportedOperationException(getName() + " is not fusible");
+        }
+        applyPropertiesFromContext(transformationContext);
+        return createFusedStage(content, transformedAppFolder, transformationContext);
+    }
+
+    /**
+     * Creates a {@link FusedStage} that applies this operation to the file content read
+     * from {@code content}. Fusible operations must override this method
+     * (see {@link #isFusible()}).
+     *
+     * @param content the file content, as left by the previous operation in the pass
+     * @param transformedAppFolder the folder where the transformed application code is
+     * @param transformationContext the transformation context object
+     * @return a stage that applies this operation to the given content
+     */
+    protected FusedStage createFusedStage(Reader content, File transformedAppFolder, TransformationContext transformationContext) {
+        throw new UnsupportedOperationException(getName() + " is not fusible");
+    }
+
+    /**
+     * Sets the supplier of this operation execution result, which, when this operation is
+     * performed, is used instead of executing it. If the supplier returns null,
+     * this operation is executed on its own after all. The supplier is used only once.
+     * <br>
+     * This method is called by Butterfly, or by utilities that apply several operations at once
+     * (such as a POM edit session), when applying this operation together with other ones,
+     * and should not be called by transformation templates.
+     *
+     * @param fusedResultSupplier the supplier of this operation execution result
+     */
+    public final void setFusedResultSupplier(Supplier<TOExecutionResult> fusedResultSupplier) {
+        this.fusedResultSupplier = fusedResultSupplier;
+    }
+
+    @Override
+    final ExecutionResult executeOrReuse(File transformedAppFolder, TransformationContext transformationContext) {
+        Supplier<TOExecutionResult> supplier = fusedResultSupplier;
+        fusedResultSupplier = null;
+        TOExecutionResult fusedResult = (supplier == null ? null : supplier.get());
+        if (fusedResult != null) {
+            return fusedResult;
+        }
+        filesTouched = 0;
+        bytesWritten = 0;
+        ExecutionResult result = execution(transformedAppFolder, transformationContext);
+        if (result instanceof TOExecutionResult && filesTouched > 0) {
+            ((TOExecutionResult) result).addWrites(filesTouched, bytesWritten);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the content of the given file, from the transformation working set, if
+     * this operation is working set aware and there is one, or from disk otherwise.
+     * See {@link #isWorkingSetAware()}.
+     *
+     * @param file the file to be read
+     * @param transformationContext the transformation context object
+     * @return the content of the given file
+     * @throws IOException if the file could not be read
+     */
+    protected final byte[] readFileContent(File file, TransformationContext transformationContext) throws IOException {
+        FileWorkingSet fileWorkingSet = getFileWorkingSet(transformationContext);
+        if (fileWorkingSet != null) {
+            return fileWorkingSet.read(file);
+        }
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    /**
+     * Writes the given content to the given file, via the transformation working set, if
+     * this operation is working set aware and there is one, or straight to disk otherwise.
+     * See {@link #isWorkingSetAware()}.
+     * <br>
+     * If the file already has exactly the given content, it is not written at all,
+     * keeping its last modified time.
+     *
+     * @param file the file to be written
+     * @param content the new content of the file
+     * @param transformationContext the transformation context object
+     * @return true if the file has been written, or false if it already had the given content
+     * @throws IOException if the file could not be written
+     */
+    protected final boolean writeFileContent(File file, byte[] content, TransformationContext transformationContext) throws IOException {
+        FileWorkingSet fileWorkingSet = getFileWorkingSet(transformationContext);
+        boolean written;
+        if (fileWorkingSet != null) {
+            written = fileWorkingSet.write(file, content);
+        } else {
+            written = !hasContent(file, content);
+            if (written) {
+                Files.write(file.toPath(), content);
+            }
+        }
+        if (written) {
+            registerWrite(content.length);
+        }
+        return written;
+    }
+
+    /**
+     * Registers that this operation has changed the content of a file, writing the given number of bytes to it,
+     * to be accounted in its execution result (see {@link TOExecutionResult#getFilesTouched()}).
+     * Operations only need to call this method when writing files by any means other than
+     * {@link #writeFileContent(File, byte[], TransformationContext)} and {@link #commitWriteFile(TOExecutionResult)},
+     * which already register their writes.
+     *
+     * @param bytesWritten the number of bytes written to the file
+     */
+    protected final void registerWrite(long bytesWritten) {
+        filesTouched++;
+        this.bytesWritten += bytesWritten;
+    }
+
+    /*
+     * Returns true if the given file exists and has exactly the given content.
+     * The file is read only if its size is the same as the content length
+     */
+    private static boolean hasContent(File file, byte[] content) throws IOException {
+        if (!file.isFile() || file.length() != content.length) {
+            return false;
+        }
+        return Arrays.equals(Files.readAllBytes(file.toPath()), content);
+    }
+
+    private FileWorkingSet getFileWorkingSet(TransformationContext transformationContext) {
+        return (isWorkingSetAware() && transformationContext != null ? transformationContext.getFileWorkingSet() : null);
+    }
+
+    /**
+     * Returns true if this operation never changes the application file tree other than by
+     * modifying the content of its own file, or if it refreshes every file, or folder, it creates,
+     * moves or removes in the transformation file tree index, if there is one, by calling
+     * {@link #refreshFileTreeIndex(File, TransformationContext)} (see {@link FileTreeIndex}).
+     * Otherwise, Butterfly refreshes the whole footprint of this operation in the index right after it is performed.
+     *
+     * @return false, unless overridden
+     */
+    public boolean isFileTreeIndexAware() {
+        return false;
+    }
+
+    /**
+     * Refreshes the given file, or folder, in the transformation file tree index,
+     * if there is one, after it has been created, moved or removed by this operation.
+     * See {@link #isFileTreeIndexAware()}.
+     *
+     * @param file the file, or folder, created, moved or removed by this operation
+     * @param transformationContext the transformation context object
+     */
+    protected final void refreshFileTreeIndex(File file, TransformationContext transformationContext) {
+        FileTreeIndex fileTreeIndex = (transformationContext != null ? transformationContext.getFileTreeIndex() : null);
+        if (fileTreeIndex != null && file != null) {
+            fileTreeIndex.refresh(file);
+        }
+    }
+
+    /**
+     * Creates and returns a temporary file, in the same folder as the file to be modified,
+     * to which its new content should be written.
+     * <br>
+     * The file to be modified by any transformation operation is set via
+     * {@link #relative(String)}, {@link #absolute(String)} or {@link #absolute(String, String)}).
+     * Some transformation operations need to read the file to be modified
+     * as a stream, and modify it by writing to an output stream as that same file
+     * is read. Since it is impossible to modify a file at the same time it is being read,
+     * this utility method offers a convenient way to do so without copying the file to be modified.
+     * The file to be modified should be read, while the new content is written to the file returned here.
+     * <br>
+     * <strong>Important notes:</strong>
+     * <ol>
+     *     <li>At the first time this method is called, the temporary file will be created and returned. If called again, the same temporary file created at the first time will be returned.</li>
+     *     <li>Any stream writing to the returned file must be closed, and then {@link #commitWriteFile(TOExecutionResult)} called, by the end of the operation execution.</li>
+     *     <li>If the operation execution results in success or warning, the returned file atomically replaces the file to be modified, keeping its permissions.
+     *     Otherwise, the returned file is deleted, and the file to be modified is left untouched.</li>
+     *     <li>If not committed, the returned file is automatically deleted right after this operation is performed.</li>
+     * </ol>
+     *
+     * @param transformedAppFolder the folder where the transformed application code is
+     * @param transformationContext the transformation context object
+     * @return a temporary file to which the new content of the file to be modified should be written
+     * @throws IOException if the temporary file could not be created, if the specified file is actually a directory, or if it does not exist
+     */
+    protected final File getOrCreateWriteFile(File transformedAppFolder, TransformationContext transformationContext) throws IOException {
+        if (writeFile == null) {
+            File originalFile = getExistingFile(transformedAppFolder, transformationContext);
+            writeFile = Files.createTempFile(originalFile.getAbsoluteFile().getParentFile().toPath(), WRITE_FILE_PREFIX, null).toFile();
+            fileToBeModified = originalFile;
+        }
+
+        return writeFile;
+    }
+
     /**
      * Creates and returns a temporary read-only copy of the file to be modified.
      * <br>
@@ -63,23 +355,19 @@ public abstract class TransformationOperation<T extends TransformationOperation>
      * <ol>
      *     <li>At the first time this method is called, the temporary file will be created and returned. If called again, the same temporary file created at the first time will be returned.</li>
      *     <li>The read-only file will not reflect the changes performed in the original file at any moment, always keeping its original state.</li>
-     *     <li>There is no need to delete the temporary file after using it. Butterfly automatically deletes it when the JVM terminates.</li>
+     *     <li>There is no need to delete the temporary file after using it. Butterfly automatically deletes it right after this operation is performed.</li>
      * </ol>
      *
      * @param transformedAppFolder the folder where the transformed application code is
      * @param transformationContext the transformation context object
      * @return a temporary read-only copy of the file to be modified
      * @throws IOException if the temporary file could not be created, if the specified file is actually a directory, or if it does not exist
+     * @deprecated this method copies the whole file to be modified, use {@link #getOrCreateWriteFile(File, TransformationContext)} instead
      */
+    @Deprecated
     protected final File getOrCreateReadFile(File transformedAppFolder, TransformationContext transformationContext) throws IOException {
         if (readFile == null) {
-            File originalFile = getAbsoluteFile(transformedAppFolder, transformationContext);
-            if (!originalFile.exists()) {
-                throw new IOException("Specified file does not exist: " + originalFile.getAbsolutePath());
-            }
-            if (originalFile.isDirectory()) {
-                throw new IOException("Specified file is a directory: " + originalFile.getAbsolutePath());
-            }
+            File originalFile = getExistingFile(transformedAppFolder, transformationContext);
             readFile = Files.createTempFile(READ_FILE_PREFIX, null).toFile();
             FileUtils.copyFile(originalFile, readFile);
             readFile.setReadOnly();
@@ -88,13 +376,91 @@ public abstract class TransformationOperation<T extends TransformationOperation>
         return readFile;
     }
 
+    private File getExistingFile(File transformedAppFolder, TransformationContext transformationContext) throws IOException {
+        File originalFile = getAbsoluteFile(transformedAppFolder, transformationContext);
+        if (!originalFile.exists()) {
+            throw new IOException("Specified file does not exist: " + originalFile.getAbsolutePath());
+        }
+        if (originalFile.isDirectory()) {
+            throw new IOException("Specified file is a directory: " + originalFile.getAbsolutePath());
+        }
+        return originalFile;
+    }
+
+    /**
+     * If this operation has written the new content of the file to be modified to a temporary
+     * file (see {@link #getOrCreateWriteFile(File, TransformationContext)}), and the given execution result
+     * is success or warning, atomically replaces the file to be modified with it, unless they both have
+     * the same content. Otherwise, deletes it, leaving the file to be modified untouched.
+     * <br>
+     * Operations using {@link #getOrCreateWriteFile(File, TransformationContext)} must call this method
+     * at the end of their execution, after closing any stream writing to the temporary file.
+     *
+     * @param result the execution result of this operation
+     * @return the given execution result, or an error execution result, if the file to be modified could not be replaced
+     */
+    protected final TOExecutionResult commitWriteFile(TOExecutionResult result) {
+        if (writeFile == null) {
+            return result;
+        }
+        if (!result.getType().equals(TOExecutionResult.Type.SUCCESS) && !result.getType().equals(TOExecutionResult.Type.WARNING)) {
+            deleteTemporaryFiles();
+            return result;
+        }
+        try {
+            if (FileUtils.contentEquals(writeFile, fileToBeModified)) {
+                // Nothing has actually changed, so the file to be modified is left untouched
+                deleteTemporaryFiles();
+                return result;
+            }
+            long length = writeFile.length();
+            replaceFileToBeModified();
+            registerWrite(length);
+            return result;
+        } catch (IOException e) {
+            String exceptionMessage = String.format("File %s could not be replaced by its modified version %s", fileToBeModified, writeFile);
+            deleteTemporaryFiles();
+            return TOExecutionResult.error(this, new TransformationOperationException(exceptionMessage, e));
+        }
+    }
+
     @Override
     public final PerformResult perform(File transformedAppFolder, TransformationContext transformationContext) throws TransformationUtilityException {
-        PerformResult performResult = super.perform(transformedAppFolder, transformationContext);
-        if (readFile != null) {
-            readFile.deleteOnExit();
+        try {
+            return super.perform(transformedAppFolder, transformationContext);
+        } finally {
+            // Temporary files are deleted right away, instead of at JVM exit, which would keep track of them until then
+            deleteTemporaryFiles();
+            fusedResultSupplier = null;
         }
+    }
 
-        return performResult;
+    private void replaceFileToBeModified() throws IOException {
+        Path source = writeFile.toPath();
+        Path target = fileToBeModified.toPath();
+        try {
+            Files.setPosixFilePermissions(source, Files.getPosixFilePermissions(target));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system, temporary files get default permissions
+        }
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        writeFile = null;
+    }
+
+    private void deleteTemporaryFiles() {
+        if (writeFile != null) {
+            FileUtils.deleteQuietly(writeFile);
+            writeFile = null;
+        }
+        if (readFile != null) {
+            FileUtils.deleteQuietly(readFile);
+            readFile = null;
+        }
+        fileToBeModified = null;
     }
+
 }
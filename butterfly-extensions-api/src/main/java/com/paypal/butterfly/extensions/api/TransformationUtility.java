@@ -1,14 +1,23 @@
 package com.paypal.butterfly.extensions.api;
 
 
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
 import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -406,6 +415,80 @@ public abstract class TransformationUtility<T extends TransformationUtility> imp
         return targetAbsolutePath.substring(beginning, end);
     }
 
+    /**
+     * Returns true if the given file, or folder, exists, checking it in the transformation
+     * file tree index, if there is one, instead of in disk. See {@link FileTreeIndex}.
+     *
+     * @param file the file, or folder, to be checked
+     * @param transformationContext the transformation context object
+     * @return true if the given file, or folder, exists
+     */
+    protected static boolean fileExists(File file, TransformationContext transformationContext) {
+        FileTreeIndex fileTreeIndex = (transformationContext != null ? transformationContext.getFileTreeIndex() : null);
+        return (fileTreeIndex == null ? file.exists() : fileTreeIndex.exists(file));
+    }
+
+    /**
+     * Returns the Maven model of the given POM file, getting it from the transformation
+     * POM model cache, if there is one, instead of always parsing it. See {@link PomModelCache}.
+     * The returned model can be freely modified, since it is never shared.
+     *
+     * @param pomFile the POM file
+     * @param transformationContext the transformation context object
+     * @return the Maven model of the given POM file
+     * @throws IOException if the POM file could not be read
+     * @throws XmlPullParserException if the POM file could not be parsed
+     */
+    protected static Model readPomModel(File pomFile, TransformationContext transformationContext) throws IOException, XmlPullParserException {
+        PomModelCache pomModelCache = (transformationContext != null ? transformationContext.getPomModelCache() : null);
+        if (pomModelCache != null) {
+            return pomModelCache.getModel(pomFile);
+        }
+        try (FileInputStream fileInputStream = new FileInputStream(pomFile)) {
+            return new MavenXpp3Reader().read(fileInputStream);
+        }
+    }
+
+    /**
+     * Returns the DOM document of the given XML file, getting it from the transformation
+     * document cache, if there is one, instead of always parsing it. See {@link DocumentCache}.
+     * The returned document can be freely modified, since it is never shared.
+     *
+     * @param xmlFile the XML file
+     * @param transformationContext the transformation context object
+     * @return the DOM document of the given XML file
+     * @throws IOException if the XML file could not be read
+     * @throws SAXException if the XML file could not be parsed
+     */
+    protected static Document readXmlDocument(File xmlFile, TransformationContext transformationContext) throws IOException, SAXException {
+        DocumentCache documentCache = (transformationContext != null ? transformationContext.getDocumentCache() : null);
+        if (documentCache != null) {
+            return documentCache.getDocument(xmlFile);
+        }
+        return XmlParserPool.getDocumentBuilder().parse(xmlFile);
+    }
+
+    /**
+     * Returns the compilation unit of the given Java file, getting it from the transformation
+     * compilation unit cache, if there is one, instead of always parsing it. See {@link CompilationUnitCache}.
+     * The returned compilation unit is not shared with any other caller, so it can be modified.
+     *
+     * @param javaFile the Java file
+     * @param transformationContext the transformation context object
+     * @return the compilation unit of the given Java file
+     * @throws IOException if the Java file could not be read
+     * @throws com.github.javaparser.ParseProblemException if the Java file could not be parsed
+     */
+    protected static CompilationUnit readCompilationUnit(File javaFile, TransformationContext transformationContext) throws IOException {
+        CompilationUnitCache compilationUnitCache = (transformationContext != null ? transformationContext.getCompilationUnitCache() : null);
+        if (compilationUnitCache != null) {
+            return compilationUnitCache.getCompilationUnit(javaFile);
+        }
+        try (FileInputStream fileInputStream = new FileInputStream(javaFile)) {
+            return StaticJavaParser.parse(fileInputStream);
+        }
+    }
+
     /**
      * This method allows setting properties in this transformation
      * utility during transformation time, right before its execution.
@@ -591,6 +674,116 @@ public abstract class TransformationUtility<T extends TransformationUtility> imp
         return absoluteFileFromContextAttribute;
     }
 
+    /**
+     * Returns the names of all transformation context attributes this utility
+     * has been declared to read right before its execution, which are those set
+     * via {@link #executeIf(String)}, {@link #executeUnless(String)},
+     * {@link #absolute(String)} and {@link #set(String, String)}, plus the one
+     * holding the file compared by double conditions (see {@link #getComparedFileAttribute()}).
+     * The returned set is unmodifiable.
+     *
+     * @return the names of all transformation context attributes this utility
+     * has been declared to read right before its execution
+     */
+    public final Set<String> getReferencedContextAttributes() {
+        Set<String> attributes = new HashSet<>(latePropertiesAttributes.values());
+        if (ifConditionAttributeName != null) {
+            attributes.add(ifConditionAttributeName);
+        }
+        if (unlessConditionAttributeName != null) {
+            attributes.add(unlessConditionAttributeName);
+        }
+        if (absoluteFileFromContextAttribute != null) {
+            attributes.add(absoluteFileFromContextAttribute);
+        }
+        String comparedFileAttribute = getComparedFileAttribute();
+        if (comparedFileAttribute != null) {
+            attributes.add(comparedFileAttribute);
+        }
+        return Collections.unmodifiableSet(attributes);
+    }
+
+    /**
+     * Returns the name of the transformation context attribute holding the second file read by this utility,
+     * if it is a {@link DoubleCondition}, or if it has one set via {@link #executeIf(UtilityCondition)},
+     * which is compared against the file it is set to perform against, or null otherwise
+     *
+     * @return the name of the transformation context attribute holding the second file read by
+     * this utility, or null
+     */
+    public final String getComparedFileAttribute() {
+        Object condition = (this instanceof DoubleCondition ? this : utilityCondition);
+        return (condition instanceof DoubleCondition ? ((DoubleCondition<?>) condition).getAttribute() : null);
+    }
+
+    /**
+     * Returns the names of all utilities whose results this utility
+     * has been declared to depend on, via {@link #dependsOn(String...)}.
+     * The returned set is unmodifiable.
+     *
+     * @return the names of all utilities whose results this utility
+     * has been declared to depend on
+     */
+    public final Set<String> getReferencedResults() {
+        if (dependencies == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(dependencies)));
+    }
+
+    /**
+     * Returns true only if performing this utility reads, and in case of
+     * transformation operations also modifies, nothing but the file, or folder
+     * (including its contents), it is set to perform against
+     * (see {@link #relative(String)} and {@link #absolute(String)}).
+     * <br>
+     * The transformation engine relies on this information to decide which
+     * utilities can be performed concurrently, so utilities are not file scoped
+     * by default, which means they might read, and modify, any file.
+     * Utilities, and operations, that touch nothing but their own file,
+     * or folder, should override this method returning true.
+     *
+     * @return true only if performing this utility touches nothing but the file,
+     * or folder, it is set to perform against
+     */
+    public boolean isFileScoped() {
+        return false;
+    }
+
+    /**
+     * Returns the file, or folder, this utility is set to perform against,
+     * if it is file scoped (see {@link #isFileScoped()}). Null is returned if it is not,
+     * or if that file is set by a transformation context attribute that does not exist yet.
+     *
+     * @param transformedAppFolder the folder where the transformed application code is
+     * @param transformationContext the transformation context object
+     * @return the file, or folder, this utility is set to perform against, or null
+     */
+    public final File getScopedFile(File transformedAppFolder, TransformationContext transformationContext) {
+        return (isFileScoped() ? resolveFile(transformedAppFolder, transformationContext) : null);
+    }
+
+    /**
+     * Returns the file, or folder, this utility is set to perform against, regardless of whether
+     * it is file scoped, or null, if that file is set by a transformation context attribute that does
+     * not exist yet. Different than {@link #getAbsoluteFile(File, TransformationContext)}, the file
+     * is not kept, so this can be called before this utility is performed.
+     *
+     * @param transformedAppFolder the folder where the transformed application code is
+     * @param transformationContext the transformation context object
+     * @return the file, or folder, this utility is set to perform against, or null
+     */
+    protected final File resolveFile(File transformedAppFolder, TransformationContext transformationContext) {
+        if (absoluteFileFromContextAttribute != null) {
+            Object value = transformationContext.get(absoluteFileFromContextAttribute);
+            if (!(value instanceof File)) {
+                return null;
+            }
+            return (additionalRelativePath == null ? (File) value : new File((File) value, additionalRelativePath));
+        }
+        return (relativePath == null ? null : new File(transformedAppFolder, relativePath));
+    }
+
     /**
      * Performs the transformation utility against
      * the application to be transformed. After this method is called,
@@ -685,7 +878,7 @@ public abstract class TransformationUtility<T extends TransformationUtility> imp
             // Applying properties during transformation time
             applyPropertiesFromContext(transformationContext);
 
-            ExecutionResult executionResult = execution(transformedAppFolder, transformationContext);
+            ExecutionResult executionResult = executeOrReuse(transformedAppFolder, transformationContext);
             result = PerformResult.executionResult(this, executionResult);
         } catch(Exception e) {
             String exceptionMessage = String.format("Utility %s has failed", getName());
@@ -1003,6 +1196,24 @@ public abstract class TransformationUtility<T extends TransformationUtility> imp
         return unlessConditionAttributeName;
     }
 
+    /**
+     * Return the {@link UtilityCondition} object associated with this transformation utility
+     * (see {@link #executeIf(UtilityCondition)}), or null, if there is none
+     *
+     * @return the {@link UtilityCondition} object associated with this transformation utility
+     */
+    public UtilityCondition getUtilityCondition() {
+        return utilityCondition;
+    }
+
+    /*
+     * Calls execution, unless the execution result of this utility has already been produced
+     * in another way, which is only possible for transformation operations (see TransformationOperation#fusedStage)
+     */
+    ExecutionResult executeOrReuse(File transformedAppFolder, TransformationContext transformationContext) {
+        return execution(transformedAppFolder, transformationContext);
+    }
+
     /**
      * The implementation execution of this transformation utility.
      * The returned object is the result of the execution and is always
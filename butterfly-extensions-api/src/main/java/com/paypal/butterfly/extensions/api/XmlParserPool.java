@@ -0,0 +1,122 @@
+package com.paypal.butterfly.extensions.api;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * Shared, thread-safe, pool of configured {@link DocumentBuilder}, {@link XPath} and {@link Transformer} instances.
+ * <br>
+ * Their factories are looked up only once, and every thread gets its own instances, created on first use,
+ * and reset every time they are handed out. Because of that, an instance returned by this pool
+ * should be used right away, and not kept or shared with other threads.
+ *
+ * @author facarvalho
+ */
+public final class XmlParserPool {
+
+    private static final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    private static final DocumentBuilderFactory normalizingDocumentBuilderFactory = DocumentBuilderFactory.newInstance();
+    private static final XPathFactory xpathFactory = XPathFactory.newInstance();
+    private static final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+
+    static {
+        normalizingDocumentBuilderFactory.setNamespaceAware(true);
+        normalizingDocumentBuilderFactory.setCoalescing(true);
+        normalizingDocumentBuilderFactory.setIgnoringElementContentWhitespace(true);
+        normalizingDocumentBuilderFactory.setIgnoringComments(true);
+    }
+
+    private static final ThreadLocal<DocumentBuilder> documentBuilders = ThreadLocal.withInitial(() -> newDocumentBuilder(documentBuilderFactory));
+    private static final ThreadLocal<DocumentBuilder> normalizingDocumentBuilders = ThreadLocal.withInitial(() -> newDocumentBuilder(normalizingDocumentBuilderFactory));
+    private static final ThreadLocal<XPath> xpaths = ThreadLocal.withInitial(XmlParserPool::newXPath);
+    private static final ThreadLocal<Transformer> transformers = ThreadLocal.withInitial(XmlParserPool::newTransformer);
+
+    private XmlParserPool() {
+    }
+
+    /**
+     * Returns a {@link DocumentBuilder} with default configuration,
+     * the same as if it had been created by a new default {@link DocumentBuilderFactory}
+     *
+     * @return a {@link DocumentBuilder} with default configuration
+     */
+    public static DocumentBuilder getDocumentBuilder() {
+        DocumentBuilder documentBuilder = documentBuilders.get();
+        documentBuilder.reset();
+        return documentBuilder;
+    }
+
+    /**
+     * Returns a namespace aware {@link DocumentBuilder}, which also coalesces CDATA nodes,
+     * and ignores comments and element content whitespaces, useful when comparing XML documents
+     *
+     * @return a namespace aware {@link DocumentBuilder} that ignores comments and element content whitespaces
+     */
+    public static DocumentBuilder getNormalizingDocumentBuilder() {
+        DocumentBuilder documentBuilder = normalizingDocumentBuilders.get();
+        documentBuilder.reset();
+        return documentBuilder;
+    }
+
+    /**
+     * Returns a {@link XPath} with default configuration
+     *
+     * @return a {@link XPath} with default configuration
+     */
+    public static XPath getXPath() {
+        XPath xpath = xpaths.get();
+        xpath.reset();
+        return xpath;
+    }
+
+    /**
+     * Returns an identity {@link Transformer}, with default output properties
+     *
+     * @return an identity {@link Transformer}
+     */
+    public static Transformer getTransformer() {
+        Transformer transformer = transformers.get();
+        transformer.reset();
+
+        // Some JDK versions do not restore output properties on reset, in which case a new transformer is created
+        if (!transformer.getOutputProperties().isEmpty()) {
+            transformer = newTransformer();
+            transformers.set(transformer);
+        }
+        return transformer;
+    }
+
+    private static DocumentBuilder newDocumentBuilder(DocumentBuilderFactory factory) {
+        // Factories are not guaranteed to be thread-safe
+        synchronized (factory) {
+            try {
+                return factory.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException("XML document builder could not be created", e);
+            }
+        }
+    }
+
+    private static XPath newXPath() {
+        synchronized (xpathFactory) {
+            return xpathFactory.newXPath();
+        }
+    }
+
+    private static Transformer newTransformer() {
+        synchronized (transformerFactory) {
+            try {
+                return transformerFactory.newTransformer();
+            } catch (TransformerConfigurationException e) {
+                throw new IllegalStateException("XML transformer could not be created", e);
+            }
+        }
+    }
+
+}
@@ -53,6 +53,11 @@ public class Abort extends TransformationUtility<Abort> {
         return this;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format("%s", DESCRIPTION);
@@ -38,6 +38,11 @@ public class ManualInstruction extends TransformationUtility<ManualInstruction>
         return this;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return description;
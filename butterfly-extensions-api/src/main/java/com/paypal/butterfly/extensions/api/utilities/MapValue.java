@@ -98,6 +98,11 @@ public class MapValue extends TransformationUtility<MapValue> {
         return key;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, key, mapName);
@@ -82,6 +82,11 @@ public class ResultCondition extends UtilityCondition<ResultCondition> {
         return toExecutionResultTypes.clone();
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         String s1 = ( performResultTypes == null || performResultTypes.length == 0 ? "" : " perform" + Arrays.toString(performResultTypes));
@@ -5,6 +5,9 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
 
 import static org.testng.Assert.*;
 
@@ -68,4 +71,94 @@ public class TransformationOperationTest extends TestHelper {
         }
     }
 
+    @Test
+    public void writeFileTest() throws IOException {
+        File pomFile = new File(transformedAppFolder, "pom.xml");
+        boolean posix = pomFile.toPath().getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (posix) {
+            Files.setPosixFilePermissions(pomFile.toPath(), PosixFilePermissions.fromString("rwxr-x---"));
+        }
+
+        WriteFileOperation writeFileOperation = new WriteFileOperation("new content", TOExecutionResult.Type.SUCCESS).relative("pom.xml");
+        PerformResult performResult = writeFileOperation.perform(transformedAppFolder, transformationContext);
+
+        assertEquals(performResult.getExecutionResult().getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(FileUtils.readFileToString(pomFile, StandardCharsets.UTF_8), "new content");
+        assertFalse(writeFileOperation.writeFile.exists());
+        assertEquals(writeFileOperation.writeFile.getParentFile().getAbsoluteFile(), transformedAppFolder.getAbsoluteFile());
+        if (posix) {
+            assertEquals(PosixFilePermissions.toString(Files.getPosixFilePermissions(pomFile.toPath())), "rwxr-x---");
+        }
+    }
+
+    @Test
+    public void writeFileErrorTest() throws IOException {
+        File pomFile = new File(transformedAppFolder, "pom.xml");
+        String originalContent = FileUtils.readFileToString(pomFile, StandardCharsets.UTF_8);
+
+        WriteFileOperation writeFileOperation = new WriteFileOperation("new content", TOExecutionResult.Type.ERROR).relative("pom.xml");
+        PerformResult performResult = writeFileOperation.perform(transformedAppFolder, transformationContext);
+
+        assertEquals(performResult.getExecutionResult().getType(), TOExecutionResult.Type.ERROR);
+        assertEquals(FileUtils.readFileToString(pomFile, StandardCharsets.UTF_8), originalContent);
+        assertFalse(writeFileOperation.writeFile.exists());
+    }
+
+    @Test
+    public void readFileDeletedTest() {
+        File[] readFile = new File[1];
+        TransformationOperation transformationOperation = new TransformationOperation() {
+            @Override
+            public String getDescription() {
+                return "Test transformation operation";
+            }
+            @Override
+            protected ExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+                try {
+                    readFile[0] = getOrCreateReadFile(transformedAppFolder, transformationContext);
+                    assertTrue(readFile[0].exists());
+                    return TOExecutionResult.noOp(this, "nothing to be changed");
+                } catch (IOException e) {
+                    return TOExecutionResult.error(this, e);
+                }
+            }
+        };
+        transformationOperation.relative("pom.xml");
+
+        transformationOperation.perform(transformedAppFolder, transformationContext);
+
+        // Deleted right away, instead of at JVM exit
+        assertFalse(readFile[0].exists());
+    }
+
+    private static class WriteFileOperation extends TransformationOperation<WriteFileOperation> {
+        private final String content;
+        private final TOExecutionResult.Type resultType;
+        private File writeFile;
+        private WriteFileOperation(String content, TOExecutionResult.Type resultType) {
+            this.content = content;
+            this.resultType = resultType;
+        }
+        @Override
+        public String getDescription() {
+            return "Writes content to " + getRelativePath();
+        }
+        @Override
+        protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+            try {
+                writeFile = getOrCreateWriteFile(transformedAppFolder, transformationContext);
+                FileUtils.writeStringToFile(writeFile, content, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                return commitWriteFile(TOExecutionResult.error(this, e));
+            }
+            TOExecutionResult result;
+            if (resultType.equals(TOExecutionResult.Type.SUCCESS)) {
+                result = TOExecutionResult.success(this, "content written");
+            } else {
+                result = TOExecutionResult.error(this, new IOException("test failure"));
+            }
+            return commitWriteFile(result);
+        }
+    }
+
 }
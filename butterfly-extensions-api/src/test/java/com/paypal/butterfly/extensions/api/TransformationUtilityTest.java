@@ -6,6 +6,8 @@ import org.mockito.Mockito;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
 
 import static org.testng.Assert.*;
 
@@ -230,6 +232,46 @@ public class TransformationUtilityTest extends TestHelper {
         assertEquals(executionResult.getValue(), new File(transformedAppFolder, "pom.xml"));
     }
 
+    @Test
+    public void scopedFileTest() {
+        TransformationUtility transformationUtility = getNewTestTransformationUtility().relative("pom.xml");
+        assertFalse(transformationUtility.isFileScoped());
+        assertNull(transformationUtility.getScopedFile(transformedAppFolder, transformationContext));
+
+        TransformationUtility fileScopedUtility = new TransformationUtility() {
+            @Override
+            public String getDescription() {
+                return "Test file scoped transformation utility";
+            }
+            @Override
+            public boolean isFileScoped() {
+                return true;
+            }
+            @Override
+            protected ExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+                return TUExecutionResult.nullResult(this);
+            }
+        };
+        assertTrue(fileScopedUtility.isFileScoped());
+        assertEquals(fileScopedUtility.getScopedFile(transformedAppFolder, transformationContext), new File(transformedAppFolder, ""));
+        fileScopedUtility.relative("pom.xml");
+        assertEquals(fileScopedUtility.getScopedFile(transformedAppFolder, transformationContext), new File(transformedAppFolder, "pom.xml"));
+
+        // Not resolved while the context attribute does not exist
+        fileScopedUtility.absolute("ATT", "pom.xml");
+        assertNull(fileScopedUtility.getScopedFile(transformedAppFolder, transformationContext));
+        Mockito.when(transformationContext.get("ATT")).thenReturn(transformedAppFolder);
+        assertEquals(fileScopedUtility.getScopedFile(transformedAppFolder, transformationContext), new File(transformedAppFolder, "pom.xml"));
+    }
+
+    @Test
+    public void referencedResultsTest() {
+        TransformationUtility transformationUtility = getNewTestTransformationUtility();
+        assertTrue(transformationUtility.getReferencedResults().isEmpty());
+        transformationUtility.dependsOn("TU1", "TU2");
+        assertEquals(transformationUtility.getReferencedResults(), new HashSet<>(Arrays.asList("TU1", "TU2")));
+    }
+
     @Test
     public void absoluteNonexistentContextAttributeTest() {
         TransformationUtility transformationUtility = getNewTestTransformationUtility();
@@ -0,0 +1,74 @@
+package com.paypal.butterfly.extensions.api;
+
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPathExpressionException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.*;
+
+/**
+ * Unit tests for {@link XmlParserPool}
+ *
+ * @author facarvalho
+ */
+public class XmlParserPoolTest {
+
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><a xmlns=\"urn:test\"><!-- comment --><b>  </b><c>foo</c></a>";
+
+    @Test
+    public void documentBuildersTest() throws IOException, SAXException {
+        DocumentBuilder documentBuilder = XmlParserPool.getDocumentBuilder();
+        assertSame(XmlParserPool.getDocumentBuilder(), documentBuilder);
+        assertFalse(documentBuilder.isNamespaceAware());
+        Document document = documentBuilder.parse(new InputSource(new StringReader(XML)));
+        assertEquals(document.getDocumentElement().getChildNodes().getLength(), 3);
+
+        DocumentBuilder normalizingDocumentBuilder = XmlParserPool.getNormalizingDocumentBuilder();
+        assertNotSame(normalizingDocumentBuilder, documentBuilder);
+        assertTrue(normalizingDocumentBuilder.isNamespaceAware());
+        document = normalizingDocumentBuilder.parse(new InputSource(new StringReader(XML)));
+        assertEquals(document.getDocumentElement().getChildNodes().getLength(), 2);
+    }
+
+    @Test
+    public void xpathAndTransformerTest() throws IOException, SAXException, XPathExpressionException, TransformerException {
+        Document document = XmlParserPool.getDocumentBuilder().parse(new InputSource(new StringReader(XML)));
+        assertEquals(XmlParserPool.getXPath().compile("/a/c").evaluate(document), "foo");
+
+        // Output properties set by one user are not seen by the next one
+        Transformer transformer = XmlParserPool.getTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        transformer = XmlParserPool.getTransformer();
+        StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(document), new StreamResult(writer));
+        assertTrue(writer.toString().startsWith("<?xml"));
+    }
+
+    @Test
+    public void threadsTest() throws InterruptedException, ExecutionException {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<DocumentBuilder> future = executorService.submit(XmlParserPool::getDocumentBuilder);
+            assertNotSame(future.get(), XmlParserPool.getDocumentBuilder());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+}
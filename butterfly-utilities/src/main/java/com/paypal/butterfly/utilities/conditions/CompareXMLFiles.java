@@ -3,14 +3,13 @@ package com.paypal.butterfly.utilities.conditions;
 import com.paypal.butterfly.extensions.api.DoubleCondition;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
+import com.paypal.butterfly.extensions.api.XmlParserPool;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
 
@@ -27,14 +26,7 @@ import java.io.IOException;
  */
 public class CompareXMLFiles extends DoubleCondition<CompareXMLFiles> {
 
-    private static final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-
     static {
-        factory.setNamespaceAware(true);
-        factory.setCoalescing(true);
-        factory.setIgnoringElementContentWhitespace(true);
-        factory.setIgnoringComments(true);
-
         XMLUnit.setIgnoreAttributeOrder(true);
         XMLUnit.setIgnoreComments(true);
         XMLUnit.setIgnoreWhitespace(true);
@@ -73,7 +65,7 @@ public class CompareXMLFiles extends DoubleCondition<CompareXMLFiles> {
     @Override
     protected boolean compare(File baselineFile, File comparisonFile) {
         try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
+            DocumentBuilder builder = XmlParserPool.getNormalizingDocumentBuilder();
             Document baselineXml = builder.parse(baselineFile);
             Document comparisonXml = builder.parse(comparisonFile);
 
@@ -81,7 +73,7 @@ public class CompareXMLFiles extends DoubleCondition<CompareXMLFiles> {
             comparisonXml.normalizeDocument();
 
             return XMLUnit.compareXML(baselineXml, comparisonXml).similar();
-        } catch (SAXException | IOException | ParserConfigurationException e) {
+        } catch (SAXException | IOException e) {
             throw new TransformationUtilityException("An exception happened when comparing the two XML files", e);
         }
     }
@@ -26,6 +26,11 @@ public class FileExists extends SingleCondition<FileExists> {
     public FileExists() {
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, getRelativePath());
@@ -37,7 +42,7 @@ public class FileExists extends SingleCondition<FileExists> {
 
         try {
             File file = getAbsoluteFile(transformedAppFolder, transformationContext);
-            exists = file.exists();
+            exists = fileExists(file, transformationContext);
         } catch (TransformationUtilityException e) {
             return TUExecutionResult.warning(this, e, exists);
         }
@@ -4,12 +4,13 @@ import com.paypal.butterfly.extensions.api.SingleCondition;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
+import com.paypal.butterfly.utilities.operations.FastMatcher;
+import com.paypal.butterfly.utilities.operations.FastPattern;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Properties;
-import java.util.regex.Pattern;
 
 /**
  * Checks if a particular property exists in a property file.
@@ -67,6 +68,11 @@ public class PropertyExists extends SingleCondition<PropertyExists> {
         return propertyNameRegex;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, (propertyName != null ? propertyName : propertyNameRegex));
@@ -95,9 +101,9 @@ public class PropertyExists extends SingleCondition<PropertyExists> {
             if (propertyName != null) {
                 exists = properties.getProperty(propertyName) != null;
             } else {
-                Pattern pattern = Pattern.compile(propertyNameRegex);
+                FastMatcher matcher = FastPattern.compile(propertyNameRegex).matcher();
                 for (String pName : properties.stringPropertyNames()) {
-                    if (pattern.matcher(pName).matches()) {
+                    if (matcher.matches(pName)) {
                         exists = true;
                         break;
                     }
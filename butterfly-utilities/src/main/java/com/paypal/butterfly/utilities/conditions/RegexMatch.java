@@ -3,10 +3,11 @@ package com.paypal.butterfly.utilities.conditions;
 import com.paypal.butterfly.extensions.api.SingleCondition;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
+import com.paypal.butterfly.utilities.operations.FastMatcher;
+import com.paypal.butterfly.utilities.operations.FastPattern;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Pattern;
 
 /**
  * Checks if a regular expression matches any line in the specified text file.
@@ -57,6 +58,11 @@ public class RegexMatch extends SingleCondition<RegexMatch> {
         return regex;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, regex, getRelativePath());
@@ -98,9 +104,9 @@ public class RegexMatch extends SingleCondition<RegexMatch> {
     private boolean evaluate(BufferedReader reader) throws IOException {
         String currentLine;
         boolean evalResult = false;
-        final Pattern pattern = Pattern.compile(regex);
+        final FastMatcher matcher = FastPattern.compile(regex).matcher();
         while((currentLine = reader.readLine()) != null) {
-            if(pattern.matcher(currentLine).matches()) {
+            if(matcher.matches(currentLine)) {
                 evalResult = true;
                 break;
             }
@@ -1,16 +1,14 @@
 package com.paypal.butterfly.utilities.conditions;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.apache.commons.lang3.StringUtils;
 import org.w3c.dom.Document;
@@ -19,8 +17,10 @@ import org.xml.sax.SAXException;
 import com.paypal.butterfly.extensions.api.SingleCondition;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
+import com.paypal.butterfly.extensions.api.XmlParserPool;
 import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
+import com.paypal.butterfly.utilities.xml.StreamingXPath;
 
 /**
  * Checks if a particular xpath exists in an XML file.
@@ -28,12 +28,18 @@ import com.paypal.butterfly.extensions.api.exception.TransformationUtilityExcept
  * If the xpath expression won't compile, an error is returned.
  * <br>
  * If the file is not a well formed XML file, an error is returned.
+ * <br>
+ * If the XPath expression is supported by {@link StreamingXPath}, the XML file is streamed,
+ * instead of parsed into a DOM, and only read up to the first node selected by the expression.
+ * It is still parsed into a DOM if the first selected element has more than one attribute
+ * with the selected name, differing only by their prefixes.
  *
  * @author mmcrockett
  */
 public class XmlXPathExists extends SingleCondition<XmlXPathExists> {
     private String xpathExpressionString;
     private XPathExpression xpathExpression;
+    private StreamingXPath streamingXPath;
 
     private static final String DESCRIPTION = "Check if XML XPath query %s exists in XML file %s";
 
@@ -71,6 +77,7 @@ public class XmlXPathExists extends SingleCondition<XmlXPathExists> {
     public XmlXPathExists setXPathExpression(String xpathExpressionString) {
         checkForBlankString("XPath Expression", xpathExpressionString);
         this.xpathExpression = checkXPathCompile(xpathExpressionString);
+        this.streamingXPath = StreamingXPath.compile(xpathExpressionString);
         this.xpathExpressionString = xpathExpressionString;
         return this;
     }
@@ -84,6 +91,11 @@ public class XmlXPathExists extends SingleCondition<XmlXPathExists> {
         return xpathExpressionString;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, xpathExpressionString, getRelativePath());
@@ -96,18 +108,24 @@ public class XmlXPathExists extends SingleCondition<XmlXPathExists> {
         Object xpathResult = null;
 
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder;
-            builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(xmlFile);
-            xpathResult = xpathExpression.evaluate(doc, XPathConstants.STRING);
+            if (streamingXPath != null) {
+                try (InputStream inputStream = new FileInputStream(xmlFile)) {
+                    xpathResult = streamingXPath.evaluate(inputStream);
+                }
+            }
+
+            // Null if it could not be evaluated while streaming
+            if (xpathResult == null) {
+                Document doc = readXmlDocument(xmlFile, transformationContext);
+                xpathResult = xpathExpression.evaluate(doc, XPathConstants.STRING);
+            }
 
             if (StringUtils.isEmpty((String) xpathResult)) {
                 result = TUExecutionResult.value(this, false);
             } else {
                 result = TUExecutionResult.value(this, true);
             }
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+        } catch (SAXException | IOException e) {
             result = TUExecutionResult.error(this, new TransformationUtilityException("File content could not be parsed properly in XML format", e));
         } catch (XPathExpressionException e) {
             result = TUExecutionResult.error(this, new TransformationUtilityException("XPathExpression could not be evaluated correctly", e));
@@ -117,8 +135,7 @@ public class XmlXPathExists extends SingleCondition<XmlXPathExists> {
     }
 
     private XPathExpression checkXPathCompile(String expression) throws TransformationDefinitionException{
-        XPathFactory xpathFactory = XPathFactory.newInstance();
-        XPath xpath = xpathFactory.newXPath();
+        XPath xpath = XmlParserPool.getXPath();
         XPathExpression expr = null;
 
         try {
@@ -3,8 +3,11 @@ package com.paypal.butterfly.utilities.conditions.java;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
+import com.paypal.butterfly.utilities.java.JavaTypeIndex;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.List;
+
 /**
  * This abstract class is helpful in case the compilation unit has multiple types
  * and the condition has to be evaluated against every type.
@@ -80,6 +83,47 @@ public abstract class AbstractTypeCheck<T extends AbstractTypeCheck> extends Jav
         return false;
     }
 
+    @Override
+    protected Boolean eval(JavaTypeIndex.JavaFile javaFile) {
+        List<String> typeNames = getTypeNames(javaFile);
+        if (typeNames == null) {
+            return null;
+        }
+
+        // Same as evaluating against the compilation unit,
+        // see eval(CompilationUnit) for further details
+        for (String currentTypeName : typeNames) {
+            if (currentTypeName.contains(".")) {
+                if (currentTypeName.equals(specifiedTypeName)) {
+                    return true;
+                } else {
+                    continue;
+                }
+            }
+            if (!currentTypeName.equals(specifiedTypeSimpleName)) {
+                continue;
+            }
+            Boolean imported = isImported(javaFile, currentTypeName);
+            if (imported == null || imported) {
+                return imported;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the names of the types to be checked, out of the indexed
+     * summary of a Java class, or null, if they are not indexed.
+     * The default implementation always returns null, which means
+     * this condition is always evaluated against the parsed Java class
+     *
+     * @param javaFile the indexed summary of the Java class to be evaluated
+     * @return the names of the types to be checked, or null
+     */
+    protected List<String> getTypeNames(JavaTypeIndex.JavaFile javaFile) {
+        return null;
+    }
+
     protected abstract String getTypeName(CompilationUnit compilationUnit, int index);
 
     protected abstract int getNumberOfTypes(CompilationUnit compilationUnit);
@@ -123,4 +167,24 @@ public abstract class AbstractTypeCheck<T extends AbstractTypeCheck> extends Jav
         return false;
     }
 
-}
\ No newline at end of file
+    /*
+     * Same as isImported(CompilationUnit, String), but based on the
+     * indexed summary of the Java class. Returns null if the Java class
+     * has no package declaration, so it is evaluated against the parsed Java class instead
+     */
+    private Boolean isImported(JavaTypeIndex.JavaFile javaFile, String typeSimpleName) {
+        if (specifiedTypePackageName.startsWith("java.lang")) {
+            return true;
+        }
+        for (String importName : javaFile.getImports()) {
+            if (importName.substring(importName.lastIndexOf('.') + 1).equals(typeSimpleName)) {
+                return true;
+            }
+        }
+        if (javaFile.getPackageName() == null) {
+            return null;
+        }
+        return javaFile.getPackageName().equals(specifiedTypePackageName);
+    }
+
+}
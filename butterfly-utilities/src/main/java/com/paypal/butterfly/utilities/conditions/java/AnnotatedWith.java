@@ -2,6 +2,7 @@ package com.paypal.butterfly.utilities.conditions.java;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.paypal.butterfly.utilities.java.JavaTypeIndex;
 
 import java.util.List;
 
@@ -34,4 +35,9 @@ public class AnnotatedWith extends AbstractTypeCheck<AnnotatedWith> {
         return annotations.size();
     }
 
-}
\ No newline at end of file
+    @Override
+    protected List<String> getTypeNames(JavaTypeIndex.JavaFile javaFile) {
+        return javaFile.getAnnotations();
+    }
+
+}
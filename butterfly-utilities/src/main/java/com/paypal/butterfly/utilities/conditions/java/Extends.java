@@ -5,7 +5,9 @@ import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.paypal.butterfly.utilities.java.JavaTypeIndex;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -58,4 +60,9 @@ public class Extends extends AbstractTypeCheck<Extends> {
         return 0;
     }
 
-}
\ No newline at end of file
+    @Override
+    protected List<String> getTypeNames(JavaTypeIndex.JavaFile javaFile) {
+        return javaFile.getExtendedTypes();
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.paypal.butterfly.utilities.conditions.java;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.paypal.butterfly.utilities.java.JavaTypeIndex;
 
 /**
  * Abstract class to specify a condition to be
@@ -17,7 +18,9 @@ public abstract class JavaCondition<T extends JavaCondition> {
      * Evaluates this condition against the specified compilation
      * unit and returns the evaluation result. This implementation
      * must ignore the negate property during this evaluation.
-     * The negation behavior will be considered in {@link #evaluate(CompilationUnit)}
+     * The negation behavior will be considered in {@link #evaluate(CompilationUnit)}.
+     * The given compilation unit belongs to the {@link JavaMatch} execution
+     * evaluating this condition, and is only shared with its other conditions.
      *
      * @param compilationUnit the {@link CompilationUnit} that represents
      *                        the Java class to be evaluated
@@ -41,6 +44,40 @@ public abstract class JavaCondition<T extends JavaCondition> {
         return negate ? !evalResult : evalResult;
     }
 
+    /**
+     * Evaluates this condition against the specified indexed summary
+     * of a Java class (see {@link JavaTypeIndex}) and returns the evaluation result,
+     * or null, if this condition cannot be evaluated based on it, in which case
+     * it is evaluated against the parsed Java class instead.
+     * This implementation must ignore the negate property during this evaluation.
+     * The default implementation always returns null.
+     *
+     * @param javaFile the indexed summary of the Java class to be evaluated
+     * @return the evaluation result ignoring negation, or null
+     */
+    protected Boolean eval(JavaTypeIndex.JavaFile javaFile) {
+        return null;
+    }
+
+    /**
+     * Evaluates this condition against the specified indexed summary
+     * of a Java class and returns the evaluation result, including negating
+     * it if {@link #isNegate()} is true, or null, if this condition cannot
+     * be evaluated based on it.
+     *
+     * @param javaFile the indexed summary of the Java class to be evaluated
+     * @return the evaluation result including negation (if applicable), or null
+     */
+    // This method's visibility is intentionally being set to package
+    @SuppressWarnings("PMD.DefaultPackage")
+    final Boolean evaluate(JavaTypeIndex.JavaFile javaFile) {
+        Boolean evalResult = eval(javaFile);
+        if (evalResult == null) {
+            return null;
+        }
+        return negate ? !evalResult : evalResult;
+    }
+
     /**
      * Sets whether the result should be negated, meaning,
      * resulting true whenever its evaluation result would
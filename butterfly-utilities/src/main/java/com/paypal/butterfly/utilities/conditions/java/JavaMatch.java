@@ -1,15 +1,13 @@
 package com.paypal.butterfly.utilities.conditions.java;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.paypal.butterfly.extensions.api.SingleCondition;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
+import com.paypal.butterfly.utilities.java.JavaTypeIndex;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -23,6 +21,14 @@ import java.util.Set;
  * If the Java class file is named package-info.java, the file content
  * will not be evaluated and false and a warning will be returned.
  * The boolean result for package-info.java file is configurable though.
+ * <br>
+ * The Java class file is parsed only once per transformation, as long as it is not modified
+ * (see {@link com.paypal.butterfly.extensions.api.CompilationUnitCache}).
+ * Each execution still evaluates its conditions against its own copy of the compilation unit.
+ * <br>
+ * If a {@link JavaTypeIndex} context attribute is set (see {@link #setJavaTypeIndexAttributeName(String)}),
+ * the Java class file is not parsed at all, as long as it is indexed, has not been modified since then,
+ * and all conditions can be evaluated based on the index (see {@link JavaCondition#eval(JavaTypeIndex.JavaFile)}).
  *
  * @author facarvalho
  */
@@ -34,6 +40,8 @@ public class JavaMatch extends SingleCondition<JavaMatch> {
 
     private boolean packageInfo;
 
+    private String javaTypeIndexAttributeName;
+
     /**
      * This utility parses and evaluates the specified Java class file
      * based on a set of {@link JavaCondition}. It returns true only
@@ -106,6 +114,29 @@ public class JavaMatch extends SingleCondition<JavaMatch> {
         return this;
     }
 
+    /**
+     * Sets the name of the context attribute containing the {@link JavaTypeIndex} object
+     * (see {@link com.paypal.butterfly.utilities.java.IndexJavaSources}),
+     * to be consulted before parsing the Java class file
+     *
+     * @param javaTypeIndexAttributeName the name of the context attribute containing the {@link JavaTypeIndex} object
+     * @return this transformation utility condition instance
+     */
+    public JavaMatch setJavaTypeIndexAttributeName(String javaTypeIndexAttributeName) {
+        checkForBlankString("javaTypeIndexAttributeName", javaTypeIndexAttributeName);
+        this.javaTypeIndexAttributeName = javaTypeIndexAttributeName;
+        return this;
+    }
+
+    /**
+     * Returns the name of the context attribute containing the {@link JavaTypeIndex} object
+     *
+     * @return the name of the context attribute containing the {@link JavaTypeIndex} object
+     */
+    public String getJavaTypeIndexAttributeName() {
+        return javaTypeIndexAttributeName;
+    }
+
     /**
      * Add a new Java condition to be evaluated against the Java class.
      *
@@ -118,6 +149,11 @@ public class JavaMatch extends SingleCondition<JavaMatch> {
         return this;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, getRelativePath());
@@ -126,12 +162,36 @@ public class JavaMatch extends SingleCondition<JavaMatch> {
     @Override
     protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         File javaClassFile = getAbsoluteFile(transformedAppFolder, transformationContext);
-        FileInputStream fileInputStream = null;
-        TUExecutionResult result = null;
+        TUExecutionResult result;
 
         try {
-            fileInputStream = new FileInputStream(javaClassFile);
-            CompilationUnit compilationUnit = StaticJavaParser.parse(fileInputStream);
+            if (javaTypeIndexAttributeName != null) {
+                if (!transformationContext.contains(javaTypeIndexAttributeName)) {
+                    return TUExecutionResult.error(this, new TransformationUtilityException("Transformation context attribute " + javaTypeIndexAttributeName + " does not exist"));
+                }
+                Object javaTypeIndexObj = transformationContext.get(javaTypeIndexAttributeName);
+                if (javaTypeIndexObj == null) {
+                    return TUExecutionResult.error(this, new TransformationUtilityException("Transformation context attribute " + javaTypeIndexAttributeName + " is null"));
+                }
+                if (!(javaTypeIndexObj instanceof JavaTypeIndex)) {
+                    return TUExecutionResult.error(this, new TransformationUtilityException("Transformation context attribute " + javaTypeIndexAttributeName + " is not a Java type index"));
+                }
+                JavaTypeIndex.JavaFile javaFile = ((JavaTypeIndex) javaTypeIndexObj).getJavaFile(javaClassFile);
+                if (javaFile != null) {
+                    if (javaClassFile.getName().equals("package-info.java")) {
+                        return TUExecutionResult.warning(this, new TransformationUtilityException("Skipping execution for " + javaClassFile.getAbsolutePath() + ". This is a package-info.java file."), this.packageInfo);
+                    }
+                    if (javaFile.getTypeNames().isEmpty()) {
+                        return TUExecutionResult.warning(this, new TransformationUtilityException("This Java class file has no declared types: " + javaClassFile.getAbsolutePath()), false);
+                    }
+                    Boolean match = evaluate(javaFile);
+                    if (match != null) {
+                        return TUExecutionResult.value(this, match);
+                    }
+                }
+            }
+
+            CompilationUnit compilationUnit = readCompilationUnit(javaClassFile, transformationContext);
 
             if (javaClassFile.getName().equals("package-info.java")) {
                 return TUExecutionResult.warning(this, new TransformationUtilityException("Skipping execution for " + javaClassFile.getAbsolutePath() + ". This is a package-info.java file."), this.packageInfo);
@@ -148,18 +208,6 @@ public class JavaMatch extends SingleCondition<JavaMatch> {
             result = TUExecutionResult.value(this, match);
         } catch (Exception e) {
             result = TUExecutionResult.error(this, e);
-        } finally {
-            try {
-                if (fileInputStream != null) {
-                    fileInputStream.close();
-                }
-            } catch (IOException e) {
-                if (result == null) {
-                    result = TUExecutionResult.error(this, e);
-                } else {
-                    result.addWarning(e);
-                }
-            }
         }
 
         return result;
@@ -176,4 +224,22 @@ public class JavaMatch extends SingleCondition<JavaMatch> {
         return true;
     }
 
+    /*
+     * Evaluates all conditions against the specified indexed Java class
+     * and returns true only if all of them are true, or null, if that
+     * cannot be determined without parsing the Java class
+     */
+    private Boolean evaluate(JavaTypeIndex.JavaFile javaFile) {
+        boolean undetermined = false;
+        for (JavaCondition condition : conditions) {
+            Boolean conditionResult = condition.evaluate(javaFile);
+            if (conditionResult == null) {
+                undetermined = true;
+            } else if (!conditionResult) {
+                return false;
+            }
+        }
+        return undetermined ? null : true;
+    }
+
 }
@@ -6,11 +6,9 @@ import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 
 /**
@@ -85,6 +83,11 @@ public class PomDependencyExists extends SingleCondition<PomDependencyExists> {
         return version;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, groupId, artifactId, (version == null ? "" : ":" + version));
@@ -92,16 +95,13 @@ public class PomDependencyExists extends SingleCondition<PomDependencyExists> {
 
     @Override
     protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
-        MavenXpp3Reader reader = new MavenXpp3Reader();
-        FileInputStream fileInputStream = null;
         boolean exists = false;
         TransformationUtilityException ex = null;
 
         File file = getAbsoluteFile(transformedAppFolder, transformationContext);
 
         try {
-            fileInputStream = new FileInputStream(file);
-            Model model = reader.read(fileInputStream);
+            Model model = readPomModel(file, transformationContext);
             for (Dependency d : model.getDependencies()) {
                 if (d.getGroupId().equals(groupId) && d.getArtifactId().equals(artifactId) && (version == null || version.equals(d.getVersion()))) {
                     exists = true;
@@ -113,19 +113,6 @@ public class PomDependencyExists extends SingleCondition<PomDependencyExists> {
             String dependency = String.format("%s:%s%s", groupId, artifactId, (version == null ? "" : ":" + version));
             String details = String.format("Exception happened when checking if POM dependency %s exists in %s", dependency, pomFileRelative);
             ex = new TransformationUtilityException(details, e);
-        } finally {
-            if(fileInputStream != null) {
-                try {
-                    fileInputStream.close();
-                } catch (IOException e) {
-                    if (ex == null) {
-                        String pomFileRelative = getRelativePath(transformedAppFolder, file);
-                        ex = new TransformationUtilityException("Exception happened when closing pom file " + pomFileRelative, e);
-                    } else {
-                        ex.addSuppressed(e);
-                    }
-                }
-            }
         }
 
         if (ex != null) {
@@ -7,11 +7,9 @@ import com.paypal.butterfly.extensions.api.exception.TransformationUtilityExcept
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Parent;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Optional;
 
@@ -31,6 +29,11 @@ public class PomHasParent extends SingleCondition<PomHasParent> {
     public PomHasParent() {
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return DESCRIPTION;
@@ -40,33 +43,16 @@ public class PomHasParent extends SingleCondition<PomHasParent> {
     protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         boolean hasParent = false;
         File file = null;
-        FileInputStream stream = null;
         TransformationUtilityException exception = null;
 
         try {
             file = getAbsoluteFile(transformedAppFolder, transformationContext);
-            stream = new FileInputStream(file);
-            MavenXpp3Reader reader = new MavenXpp3Reader();
-            Model model = reader.read(stream);
+            Model model = readPomModel(file, transformationContext);
             hasParent = Optional.ofNullable(model.getParent()).isPresent();
         } catch (XmlPullParserException | IOException e) {
             String pomFileRelativePath = getRelativePath(transformedAppFolder, file);
             String exceptionMessage = String.format("Exception occurred while checking if parent POM exists in %s", pomFileRelativePath);
             exception = new TransformationUtilityException(exceptionMessage, e);
-        } finally {
-            if (stream != null) {
-                try {
-                    stream.close();
-                } catch (IOException e) {
-                    if (exception == null) {
-                        String pomFileRelativePath = getRelativePath(transformedAppFolder, file);
-                        String exceptionMessage = String.format("Exception occurred while closing POM file %s", pomFileRelativePath);
-                        exception = new TransformationUtilityException(exceptionMessage, e);
-                    } else {
-                        exception.addSuppressed(e);
-                    }
-                }
-            }
         }
 
         if (exception != null) {
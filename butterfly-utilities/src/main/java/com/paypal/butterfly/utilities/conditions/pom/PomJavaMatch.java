@@ -2,18 +2,24 @@ package com.paypal.butterfly.utilities.conditions.pom;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
 
+import com.paypal.butterfly.extensions.api.FileTreeIndex;
 import com.paypal.butterfly.extensions.api.SingleCondition;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
+import com.paypal.butterfly.utilities.operations.FastMatcher;
+import com.paypal.butterfly.utilities.operations.FastPattern;
 
 /**
  * Checks if a Maven module has at least one Java class
@@ -105,11 +111,11 @@ public class PomJavaMatch extends SingleCondition<PomJavaMatch> {
 
         if (includeMain) {
             File javaMainFolder = new File(pomFile.getParentFile(), "src/main/java");
-            result = checkJavaFolder(javaMainFolder, warnings);
+            result = checkJavaFolder(javaMainFolder, warnings, transformationContext.getFileTreeIndex());
         }
         if (!result && includeTest) {
             File javaUnitTestFolder = new File(pomFile.getParentFile(), "src/test/java");
-            result = checkJavaFolder(javaUnitTestFolder, warnings);
+            result = checkJavaFolder(javaUnitTestFolder, warnings, transformationContext.getFileTreeIndex());
         }
 
         TUExecutionResult tuExecutionResult;
@@ -122,13 +128,13 @@ public class PomJavaMatch extends SingleCondition<PomJavaMatch> {
         return tuExecutionResult;
     }
 
-    private boolean checkJavaFolder(File javaFolder, List<File> warnings) {
+    private boolean checkJavaFolder(File javaFolder, List<File> warnings, FileTreeIndex fileTreeIndex) {
         boolean result = false;
-        if (javaFolder.exists()) {
-            Pattern pattern = Pattern.compile(regex);
-            result = FileUtils.listFiles(javaFolder, new String[] { "java" }, true).stream().filter(j -> {
+        if (fileTreeIndex == null ? javaFolder.exists() : fileTreeIndex.exists(javaFolder)) {
+            FastMatcher matcher = FastPattern.compile(regex).matcher();
+            result = listJavaFiles(javaFolder, fileTreeIndex).stream().filter(j -> {
                 try {
-                    return Files.lines(j.toPath()).map(pattern::matcher).filter(Matcher::matches).findFirst().isPresent();
+                    return Files.lines(j.toPath()).filter(matcher::matches).findFirst().isPresent();
                 } catch (IOException e) {
                     warnings.add(j);
                     return false;
@@ -138,4 +144,28 @@ public class PomJavaMatch extends SingleCondition<PomJavaMatch> {
         return result;
     }
 
+    /*
+     * Lists all Java files under the given folder, from the file tree index, if there is one
+     */
+    private static Collection<File> listJavaFiles(File javaFolder, FileTreeIndex fileTreeIndex) {
+        if (fileTreeIndex == null) {
+            return FileUtils.listFiles(javaFolder, new String[] { "java" }, true);
+        }
+        List<File> javaFiles = new ArrayList<>();
+        try {
+            fileTreeIndex.walkFileTree(javaFolder.toPath(), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (file.getFileName().toString().endsWith(".java") && (attrs.isRegularFile() || (attrs.isSymbolicLink() && Files.isRegularFile(file)))) {
+                        javaFiles.add(file.toFile());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            return FileUtils.listFiles(javaFolder, new String[] { "java" }, true);
+        }
+        return javaFiles;
+    }
+
 }
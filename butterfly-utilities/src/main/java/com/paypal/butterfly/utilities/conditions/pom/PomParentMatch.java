@@ -7,11 +7,9 @@ import com.paypal.butterfly.extensions.api.exception.TransformationUtilityExcept
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Parent;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 
 /**
@@ -86,6 +84,11 @@ public class PomParentMatch extends SingleCondition<PomParentMatch> {
         return version;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, groupId, artifactId, (version == null ? "" : ":" + version));
@@ -95,14 +98,11 @@ public class PomParentMatch extends SingleCondition<PomParentMatch> {
     protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         boolean exists = false;
         File file = null;
-        FileInputStream stream = null;
         TransformationUtilityException exception = null;
 
         try {
             file = getAbsoluteFile(transformedAppFolder, transformationContext);
-            stream = new FileInputStream(file);
-            MavenXpp3Reader reader = new MavenXpp3Reader();
-            Model model = reader.read(stream);
+            Model model = readPomModel(file, transformationContext);
             Parent parent = model.getParent();
             if (parent != null && parent.getGroupId().equals(groupId) && parent.getArtifactId().equals(artifactId) && (version == null || version.equals(parent.getVersion()))) {
                 exists = true;
@@ -112,20 +112,6 @@ public class PomParentMatch extends SingleCondition<PomParentMatch> {
             String artifact = String.format("%s:%s%s", groupId, artifactId, (version == null ? "" : ":" + version));
             String exceptionMessage = String.format("Exception occurred while checking if Maven POM file %s has a parent artifact '%s'", pomFileRelativePath, artifact);
             exception = new TransformationUtilityException(exceptionMessage, e);
-        } finally {
-            if (stream != null) {
-                try {
-                    stream.close();
-                } catch (IOException e) {
-                    if (exception == null) {
-                        String pomFileRelativePath = getRelativePath(transformedAppFolder, file);
-                        String exceptionMessage = String.format("Exception occurred while closing POM file %s", pomFileRelativePath);
-                        exception = new TransformationUtilityException(exceptionMessage, e);
-                    } else {
-                        exception.addSuppressed(e);
-                    }
-                }
-            }
         }
 
         if (exception != null) {
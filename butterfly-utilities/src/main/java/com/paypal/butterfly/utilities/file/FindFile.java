@@ -69,6 +69,11 @@ public class FindFile extends TransformationUtility<FindFile> {
         return fileName;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, fileName, ("".equals(getRelativePath()) ? "root of application" : getRelativePath()));
@@ -84,7 +89,7 @@ public class FindFile extends TransformationUtility<FindFile> {
 
         File searchRootFolder = getAbsoluteFile(transformedAppFolder, transformationContext);
 
-        if (!searchRootFolder.exists()) {
+        if (!fileExists(searchRootFolder, transformationContext)) {
             String details = String.format("The specified search root folder does not exist");
             if (failIfNotFound) {
                 TransformationUtilityException e = new TransformationUtilityException(details);
@@ -2,19 +2,21 @@ package com.paypal.butterfly.utilities.file;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.LinkedHashSet;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
 
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.*;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.paypal.butterfly.extensions.api.FileTreeIndex;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationUtility;
+import com.paypal.butterfly.utilities.operations.FastMatcher;
+import com.paypal.butterfly.utilities.operations.FastPattern;
 
 /**
  * Finds files based on a regular expression
@@ -40,6 +42,9 @@ import com.paypal.butterfly.extensions.api.TransformationUtility;
  * result type is {@link TUExecutionResult.Type#VALUE}, unless
  * {@link #warnIfNoFilesFound()} is called, then an empty list is still returned,
  * but the result type will be {@link TUExecutionResult.Type#WARNING}
+ * <br>
+ * Symbolic links to folders are followed, unless they point to one of the folders containing them.
+ * Sub-folders that cannot be read are skipped, and a warning is logged.
  *
  * @author facarvalho
  */
@@ -47,6 +52,8 @@ public class FindFiles extends TransformationUtility<FindFiles> {
 
     private static final String DESCRIPTION = "Find files whose name and/or path match regular expression and are under %s%s";
 
+    private static final Logger logger = LoggerFactory.getLogger(FindFiles.class);
+
     private String nameRegex;
     private String pathRegex;
     private boolean recursive;
@@ -299,6 +306,11 @@ public class FindFiles extends TransformationUtility<FindFiles> {
         return includeFiles;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         String folder = getRelativePath();
@@ -316,45 +328,15 @@ public class FindFiles extends TransformationUtility<FindFiles> {
         if (pathRegex != null && File.separatorChar != '/') {
             _pathRegex = pathRegex.replace('/', File.separatorChar);
         }
-        final String normalizedPathRegex = _pathRegex;
-
-        IOFileFilter filter = new AbstractFileFilter() {
-            public boolean accept(File file) {
-                if ((file.isFile() && !includeFiles) || (file.isDirectory() && !includeFolders)) {
-                    return false;
-                }
-                if (nameRegex != null && !file.getName().matches(nameRegex)) {
-                    return false;
-                }
-                if (normalizedPathRegex != null) {
-                    String relativePath = getRelativePath(searchRootFolder, file.getParentFile());
-                    if (!relativePath.matches(normalizedPathRegex)) {
-                        return false;
-                    }
-                }
-                return true;
-            }
-        };
+        final FastPattern namePattern = (nameRegex == null ? null : FastPattern.compile(nameRegex));
+        final FastPattern pathPattern = (_pathRegex == null ? null : FastPattern.compile(_pathRegex));
 
-        Collection<File> files = new ArrayList<>();
-        if (includeFiles) {
-            files = FileUtils.listFiles(searchRootFolder, filter, (recursive ? TrueFileFilter.INSTANCE : null));
-        }
-        if (includeFolders) {
-            Collection<File> folders = new ArrayList<>();
-            Collection<File> allFolders = FileUtils.listFilesAndDirs(searchRootFolder, new NotFileFilter(TrueFileFilter.INSTANCE), (recursive ? TrueFileFilter.INSTANCE : DirectoryFileFilter.DIRECTORY));
-            allFolders.remove(searchRootFolder);
-            for (File folder : allFolders) {
-                if (!recursive && !fileEquals(folder.getParentFile(), searchRootFolder)) {
-                    continue;
-                }
-                if (filter.accept(folder)) {
-                    folders.add(folder);
-                }
-            }
-            files.addAll(folders);
+        List<File> files;
+        try {
+            files = search(searchRootFolder, namePattern, pathPattern, transformationContext.getFileTreeIndex());
+        } catch (IOException e) {
+            return TUExecutionResult.error(this, new TransformationUtilityException("An exception happened when searching files under " + getRelativePath(transformedAppFolder, searchRootFolder), e));
         }
-        files = new ArrayList<>(new LinkedHashSet<>(files));
 
         TUExecutionResult result;
 
@@ -372,16 +354,117 @@ public class FindFiles extends TransformationUtility<FindFiles> {
         return result;
     }
 
-    private boolean fileEquals(File left, File right) {
-        if (left.equals(right)) {
-            return true;
-        }
-        try {
-            File canonicalLeft = left.getCanonicalFile();
-            File canonicalRight = right.getCanonicalFile();
-            return canonicalLeft.equals(canonicalRight);
-        } catch (IOException e) {
-            return false;
+    /*
+     * Walks the file tree only once, looking for both files and folders, pruning
+     * folders that could not possibly have any match under them, based on the path regular expression.
+     * Files are returned in the order they are visited, followed by folders,
+     * also in the order they are visited, both normalized, and relative paths are
+     * calculated against them, exactly as it was done when listing them with commons-io.
+     * If there is a file tree index, it is walked instead of the file system,
+     * and symbolic links to folders found in it are walked from the file system.
+     */
+    private List<File> search(File searchRootFolder, FastPattern namePattern, FastPattern pathPattern, FileTreeIndex fileTreeIndex) throws IOException {
+        final Path root = searchRootFolder.toPath();
+        final FastMatcher nameMatcher = (namePattern == null ? null : namePattern.matcher());
+        final FastMatcher pathMatcher = (pathPattern == null ? null : pathPattern.matcher());
+        final String pathPrefix = (pathPattern == null ? "" : pathPattern.getLiteralPrefix());
+
+        final List<File> files = new ArrayList<>();
+        final List<File> folders = new ArrayList<>();
+
+        // Relative path of the folders being visited, from the search root folder
+        final Deque<String> relativePaths = new ArrayDeque<>();
+
+        final int maxDepth = (recursive ? Integer.MAX_VALUE : 1);
+        final FileVisitor<Path> visitor = new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                File folder = dir.normalize().toFile();
+                String relativePath = getRelativePath(searchRootFolder, folder);
+                if (relativePaths.isEmpty()) {
+                    relativePaths.push(relativePath);
+                    return FileVisitResult.CONTINUE;
+                }
+                if (includeFolders && accept(dir, relativePaths.peek())) {
+                    folders.add(folder);
+                }
+                if (!pathPrefix.startsWith(relativePath) && !relativePath.startsWith(pathPrefix)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                relativePaths.push(relativePath);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isSymbolicLink() && Files.isDirectory(file) && !relativePaths.isEmpty()) {
+                    // Only file tree indexes do not follow symbolic links
+                    return visitLinkedFolder(file);
+                }
+                String parentRelativePath = relativePaths.peek();
+                if (parentRelativePath == null) {
+                    // The search root is not a folder
+                    parentRelativePath = getRelativePath(searchRootFolder, file.normalize().toFile().getParentFile());
+                }
+                if (attrs.isDirectory()) {
+                    // Folders are visited as files only when the maximum depth is reached
+                    if (includeFolders && accept(file, parentRelativePath)) {
+                        folders.add(file.normalize().toFile());
+                    }
+                } else if (includeFiles && (attrs.isRegularFile() || (attrs.isSymbolicLink() && Files.isRegularFile(file))) && accept(file, parentRelativePath)) {
+                    files.add(file.normalize().toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                if (relativePaths.isEmpty()) {
+                    // The search root itself could not be read
+                    throw exc;
+                }
+                logger.warn("{} has been skipped when searching files under {}, since it could not be read ({})", file, searchRootFolder, exc.toString());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                if (exc != null) {
+                    logger.warn("{} could not be fully listed when searching files under {} ({})", dir, searchRootFolder, exc.toString());
+                }
+                relativePaths.pop();
+                return FileVisitResult.CONTINUE;
+            }
+
+            /*
+             * Walks the folder the given symbolic link points to from the file system,
+             * unless it is one of the folders containing the link
+             */
+            private FileVisitResult visitLinkedFolder(Path link) throws IOException {
+                if (link.getParent().toRealPath().startsWith(link.toRealPath())) {
+                    return visitFileFailed(link, new FileSystemLoopException(link.toString()));
+                }
+                int depth = relativePaths.size();
+                Files.walkFileTree(link, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth - depth, this);
+                return FileVisitResult.CONTINUE;
+            }
+
+            private boolean accept(Path path, String parentRelativePath) {
+                return (nameMatcher == null || nameMatcher.matches(path.getFileName().toString()))
+                        && (pathMatcher == null || pathMatcher.matches(parentRelativePath));
+            }
+
+        };
+
+        if (fileTreeIndex == null) {
+            Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth, visitor);
+        } else {
+            fileTreeIndex.walkFileTree(root, maxDepth, visitor);
         }
+
+        files.addAll(folders);
+        return files;
     }
+
 }
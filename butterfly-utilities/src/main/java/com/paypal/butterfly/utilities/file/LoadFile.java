@@ -69,6 +69,11 @@ public class LoadFile extends TransformationUtility<LoadFile> {
         return resource;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, resource);
@@ -113,7 +113,7 @@ public class LocateFile extends TransformationUtility<LocateFile> {
                 String message = String.format("File to be located reached limit of files hierarchy, parent level %d is too deep", parentLevel);
                 TransformationUtilityException e = new TransformationUtilityException(message);
                 result = TUExecutionResult.error(this, e);
-            } else if (!locatedFile.exists()) {
+            } else if (!fileExists(locatedFile, transformationContext)) {
                 String message = String.format("File to be located does not exist");
                 TransformationUtilityException e = new TransformationUtilityException(message);
                 result = TUExecutionResult.error(this, e);
@@ -0,0 +1,290 @@
+package com.paypal.butterfly.utilities.java;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.paypal.butterfly.extensions.api.FileTreeIndex;
+import com.paypal.butterfly.extensions.api.TUExecutionResult;
+import com.paypal.butterfly.extensions.api.TransformationContext;
+import com.paypal.butterfly.extensions.api.TransformationUtility;
+import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
+import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Scans all Java source roots under a folder once, parsing their Java files in parallel,
+ * and returns a {@link JavaTypeIndex} with the package, imports, declared types,
+ * and the annotations and supertypes of the first declared type of each one of them.
+ * <br>
+ * Java source roots are folders whose path, relative to the scanned folder,
+ * is, or ends with, one of the specified source roots ({@code src/main/java} and {@code src/test/java} by default),
+ * so Java files in all modules of a multi-module application are indexed.
+ * The folder to be scanned can be defined by {@link #relative(String)},
+ * {@link #absolute(String)} or {@link #absolute(String, String)}.
+ * If not set explicitly, then the whole transformed application is scanned.
+ * <br>
+ * The returned index is meant to be saved as a transformation context attribute,
+ * whose name can then be set to {@link com.paypal.butterfly.utilities.conditions.java.JavaMatch}
+ * and {@link JavaPackage} utilities, so they consult it instead of parsing Java files one by one.
+ * Java files that cannot be parsed are not indexed, and a warning is returned listing them.
+ *
+ * @author facarvalho
+ */
+public class IndexJavaSources extends TransformationUtility<IndexJavaSources> {
+
+    private static final String DESCRIPTION = "Index Java types declared in Java source roots under %s";
+
+    private static final String[] DEFAULT_SOURCE_ROOTS = {"src/main/java", "src/test/java"};
+
+    private List<String> sourceRoots = Arrays.asList(DEFAULT_SOURCE_ROOTS);
+
+    // Even though it is redundant to have this default constructor here, since it is
+    // the only one (the compiler would have added it implicitly), this is being explicitly
+    // set here to emphasize that the public default constructor should always be
+    // available by any transformation utility even when additional constructors are present.
+    // The reason for that is the fact that one or more of its properties might be set
+    // during transformation time, using the TransformationUtility set method
+    @SuppressWarnings("PMD.UnnecessaryConstructor")
+    public IndexJavaSources() {
+    }
+
+    /**
+     * Sets the Java source roots, relative to the module they belong to, using forward slash as file separator.
+     * The default Java source roots are {@code src/main/java} and {@code src/test/java}
+     *
+     * @param sourceRoots the Java source roots
+     * @return this transformation utility instance
+     */
+    public IndexJavaSources setSourceRoots(String... sourceRoots) {
+        checkForNull("Source roots", sourceRoots);
+        if (sourceRoots.length == 0) {
+            throw new TransformationDefinitionException("Source roots cannot be empty");
+        }
+        for (String sourceRoot : sourceRoots) {
+            checkForBlankString("Source root", sourceRoot);
+        }
+        this.sourceRoots = Arrays.asList(sourceRoots);
+        return this;
+    }
+
+    /**
+     * Returns the Java source roots
+     *
+     * @return the Java source roots
+     */
+    public List<String> getSourceRoots() {
+        return Collections.unmodifiableList(sourceRoots);
+    }
+
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        String folder = getRelativePath();
+        if (StringUtils.isBlank(folder) || ".".equals(folder)) {
+            folder = "the root folder";
+        }
+        return String.format(DESCRIPTION, folder);
+    }
+
+    @Override
+    protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+        File searchRootFolder = getAbsoluteFile(transformedAppFolder, transformationContext);
+
+        List<Path> javaFiles;
+        try {
+            javaFiles = search(searchRootFolder.toPath().toAbsolutePath().normalize(), transformationContext.getFileTreeIndex());
+        } catch (IOException e) {
+            return TUExecutionResult.error(this, new TransformationUtilityException("An exception happened when searching Java files under " + getRelativePath(transformedAppFolder, searchRootFolder), e));
+        }
+
+        // Names are repeated among Java files very often, so the index keeps only one instance of each
+        Map<String, String> names = new ConcurrentHashMap<>();
+        Queue<Path> unparseableFiles = new ConcurrentLinkedQueue<>();
+
+        List<JavaTypeIndex.JavaFile> indexedFiles = javaFiles.parallelStream()
+                .map(javaFile -> index(javaFile, names, unparseableFiles))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        JavaTypeIndex javaTypeIndex = new JavaTypeIndex(indexedFiles);
+
+        if (!unparseableFiles.isEmpty()) {
+            String unparseableFilesList = unparseableFiles.stream()
+                    .map(javaFile -> getRelativePath(transformedAppFolder, javaFile.toFile()))
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            String details = String.format("%d Java files have been indexed, but the following ones could not be parsed: %s", indexedFiles.size(), unparseableFilesList);
+            return TUExecutionResult.warning(this, details, javaTypeIndex);
+        }
+
+        return TUExecutionResult.value(this, String.format("%d Java files have been indexed", indexedFiles.size()), javaTypeIndex);
+    }
+
+    /*
+     * Walks the file tree only once, returning all Java files under Java source roots.
+     * If there is a file tree index, it is walked instead of the file system.
+     */
+    private List<Path> search(Path root, FileTreeIndex fileTreeIndex) throws IOException {
+        final List<String> sourceRootSuffixes = sourceRoots.stream()
+                .map(sourceRoot -> StringUtils.strip(sourceRoot.replace('/', File.separatorChar), File.separator))
+                .collect(Collectors.toList());
+        final List<Path> javaFiles = new ArrayList<>();
+
+        SimpleFileVisitor<Path> visitor = new SimpleFileVisitor<Path>() {
+
+            // Depth of the Java source root being visited, or -1 if none
+            private int sourceRootDepth = -1;
+            private int depth = -1;
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                depth++;
+                if (sourceRootDepth == -1) {
+                    String relativePath = root.relativize(dir.toAbsolutePath().normalize()).toString();
+                    for (String sourceRootSuffix : sourceRootSuffixes) {
+                        if (relativePath.equals(sourceRootSuffix) || relativePath.endsWith(File.separator + sourceRootSuffix)) {
+                            sourceRootDepth = depth;
+                            break;
+                        }
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (sourceRootDepth != -1 && attrs.isRegularFile() && file.getFileName().toString().endsWith(".java")) {
+                    javaFiles.add(file.toAbsolutePath().normalize());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                if (sourceRootDepth == depth) {
+                    sourceRootDepth = -1;
+                }
+                depth--;
+                return FileVisitResult.CONTINUE;
+            }
+
+        };
+
+        if (fileTreeIndex == null) {
+            Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, visitor);
+        } else {
+            fileTreeIndex.walkFileTree(root, Integer.MAX_VALUE, visitor);
+        }
+
+        return javaFiles;
+    }
+
+    /*
+     * Parses the given Java file and returns its indexed summary,
+     * or null, adding it to the unparseable files, if it could not be parsed.
+     * A new parser is used per file, since parsers are not thread safe,
+     * and comments and tokens are not kept, since they are not indexed
+     */
+    private static JavaTypeIndex.JavaFile index(Path javaFile, Map<String, String> names, Queue<Path> unparseableFiles) {
+        ParserConfiguration configuration = new ParserConfiguration()
+                .setAttributeComments(false)
+                .setStoreTokens(false);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(javaFile, BasicFileAttributes.class);
+            ParseResult<CompilationUnit> parseResult;
+            try (InputStream inputStream = Files.newInputStream(javaFile)) {
+                parseResult = new JavaParser(configuration).parse(inputStream);
+            }
+            if (!parseResult.isSuccessful() || !parseResult.getResult().isPresent()) {
+                unparseableFiles.add(javaFile);
+                return null;
+            }
+            CompilationUnit compilationUnit = parseResult.getResult().get();
+
+            String packageName = compilationUnit.getPackageDeclaration().map(p -> intern(names, p.getNameAsString())).orElse(null);
+
+            List<String> imports = new ArrayList<>(compilationUnit.getImports().size());
+            for (ImportDeclaration importDeclaration : compilationUnit.getImports()) {
+                imports.add(intern(names, importDeclaration.getName().asString()));
+            }
+
+            List<String> typeNames = new ArrayList<>(compilationUnit.getTypes().size());
+            for (TypeDeclaration<?> typeDeclaration : compilationUnit.getTypes()) {
+                typeNames.add(intern(names, typeDeclaration.getNameAsString()));
+            }
+
+            List<String> annotations = new ArrayList<>();
+            List<String> extendedTypes = new ArrayList<>();
+            List<String> implementedTypes = new ArrayList<>();
+            if (!compilationUnit.getTypes().isEmpty()) {
+                TypeDeclaration<?> typeDeclaration = compilationUnit.getType(0);
+                for (AnnotationExpr annotation : typeDeclaration.getAnnotations()) {
+                    annotations.add(intern(names, annotation.getNameAsString()));
+                }
+                if (typeDeclaration instanceof ClassOrInterfaceDeclaration) {
+                    ClassOrInterfaceDeclaration type = (ClassOrInterfaceDeclaration) typeDeclaration;
+                    for (ClassOrInterfaceType extendedType : type.getExtendedTypes()) {
+                        extendedTypes.add(intern(names, getTypeName(extendedType)));
+                    }
+                    for (ClassOrInterfaceType implementedType : type.getImplementedTypes()) {
+                        implementedTypes.add(intern(names, getTypeName(implementedType)));
+                    }
+                }
+            }
+
+            return new JavaTypeIndex.JavaFile(javaFile, attributes.lastModifiedTime().toMillis(), attributes.size(),
+                    packageName, imports, typeNames, annotations, extendedTypes, implementedTypes);
+        } catch (IOException | RuntimeException e) {
+            unparseableFiles.add(javaFile);
+            return null;
+        }
+    }
+
+    /*
+     * Returns the type name as written in the Java file,
+     * the same way it is done by the Extends Java condition
+     */
+    private static String getTypeName(ClassOrInterfaceType type) {
+        String typeSimpleName = type.getName().getIdentifier();
+        return type.getScope().map(scope -> String.format("%s.%s", scope.toString(), typeSimpleName)).orElse(typeSimpleName);
+    }
+
+    private static String intern(Map<String, String> names, String name) {
+        String internedName = names.putIfAbsent(name, name);
+        return (internedName == null ? name : internedName);
+    }
+
+}
@@ -1,6 +1,5 @@
 package com.paypal.butterfly.utilities.java;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.PackageDeclaration;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
@@ -9,13 +8,14 @@ import com.paypal.butterfly.extensions.api.TransformationUtility;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.util.Optional;
 
 /**
  * Retrieves the package
  * of a given Java class.
+ * <br>
+ * If a {@link JavaTypeIndex} context attribute is set (see {@link #setJavaTypeIndexAttributeName(String)}),
+ * the Java class file is not parsed, as long as it is indexed and has not been modified since then.
  *
  * @author facarvalho
  */
@@ -23,6 +23,8 @@ public class JavaPackage extends TransformationUtility<JavaPackage> {
 
     private static final String DESCRIPTION = "Retrieve the package of a Java class file %s";
 
+    private String javaTypeIndexAttributeName;
+
     // Even though it is redundant to have this default constructor here, since it is
     // the only one (the compiler would have added it implicitly), this is being explicitly
     // set here to emphasize that the public default constructor should always be
@@ -33,37 +35,72 @@ public class JavaPackage extends TransformationUtility<JavaPackage> {
     public JavaPackage() {
     }
 
+    /**
+     * Sets the name of the context attribute containing the {@link JavaTypeIndex} object
+     * (see {@link IndexJavaSources}), to be consulted before parsing the Java class file
+     *
+     * @param javaTypeIndexAttributeName the name of the context attribute containing the {@link JavaTypeIndex} object
+     * @return this transformation utility instance
+     */
+    public JavaPackage setJavaTypeIndexAttributeName(String javaTypeIndexAttributeName) {
+        checkForBlankString("javaTypeIndexAttributeName", javaTypeIndexAttributeName);
+        this.javaTypeIndexAttributeName = javaTypeIndexAttributeName;
+        return this;
+    }
+
+    /**
+     * Returns the name of the context attribute containing the {@link JavaTypeIndex} object
+     *
+     * @return the name of the context attribute containing the {@link JavaTypeIndex} object
+     */
+    public String getJavaTypeIndexAttributeName() {
+        return javaTypeIndexAttributeName;
+    }
+
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, getRelativePath());
     }
 
     @Override
-    @edu.umd.cs.findbugs.annotations.SuppressFBWarnings (value="NP_ALWAYS_NULL_EXCEPTION")
     protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         File javaClassFile = getAbsoluteFile(transformedAppFolder, transformationContext);
-        FileInputStream fileInputStream = null;
-        TUExecutionResult result = null;
+        TUExecutionResult result;
 
         // TODO
         // Add a validation here simply checking if the file name ends with .java
 
+        if (javaTypeIndexAttributeName != null) {
+            if (!transformationContext.contains(javaTypeIndexAttributeName)) {
+                return TUExecutionResult.error(this, new TransformationUtilityException("Transformation context attribute " + javaTypeIndexAttributeName + " does not exist"));
+            }
+            Object javaTypeIndexObj = transformationContext.get(javaTypeIndexAttributeName);
+            if (javaTypeIndexObj == null) {
+                return TUExecutionResult.error(this, new TransformationUtilityException("Transformation context attribute " + javaTypeIndexAttributeName + " is null"));
+            }
+            if (!(javaTypeIndexObj instanceof JavaTypeIndex)) {
+                return TUExecutionResult.error(this, new TransformationUtilityException("Transformation context attribute " + javaTypeIndexAttributeName + " is not a Java type index"));
+            }
+            JavaTypeIndex.JavaFile javaFile = ((JavaTypeIndex) javaTypeIndexObj).getJavaFile(javaClassFile);
+
+            // Java files with no package declaration are parsed, so the same error is returned
+            if (javaFile != null && javaFile.getPackageName() != null) {
+                return TUExecutionResult.value(this, javaFile.getPackageName());
+            }
+        }
+
         try {
-            fileInputStream = new FileInputStream(javaClassFile);
-            CompilationUnit compilationUnit = StaticJavaParser.parse(fileInputStream);
+            CompilationUnit compilationUnit = readCompilationUnit(javaClassFile, transformationContext);
             Optional<PackageDeclaration> packageDeclaration = compilationUnit.getPackageDeclaration();
             result = TUExecutionResult.value(this, packageDeclaration.get().getNameAsString());
         } catch (Exception  e) {
             TransformationUtilityException tue = new TransformationUtilityException("An exception happened when trying to read and parse the specified Java file " + getRelativePath(transformedAppFolder, javaClassFile), e);
             result = TUExecutionResult.error(this, tue);
-        } finally {
-            try {
-                if (fileInputStream != null) {
-                    fileInputStream.close();
-                }
-            } catch (IOException e) {
-                result.addWarning(e);
-            }
         }
 
         return result;
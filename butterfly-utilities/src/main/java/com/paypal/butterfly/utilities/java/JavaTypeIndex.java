@@ -0,0 +1,213 @@
+package com.paypal.butterfly.utilities.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory index of Java source files, built by {@link IndexJavaSources},
+ * keeping, for every indexed Java file, only its package, imports, declared types,
+ * and the annotations and supertypes of its first declared type,
+ * which is what Java conditions need to be evaluated.
+ * <br>
+ * Java files are looked up by path, and also by the fully qualified name of the types they declare.
+ * Every Java file is kept along with its version (last modification time and size) at the moment
+ * it was indexed, and is not returned if it has changed since then.
+ *
+ * @author facarvalho
+ */
+public final class JavaTypeIndex {
+
+    private final Map<Path, JavaFile> javaFiles;
+    private final Map<String, JavaFile> types;
+
+    JavaTypeIndex(Collection<JavaFile> javaFiles) {
+        Map<Path, JavaFile> javaFilesMap = new HashMap<>(javaFiles.size() * 4 / 3 + 1);
+        Map<String, JavaFile> typesMap = new HashMap<>(javaFiles.size() * 4 / 3 + 1);
+        for (JavaFile javaFile : javaFiles) {
+            javaFilesMap.put(javaFile.path, javaFile);
+            for (String typeName : javaFile.typeNames) {
+                typesMap.put(javaFile.packageName == null || javaFile.packageName.isEmpty() ? typeName : javaFile.packageName + "." + typeName, javaFile);
+            }
+        }
+        this.javaFiles = javaFilesMap;
+        this.types = typesMap;
+    }
+
+    /**
+     * Returns the indexed summary of the given Java file, or null, if it has not been indexed,
+     * or if it has changed since it was indexed
+     *
+     * @param file the Java file
+     * @return the indexed summary of the given Java file, or null
+     */
+    public JavaFile getJavaFile(File file) {
+        JavaFile javaFile = javaFiles.get(toPath(file));
+        return (javaFile != null && javaFile.isUpToDate() ? javaFile : null);
+    }
+
+    /**
+     * Returns the indexed summary of the Java file declaring the given top level type,
+     * or null, if there is none, or if it has changed since it was indexed
+     *
+     * @param typeName the fully qualified name of the top level type
+     * @return the indexed summary of the Java file declaring the given type, or null
+     */
+    public JavaFile getJavaFile(String typeName) {
+        JavaFile javaFile = types.get(typeName);
+        return (javaFile != null && javaFile.isUpToDate() ? javaFile : null);
+    }
+
+    /**
+     * Returns the indexed summaries of all Java files, regardless of whether they have changed
+     * since they were indexed
+     *
+     * @return the indexed summaries of all Java files
+     */
+    public Collection<JavaFile> getJavaFiles() {
+        return Collections.unmodifiableCollection(javaFiles.values());
+    }
+
+    /**
+     * Returns the number of indexed Java files
+     *
+     * @return the number of indexed Java files
+     */
+    public int size() {
+        return javaFiles.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Java type index with %d Java files and %d types", javaFiles.size(), types.size());
+    }
+
+    static Path toPath(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * Indexed summary of a Java file. Type names are kept as they are written in the Java file,
+     * so they might be simple or fully qualified names.
+     */
+    public static final class JavaFile {
+
+        private static final String[] EMPTY = new String[0];
+
+        private final Path path;
+        private final long lastModified;
+        private final long size;
+        private final String packageName;
+        private final String[] imports;
+        private final String[] typeNames;
+        private final String[] annotations;
+        private final String[] extendedTypes;
+        private final String[] implementedTypes;
+
+        JavaFile(Path path, long lastModified, long size, String packageName, List<String> imports, List<String> typeNames,
+                 List<String> annotations, List<String> extendedTypes, List<String> implementedTypes) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.packageName = packageName;
+            this.imports = toArray(imports);
+            this.typeNames = toArray(typeNames);
+            this.annotations = toArray(annotations);
+            this.extendedTypes = toArray(extendedTypes);
+            this.implementedTypes = toArray(implementedTypes);
+        }
+
+        private static String[] toArray(List<String> list) {
+            return (list.isEmpty() ? EMPTY : list.toArray(EMPTY));
+        }
+
+        private boolean isUpToDate() {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return attributes.lastModifiedTime().toMillis() == lastModified && attributes.size() == size;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Returns the Java file
+         *
+         * @return the Java file
+         */
+        public File getFile() {
+            return path.toFile();
+        }
+
+        /**
+         * Returns the package name, or null, if the Java file has no package declaration
+         *
+         * @return the package name, or null
+         */
+        public String getPackageName() {
+            return packageName;
+        }
+
+        /**
+         * Returns the names of all imports, without static modifiers or asterisks
+         *
+         * @return the names of all imports
+         */
+        public List<String> getImports() {
+            return Collections.unmodifiableList(Arrays.asList(imports));
+        }
+
+        /**
+         * Returns the simple names of all top level types declared in the Java file
+         *
+         * @return the simple names of all top level types
+         */
+        public List<String> getTypeNames() {
+            return Collections.unmodifiableList(Arrays.asList(typeNames));
+        }
+
+        /**
+         * Returns the names of the annotations of the first top level type
+         *
+         * @return the names of the annotations of the first top level type
+         */
+        public List<String> getAnnotations() {
+            return Collections.unmodifiableList(Arrays.asList(annotations));
+        }
+
+        /**
+         * Returns the names of the types extended by the first top level type,
+         * if it is a class or an interface
+         *
+         * @return the names of the types extended by the first top level type
+         */
+        public List<String> getExtendedTypes() {
+            return Collections.unmodifiableList(Arrays.asList(extendedTypes));
+        }
+
+        /**
+         * Returns the names of the interfaces implemented by the first top level type,
+         * if it is a class
+         *
+         * @return the names of the interfaces implemented by the first top level type
+         */
+        public List<String> getImplementedTypes() {
+            return Collections.unmodifiableList(Arrays.asList(implementedTypes));
+        }
+
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+
+    }
+
+}
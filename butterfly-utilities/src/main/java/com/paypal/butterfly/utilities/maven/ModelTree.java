@@ -1,14 +1,24 @@
 package com.paypal.butterfly.utilities.maven;
 
+import com.paypal.butterfly.extensions.api.PomModelCache;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * This is a tree of Maven artifacts, which are represented by {@link Model} objects.
@@ -20,18 +30,28 @@ import java.util.List;
  * As a result of building this tree, it is possible to know, out of the initial pom.xml files list,
  * which ones actually inherit, directly or not, from the root artifact. The result is retrieved
  * by calling {@link #getPomFilesInTree()}
+ * <br>
+ * The pom.xml files are parsed in parallel, and then the tree is built in one single linking pass,
+ * based on an index of all artifacts by group id, artifact id and version, which makes
+ * building it linear to the number of pom.xml files. Artifacts that could not be
+ * linked to the tree because their parent artifact is unknown ({@link #getOrphanPomFiles()}),
+ * or because their parent chain is a cycle ({@link #getCyclicPomFiles()}), are also reported.
  *
  * @author facarvalho
  */
 class ModelTree {
 
+    // Visiting states of artifacts while looking for cycles
+    private static final int NOT_VISITED = 0;
+    private static final int VISITING = 1;
+    private static final int VISITED = 2;
+
     private ModelNode rootNode;
-    private List<ModelNode> nodesInTree = new ArrayList<>();
+    private int size;
 
-// TODO we can comment this out in the future if we need this feature
-//    private List<Model> modelsInTree = new ArrayList<>();
-//    private List<Model> modelsNotInTree = new ArrayList<>();
     private List<File> pomFilesInTree = new ArrayList<>();
+    private List<File> orphanPomFiles = new ArrayList<>();
+    private List<File> cyclicPomFiles = new ArrayList<>();
 
     /**
      * This is a tree of Maven artifacts, which are represented by {@link Model} objects.
@@ -48,33 +68,105 @@ class ModelTree {
      * @param rootArtifactId the artifact id of the artifact that should be at the root of the tree
      * @param rootVersion the version of the artifact that should be at the root of the tree
      * @param pomFiles a list of pom.xml files used to make the tree
+     * @param pomModelCache the transformation cache of parsed pom.xml files, or null, if there is none
      */
-    public ModelTree(String rootGroupId, String rootArtifactId, String rootVersion, List<File> pomFiles) {
+    public ModelTree(String rootGroupId, String rootArtifactId, String rootVersion, List<File> pomFiles, PomModelCache pomModelCache) {
+        this(createRootModel(rootGroupId, rootArtifactId, rootVersion), createModels(pomFiles, pomModelCache));
+    }
+
+    /*
+     * Builds the tree out of already parsed models, whose pom files are set
+     */
+    ModelTree(Model rootModel, List<Model> models) {
+        rootNode = new ModelNode(rootModel);
+
+        // Index of all artifacts by their coordinates. If more than one artifact has the same
+        // coordinates, the first one is indexed, which includes the root artifact
+        Map<String, ModelNode> index = new HashMap<>(models.size() * 2);
+        index.put(getKey(rootModel), rootNode);
+        List<ModelNode> nodes = new ArrayList<>(models.size());
+        for (Model model : models) {
+            ModelNode node = new ModelNode(model);
+            nodes.add(node);
+            index.putIfAbsent(getKey(model), node);
+        }
+
+        // Linking pass, every artifact is added as child of the indexed artifact with its parent coordinates
+        List<ModelNode> unlinkedNodes = new ArrayList<>();
+        for (ModelNode node : nodes) {
+            ModelNode parentNode = getParentNode(node, index);
+            if (parentNode != null) {
+                parentNode.addChild(node);
+            } else {
+                unlinkedNodes.add(node);
+            }
+        }
+
+        // Only artifacts reachable from the root are in the tree
+        Deque<ModelNode> pending = new ArrayDeque<>();
+        pending.push(rootNode);
+        while (!pending.isEmpty()) {
+            ModelNode node = pending.pop();
+            node.inTree = true;
+            size++;
+            node.children.forEach(pending::push);
+        }
+
+        for (ModelNode node : nodes) {
+            if (node.inTree && node.model.getPomFile() != null) {
+                pomFilesInTree.add(node.model.getPomFile());
+            }
+        }
+        for (ModelNode node : unlinkedNodes) {
+            if (node.model.getParent() != null && node.model.getPomFile() != null) {
+                orphanPomFiles.add(node.model.getPomFile());
+            }
+        }
+        findCycles(nodes, index);
+    }
+
+    private static Model createRootModel(String rootGroupId, String rootArtifactId, String rootVersion) {
         Model rootModel = new Model();
         rootModel.setGroupId(rootGroupId);
         rootModel.setArtifactId(rootArtifactId);
         rootModel.setVersion(rootVersion);
+        return rootModel;
+    }
 
-        List<Model> models = new ArrayList<>();
-        models.add(rootModel);
-
-        for (File pomFile : pomFiles) {
-            models.add(createModel(pomFile));
+    /*
+     * Parses all pom files in parallel, keeping their order. If more than one
+     * of them cannot be parsed, the exception thrown is the one related to the first of them
+     */
+    private static List<Model> createModels(List<File> pomFiles, PomModelCache pomModelCache) {
+        Model[] models = new Model[pomFiles.size()];
+        TransformationUtilityException[] exceptions = new TransformationUtilityException[pomFiles.size()];
+        IntStream.range(0, pomFiles.size()).parallel().forEach(i -> {
+            try {
+                models[i] = createModel(pomFiles.get(i), pomModelCache);
+            } catch (TransformationUtilityException e) {
+                exceptions[i] = e;
+            }
+        });
+        for (TransformationUtilityException exception : exceptions) {
+            if (exception != null) {
+                throw exception;
+            }
         }
-
-// TODO we can comment this out in the future if we need this feature
-//        modelsNotInTree = add(models);
-        add(models);
+        return Arrays.asList(models);
     }
 
-    private Model createModel(File pomFile) {
+    private static Model createModel(File pomFile, PomModelCache pomModelCache) {
         FileInputStream fileInputStream = null;
         Exception ex = null;
         Model model = null;
         try {
-            MavenXpp3Reader reader = new MavenXpp3Reader();
-            fileInputStream = new FileInputStream(pomFile);
-            model = reader.read(fileInputStream);
+            if (pomModelCache != null) {
+                model = pomModelCache.getModel(pomFile);
+            } else {
+                MavenXpp3Reader reader = new MavenXpp3Reader();
+                fileInputStream = new FileInputStream(pomFile);
+                model = reader.read(fileInputStream);
+            }
             if (model.getGroupId() == null) model.setGroupId(model.getParent().getGroupId());
             if (model.getVersion() == null) model.setVersion(model.getParent().getVersion());
             model.setPomFile(pomFile);
@@ -93,64 +185,58 @@ class ModelTree {
         return model;
     }
 
-    private List<Model> add(List<Model> models) {
-        int previousTreeSize = -1;
-        while (models.size() > 0 && size() > previousTreeSize) {
-            previousTreeSize = size();
-            List<Model> leftOverModels = models;
-            models = new ArrayList<>();
-            for (Model model : leftOverModels) {
-                if (!add(model)) {
-                    models.add(model);
-                }
+    /*
+     * Walks up the parent chain of every artifact not in the tree, marking the artifacts that are part of a cycle.
+     * Every artifact is visited only once
+     */
+    private void findCycles(List<ModelNode> nodes, Map<String, ModelNode> index) {
+        Map<ModelNode, Integer> states = new IdentityHashMap<>();
+        List<ModelNode> path = new ArrayList<>();
+        for (ModelNode start : nodes) {
+            ModelNode node = start;
+            while (node != null && !node.inTree && states.getOrDefault(node, NOT_VISITED) == NOT_VISITED) {
+                states.put(node, VISITING);
+                path.add(node);
+                node = getParentNode(node, index);
             }
-        }
-        return models;
-    }
-
-    private boolean add(Model model) {
-        ModelNode temp = null;
-        if (rootNode == null) {
-            rootNode = new ModelNode(model);
-            nodesInTree.add(rootNode);
-// TODO
-// We can comment this out in the future if we want to allow
-// not fixing the root artifact
-//        } else if (rootNode.isChildOf(model)) {
-//            temp = rootNode;
-//            rootNode = new ModelNode(model);
-//            rootNode.addChild(temp);
-//            nodesInTree.add(rootNode);
-        } else {
-            for (ModelNode n : nodesInTree) {
-                if(n.isParentOf(model)) {
-                    temp = new ModelNode(model);
-                    n.addChild(temp);
-                    nodesInTree.add(temp);
-                    break;
+            if (node != null && states.getOrDefault(node, NOT_VISITED) == VISITING) {
+                // The path reached itself, from this node on it is a cycle
+                for (int i = path.indexOf(node); i < path.size(); i++) {
+                    if (path.get(i).model.getPomFile() != null) {
+                        cyclicPomFiles.add(path.get(i).model.getPomFile());
+                    }
                 }
             }
-            if (temp == null) {
-                return false;
+            for (ModelNode visited : path) {
+                states.put(visited, VISITED);
             }
+            path.clear();
         }
-// TODO
-// We can comment this out in the future if we need this feature
-//        modelsInTree.add(model);
-        if (model.getPomFile() != null) {
-            pomFilesInTree.add(model.getPomFile());
+    }
+
+    private static ModelNode getParentNode(ModelNode node, Map<String, ModelNode> index) {
+        Parent parent = node.model.getParent();
+        if (parent == null) {
+            return null;
         }
-        return true;
+        return index.get(getKey(parent.getGroupId(), parent.getArtifactId(), parent.getVersion()));
     }
 
-    public int size() {
-        return nodesInTree.size();
+    private static String getKey(Model model) {
+        return getKey(model.getGroupId(), model.getArtifactId(), model.getVersion());
     }
 
+    private static String getKey(String groupId, String artifactId, String version) {
+        return groupId + ':' + artifactId + ':' + version;
+    }
+
+    public int size() {
+        return size;
+    }
 
     /**
      * List of pom.xml files that, directly or not, are children of the root artifact
-     * set in the artifacts tree
+     * set in the artifacts tree, in the same order they were given
      *
      * @return a list of pom.xml files that, directly or not, are children of the root artifact
      * set in the artifacts tree
@@ -159,10 +245,31 @@ class ModelTree {
         return pomFilesInTree;
     }
 
+    /**
+     * List of pom.xml files whose parent artifact is neither the root artifact
+     * nor any of the other given artifacts, in the same order they were given
+     *
+     * @return a list of pom.xml files whose parent artifact is unknown
+     */
+    public List<File> getOrphanPomFiles() {
+        return Collections.unmodifiableList(orphanPomFiles);
+    }
+
+    /**
+     * List of pom.xml files whose artifacts are part of a parent chain cycle,
+     * which is not a valid Maven structure
+     *
+     * @return a list of pom.xml files whose artifacts are part of a parent chain cycle
+     */
+    public List<File> getCyclicPomFiles() {
+        return Collections.unmodifiableList(cyclicPomFiles);
+    }
+
     private static class ModelNode {
 
         private Model model;
         private List<ModelNode> children;
+        private boolean inTree = false;
 
         private ModelNode(Model model) {
             this.model = model;
@@ -173,32 +280,6 @@ class ModelTree {
             children.add(child);
         }
 
-        @SuppressWarnings("PMD.SimplifyBooleanReturns")
-        private boolean isParentOf(Model model) {
-            if (model.getParent() == null) {
-                return false;
-            }
-
-            if (!this.model.getGroupId().equals(model.getParent().getGroupId())) return false;
-            if (!this.model.getArtifactId().equals(model.getParent().getArtifactId())) return false;
-            if (!this.model.getVersion().equals(model.getParent().getVersion())) return false;
-            return true;
-        }
-
-// TODO
-// We can comment this out in the future if we want to allow
-//        @SuppressWarnings("PMD.SimplifyBooleanReturns")
-//        private boolean isChildOf(Model model) {
-//            if (this.model.getParent() == null) {
-//                return false;
-//            }
-//
-//            if (!model.getGroupId().equals(this.model.getParent().getGroupId())) return false;
-//            if (!model.getArtifactId().equals(this.model.getParent().getArtifactId())) return false;
-//            if (!model.getVersion().equals(this.model.getParent().getVersion())) return false;
-//            return true;
-//        }
-
     }
 
 }
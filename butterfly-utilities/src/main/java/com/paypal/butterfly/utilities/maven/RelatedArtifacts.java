@@ -12,6 +12,10 @@ import java.util.List;
  * Given a list of pom.xml {@link File} objects and
  * a parent artifact, this transformation utility results in a sub-list of those pom.xml files containing only the ones
  * that are, directly or indirectly, a child of the specified parent artifact.
+ * <br>
+ * If any of the given pom.xml files has an invalid parent chain, because it is a cycle,
+ * the result is a warning, still containing the sub-list. Pom.xml files whose parent is not
+ * among the given ones, neither is the specified parent artifact, are mentioned in the result details.
  *
  * @author facarvalho
  */
@@ -94,9 +98,17 @@ public class RelatedArtifacts extends TransformationUtility<RelatedArtifacts> {
     protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         try {
             List<File> pomFiles = (List<File>) transformationContext.get(pomFilesAttribute);
-            ModelTree modelTree = new ModelTree(parentGroupId, parentArtifactId, parentVersion, pomFiles);
+            ModelTree modelTree = new ModelTree(parentGroupId, parentArtifactId, parentVersion, pomFiles, transformationContext.getPomModelCache());
             List<File> pomFilesInTree = modelTree.getPomFilesInTree();
 
+            if (!modelTree.getCyclicPomFiles().isEmpty()) {
+                String details = String.format("The parent chain of the following pom files is a cycle, so they are not related to %s:%s:%s: %s", parentGroupId, parentArtifactId, parentVersion, modelTree.getCyclicPomFiles());
+                return TUExecutionResult.warning(this, details, pomFilesInTree);
+            }
+            if (!modelTree.getOrphanPomFiles().isEmpty()) {
+                String details = String.format("%d pom files have a parent that is not among the given pom files", modelTree.getOrphanPomFiles().size());
+                return TUExecutionResult.value(this, details, pomFilesInTree);
+            }
             return TUExecutionResult.value(this, pomFilesInTree);
         } catch(TransformationUtilityException e) {
             return TUExecutionResult.error(this, e);
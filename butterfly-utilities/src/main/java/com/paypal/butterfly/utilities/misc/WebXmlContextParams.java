@@ -10,9 +10,6 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
@@ -43,6 +40,11 @@ public class WebXmlContextParams extends TransformationUtility<WebXmlContextPara
     public WebXmlContextParams() {
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, getRelativePath());
@@ -55,9 +57,7 @@ public class WebXmlContextParams extends TransformationUtility<WebXmlContextPara
         boolean warn = false;
 
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(xmlFile);
+            Document doc = readXmlDocument(xmlFile, transformationContext);
             Element webAppNode = doc.getDocumentElement();
             NodeList contextParams = webAppNode.getElementsByTagName("context-param");
 
@@ -99,7 +99,7 @@ public class WebXmlContextParams extends TransformationUtility<WebXmlContextPara
 
                 map.put(paramName, paramValue);
             }
-        } catch (SAXException |IOException |ParserConfigurationException e) {
+        } catch (SAXException |IOException e) {
             TransformationUtilityException tuex = new TransformationUtilityException("Exception happened when searching context parameters in web.xml file", e);
             return TUExecutionResult.error(this, tuex);
         }
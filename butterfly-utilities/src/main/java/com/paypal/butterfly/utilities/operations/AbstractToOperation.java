@@ -8,6 +8,8 @@ import com.paypal.butterfly.utilities.operations.file.MoveDirectory;
 import com.paypal.butterfly.utilities.operations.file.MoveFile;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Abstract "to" operation whenever a destination file path needs to be set.
@@ -149,6 +151,32 @@ public abstract class AbstractToOperation<A extends AbstractToOperation> extends
         return fileTo;
     }
 
+    /**
+     * Returns the destination location, just like {@link #getFileTo(File, TransformationContext)},
+     * or null, if it is set by a transformation context attribute that does not exist yet
+     *
+     * @param transformedAppFolder the folder where the transformed application code is
+     * @param transformationContext the transformation context object
+     * @return the destination location, or null
+     */
+    protected File resolveFileTo(File transformedAppFolder, TransformationContext transformationContext) {
+        if (toRelative != null) {
+            return new File(transformedAppFolder, toRelative);
+        }
+        Object value = transformationContext.get(toAbsoluteAttribute);
+        if (!(value instanceof File)) {
+            return null;
+        }
+        return (additionalRelativePath == null ? (File) value : new File((File) value, additionalRelativePath));
+    }
+
+    @Override
+    public List<File> getModifiedFiles(File transformedAppFolder, TransformationContext transformationContext) {
+        // Files already existent in the destination location are overwritten
+        File fileTo = resolveFileTo(transformedAppFolder, transformationContext);
+        return (fileTo == null ? null : Collections.singletonList(fileTo));
+    }
+
     @Override
     public String getDescription() {
         return String.format(description, getRelativePath(), (toRelative != null ? toRelative : "the location defined by transformation context attribute " + toAbsoluteAttribute));
@@ -3,6 +3,7 @@ package com.paypal.butterfly.utilities.operations;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.*;
+import java.util.regex.Pattern;
 
 /**
  * This helper class has utility methods to deal with text files EOL characters.
@@ -11,6 +12,8 @@ import java.io.*;
  */
 public abstract class EolHelper {
 
+    private static final Pattern EOL_PATTERN = Pattern.compile("(\\n)|(\\r)|(\\r\\n)");
+
     /**
      * Finds out what EOL character(s) are used by the specified text file.
      * If the specified file has no EOL characters null will be returned, and if more than
@@ -73,7 +76,7 @@ public abstract class EolHelper {
         if (line == null) {
             throw new IllegalArgumentException("Line argument cannot be null");
         }
-        return line.replaceAll("(\\n)|(\\r)|(\\r\\n)", "");
+        return EOL_PATTERN.matcher(line).replaceAll("");
     }
 
     /**
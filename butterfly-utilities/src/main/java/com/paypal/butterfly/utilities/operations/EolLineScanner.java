@@ -0,0 +1,327 @@
+package com.paypal.butterfly.utilities.operations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Reads lines from {@link Reader} objects preserving end-of-line (EOL) characters,
+ * which could be line feed ('\n'), carriage return ('\r'), or a carriage return
+ * followed immediately by a linefeed, the same way {@link EolBufferedReader} does.
+ * <br>
+ * Differently than {@link EolBufferedReader}, characters are read in bulk into a
+ * char buffer, which is scanned directly, and lines are returned as {@link Line} views
+ * over that buffer. No object is created per line read, unless it is kept, by calling
+ * {@link Line#toString()}. Because of that, a line is only valid until the next line is read.
+ * <br>
+ * This class is not thread safe.
+ *
+ * @author facarvalho
+ */
+public class EolLineScanner implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+
+    private char[] buffer;
+
+    // Position of the first character of the line being read
+    private int start = 0;
+
+    // Position right after the last line read
+    private int next = 0;
+
+    // Position right after the last character in the buffer
+    private int limit = 0;
+
+    private boolean endOfStream = false;
+
+    private final Line line = new Line();
+
+    /**
+     * Reads lines from {@link Reader} objects preserving end-of-line (EOL) characters
+     *
+     * @param reader the reader to be scanned. There is no need for it to be buffered
+     */
+    public EolLineScanner(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Reads lines from {@link Reader} objects preserving end-of-line (EOL) characters
+     *
+     * @param reader the reader to be scanned. There is no need for it to be buffered
+     * @param bufferSize initial size of the char buffer, which grows if a line does not fit in it
+     */
+    public EolLineScanner(Reader reader, int bufferSize) {
+        if (reader == null) {
+            throw new IllegalArgumentException("Reader object cannot be null");
+        }
+        if (bufferSize < 2) {
+            throw new IllegalArgumentException("Buffer size must be at least 2");
+        }
+        this.reader = reader;
+        buffer = new char[bufferSize];
+    }
+
+    /**
+     * Reads a line of text preserving end-of-line (EOL) characters in the end of the line.
+     * A line is considered to be terminated by any one of a line feed ('\n'), a carriage return ('\r'),
+     * or a carriage return followed immediately by a linefeed.
+     * See {@link EolBufferedReader#readLineKeepEol()}.
+     *
+     * @return a view of the line, including any EOL characters in the end of it,
+     *         valid until the next line is read, or null if the end of the stream has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    public Line nextLineKeepEol() throws IOException {
+        start = next;
+        int i = start;
+        while (true) {
+            while (i < limit) {
+                char c = buffer[i++];
+                if (c == '\n') {
+                    return lineUntil(i);
+                }
+                if (c == '\r') {
+                    if (i == limit) {
+                        int scanned = i - start;
+                        boolean read = fill();
+                        i = start + scanned;
+                        if (!read) {
+                            return lineUntil(i);
+                        }
+                    }
+                    if (buffer[i] == '\n') {
+                        i++;
+                    }
+                    return lineUntil(i);
+                }
+            }
+            int scanned = i - start;
+            boolean read = fill();
+            i = start + scanned;
+            if (!read) {
+                return (i > start ? lineUntil(i) : null);
+            }
+        }
+    }
+
+    /**
+     * Reads a line of text preserving end-of-line (EOL) characters in the beginning of the line.
+     * A line is considered to be terminated by any one of a line feed ('\n'), a carriage return ('\r'),
+     * or a carriage return followed immediately by a linefeed.
+     * See {@link EolBufferedReader#readLineKeepStartEol()}.
+     *
+     * @return a view of the line, including any EOL characters in the beginning of it
+     *         (unless it is the first line), valid until the next line is read,
+     *         or null if the end of the stream has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    public Line nextLineKeepStartEol() throws IOException {
+        start = next;
+        if (start == limit && !fill()) {
+            return null;
+        }
+        int i = start;
+        if (buffer[i++] == '\r') {
+            // Just like EolBufferedReader, the character after a carriage return is always kept with it
+            if (i == limit) {
+                int scanned = i - start;
+                boolean read = fill();
+                i = start + scanned;
+                if (!read) {
+                    return lineUntil(i);
+                }
+            }
+            i++;
+        }
+        while (true) {
+            while (i < limit) {
+                char c = buffer[i];
+                if (c == '\n' || c == '\r') {
+                    return lineUntil(i);
+                }
+                i++;
+            }
+            int scanned = i - start;
+            boolean read = fill();
+            i = start + scanned;
+            if (!read) {
+                return lineUntil(i);
+            }
+        }
+    }
+
+    private Line lineUntil(int end) {
+        next = end;
+        line.set(start, end);
+        return line;
+    }
+
+    /*
+     * Reads more characters into the buffer, keeping the ones from the line being read.
+     * That might move them to the beginning of the buffer, or grow it.
+     * Returns false if the end of the stream has been reached.
+     */
+    private boolean fill() throws IOException {
+        if (endOfStream) {
+            return false;
+        }
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            next -= start;
+            start = 0;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read;
+        do {
+            read = reader.read(buffer, limit, buffer.length - limit);
+        } while (read == 0);
+        if (read == -1) {
+            endOfStream = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * See {@link Reader#close()}.
+     *
+     * @throws IOException  If an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * A line of text, or part of it, as a view over the scanner buffer.
+     * It is only valid until the next line is read.
+     */
+    public final class Line implements CharSequence {
+
+        private int from;
+        private int to;
+
+        // Reused view of this line without EOL characters
+        private Line content;
+
+        private Line() {
+        }
+
+        private void set(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", length: " + (to - from));
+            }
+            return buffer[from + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > to - from || start > end) {
+                throw new IndexOutOfBoundsException("Start: " + start + ", end: " + end + ", length: " + (to - from));
+            }
+            return new String(buffer, from + start, end - start);
+        }
+
+        /**
+         * Returns a view of this line without any end-of-line (EOL) characters,
+         * equivalent to {@link EolHelper#removeEol(String)}. The returned view
+         * is reused, and is only valid until the next line is read.
+         *
+         * @return a view of this line without any EOL characters
+         */
+        public Line withoutEol() {
+            int f = from;
+            int t = to;
+            while (f < t && (buffer[f] == '\n' || buffer[f] == '\r')) {
+                f++;
+            }
+            while (t > f && (buffer[t - 1] == '\n' || buffer[t - 1] == '\r')) {
+                t--;
+            }
+            if (content == null) {
+                content = new Line();
+            }
+            content.set(f, t);
+            return content;
+        }
+
+        /**
+         * Returns true only if this line ends with any end-of-line (EOL) character.
+         * See {@link EolHelper#endsWithEol(String)}.
+         *
+         * @return true only if this line ends with any EOL character
+         */
+        public boolean endsWithEol() {
+            return to > from && (buffer[to - 1] == '\n' || buffer[to - 1] == '\r');
+        }
+
+        /**
+         * Returns the end-of-line (EOL) character(s) present in the beginning of this line, or null,
+         * if there is none. See {@link EolHelper#getStartEol(String)}.
+         *
+         * @return the EOL character(s) present in the beginning of this line
+         */
+        public String getStartEol() {
+            if (to == from) return null;
+            if (buffer[from] == '\n') return "\n";
+            if (buffer[from] == '\r') return (to - from > 1 && buffer[from + 1] == '\n' ? "\r\n" : "\r");
+            return null;
+        }
+
+        /**
+         * Returns the end-of-line (EOL) character(s) present in the end of this line, or null,
+         * if there is none. See {@link EolHelper#getEndEol(String)}.
+         *
+         * @return the EOL character(s) present in the end of this line
+         */
+        public String getEndEol() {
+            if (to == from) return null;
+            if (buffer[to - 1] == '\n') return (to - from > 1 && buffer[to - 2] == '\r' ? "\r\n" : "\n");
+            if (buffer[to - 1] == '\r') return "\r";
+            return null;
+        }
+
+        /**
+         * Writes this line to the given writer, without creating any intermediate String
+         *
+         * @param writer the writer this line should be written to
+         * @throws IOException if an I/O error occurs
+         */
+        public void writeTo(Writer writer) throws IOException {
+            writer.write(buffer, from, to - from);
+        }
+
+        /**
+         * Returns a new String with the content of this line,
+         * which remains valid after the next line is read
+         *
+         * @return a new String with the content of this line
+         */
+        @Override
+        public String toString() {
+            return new String(buffer, from, to - from);
+        }
+
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.paypal.butterfly.utilities.operations;
+
+import java.util.regex.Matcher;
+
+/**
+ * Tells if a {@link FastPattern} matches entire inputs, with the exact same result
+ * as {@link Matcher#matches()}, but using a literal comparison or search
+ * whenever the regular expression analysis allows it.
+ * <br>
+ * A matcher can be reused to match as many inputs as needed, but it is not thread safe.
+ *
+ * @author facarvalho
+ */
+public final class FastMatcher {
+
+    private final FastPattern fastPattern;
+
+    // Created only if the regular expression ever needs to be evaluated
+    private Matcher matcher;
+
+    FastMatcher(FastPattern fastPattern) {
+        this.fastPattern = fastPattern;
+    }
+
+    /**
+     * Returns true only if the regular expression matches the entire input.
+     * See {@link Matcher#matches()}.
+     *
+     * @param input the character sequence to be matched
+     * @return true only if the regular expression matches the entire input
+     */
+    public boolean matches(CharSequence input) {
+        Boolean quickResult = fastPattern.quickMatches(input);
+        if (quickResult != null) {
+            return quickResult;
+        }
+        if (matcher == null) {
+            matcher = fastPattern.getPattern().matcher(input);
+        } else {
+            matcher.reset(input);
+        }
+        return matcher.matches();
+    }
+
+    /**
+     * Returns the pattern this matcher matches inputs against
+     *
+     * @return the pattern this matcher matches inputs against
+     */
+    public FastPattern getFastPattern() {
+        return fastPattern;
+    }
+
+}
@@ -0,0 +1,558 @@
+package com.paypal.butterfly.utilities.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled regular expression, plus an analysis of it, used to tell if it matches
+ * an entire input (see {@link java.util.regex.Matcher#matches()}) faster than
+ * {@link java.util.regex.Pattern} would, when possible, without changing the result.
+ * <br>
+ * Most regular expressions used in transformation templates are plain literals,
+ * or literals preceded and/or followed by {@code .*}. Those are matched with a plain literal
+ * comparison, or a literal search, as long as no line terminator is found where {@code .*} would be,
+ * since {@code .} does not match line terminators. For any other regular expression,
+ * the longest literal any match is required to contain, if any, is searched before the regular
+ * expression is evaluated, ruling out most inputs without running the regular expression at all.
+ * <br>
+ * Any regular expression whose analysis is not trivial (alternations at the top level,
+ * embedded flags, quoting, unusual escapes, etc) is always evaluated as is.
+ * <br>
+ * Instances are immutable and thread safe, and should be obtained by calling {@link #compile(String)},
+ * which caches them in {@link PatternCache}. Matching is done by {@link FastMatcher} objects,
+ * which are not thread safe.
+ *
+ * @author facarvalho
+ */
+public final class FastPattern {
+
+    /*
+     * How a regular expression, as a whole, is matched
+     */
+    enum Kind {
+
+        // Input must be equal to the literal
+        LITERAL,
+
+        // Input must start with the literal, with no line terminator after it
+        PREFIX,
+
+        // Input must end with the literal, with no line terminator before it
+        SUFFIX,
+
+        // Input must contain the literal, with no line terminator anywhere
+        CONTAINS,
+
+        // Input must have no line terminator at all
+        ANY_LINE,
+
+        // The regular expression has to be evaluated
+        REGEX
+
+    }
+
+    // Minimum length of a required literal to be worth searching for before evaluating the regular expression
+    private static final int MIN_PREFILTER_LENGTH = 2;
+
+    private final Pattern pattern;
+    private final Kind kind;
+
+    // The literal for any kind other than REGEX and ANY_LINE, or the required literal, if any, for REGEX
+    private final LiteralSearch literal;
+
+    // The literal any match starts with, if any
+    private final String literalPrefix;
+
+    FastPattern(String regex) {
+        pattern = Pattern.compile(regex);
+
+        Kind k = Kind.REGEX;
+        String l = null;
+        String p = "";
+
+        List<Object> tokens = tokenize(regex);
+        if (tokens != null) {
+            if (!tokens.isEmpty() && tokens.get(0) instanceof String) {
+                p = (String) tokens.get(0);
+            }
+            boolean startsWithDotStar = !tokens.isEmpty() && tokens.get(0) == Token.DOT_STAR;
+            boolean endsWithDotStar = !tokens.isEmpty() && tokens.get(tokens.size() - 1) == Token.DOT_STAR;
+            int literals = 0;
+            for (Object token : tokens) {
+                if (token instanceof String) {
+                    literals++;
+                    if (l == null || ((String) token).length() > l.length()) {
+                        l = (String) token;
+                    }
+                }
+            }
+            int others = tokens.size() - literals - (startsWithDotStar ? 1 : 0) - (endsWithDotStar && tokens.size() > 1 ? 1 : 0);
+
+            if (tokens.isEmpty()) {
+                k = Kind.LITERAL;
+                l = "";
+            } else if (others == 0 && literals == 0) {
+                k = Kind.ANY_LINE;
+            } else if (others == 0 && literals == 1 && !startsWithDotStar && !endsWithDotStar) {
+                k = Kind.LITERAL;
+            } else if (others == 0 && literals == 1 && !hasLineTerminator(l, 0, l.length())) {
+                k = (startsWithDotStar ? (endsWithDotStar ? Kind.CONTAINS : Kind.SUFFIX) : Kind.PREFIX);
+            } else if (l != null && l.length() < MIN_PREFILTER_LENGTH) {
+                l = null;
+            }
+        }
+
+        kind = k;
+        literal = (l == null ? null : new LiteralSearch(l));
+        literalPrefix = p;
+    }
+
+    /**
+     * Returns a {@link FastPattern} for the given regular expression,
+     * compiling and analyzing it only if it is not in {@link PatternCache} yet
+     *
+     * @param regex the regular expression to be compiled
+     * @return the compiled and analyzed regular expression
+     * @throws IllegalArgumentException if {@code regex} is null
+     * @throws java.util.regex.PatternSyntaxException if the regular expression syntax is invalid
+     */
+    public static FastPattern compile(String regex) {
+        return PatternCache.compileFast(regex);
+    }
+
+    /**
+     * Returns the compiled regular expression
+     *
+     * @return the compiled regular expression
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the regular expression
+     *
+     * @return the regular expression
+     */
+    public String getRegex() {
+        return pattern.pattern();
+    }
+
+    /**
+     * Returns the literal every match of this regular expression starts with,
+     * or an empty string, if there is none, or if it could not be determined
+     *
+     * @return the literal every match of this regular expression starts with
+     */
+    public String getLiteralPrefix() {
+        return literalPrefix;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    String getLiteral() {
+        return (literal == null ? null : literal.getNeedle());
+    }
+
+    /**
+     * Creates a new matcher for this regular expression. Matchers are not thread safe,
+     * but can be reused to match as many inputs as needed
+     *
+     * @return a new matcher for this regular expression
+     */
+    public FastMatcher matcher() {
+        return new FastMatcher(this);
+    }
+
+    /*
+     * Returns true if this regular expression surely matches the entire input,
+     * false if it surely does not, or null if it has to be evaluated
+     */
+    Boolean quickMatches(CharSequence input) {
+        int length = input.length();
+        switch (kind) {
+            case LITERAL:
+                return length == literal.length() && literal.regionMatches(input, 0);
+            case PREFIX:
+                return length >= literal.length() && literal.regionMatches(input, 0) && !hasLineTerminator(input, literal.length(), length);
+            case SUFFIX:
+                return length >= literal.length() && literal.regionMatches(input, length - literal.length()) && !hasLineTerminator(input, 0, length - literal.length());
+            case CONTAINS:
+                return !hasLineTerminator(input, 0, length) && literal.indexOf(input) != -1;
+            case ANY_LINE:
+                return !hasLineTerminator(input, 0, length);
+            default:
+                if (literal != null && literal.indexOf(input) == -1) {
+                    return false;
+                }
+                return null;
+        }
+    }
+
+    /*
+     * Line terminators, as defined in Pattern, which are not matched by '.'
+     */
+    private static boolean hasLineTerminator(CharSequence input, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = input.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum Token {
+
+        // ".*", "(.*)" or "(?:.*)", either greedy or reluctant
+        DOT_STAR,
+
+        // Anything else, not a literal
+        OTHER
+
+    }
+
+    private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    // Escaped letters that stand for exactly one predefined construct, not followed by any argument
+    private static final String SIMPLE_ESCAPES = "dDsSwWbBAGZzhHvVRXtnrfae";
+
+    // Characters that can follow "(?" to set embedded flags
+    private static final String FLAGS = "idmsuxU-";
+
+    /*
+     * Splits the regular expression in a sequence of literal strings, DOT_STAR and OTHER tokens,
+     * merging adjacent literals and dot-stars, and dropping anchors in the beginning and in the end,
+     * which do not affect whole input matching. Every literal token is required to be part of any match.
+     * Returns null if the regular expression is not simple enough to be analyzed
+     */
+    static List<Object> tokenize(String regex) {
+        List<Object> tokens = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int length = regex.length();
+        int i = 0;
+
+        if (length > 0 && regex.charAt(0) == '^') {
+            i++;
+        }
+
+        while (i < length) {
+            char c = regex.charAt(i);
+
+            if (META_CHARACTERS.indexOf(c) == -1) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            switch (c) {
+                case '\\':
+                    if (i + 1 >= length) {
+                        return null;
+                    }
+                    char escaped = regex.charAt(i + 1);
+                    if (!Character.isLetterOrDigit(escaped)) {
+                        literal.append(escaped);
+                        i += 2;
+                        continue;
+                    }
+                    if (SIMPLE_ESCAPES.indexOf(escaped) == -1) {
+                        return null;
+                    }
+                    i = addOther(tokens, literal, regex, i + 2);
+                    break;
+                case '.':
+                    if (i + 1 < length && regex.charAt(i + 1) == '*') {
+                        int next = i + 2;
+                        if (next < length && regex.charAt(next) == '?') {
+                            next++;
+                        }
+                        if (next < length && isQuantifier(regex.charAt(next))) {
+                            // Possessive, or quantified again
+                            return null;
+                        }
+                        addDotStar(tokens, literal);
+                        i = next;
+                    } else {
+                        i = addOther(tokens, literal, regex, i + 1);
+                    }
+                    break;
+                case '(':
+                    if (regex.startsWith("(.*)", i) || regex.startsWith("(?:.*)", i)) {
+                        int next = i + (regex.charAt(i + 1) == '?' ? 6 : 4);
+                        if (next < length && isQuantifier(regex.charAt(next))) {
+                            return null;
+                        }
+                        addDotStar(tokens, literal);
+                        i = next;
+                        break;
+                    }
+                    int literalGroupEnd = skipLiteralGroup(regex, i);
+                    if (literalGroupEnd != -1) {
+                        // Groups do not change what is matched, unless quantified
+                        literal.append(regex, regex.startsWith("(?:", i) ? i + 3 : i + 1, literalGroupEnd - 1);
+                        i = literalGroupEnd;
+                        break;
+                    }
+                    if (i + 2 < length && regex.charAt(i + 1) == '?' && FLAGS.indexOf(regex.charAt(i + 2)) != -1) {
+                        // Embedded flags could change how literals are matched
+                        return null;
+                    }
+                    int groupEnd = skipGroup(regex, i);
+                    if (groupEnd == -1) {
+                        return null;
+                    }
+                    i = addOther(tokens, literal, regex, groupEnd);
+                    break;
+                case '[':
+                    int classEnd = skipClass(regex, i);
+                    if (classEnd == -1) {
+                        return null;
+                    }
+                    i = addOther(tokens, literal, regex, classEnd);
+                    break;
+                case '?':
+                case '*':
+                case '+':
+                case '{':
+                    // Quantifier applied to the last literal character, which then is no longer required
+                    if (literal.length() == 0) {
+                        return null;
+                    }
+                    int last = literal.length() - 1;
+                    if (last > 0 && Character.isLowSurrogate(literal.charAt(last)) && Character.isHighSurrogate(literal.charAt(last - 1))) {
+                        last--;
+                    }
+                    literal.setLength(last);
+                    i = addOther(tokens, literal, regex, i);
+                    break;
+                case '$':
+                    if (i + 1 == length) {
+                        i++;
+                        break;
+                    }
+                    i = addOther(tokens, literal, regex, i + 1);
+                    break;
+                default:
+                    // '|', or unbalanced ')', ']' or '}'
+                    return null;
+            }
+            if (i == -1) {
+                return null;
+            }
+        }
+        addLiteral(tokens, literal);
+
+        return tokens;
+    }
+
+    private static boolean isQuantifier(char c) {
+        return c == '?' || c == '*' || c == '+' || c == '{';
+    }
+
+    private static void addLiteral(List<Object> tokens, StringBuilder literal) {
+        if (literal.length() > 0) {
+            int last = tokens.size() - 1;
+            if (last >= 0 && tokens.get(last) instanceof String) {
+                tokens.set(last, tokens.get(last) + literal.toString());
+            } else {
+                tokens.add(literal.toString());
+            }
+            literal.setLength(0);
+        }
+    }
+
+    private static void addDotStar(List<Object> tokens, StringBuilder literal) {
+        addLiteral(tokens, literal);
+        if (tokens.isEmpty() || tokens.get(tokens.size() - 1) != Token.DOT_STAR) {
+            tokens.add(Token.DOT_STAR);
+        }
+    }
+
+    /*
+     * Adds an OTHER token, skipping any quantifier starting at the given index,
+     * returning the index right after it, or -1 if the quantifier is malformed
+     */
+    private static int addOther(List<Object> tokens, StringBuilder literal, String regex, int index) {
+        addLiteral(tokens, literal);
+        tokens.add(Token.OTHER);
+
+        int length = regex.length();
+        while (index < length && isQuantifier(regex.charAt(index))) {
+            if (regex.charAt(index) == '{') {
+                index = regex.indexOf('}', index);
+                if (index == -1) {
+                    return -1;
+                }
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /*
+     * Returns the index right after the capturing, or non-capturing, group starting at the given index,
+     * if it only contains literal characters and is not quantified, or -1 otherwise
+     */
+    private static int skipLiteralGroup(String regex, int index) {
+        int start = (regex.startsWith("(?:", index) ? index + 3 : index + 1);
+        int length = regex.length();
+        for (int i = start; i < length; i++) {
+            char c = regex.charAt(i);
+            if (c == ')') {
+                return (i > start && (i + 1 == length || !isQuantifier(regex.charAt(i + 1))) ? i + 1 : -1);
+            }
+            if (META_CHARACTERS.indexOf(c) != -1) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Returns the index right after the group starting at the given index, or -1 if it is not found
+     */
+    private static int skipGroup(String regex, int index) {
+        int depth = 0;
+        int length = regex.length();
+        while (index < length) {
+            char c = regex.charAt(index);
+            if (c == '\\') {
+                if (index + 1 < length && (regex.charAt(index + 1) == 'Q')) {
+                    return -1;
+                }
+                index += 2;
+                continue;
+            }
+            if (c == '[') {
+                index = skipClass(regex, index);
+                if (index == -1) {
+                    return -1;
+                }
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return index + 1;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /*
+     * Returns the index right after the character class starting at the given index, or -1 if it is not found
+     */
+    private static int skipClass(String regex, int index) {
+        int depth = 0;
+        int length = regex.length();
+        while (index < length) {
+            char c = regex.charAt(index);
+            if (c == '\\') {
+                if (index + 1 < length && (regex.charAt(index + 1) == 'Q')) {
+                    return -1;
+                }
+                index += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                int next = index + 1;
+                if (next < length && regex.charAt(next) == '^') {
+                    next++;
+                }
+                if (next < length && regex.charAt(next) == ']') {
+                    // Whether this is a literal or not depends on the Java version
+                    return -1;
+                }
+            } else if (c == ']' && --depth == 0) {
+                return index + 1;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /*
+     * Literal search over character sequences, using Boyer-Moore-Horspool
+     * for needles long enough for it to pay off, and a plain scan otherwise
+     */
+    static final class LiteralSearch {
+
+        private static final int MIN_HORSPOOL_LENGTH = 4;
+        private static final int TABLE_SIZE = 256;
+
+        private final String needle;
+
+        // Bad character shifts, indexed by the lowest 8 bits of each character
+        private final int[] shifts;
+
+        LiteralSearch(String needle) {
+            this.needle = needle;
+            int m = needle.length();
+            if (m < MIN_HORSPOOL_LENGTH) {
+                shifts = null;
+            } else {
+                shifts = new int[TABLE_SIZE];
+                for (int i = 0; i < TABLE_SIZE; i++) {
+                    shifts[i] = m;
+                }
+                // Characters sharing the same slot end up with the smallest shift among them
+                for (int i = 0; i < m - 1; i++) {
+                    shifts[needle.charAt(i) & (TABLE_SIZE - 1)] = m - 1 - i;
+                }
+            }
+        }
+
+        String getNeedle() {
+            return needle;
+        }
+
+        int length() {
+            return needle.length();
+        }
+
+        boolean regionMatches(CharSequence text, int offset) {
+            int m = needle.length();
+            for (int i = 0; i < m; i++) {
+                if (text.charAt(offset + i) != needle.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int indexOf(CharSequence text) {
+            int m = needle.length();
+            int n = text.length();
+            if (m == 0) {
+                return 0;
+            }
+            if (shifts == null) {
+                char first = needle.charAt(0);
+                for (int i = 0; i <= n - m; i++) {
+                    if (text.charAt(i) == first && regionMatches(text, i)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            char last = needle.charAt(m - 1);
+            int i = 0;
+            while (i <= n - m) {
+                char c = text.charAt(i + m - 1);
+                if (c == last && regionMatches(text, i)) {
+                    return i;
+                }
+                i += shifts[c & (TABLE_SIZE - 1)];
+            }
+            return -1;
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.paypal.butterfly.utilities.operations;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded and thread safe cache of compiled regular expressions, shared by all
+ * regex driven transformation utilities, so that the same regular expression is compiled
+ * only once, regardless of how many times, and against how many files, it is evaluated.
+ * <br>
+ * Compiled {@link Pattern} objects are immutable, and can be safely shared by multiple
+ * threads. {@link java.util.regex.Matcher} objects, on the other hand, are not,
+ * and must never be shared.
+ * <br>
+ * Once the cache is full, arbitrary entries are evicted to make room for new ones.
+ *
+ * @author facarvalho
+ */
+public abstract class PatternCache {
+
+    /**
+     * Maximum number of compiled regular expressions kept in the cache
+     */
+    public static final int MAX_SIZE = 1024;
+
+    private static final Map<String, FastPattern> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the compiled version of the given regular expression,
+     * compiling it only if it is not in the cache yet.
+     * See {@link Pattern#compile(String)}.
+     *
+     * @param regex the regular expression to be compiled
+     * @return the compiled regular expression
+     * @throws IllegalArgumentException if {@code regex} is null
+     * @throws java.util.regex.PatternSyntaxException if the regular expression syntax is invalid
+     */
+    public static Pattern compile(String regex) {
+        return compileFast(regex).getPattern();
+    }
+
+    /**
+     * Returns the compiled and analyzed version of the given regular expression,
+     * compiling and analyzing it only if it is not in the cache yet.
+     * See {@link FastPattern}.
+     *
+     * @param regex the regular expression to be compiled
+     * @return the compiled and analyzed regular expression
+     * @throws IllegalArgumentException if {@code regex} is null
+     * @throws java.util.regex.PatternSyntaxException if the regular expression syntax is invalid
+     */
+    public static FastPattern compileFast(String regex) {
+        if (regex == null) {
+            throw new IllegalArgumentException("Regular expression cannot be null");
+        }
+        FastPattern fastPattern = cache.get(regex);
+        if (fastPattern == null) {
+            // Invalid regular expressions are not cached, since compiling them throws an exception
+            fastPattern = new FastPattern(regex);
+            if (cache.size() >= MAX_SIZE) {
+                evict();
+            }
+            cache.putIfAbsent(regex, fastPattern);
+        }
+        return fastPattern;
+    }
+
+    /**
+     * Returns true only if the given regular expression matches the entire input,
+     * just like {@link String#matches(String)}, but without compiling it every time,
+     * and using a literal comparison or search when possible
+     *
+     * @param regex the regular expression to be matched
+     * @param input the character sequence to be matched
+     * @return true only if the given regular expression matches the entire input
+     */
+    public static boolean matches(String regex, CharSequence input) {
+        return compileFast(regex).matcher().matches(input);
+    }
+
+    /**
+     * Returns the number of compiled regular expressions currently in the cache
+     *
+     * @return the number of compiled regular expressions currently in the cache
+     */
+    public static int size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes all compiled regular expressions from the cache
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    private static void evict() {
+        Iterator<String> iterator = cache.keySet().iterator();
+        for (int i = 0; i < MAX_SIZE / 4 && iterator.hasNext(); i++) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+}
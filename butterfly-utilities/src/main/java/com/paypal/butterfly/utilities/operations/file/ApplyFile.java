@@ -88,6 +88,11 @@ public class ApplyFile extends TransformationOperation<ApplyFile> {
         return fileUrl;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         String fileLocation = getRelativePath();
@@ -97,6 +102,11 @@ public class ApplyFile extends TransformationOperation<ApplyFile> {
         return String.format(DESCRIPTION, fileUrl.getFile(), fileLocation);
     }
 
+    @Override
+    public boolean isFileTreeIndexAware() {
+        return true;
+    }
+
     @Override
     @edu.umd.cs.findbugs.annotations.SuppressFBWarnings (value="NP_ALWAYS_NULL_EXCEPTION")
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
@@ -114,7 +124,7 @@ public class ApplyFile extends TransformationOperation<ApplyFile> {
 
             fileDescriptor = new File(folder, fileName);
             fileOutputStream = new FileOutputStream(fileDescriptor);
-            fileOutputStream.getChannel().transferFrom(readableByteChannel, 0, Long.MAX_VALUE);
+            registerWrite(fileOutputStream.getChannel().transferFrom(readableByteChannel, 0, Long.MAX_VALUE));
 
             String fileLocation = getRelativePath(transformedAppFolder, fileDescriptor.getParentFile());
             if (StringUtils.isBlank(fileLocation)) {
@@ -141,6 +151,7 @@ public class ApplyFile extends TransformationOperation<ApplyFile> {
                 }
             }
         }
+        refreshFileTreeIndex(fileDescriptor, transformationContext);
         return result;
     }
 
@@ -69,11 +69,21 @@ public class ApplyZip extends TransformationOperation<ApplyZip> {
         return zipFileUrl;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, zipFileUrl.getFile(), getRelativePath());
     }
 
+    @Override
+    public boolean isFileTreeIndexAware() {
+        return true;
+    }
+
     @Override
     @edu.umd.cs.findbugs.annotations.SuppressFBWarnings (value="NP_ALWAYS_NULL_EXCEPTION")
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
@@ -119,6 +129,7 @@ public class ApplyZip extends TransformationOperation<ApplyZip> {
                 FileUtils.deleteQuietly(zipFileDescriptor);
             }
         }
+        refreshFileTreeIndex(folder, transformationContext);
         return result;
     }
 
@@ -43,6 +43,11 @@ public class CopyDirectory extends AbstractToOperation<CopyDirectory> {
         super(DESCRIPTION);
     }
 
+    @Override
+    public boolean isFileTreeIndexAware() {
+        return true;
+    }
+
     @Override
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         // TODO Validation must be done here!!!
@@ -58,6 +63,7 @@ public class CopyDirectory extends AbstractToOperation<CopyDirectory> {
             result = TOExecutionResult.error(this, new TransformationOperationException("Directory could not be copied", e));
         }
 
+        refreshFileTreeIndex(fileTo, transformationContext);
         return result;
     }
 
@@ -8,6 +8,8 @@ import org.codehaus.plexus.util.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Copies a file. The relative or absolute file is the
@@ -50,6 +52,22 @@ public class CopyFile extends AbstractToOperation<CopyFile> {
         super(DESCRIPTION);
     }
 
+    @Override
+    public boolean isFileTreeIndexAware() {
+        return true;
+    }
+
+    @Override
+    public List<File> getModifiedFiles(File transformedAppFolder, TransformationContext transformationContext) {
+        // Only the file with the same name in the destination folder is overwritten
+        File fileFrom = resolveFile(transformedAppFolder, transformationContext);
+        File fileTo = resolveFileTo(transformedAppFolder, transformationContext);
+        if (fileFrom == null || fileTo == null) {
+            return null;
+        }
+        return Collections.singletonList(new File(fileTo, fileFrom.getName()));
+    }
+
     @Override
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         // TODO Validation must be done here!!!
@@ -71,6 +89,7 @@ public class CopyFile extends AbstractToOperation<CopyFile> {
             result = TOExecutionResult.error(this, new TransformationOperationException("File could not be copied", e));
         }
 
+        refreshFileTreeIndex(new File(fileTo, fileFrom.getName()), transformationContext);
         return result;
     }
 
@@ -34,11 +34,21 @@ public class DeleteFile extends TransformationOperation<DeleteFile> {
     public DeleteFile() {
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, getRelativePath());
     }
 
+    @Override
+    public boolean isFileTreeIndexAware() {
+        return true;
+    }
+
     @Override
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         File fileToBeRemoved;
@@ -65,6 +75,7 @@ public class DeleteFile extends TransformationOperation<DeleteFile> {
             result = TOExecutionResult.error(this, e);
         }
 
+        refreshFileTreeIndex(fileToBeRemoved, transformationContext);
         return result;
     }
 
@@ -8,6 +8,8 @@ import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Moves a directory and its content from one location to another.
@@ -41,6 +43,23 @@ public class MoveDirectory extends AbstractToOperation<MoveDirectory> {
         super(DESCRIPTION);
     }
 
+    @Override
+    public boolean isFileTreeIndexAware() {
+        return true;
+    }
+
+    @Override
+    public List<File> getModifiedFiles(File transformedAppFolder, TransformationContext transformationContext) {
+        // Files moved by renaming their folder would still be linked to
+        // any file they were linked to, so they are declared as well
+        File filesFrom = resolveFile(transformedAppFolder, transformationContext);
+        File fileTo = resolveFileTo(transformedAppFolder, transformationContext);
+        if (filesFrom == null || fileTo == null) {
+            return null;
+        }
+        return Arrays.asList(filesFrom, fileTo);
+    }
+
     @Override
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         // TODO Validation must be done here!!! In case none has been set!
@@ -56,6 +75,8 @@ public class MoveDirectory extends AbstractToOperation<MoveDirectory> {
             result = TOExecutionResult.error(this, new TransformationOperationException("Directory could not be moved", e));
         }
 
+        refreshFileTreeIndex(filesFrom, transformationContext);
+        refreshFileTreeIndex(fileTo, transformationContext);
         return result;
     }
 
@@ -8,6 +8,8 @@ import org.codehaus.plexus.util.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Moves a file. The relative or absolute file is the
@@ -45,6 +47,22 @@ public class MoveFile extends AbstractToOperation<MoveFile> {
         super(DESCRIPTION);
     }
 
+    @Override
+    public boolean isFileTreeIndexAware() {
+        return true;
+    }
+
+    @Override
+    public List<File> getModifiedFiles(File transformedAppFolder, TransformationContext transformationContext) {
+        // Only the file with the same name in the destination folder is overwritten
+        File fileFrom = resolveFile(transformedAppFolder, transformationContext);
+        File fileTo = resolveFileTo(transformedAppFolder, transformationContext);
+        if (fileFrom == null || fileTo == null) {
+            return null;
+        }
+        return Collections.singletonList(new File(fileTo, fileFrom.getName()));
+    }
+
     @Override
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         File fileFrom = getAbsoluteFile(transformedAppFolder, transformationContext);
@@ -68,6 +86,8 @@ public class MoveFile extends AbstractToOperation<MoveFile> {
             result = TOExecutionResult.error(this, new TransformationOperationException("File could not be moved", e));
         }
 
+        refreshFileTreeIndex(fileFrom, transformationContext);
+        refreshFileTreeIndex(new File(fileTo, fileFrom.getName()), transformationContext);
         return result;
     }
 
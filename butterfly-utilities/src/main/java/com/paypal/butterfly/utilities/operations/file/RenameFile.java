@@ -8,6 +8,8 @@ import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Renames a single file.
@@ -50,6 +52,18 @@ public class RenameFile extends TransformationOperation<RenameFile> {
         return String.format(DESCRIPTION, getRelativePath(), newName);
     }
 
+    @Override
+    public boolean isFileTreeIndexAware() {
+        return true;
+    }
+
+    @Override
+    public List<File> getModifiedFiles(File transformedAppFolder, TransformationContext transformationContext) {
+        // A renamed file would still be linked to any file it was linked to
+        File file = resolveFile(transformedAppFolder, transformationContext);
+        return (file == null ? null : Collections.singletonList(file));
+    }
+
     @Override
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         TOExecutionResult result = null;
@@ -64,6 +78,8 @@ public class RenameFile extends TransformationOperation<RenameFile> {
             result = TOExecutionResult.error(this, new TransformationOperationException("File could not be renamed", e));
         }
 
+        refreshFileTreeIndex(fileToBeRenamed, transformationContext);
+        refreshFileTreeIndex(newNameFile, transformationContext);
         return result;
     }
 
@@ -1,8 +1,7 @@
 package com.paypal.butterfly.utilities.operations.pom;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.regex.Pattern;
@@ -10,7 +9,6 @@ import java.util.stream.Collectors;
 
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
@@ -106,18 +104,17 @@ abstract class AbstractPomCopyDependencies<T extends AbstractPomCopyDependencies
     @Override
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         TOExecutionResult result = null;
-        FileOutputStream fileOutputStream = null;
 
         try {
             File fileFrom = getAbsoluteFile(transformedAppFolder, transformationContext);
-            Model modelFrom = getModel(fileFrom);
+            Model modelFrom = readPomModel(fileFrom, transformationContext);
             List<Dependency> dependencies = getMavenDependencies(modelFrom);
 
             if (dependencies.size() == 0) {
                 result = TOExecutionResult.noOp(this, "POM file " + getRelativePath() + " does not have any dependencies");
             } else {
                 File fileTo = getFileTo(transformedAppFolder, transformationContext);
-                Model modelTo = getModel(fileTo);
+                Model modelTo = readPomModel(fileTo, transformationContext);
                 Set<Dependency> modelToDependencies = new TreeSet<>(Comparator.comparing(this::getDependencyString));
 
                 modelToDependencies.addAll(getMavenDependencies(modelTo));
@@ -136,21 +133,16 @@ abstract class AbstractPomCopyDependencies<T extends AbstractPomCopyDependencies
                 } else {
                     addMavenDependencies(modelTo, modifiedDependenciesList);
 
-                    fileOutputStream = new FileOutputStream(fileTo);
+                    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
                     MavenXpp3Writer writer = new MavenXpp3Writer();
-                    writer.write(fileOutputStream, modelTo);
+                    writer.write(outputStream, modelTo);
+                    writeFileContent(fileTo, outputStream.toByteArray(), transformationContext);
 
                     result = TOExecutionResult.success(this, modifiedDependenciesList.size() + " dependencies were added to " + getRelativePath(transformedAppFolder, fileTo));
                 }
             }
         } catch (IOException | XmlPullParserException e) {
             result = TOExecutionResult.error(this, new TransformationOperationException("POM file could not be modified", e));
-        } finally {
-            if(fileOutputStream != null) try {
-                fileOutputStream.close();
-            } catch (IOException e) {
-                result.addWarning(e);
-            }
         }
 
         return result;
@@ -205,11 +197,4 @@ abstract class AbstractPomCopyDependencies<T extends AbstractPomCopyDependencies
         return d;
     }
 
-    private Model getModel(File file) throws IOException, XmlPullParserException {
-        try (FileInputStream fileInputStream = new FileInputStream(file)) {
-            MavenXpp3Reader reader = new MavenXpp3Reader();
-            return reader.read(fileInputStream);
-        }
-    }
-
 }
@@ -1,18 +1,21 @@
 package com.paypal.butterfly.utilities.operations.pom;
 
+import com.paypal.butterfly.extensions.api.PomModelCache;
 import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationOperation;
 import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
+import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Abstract POM operation.
@@ -21,47 +24,85 @@ import java.io.IOException;
  */
 abstract class AbstractPomOperation<T extends AbstractPomOperation> extends TransformationOperation<T> {
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
+    @Override
+    public boolean isWorkingSetAware() {
+        return true;
+    }
+
     @Override
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         File pomFile = getAbsoluteFile(transformedAppFolder, transformationContext);
-        MavenXpp3Reader reader = new MavenXpp3Reader();
-        FileInputStream fileInputStream = null;
-        FileOutputStream fileOutputStream = null;
-        TOExecutionResult result = null;
+        PomModelCache pomModelCache = transformationContext.getPomModelCache();
+        TOExecutionResult result;
 
         try {
-            fileInputStream = new FileInputStream(pomFile);
-            Model model = reader.read(fileInputStream);
+            byte[] content = readFileContent(pomFile, transformationContext);
+            Model model = readModel(pomFile, content, pomModelCache);
 
             String relativePomFile = getRelativePath(transformedAppFolder, pomFile);
             result = pomExecution(relativePomFile, model);
 
             if (result.getType().equals(TOExecutionResult.Type.SUCCESS) || result.getType().equals(TOExecutionResult.Type.WARNING)) {
-                fileOutputStream = new FileOutputStream(pomFile);
-                MavenXpp3Writer writer = new MavenXpp3Writer();
-                writer.write(fileOutputStream, model);
+                byte[] newContent = toByteArray(model);
+
+                // Warnings often mean nothing has been changed, in which case the POM file is not rewritten,
+                // since that would just reformat it. That is checked by comparing the new model
+                // with the original one, both written the same way
+                if (!result.getType().equals(TOExecutionResult.Type.WARNING) || !Arrays.equals(newContent, toByteArray(readModel(pomFile, content, pomModelCache)))) {
+                    writeFileContent(pomFile, newContent, transformationContext);
+                }
             }
         } catch (XmlPullParserException | IOException e) {
             result = TOExecutionResult.error(this, new TransformationOperationException("POM file could not be modified", e));
-        } finally {
-            try {
-                if (fileInputStream != null) try {
-                    fileInputStream.close();
-                } catch (IOException e) {
-                    result.addWarning(e);
-                }
-            } finally {
-                if(fileOutputStream != null) try {
-                    fileOutputStream.close();
-                } catch (IOException e) {
-                    result.addWarning(e);
-                }
-            }
         }
 
         return result;
     }
 
+    /*
+     * Returns a new Maven model of the given POM file content, getting it from the POM model cache, if there is one
+     */
+    static Model readModel(File pomFile, byte[] content, PomModelCache pomModelCache) throws IOException, XmlPullParserException {
+        if (pomModelCache != null) {
+            return pomModelCache.getModel(pomFile, content);
+        }
+        return new MavenXpp3Reader().read(new ByteArrayInputStream(content));
+    }
+
+    /*
+     * Applies this operation, as a member of a POM edit session, to the given POM model (see PomEditSession)
+     */
+    TOExecutionResult sessionExecution(String relativePomFile, Model model, TransformationContext transformationContext) {
+        try {
+            applyPropertiesFromContext(transformationContext);
+            return pomExecution(relativePomFile, model);
+        } catch (TransformationUtilityException e) {
+            return TOExecutionResult.error(this, e);
+        }
+    }
+
+    /*
+     * Reads and writes the POM file on behalf of a POM edit session, while this operation is performed
+     */
+    byte[] sessionRead(File pomFile, TransformationContext transformationContext) throws IOException {
+        return readFileContent(pomFile, transformationContext);
+    }
+
+    boolean sessionWrite(File pomFile, byte[] content, TransformationContext transformationContext) throws IOException {
+        return writeFileContent(pomFile, content, transformationContext);
+    }
+
+    static byte[] toByteArray(Model model) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new MavenXpp3Writer().write(outputStream, model);
+        return outputStream.toByteArray();
+    }
+
     protected abstract TOExecutionResult pomExecution(String relativePomFile, Model model);
 
 }
@@ -1,16 +1,19 @@
 package com.paypal.butterfly.utilities.operations.pom;
 
+import com.paypal.butterfly.extensions.api.PomModelCache;
 import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
+import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import com.paypal.butterfly.utilities.operations.pom.stax.AbstractStaxOperation;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Abstract POM operation.
@@ -19,16 +22,48 @@ import java.io.IOException;
  */
 abstract class AbstractStaxPomOperation<T extends AbstractStaxPomOperation> extends AbstractStaxOperation<T> {
 
+    // Only set while this operation is applied as a member of a POM edit session
+    private byte[] sessionContent = null;
+
     /*
      * Read the Maven pom file and returns an in-memory model of it
      */
-    protected Model getModel(File pomFile) throws IOException, XmlPullParserException {
-        MavenXpp3Reader reader = new MavenXpp3Reader();
-        FileInputStream fileInputStream = new FileInputStream(pomFile);
-        Model model = reader.read(fileInputStream);
-        fileInputStream.close();
+    protected Model getModel(File pomFile, TransformationContext transformationContext) throws IOException, XmlPullParserException {
+        if (sessionContent != null) {
+            PomModelCache pomModelCache = transformationContext.getPomModelCache();
+            if (pomModelCache != null) {
+                return pomModelCache.getModel(pomFile, sessionContent);
+            }
+            return new MavenXpp3Reader().read(new ByteArrayInputStream(sessionContent));
+        }
+        return readPomModel(pomFile, transformationContext);
+    }
+
+    /*
+     * Applies this operation, as a member of a POM edit session, to the given POM file content,
+     * writing the new content to the given output stream (see PomEditSession)
+     */
+    TOExecutionResult sessionExecution(byte[] content, OutputStream output, File transformedAppFolder, TransformationContext transformationContext) {
+        sessionContent = content;
+        try {
+            applyPropertiesFromContext(transformationContext);
+            return executeInMemory(content, output, transformedAppFolder, transformationContext);
+        } catch (TransformationUtilityException e) {
+            return TOExecutionResult.error(this, e);
+        } finally {
+            sessionContent = null;
+        }
+    }
+
+    /*
+     * Reads and writes the POM file on behalf of a POM edit session, while this operation is performed
+     */
+    byte[] sessionRead(File pomFile, TransformationContext transformationContext) throws IOException {
+        return readFileContent(pomFile, transformationContext);
+    }
 
-        return model;
+    boolean sessionWrite(File pomFile, byte[] content, TransformationContext transformationContext) throws IOException {
+        return writeFileContent(pomFile, content, transformationContext);
     }
 
     @Override
@@ -46,4 +81,12 @@ abstract class AbstractStaxPomOperation<T extends AbstractStaxPomOperation> exte
      */
     protected abstract TOExecutionResult pomExecution(File transformedAppFolder, TransformationContext transformationContext) throws XmlPullParserException, XMLStreamException, IOException;
 
+    @Override
+    public T clone() {
+        AbstractStaxPomOperation clone = super.clone();
+        clone.sessionContent = null;
+
+        return (T) clone;
+    }
+
 }
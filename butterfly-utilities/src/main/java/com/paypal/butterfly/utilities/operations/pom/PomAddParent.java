@@ -6,13 +6,12 @@ import com.paypal.butterfly.extensions.api.exception.TransformationOperationExce
 import com.paypal.butterfly.extensions.api.operations.AddElement;
 import com.paypal.butterfly.utilities.operations.pom.stax.EndElementEventCondition;
 import com.paypal.butterfly.utilities.operations.pom.stax.StartElementEventCondition;
+import com.paypal.butterfly.utilities.operations.pom.stax.StaxCursor;
 import org.apache.maven.model.Parent;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.codehaus.stax2.XMLStreamWriter2;
 
-import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLEventWriter;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.XMLEvent;
 import java.io.File;
 import java.io.IOException;
 
@@ -101,7 +100,7 @@ public class PomAddParent extends AbstractStaxArtifactPomOperation<PomAddParent>
     protected TOExecutionResult pomExecution(File transformedAppFolder, TransformationContext transformationContext) throws XmlPullParserException, XMLStreamException, IOException {
 
         File pomFile = getAbsoluteFile(transformedAppFolder, transformationContext);
-        Parent existingParent = getModel(pomFile).getParent();
+        Parent existingParent = getModel(pomFile, transformationContext).getParent();
         String details;
 
         String relativePomFile = getRelativePath(transformedAppFolder, pomFile);
@@ -131,21 +130,21 @@ public class PomAddParent extends AbstractStaxArtifactPomOperation<PomAddParent>
         newParent.setArtifactId(artifactId);
         newParent.setVersion(version);
 
-        XMLEventReader reader = getReader(transformedAppFolder, transformationContext);
-        XMLEventWriter writer = getWriter(transformedAppFolder, transformationContext);
-        XMLEvent indentation = getIndentation(transformedAppFolder, transformationContext);
+        StaxCursor cursor = getCursor(transformedAppFolder, transformationContext);
+        XMLStreamWriter2 writer = cursor.getWriter();
+        String indentation = cursor.getIndentation();
 
         TOExecutionResult result = null;
 
         if (existingParent != null) {
-            copyUntil(reader, writer, new StartElementEventCondition("parent"), true);
-            skipUntil(reader, new EndElementEventCondition("parent"));
-            writer.add(LINE_FEED);
+            cursor.copyUntil(new StartElementEventCondition("parent"), true);
+            cursor.skipUntil(new EndElementEventCondition("parent"));
+            writer.writeCharacters(LINE_FEED_STRING);
 
-            writeNewParent(writer, indentation);
+            writeNewParent(cursor, indentation);
 
-            writer.add(indentation);
-            writer.add(eventFactory.createEndElement("", "","parent"));
+            writer.writeCharacters(indentation);
+            writer.writeEndElement();
 
             details = String.format("Parent for POM file %s has been overwritten to %s", relativePomFile, newParent);
             if (ifPresent.equals(IfPresent.Overwrite)) {
@@ -154,47 +153,49 @@ public class PomAddParent extends AbstractStaxArtifactPomOperation<PomAddParent>
                 result = TOExecutionResult.warning(this, details);
             }
         } else {
-            copyUntil(reader, writer, new StartElementEventCondition("project"), true);
+            cursor.copyUntil(new StartElementEventCondition("project"), true);
 
-            writer.add(LINE_FEED);
-            writer.add(LINE_FEED);
-            writer.add(indentation);
-            writer.add(eventFactory.createStartElement("", "", "parent"));
-            writer.add(LINE_FEED);
+            writer.writeCharacters(LINE_FEED_STRING);
+            writer.writeCharacters(LINE_FEED_STRING);
+            writer.writeCharacters(indentation);
+            writer.writeStartElement("parent");
+            writer.writeCharacters(LINE_FEED_STRING);
 
-            writeNewParent(writer, indentation);
+            writeNewParent(cursor, indentation);
 
-            writer.add(indentation);
-            writer.add(eventFactory.createEndElement("", "","parent"));
-            writer.add(LINE_FEED);
+            writer.writeCharacters(indentation);
+            writer.writeEndElement();
+            writer.writeCharacters(LINE_FEED_STRING);
 
             details = String.format("Parent for POM file %s has been set to %s", relativePomFile, newParent);
             result = TOExecutionResult.success(this, details);
         }
 
-        writer.add(reader);
+        cursor.copyToEnd();
 
         return result;
     }
 
-    private void writeNewParent(XMLEventWriter writer, XMLEvent indentation) throws XMLStreamException {
-        writeMultiple(writer, indentation, 2);
-        writer.add(eventFactory.createStartElement("", "", "groupId"));
-        writer.add(eventFactory.createCharacters(groupId));
-        writer.add(eventFactory.createEndElement("", "", "groupId"));
-        writer.add(LINE_FEED);
-
-        writeMultiple(writer, indentation, 2);
-        writer.add(eventFactory.createStartElement("", "", "artifactId"));
-        writer.add(eventFactory.createCharacters(artifactId));
-        writer.add(eventFactory.createEndElement("", "", "artifactId"));
-        writer.add(LINE_FEED);
-
-        writeMultiple(writer, indentation, 2);
-        writer.add(eventFactory.createStartElement("", "", "version"));
-        writer.add(eventFactory.createCharacters(version));
-        writer.add(eventFactory.createEndElement("", "", "version"));
-        writer.add(LINE_FEED);
+    private void writeNewParent(StaxCursor cursor, String indentation) throws XMLStreamException {
+        XMLStreamWriter2 writer = cursor.getWriter();
+
+        cursor.writeMultiple(indentation, 2);
+        writer.writeStartElement("groupId");
+        writer.writeCharacters(groupId);
+        writer.writeEndElement();
+        writer.writeCharacters(LINE_FEED_STRING);
+
+        cursor.writeMultiple(indentation, 2);
+        writer.writeStartElement("artifactId");
+        writer.writeCharacters(artifactId);
+        writer.writeEndElement();
+        writer.writeCharacters(LINE_FEED_STRING);
+
+        cursor.writeMultiple(indentation, 2);
+        writer.writeStartElement("version");
+        writer.writeCharacters(version);
+        writer.writeEndElement();
+        writer.writeCharacters(LINE_FEED_STRING);
     }
 
 }
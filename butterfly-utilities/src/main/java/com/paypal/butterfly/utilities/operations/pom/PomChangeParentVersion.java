@@ -3,10 +3,7 @@ package com.paypal.butterfly.utilities.operations.pom;
 import java.io.File;
 import java.io.IOException;
 
-import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLEventWriter;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.XMLEvent;
 
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
@@ -15,6 +12,7 @@ import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
 import com.paypal.butterfly.extensions.api.operations.ChangeOrRemoveElement;
 import com.paypal.butterfly.utilities.operations.pom.stax.StartElementEventCondition;
+import com.paypal.butterfly.utilities.operations.pom.stax.StaxCursor;
 
 /**
  * Changes the parent's version in a Maven POM file.
@@ -82,28 +80,27 @@ public class PomChangeParentVersion extends AbstractStaxPomOperation<PomChangePa
 
         TOExecutionResult result = null;
 
-        boolean documentHasParent = getModel(fileToBeModified).getParent() != null;
+        boolean documentHasParent = getModel(fileToBeModified, transformationContext).getParent() != null;
 
         if (documentHasParent) {
-            XMLEventReader reader = getReader(transformedAppFolder, transformationContext);
-            XMLEventWriter writer = getWriter(transformedAppFolder, transformationContext);
+            StaxCursor cursor = getCursor(transformedAppFolder, transformationContext);
 
-            copyUntil(reader, writer, new StartElementEventCondition("parent"), true);
-            XMLEvent oldVersionElement = copyUntil(reader, writer, new StartElementEventCondition("version"), true);
+            cursor.copyUntil(new StartElementEventCondition("parent"), true);
+            cursor.copyUntil(new StartElementEventCondition("version"), true);
 
             // Discharging the current version
-            reader.next();
+            cursor.skipNext();
+            String oldVersion = cursor.getText();
 
             // Writing the new version
-            writer.add(eventFactory.createCharacters(version));
+            cursor.getWriter().writeCharacters(version);
 
             String relativePomFile = getRelativePath(transformedAppFolder, fileToBeModified);
-            String oldVersion = oldVersionElement.asStartElement().getName().getLocalPart();
             String details = String.format("Parent's version for POM file (%s) has been changed from %s to %s", relativePomFile, oldVersion, version);
             result = TOExecutionResult.success(this, details);
 
             // Writing to the end
-            writer.add(reader);
+            cursor.copyToEnd();
         } else {
             String details = String.format("Pom file %s does not have a parent", getRelativePath(transformedAppFolder, fileToBeModified));
 
@@ -0,0 +1,256 @@
+package com.paypal.butterfly.utilities.operations.pom;
+
+import com.paypal.butterfly.extensions.api.PomModelCache;
+import com.paypal.butterfly.extensions.api.TOExecutionResult;
+import com.paypal.butterfly.extensions.api.TUExecutionResult;
+import com.paypal.butterfly.extensions.api.TransformationContext;
+import com.paypal.butterfly.extensions.api.TransformationOperation;
+import com.paypal.butterfly.extensions.api.TransformationUtility;
+import com.paypal.butterfly.extensions.api.TransformationUtilityParent;
+import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
+import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
+import org.apache.maven.model.Model;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Applies an ordered list of POM operations against the same POM file, reading and parsing
+ * the file once, applying all operations to the same in-memory content, and writing it only once,
+ * instead of reading and writing the whole file once per operation.
+ * <br>
+ * Consecutive operations based on the Maven model (such as {@link PomAddDependency} or {@link PomRemoveProperty})
+ * are applied to the same {@link Model} object, which is only written back if it has actually changed.
+ * Stream based operations (such as {@link PomAddParent} or {@link PomChangeParentVersion}) are applied
+ * to the in-memory content as left by the previous operations, preserving its formatting.
+ * <br>
+ * Every member operation is still performed regularly, right after this session,
+ * getting its own execution result out of the session. The file is modified when the first
+ * one of them is performed. If a member operation results in error, its changes are discarded,
+ * and, if it is set to abort on failure, the operations after it are not applied.
+ * If the session fails for any other reason, the file is left untouched, and every member operation
+ * is executed on its own, as if it had never been part of the session.
+ * <br>
+ * Member operations are all performed against the file set to this session, regardless
+ * of any file set to them, and they cannot have dependencies or conditions.
+ * This session has to be added to a transformation template, or another utilities parent,
+ * before member operations are added to it.
+ *
+ * @author facarvalho
+ */
+public class PomEditSession extends TransformationUtility<PomEditSession> implements TransformationUtilityParent {
+
+    private static final Logger logger = LoggerFactory.getLogger(PomEditSession.class);
+
+    private static final String DESCRIPTION = "Apply %d POM operations to POM file %s at once";
+
+    private List<TransformationUtility> operations = new ArrayList<>();
+
+    private boolean performed = false;
+
+    // Null if the session has failed
+    private List<TOExecutionResult> results;
+
+    /**
+     * Applies an ordered list of POM operations against the same POM file, reading and parsing
+     * the file once, applying all operations to the same in-memory content, and writing it only once.
+     * See {@link PomEditSession} for further details.
+     */
+    public PomEditSession() {
+    }
+
+    /**
+     * Adds a POM operation to this session, to be applied after the ones added before it.
+     * Any file set to the given operation is ignored
+     *
+     * @param operation the POM operation to be added
+     * @return this transformation utility instance
+     * @throws TransformationDefinitionException if this session has not been added to a parent yet,
+     * or if the given operation is not a POM operation that can be part of a session
+     */
+    public PomEditSession add(TransformationOperation operation) {
+        if (getParent() == null) {
+            String exceptionMessage = String.format("Invalid attempt to add POM operation to POM edit session. This session has to be added to a transformation utilities parent first.");
+            throw new TransformationDefinitionException(exceptionMessage);
+        }
+        if (!(operation instanceof AbstractPomOperation) && !(operation instanceof AbstractStaxPomOperation)) {
+            String exceptionMessage = String.format("Invalid attempt to add %s to POM edit session %s, it is not a POM operation", operation.getClass().getName(), getName());
+            throw new TransformationDefinitionException(exceptionMessage);
+        }
+        if (operation.getParent() != null) {
+            String exceptionMessage = String.format("Invalid attempt to add already registered transformation operation %s to POM edit session %s", operation.getName(), getName());
+            throw new TransformationDefinitionException(exceptionMessage);
+        }
+
+        int order;
+        synchronized (this) {
+            operations.add(operation);
+            order = operations.size();
+        }
+        operation.setParent(this, order);
+
+        return this;
+    }
+
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format(DESCRIPTION, operations.size(), getRelativePath());
+    }
+
+    @Override
+    public List<TransformationUtility> getChildren() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    @Override
+    protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+        File pomFile = getAbsoluteFile(transformedAppFolder, transformationContext);
+        String relativePomFile = getRelativePath(transformedAppFolder, pomFile);
+        if (relativePomFile.equals(pomFile.getAbsolutePath())) {
+            String exceptionMessage = String.format("POM file %s is not in the transformed application folder", pomFile.getAbsolutePath());
+            return TUExecutionResult.error(this, new TransformationUtilityException(exceptionMessage));
+        }
+        for (TransformationUtility operation : operations) {
+            if (!operation.getReferencedResults().isEmpty()
+                    || operation.getIfConditionAttributeName() != null
+                    || operation.getUnlessConditionAttributeName() != null
+                    || operation.getUtilityCondition() != null) {
+                String exceptionMessage = String.format("POM operation %s cannot have dependencies or conditions, since it is part of POM edit session %s", operation.getName(), getName());
+                return TUExecutionResult.error(this, new TransformationUtilityException(exceptionMessage));
+            }
+        }
+
+        for (int i = 0; i < operations.size(); i++) {
+            TransformationOperation<?> operation = (TransformationOperation<?>) operations.get(i);
+            operation.absolute((String) null);
+            operation.relative(relativePomFile);
+
+            int operationIndex = i;
+            operation.setFusedResultSupplier(() -> getResult(operationIndex, pomFile, transformedAppFolder, transformationContext));
+        }
+
+        return TUExecutionResult.value(this, getChildren());
+    }
+
+    /*
+     * Returns the execution result of the operation at the given index,
+     * applying the session first if not applied yet. Returns null if the session has failed,
+     * or if the operation has not been applied
+     */
+    private synchronized TOExecutionResult getResult(int index, File pomFile, File transformedAppFolder, TransformationContext transformationContext) {
+        if (!performed) {
+            performed = true;
+            try {
+                results = apply(operations.get(index), pomFile, transformedAppFolder, transformationContext);
+            } catch (Exception e) {
+                logger.warn("POM edit session " + getName() + " failed, its operations will be applied one by one", e);
+                results = null;
+            }
+        }
+        return (results == null || index >= results.size() ? null : results.get(index));
+    }
+
+    /*
+     * Applies all operations to the POM file content, reading and writing it on behalf of
+     * the operation being currently performed, returning their execution results
+     */
+    private List<TOExecutionResult> apply(TransformationUtility performer, File pomFile, File transformedAppFolder, TransformationContext transformationContext) throws IOException, XmlPullParserException {
+        PomModelCache pomModelCache = transformationContext.getPomModelCache();
+        String relativePomFile = getRelativePath(transformedAppFolder, pomFile);
+        byte[] originalContent = (performer instanceof AbstractPomOperation ? ((AbstractPomOperation) performer).sessionRead(pomFile, transformationContext) : ((AbstractStaxPomOperation) performer).sessionRead(pomFile, transformationContext));
+
+        List<TOExecutionResult> results = new ArrayList<>();
+        byte[] content = originalContent;
+        Model model = null;
+        int lastChange = -1;
+
+        for (TransformationUtility operation : operations) {
+            TOExecutionResult result;
+            if (operation instanceof AbstractPomOperation) {
+                if (model == null) {
+                    model = AbstractPomOperation.readModel(pomFile, content, pomModelCache);
+                }
+                Model previousModel = model.clone();
+                result = ((AbstractPomOperation) operation).sessionExecution(relativePomFile, model, transformationContext);
+                if (!isChange(result)) {
+                    model = previousModel;
+                }
+            } else {
+                if (model != null) {
+                    content = toByteArray(model, content, pomFile, pomModelCache);
+                    model = null;
+                }
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length + 1024);
+                result = ((AbstractStaxPomOperation) operation).sessionExecution(content, outputStream, transformedAppFolder, transformationContext);
+                if (isChange(result) && outputStream.size() > 0) {
+                    content = outputStream.toByteArray();
+                }
+            }
+            results.add(result);
+            if (isChange(result)) {
+                lastChange = results.size() - 1;
+            }
+            if (result.getType().equals(TOExecutionResult.Type.ERROR) && operation.isAbortOnFailure()) {
+                break;
+            }
+        }
+        if (model != null) {
+            content = toByteArray(model, content, pomFile, pomModelCache);
+        }
+
+        if (!Arrays.equals(content, originalContent)) {
+            boolean written = (performer instanceof AbstractPomOperation ? ((AbstractPomOperation) performer).sessionWrite(pomFile, content, transformationContext) : ((AbstractStaxPomOperation) performer).sessionWrite(pomFile, content, transformationContext));
+            if (written && lastChange != -1) {
+                results.get(lastChange).addWrites(1, content.length);
+            }
+        }
+
+        return results;
+    }
+
+    private static boolean isChange(TOExecutionResult result) {
+        return result.getType().equals(TOExecutionResult.Type.SUCCESS) || result.getType().equals(TOExecutionResult.Type.WARNING);
+    }
+
+    /*
+     * Returns the content of the given model, or the given original content, if the model
+     * has not actually changed, since writing it would just reformat it. That is checked by comparing
+     * the model with the original one, both written the same way
+     */
+    private static byte[] toByteArray(Model model, byte[] originalContent, File pomFile, PomModelCache pomModelCache) throws IOException, XmlPullParserException {
+        byte[] newContent = AbstractPomOperation.toByteArray(model);
+        if (Arrays.equals(newContent, AbstractPomOperation.toByteArray(AbstractPomOperation.readModel(pomFile, originalContent, pomModelCache)))) {
+            return originalContent;
+        }
+        return newContent;
+    }
+
+    @Override
+    public PomEditSession clone() {
+        PomEditSession sessionClone = super.clone();
+        sessionClone.operations = new ArrayList<>();
+        sessionClone.performed = false;
+        sessionClone.results = null;
+        for (TransformationUtility operation : operations) {
+            TransformationUtility operationClone = operation.clone();
+            operationClone.setParent(sessionClone, operation.getOrder());
+            sessionClone.operations.add(operationClone);
+        }
+
+        return sessionClone;
+    }
+
+}
@@ -7,8 +7,8 @@ import com.paypal.butterfly.extensions.api.operations.AddElementTO;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 
 /**
@@ -107,6 +107,11 @@ public class PomFile extends AddElementTO<PomFile> {
         return model;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         String modelObject = (attribute == null ? "" : " kept at transformation context attribute " + attribute);
@@ -143,11 +148,11 @@ public class PomFile extends AddElementTO<PomFile> {
                 case NoOp:
                     return TOExecutionResult.noOp(this, "There is already a pom file at " + getRelativePath());
                 case WarnButAdd:
-                    errorResult = writePomFile(pomFile);
+                    errorResult = writePomFile(pomFile, transformationContext);
                     if (errorResult != null) return errorResult;
                     return TOExecutionResult.warning(this, new TransformationOperationException("There is already a pom file at " + getRelativePath()), "Pom file overwritten at " + getRelativePath());
                 case Overwrite:
-                    errorResult = writePomFile(pomFile);
+                    errorResult = writePomFile(pomFile, transformationContext);
                     if (errorResult != null) return errorResult;
                     return TOExecutionResult.success(this, "Pom file overwritten at " + getRelativePath());
             }
@@ -159,7 +164,7 @@ public class PomFile extends AddElementTO<PomFile> {
             }
         }
 
-        errorResult = writePomFile(pomFile);
+        errorResult = writePomFile(pomFile, transformationContext);
         if (errorResult != null) return errorResult;
 
         return TOExecutionResult.success(this, "Pom file written at " + getRelativePath());
@@ -168,9 +173,11 @@ public class PomFile extends AddElementTO<PomFile> {
     /*
      * Writes pom file and return null if successful, or an error result if not
      */
-    private TOExecutionResult writePomFile(File pomFile) {
-        try (FileOutputStream fileOutputStream = new FileOutputStream(pomFile)) {
-            new MavenXpp3Writer().write(fileOutputStream, model);
+    private TOExecutionResult writePomFile(File pomFile, TransformationContext transformationContext) {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            new MavenXpp3Writer().write(outputStream, model);
+            writeFileContent(pomFile, outputStream.toByteArray(), transformationContext);
         } catch (IOException e) {
             return TOExecutionResult.error(this, new TransformationOperationException("There was an error when writing to pom file " + getRelativePath()));
         }
@@ -1,11 +1,16 @@
 package com.paypal.butterfly.utilities.operations.pom.stax;
 
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.ctc.wstx.stax.WstxOutputFactory;
 import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationOperation;
 import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
 import com.paypal.butterfly.utilities.xml.XmlIndentation;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.codehaus.stax2.XMLInputFactory2;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.XMLStreamWriter2;
 
 import javax.xml.stream.*;
 import javax.xml.stream.events.XMLEvent;
@@ -13,6 +18,11 @@ import java.io.*;
 
 /**
  * Abstract StAX operation, used to stream based XML manipulation.
+ * <br>
+ * Operations should read and write the XML file through a {@link StaxCursor},
+ * see {@link #getCursor(File, TransformationContext)}, which reads and writes it
+ * in one single pass, without allocating one object per XML event.
+ * The XML event based methods are still available, but deprecated.
  *
  * @author facarvalho
  */
@@ -22,24 +32,47 @@ public abstract class AbstractStaxOperation<T extends AbstractStaxOperation> ext
     private static final XMLInputFactory xmlInputFactory;
     private static final XMLOutputFactory xmlOutputFactory;
 
+    // Woodstox factories are thread-safe once configured, and every reader and writer
+    // created by them shares their configuration, instead of building its own
+    private static final WstxInputFactory streamInputFactory;
+    private static final WstxOutputFactory streamOutputFactory;
+
+    private InputStream inputStream = null;
+    private OutputStream outputStream = null;
     private XMLEventReader reader = null;
     private XMLEventWriter writer = null;
     private XMLEvent indentation = null;
+    private XMLStreamReader2 streamReader = null;
+    private XMLStreamWriter2 streamWriter = null;
+    private StaxCursor cursor = null;
+
+    // Only set while this operation is applied to in-memory content (see executeInMemory)
+    private byte[] inMemoryContent = null;
+    private OutputStream inMemoryOutputStream = null;
 
     static {
         eventFactory = XMLEventFactory.newInstance();
         xmlInputFactory = XMLInputFactory.newInstance();
         xmlOutputFactory = XMLOutputFactory.newInstance();
+
+        streamInputFactory = new WstxInputFactory();
+        streamInputFactory.setProperty(XMLInputFactory2.P_PRESERVE_LOCATION, false);
+        streamOutputFactory = new WstxOutputFactory();
     }
 
+    @Deprecated
     protected final static XMLEvent LINE_FEED = eventFactory.createCharacters("\n");
 
+    protected final static String LINE_FEED_STRING = "\n";
+
     /*
      * Consumes events across the provided reader until a the specified event condition is true.
      * As those events are consumed, they are also written to the writer.
      * That last XML event consumed from the reader is written to the writer or not, depending on writeLast parameter.
      * Returns the last XML event consumed, or null, if the end of the reader was reached instead.
+     * Deprecated, use {@link #getCursor(File, TransformationContext)} instead.
      */
+    @Deprecated
     protected XMLEvent copyUntil(XMLEventReader reader, XMLEventWriter writer, EventCondition condition, boolean writeLast) throws XMLStreamException {
         XMLEvent xmlEvent = consumeUntil(reader, writer, condition);
 
@@ -53,7 +86,9 @@ public abstract class AbstractStaxOperation<T extends AbstractStaxOperation> ext
     /*
      * Consumes events across the provided reader until a the specified event condition is true.
      * Returns the last XML event consumed, or null, if the end of the reader was reached instead.
+     * Deprecated, use {@link #getCursor(File, TransformationContext)} instead.
      */
+    @Deprecated
     protected XMLEvent skipUntil(XMLEventReader reader, EventCondition condition) throws XMLStreamException {
         XMLEvent xmlEvent = consumeUntil(reader, null, condition);
 
@@ -88,12 +123,19 @@ public abstract class AbstractStaxOperation<T extends AbstractStaxOperation> ext
     /*
      * Returns an XML event reader for the file to be modified by this transformation operation.
      * This reader is a singleton, and it is initialized at the first time this method is called.
-     * It is important to note though that the file being read is not the actual file to be modified,
-     * but a temporary copy of it before any modification is done by this operation.
+     * The file to be modified is left untouched while it is read, since the writer
+     * writes to a temporary file, which replaces it only after a successful execution.
+     * Deprecated, use {@link #getCursor(File, TransformationContext)} instead.
      */
+    @Deprecated
     protected XMLEventReader getReader(File transformedAppFolder, TransformationContext transformationContext) throws IOException, XMLStreamException {
         if (reader == null) {
-            reader = xmlInputFactory.createXMLEventReader(new FileInputStream(getOrCreateReadFile(transformedAppFolder, transformationContext)));
+            if (inMemoryContent != null) {
+                inputStream = new ByteArrayInputStream(inMemoryContent);
+            } else {
+                inputStream = new FileInputStream(getAbsoluteFile(transformedAppFolder, transformationContext));
+            }
+            reader = xmlInputFactory.createXMLEventReader(inputStream);
         }
         return reader;
     }
@@ -101,35 +143,77 @@ public abstract class AbstractStaxOperation<T extends AbstractStaxOperation> ext
     /*
      * Returns an XML event writer for the file to be modified by this transformation operation.
      * This writer is a singleton, and it is initialized at the first time this method is called.
+     * Deprecated, use {@link #getCursor(File, TransformationContext)} instead.
      */
-    protected XMLEventWriter getWriter(File transformedAppFolder, TransformationContext transformationContext) throws FileNotFoundException, XMLStreamException {
+    @Deprecated
+    protected XMLEventWriter getWriter(File transformedAppFolder, TransformationContext transformationContext) throws IOException, XMLStreamException {
         if (writer == null) {
-            File fileToBeModified = getAbsoluteFile(transformedAppFolder, transformationContext);
-            writer = xmlOutputFactory.createXMLEventWriter(new FileOutputStream(fileToBeModified));
+            if (inMemoryOutputStream != null) {
+                outputStream = inMemoryOutputStream;
+            } else {
+                outputStream = new FileOutputStream(getOrCreateWriteFile(transformedAppFolder, transformationContext));
+            }
+            writer = xmlOutputFactory.createXMLEventWriter(outputStream);
         }
         return writer;
     }
 
     /*
      * Returns a character XML event corresponding to what this file currently uses as indentation.
+     * Deprecated, use {@link #getCursor(File, TransformationContext)} instead.
      */
+    @Deprecated
     protected XMLEvent getIndentation(File transformedAppFolder, TransformationContext transformationContext) throws IOException, XMLStreamException {
         if (indentation == null) {
-            String indentationString = XmlIndentation.getFirst(getOrCreateReadFile(transformedAppFolder, transformationContext));
+            String indentationString;
+            if (inMemoryContent != null) {
+                indentationString = XmlIndentation.getFirst(new ByteArrayInputStream(inMemoryContent));
+            } else {
+                indentationString = XmlIndentation.getFirst(getAbsoluteFile(transformedAppFolder, transformationContext));
+            }
             indentation = eventFactory.createCharacters(indentationString);
         }
         return indentation;
     }
 
     /*
-     * Write to the given writer the given XML event {@code n} times
+     * Returns a cursor to read the file to be modified by this transformation operation,
+     * while writing its new version. This cursor is a singleton, and it is initialized at the first time this method is called.
+     * The file to be modified is left untouched while it is read, since the writer
+     * writes to a temporary file, which replaces it only after a successful execution.
      */
+    protected StaxCursor getCursor(File transformedAppFolder, TransformationContext transformationContext) throws IOException, XMLStreamException {
+        if (cursor == null) {
+            if (inMemoryContent != null) {
+                inputStream = new ByteArrayInputStream(inMemoryContent);
+                outputStream = inMemoryOutputStream;
+            } else {
+                inputStream = new FileInputStream(getAbsoluteFile(transformedAppFolder, transformationContext));
+                outputStream = new FileOutputStream(getOrCreateWriteFile(transformedAppFolder, transformationContext));
+            }
+            streamReader = (XMLStreamReader2) streamInputFactory.createXMLStreamReader(inputStream);
+            streamWriter = (XMLStreamWriter2) streamOutputFactory.createXMLStreamWriter(outputStream);
+            cursor = new StaxCursor(streamReader, streamWriter);
+        }
+        return cursor;
+    }
+
+    /*
+     * Write to the given writer the given XML event {@code n} times.
+     * Deprecated, use {@link #getCursor(File, TransformationContext)} instead.
+     */
+    @Deprecated
     protected static void writeMultiple(XMLEventWriter writer, XMLEvent xmlEvent, int n) throws XMLStreamException {
         for (int i = 1; i <= n; i++) {
             writer.add(xmlEvent);
         }
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
 
@@ -160,9 +244,59 @@ public abstract class AbstractStaxOperation<T extends AbstractStaxOperation> ext
             } catch (XMLStreamException e) {
                 result.addWarning(e);
             }
+            try {
+                if (streamWriter != null) {
+                    streamWriter.flush();
+                    streamWriter.close();
+                }
+            } catch (XMLStreamException e) {
+                result.addWarning(e);
+            }
+            try {
+                if (streamReader != null) streamReader.close();
+            } catch (XMLStreamException e) {
+                result.addWarning(e);
+            }
+
+            // Closing XML readers and writers does not close their underlying streams
+            try {
+                if (outputStream != null) outputStream.close();
+            } catch (IOException e) {
+                result.addWarning(e);
+            }
+            try {
+                if (inputStream != null) inputStream.close();
+            } catch (IOException e) {
+                result.addWarning(e);
+            }
         }
 
-        return result;
+        return commitWriteFile(result);
+    }
+
+    /*
+     * Applies this operation to the given XML content, instead of to the file to be modified,
+     * which is left untouched. The new content is written to the given output stream,
+     * which is closed by the end of the execution. If the execution result is
+     * neither success nor warning, what has been written to the output stream must be discarded
+     */
+    protected final TOExecutionResult executeInMemory(byte[] content, OutputStream output, File transformedAppFolder, TransformationContext transformationContext) {
+        inMemoryContent = content;
+        inMemoryOutputStream = output;
+        try {
+            return execution(transformedAppFolder, transformationContext);
+        } finally {
+            inMemoryContent = null;
+            inMemoryOutputStream = null;
+            inputStream = null;
+            outputStream = null;
+            reader = null;
+            writer = null;
+            indentation = null;
+            streamReader = null;
+            streamWriter = null;
+            cursor = null;
+        }
     }
 
     /*
@@ -173,9 +307,16 @@ public abstract class AbstractStaxOperation<T extends AbstractStaxOperation> ext
     @Override
     public T clone() {
         AbstractStaxOperation clone = super.clone();
+        clone.inputStream = null;
+        clone.outputStream = null;
         clone.reader = null;
         clone.writer = null;
         clone.indentation = null;
+        clone.streamReader = null;
+        clone.streamWriter = null;
+        clone.cursor = null;
+        clone.inMemoryContent = null;
+        clone.inMemoryOutputStream = null;
 
         return (T) clone;
     }
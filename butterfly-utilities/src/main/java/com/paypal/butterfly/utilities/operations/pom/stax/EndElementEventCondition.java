@@ -1,5 +1,6 @@
 package com.paypal.butterfly.utilities.operations.pom.stax;
 
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.XMLEvent;
 
 public class EndElementEventCondition implements EventCondition {
@@ -15,4 +16,9 @@ public class EndElementEventCondition implements EventCondition {
         return xmlEvent.isEndElement() && xmlEvent.asEndElement().getName().getLocalPart().equals(tagName);
     }
 
+    @Override
+    public boolean evaluateEvent(XMLStreamReader reader) {
+        return reader.isEndElement() && reader.getLocalName().equals(tagName);
+    }
+
 }
@@ -1,9 +1,12 @@
 package com.paypal.butterfly.utilities.operations.pom.stax;
 
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.XMLEvent;
 
 interface EventCondition {
 
     boolean evaluateEvent(XMLEvent xmlEvent);
 
+    boolean evaluateEvent(XMLStreamReader reader);
+
 }
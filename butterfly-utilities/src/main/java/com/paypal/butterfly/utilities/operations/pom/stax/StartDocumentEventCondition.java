@@ -1,5 +1,7 @@
 package com.paypal.butterfly.utilities.operations.pom.stax;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.XMLEvent;
 
 public class StartDocumentEventCondition implements EventCondition {
@@ -9,4 +11,9 @@ public class StartDocumentEventCondition implements EventCondition {
         return xmlEvent.isStartDocument();
     }
 
+    @Override
+    public boolean evaluateEvent(XMLStreamReader reader) {
+        return reader.getEventType() == XMLStreamConstants.START_DOCUMENT;
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.paypal.butterfly.utilities.operations.pom.stax;
 
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.XMLEvent;
 
 public class StartElementEventCondition implements EventCondition {
@@ -15,4 +16,9 @@ public class StartElementEventCondition implements EventCondition {
         return xmlEvent.isStartElement() && xmlEvent.asStartElement().getName().getLocalPart().equals(tagName);
     }
 
+    @Override
+    public boolean evaluateEvent(XMLStreamReader reader) {
+        return reader.isStartElement() && reader.getLocalName().equals(tagName);
+    }
+
 }
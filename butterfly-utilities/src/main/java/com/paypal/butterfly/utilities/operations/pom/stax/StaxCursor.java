@@ -0,0 +1,265 @@
+package com.paypal.butterfly.utilities.operations.pom.stax;
+
+import com.ctc.wstx.evt.DefaultEventAllocator;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.XMLStreamWriter2;
+import org.codehaus.stax2.evt.XMLEvent2;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.util.XMLEventAllocator;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Cursor based StAX pipeline, which reads XML content, as a stream reader, while copying it,
+ * or parts of it, to a stream writer, without allocating one object per XML event.
+ * <br>
+ * The indentation used in the XML content, which is the one used in the very first tag inside the root tag,
+ * is captured while the content is read. If it is needed before that tag has been read,
+ * the content up to it is read ahead, and only those events are kept in memory.
+ * <br>
+ * The reader is positioned at the beginning of the XML content when this cursor is created,
+ * and it should not be moved directly, only through this cursor.
+ *
+ * @author facarvalho
+ */
+public class StaxCursor {
+
+    private static final XMLEventAllocator eventAllocator = DefaultEventAllocator.getFastInstance();
+
+    private final XMLStreamReader2 reader;
+    private final XMLStreamWriter2 writer;
+
+    // Whether the event the reader is currently positioned at has not been consumed yet
+    private boolean pending = true;
+
+    // Events read ahead, not consumed yet
+    private final Deque<XMLEvent2> readAhead = new ArrayDeque<>();
+
+    // Event being consumed, if it has been read ahead, or null, if it is the one the reader is positioned at
+    private XMLEvent2 current = null;
+
+    // Indentation tracking
+    private boolean rootElementRead = false;
+    private boolean firstElementRead = false;
+    private String firstElementsGap = null;
+    private String indentation = null;
+
+    StaxCursor(XMLStreamReader2 reader, XMLStreamWriter2 writer) throws XMLStreamException {
+        this.reader = reader;
+        this.writer = writer;
+        track();
+    }
+
+    /**
+     * Returns the stream writer, to write new content at the current position
+     *
+     * @return the stream writer
+     */
+    public XMLStreamWriter2 getWriter() {
+        return writer;
+    }
+
+    /**
+     * Consumes events until the specified condition is true.
+     * As those events are consumed, they are also written to the writer.
+     * The event the condition is true for is consumed too, and written to the writer or not,
+     * depending on {@code writeLast}.
+     *
+     * @param condition the condition to stop consuming events
+     * @param writeLast whether the last consumed event should be written or not
+     * @return true if the condition was true for an event, false if the end of the content was reached instead
+     * @throws XMLStreamException if the content could not be read or written
+     */
+    public boolean copyUntil(EventCondition condition, boolean writeLast) throws XMLStreamException {
+        return consumeUntil(condition, true, writeLast);
+    }
+
+    /**
+     * Consumes events until the specified condition is true, without writing them to the writer.
+     * The event the condition is true for is consumed too, and not written either.
+     *
+     * @param condition the condition to stop consuming events
+     * @return true if the condition was true for an event, false if the end of the content was reached instead
+     * @throws XMLStreamException if the content could not be read
+     */
+    public boolean skipUntil(EventCondition condition) throws XMLStreamException {
+        return consumeUntil(condition, false, false);
+    }
+
+    /**
+     * Consumes the next event, without writing it to the writer
+     *
+     * @return true if there was a next event, false if the end of the content was reached instead
+     * @throws XMLStreamException if the content could not be read
+     */
+    public boolean skipNext() throws XMLStreamException {
+        return next();
+    }
+
+    /**
+     * Returns the text of the last consumed event, if it is a characters event, or null otherwise
+     *
+     * @return the text of the last consumed event, if it is a characters event
+     */
+    public String getText() {
+        if (current != null) {
+            return (current.isCharacters() ? current.asCharacters().getData() : null);
+        }
+        switch (reader.getEventType()) {
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                return reader.getText();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Consumes all remaining events, writing them to the writer
+     *
+     * @throws XMLStreamException if the content could not be read or written
+     */
+    public void copyToEnd() throws XMLStreamException {
+        while (next()) {
+            write();
+        }
+    }
+
+    /**
+     * Returns the indentation used in the very first tag, inside the root tag,
+     * or an empty String if the root tag has no children, or if the first tag is at the same line as the root tag.
+     *
+     * @return the indentation used in the very first tag, inside the root tag
+     * @throws XMLStreamException if the content could not be read
+     */
+    public String getIndentation() throws XMLStreamException {
+        if (!firstElementRead) {
+            readAheadFirstElement();
+        }
+        return (indentation == null ? "" : indentation);
+    }
+
+    /**
+     * Writes the given text {@code n} times
+     *
+     * @param text the text to be written
+     * @param n how many times the text should be written
+     * @throws XMLStreamException if the text could not be written
+     */
+    public void writeMultiple(String text, int n) throws XMLStreamException {
+        for (int i = 1; i <= n; i++) {
+            writer.writeCharacters(text);
+        }
+    }
+
+    private boolean consumeUntil(EventCondition condition, boolean copy, boolean writeLast) throws XMLStreamException {
+        while (next()) {
+            if (evaluate(condition)) {
+                if (writeLast) {
+                    write();
+                }
+                return true;
+            }
+            if (copy) {
+                write();
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Moves to the next event to be consumed, which is either the first one read ahead,
+     * or the next one from the reader. Returns false if the end of the content has been reached
+     */
+    private boolean next() throws XMLStreamException {
+        if (!readAhead.isEmpty()) {
+            current = readAhead.removeFirst();
+            return true;
+        }
+        current = null;
+        if (pending) {
+            pending = false;
+        } else {
+            if (!reader.hasNext()) {
+                return false;
+            }
+            reader.next();
+            track();
+        }
+        return reader.getEventType() != XMLStreamConstants.END_DOCUMENT;
+    }
+
+    /*
+     * Reads ahead until the first element inside the root element, or the end of the content,
+     * keeping those events, including the one the reader is positioned at if not consumed yet
+     */
+    private void readAheadFirstElement() throws XMLStreamException {
+        if (pending) {
+            readAhead.add(allocate());
+            pending = false;
+        }
+        while (!firstElementRead && reader.hasNext()) {
+            reader.next();
+            track();
+            if (reader.getEventType() == XMLStreamConstants.END_DOCUMENT) {
+                pending = true;
+                break;
+            }
+            readAhead.add(allocate());
+        }
+    }
+
+    private XMLEvent2 allocate() throws XMLStreamException {
+        return (XMLEvent2) eventAllocator.allocate(reader);
+    }
+
+    private boolean evaluate(EventCondition condition) {
+        if (current != null) {
+            return condition.evaluateEvent(current);
+        }
+        return condition.evaluateEvent(reader);
+    }
+
+    private void write() throws XMLStreamException {
+        if (current != null) {
+            current.writeUsing(writer);
+        } else if (reader.getEventType() == XMLStreamConstants.START_DOCUMENT) {
+            // Written as an event, so the XML declaration is always written, even if missing in the original content
+            allocate().writeUsing(writer);
+        } else {
+            writer.copyEventFromReader(reader, true);
+        }
+    }
+
+    /*
+     * Keeps track of the indentation based on the event the reader has just been positioned at
+     */
+    private void track() {
+        if (firstElementRead) {
+            return;
+        }
+        switch (reader.getEventType()) {
+            case XMLStreamConstants.START_ELEMENT:
+                if (rootElementRead) {
+                    firstElementRead = true;
+                    if (firstElementsGap != null) {
+                        int i = firstElementsGap.lastIndexOf('\n') + 1;
+                        indentation = firstElementsGap.substring(i);
+                    }
+                } else {
+                    rootElementRead = true;
+                }
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                firstElementsGap = reader.getText();
+                break;
+            default:
+                break;
+        }
+    }
+
+}
@@ -4,8 +4,10 @@ import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationOperation;
 import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
-import com.paypal.butterfly.utilities.operations.EolBufferedReader;
+import com.paypal.butterfly.utilities.operations.EolLineScanner;
 import com.paypal.butterfly.utilities.operations.EolHelper;
+import com.paypal.butterfly.utilities.operations.FastMatcher;
+import com.paypal.butterfly.utilities.operations.FastPattern;
 import org.codehaus.plexus.util.FileUtils;
 
 import java.io.*;
@@ -13,8 +15,6 @@ import java.nio.charset.StandardCharsets;
 import java.util.Properties;
 import java.util.regex.Pattern;
 
-import static com.paypal.butterfly.utilities.operations.EolHelper.removeEol;
-
 /**
  * Adds a new property to a properties file.
  * If the property already exists, its value is overwritten.
@@ -24,6 +24,7 @@ import static com.paypal.butterfly.utilities.operations.EolHelper.removeEol;
 public class AddProperty extends TransformationOperation<AddProperty> {
 
     private static final String DESCRIPTION = "Add new property (%s = %s) to file %s";
+    private static final Pattern WHOLE_LINE = Pattern.compile(".+");
 
     private String propertyName;
     private String propertyValue;
@@ -63,6 +64,11 @@ public class AddProperty extends TransformationOperation<AddProperty> {
         return propertyValue;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, propertyName, propertyValue, getRelativePath());
@@ -103,17 +109,18 @@ public class AddProperty extends TransformationOperation<AddProperty> {
      * Replace the text based on regex.
      */
     private String replace(BufferedReader reader, BufferedWriter writer, String regex, String replacement) throws IOException {
-        String currentLine;
+        EolLineScanner.Line currentLine;
         boolean foundFirstMatch = false;
-        final Pattern pattern = Pattern.compile(regex + "(.*)");
-        EolBufferedReader eolReader = new EolBufferedReader(reader);
-        while((currentLine = eolReader.readLineKeepStartEol()) != null) {
-            if(!foundFirstMatch && pattern.matcher(removeEol(currentLine)).matches()) {
+        final FastMatcher matcher = FastPattern.compile(regex + "(.*)").matcher();
+        EolLineScanner eolScanner = new EolLineScanner(reader);
+        while((currentLine = eolScanner.nextLineKeepStartEol()) != null) {
+            if(!foundFirstMatch && matcher.matches(currentLine.withoutEol())) {
                 foundFirstMatch = true;
                 //Replace the Property Key and Value (entire line)
-                currentLine = currentLine.replaceAll(".+", replacement);
+                writer.write(WHOLE_LINE.matcher(currentLine).replaceAll(replacement));
+                continue;
             }
-            writer.write(currentLine);
+            currentLine.writeTo(writer);
         }
 
         return String.format("Property '%s' value replaced with %s' at '%s'", propertyName, propertyValue, getRelativePath());
@@ -149,9 +156,9 @@ public class AddProperty extends TransformationOperation<AddProperty> {
         BufferedReader reader = null;
         BufferedWriter writer = null;
         try {
-            File readFile = getOrCreateReadFile(transformedAppFolder, transformationContext);
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream(readFile), StandardCharsets.UTF_8));
-            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileToBeChanged), StandardCharsets.UTF_8));
+            File writeFile = getOrCreateWriteFile(transformedAppFolder, transformationContext);
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileToBeChanged), StandardCharsets.UTF_8));
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(writeFile), StandardCharsets.UTF_8));
             String propertyToBeAdded = String.format("%s = %s", propertyName, propertyValue);
             String details = replace(reader, writer, "(" + propertyName + ")", propertyToBeAdded);
             result = TOExecutionResult.success(this, details);
@@ -173,7 +180,7 @@ public class AddProperty extends TransformationOperation<AddProperty> {
             }
         }
 
-        return result;
+        return commitWriteFile(result);
     }
 
 
@@ -4,13 +4,12 @@ import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationOperation;
 import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
-import com.paypal.butterfly.utilities.operations.EolBufferedReader;
+import com.paypal.butterfly.utilities.operations.EolLineScanner;
+import com.paypal.butterfly.utilities.operations.FastMatcher;
+import com.paypal.butterfly.utilities.operations.FastPattern;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Pattern;
-
-import static com.paypal.butterfly.utilities.operations.EolHelper.removeEol;
 
 /**
  * Removes a property from a properties file.
@@ -51,6 +50,16 @@ public class RemoveProperty extends TransformationOperation<RemoveProperty> {
         return propertyName;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
+    @Override
+    public boolean isWorkingSetAware() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, propertyName, getRelativePath());
@@ -71,20 +80,21 @@ public class RemoveProperty extends TransformationOperation<RemoveProperty> {
                 details = String.format("Operation '%s' hasn't transformed the application because file '%s', where the property removal should happen, does not exist", getName(), getRelativePath(transformedAppFolder, fileToBeChanged));
                 return TOExecutionResult.noOp(this, details);
             }
-            File readFile = getOrCreateReadFile(transformedAppFolder, transformationContext);
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream(readFile), StandardCharsets.UTF_8));
-            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileToBeChanged), StandardCharsets.UTF_8));
-            String currentLine;
+            byte[] content = readFileContent(fileToBeChanged, transformationContext);
+            reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length);
+            writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            EolLineScanner.Line currentLine;
             boolean foundFirstMatch = false;
             String regex = "(" + propertyName + ".*)";
-            final Pattern pattern = Pattern.compile(regex);
-            EolBufferedReader eolReader = new EolBufferedReader(reader);
-            while((currentLine = eolReader.readLineKeepStartEol()) != null) {
-                if(!foundFirstMatch && pattern.matcher(removeEol(currentLine)).matches()) {
+            final FastMatcher matcher = FastPattern.compile(regex).matcher();
+            EolLineScanner eolScanner = new EolLineScanner(reader);
+            while((currentLine = eolScanner.nextLineKeepStartEol()) != null) {
+                if(!foundFirstMatch && matcher.matches(currentLine.withoutEol())) {
                     foundFirstMatch = true;
                     continue;
                 }
-                writer.write(currentLine);
+                currentLine.writeTo(writer);
             }
 
             if (foundFirstMatch) {
@@ -94,6 +104,9 @@ public class RemoveProperty extends TransformationOperation<RemoveProperty> {
                 TransformationOperationException toex = new TransformationOperationException(String.format("Property '%s' has not been removed from '%s' because it is not present", propertyName, getRelativePath()));
                 result = TOExecutionResult.warning(this, toex);
             }
+
+            writer.flush();
+            writeFileContent(fileToBeChanged, outputStream.toByteArray(), transformationContext);
         } catch (IOException e) {
             result = TOExecutionResult.error(this, e);
         } finally {
@@ -1,16 +1,16 @@
 package com.paypal.butterfly.utilities.operations.text;
 
+import com.paypal.butterfly.extensions.api.FusedStage;
 import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationOperation;
 import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
-import com.paypal.butterfly.utilities.operations.EolBufferedReader;
+import com.paypal.butterfly.utilities.operations.EolLineScanner;
+import com.paypal.butterfly.utilities.operations.FastMatcher;
+import com.paypal.butterfly.utilities.operations.FastPattern;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Pattern;
-
-import static com.paypal.butterfly.utilities.operations.EolHelper.removeEol;
 
 /**
  * Abstract operation to manipulate one, or more, lines from a text file.
@@ -179,6 +179,28 @@ public abstract class AbstractLineOperation<T extends AbstractLineOperation> ext
         return lineNumber;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
+    @Override
+    public boolean isWorkingSetAware() {
+        return true;
+    }
+
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
+    @Override
+    protected FusedStage createFusedStage(Reader content, File transformedAppFolder, TransformationContext transformationContext) {
+        // Resolving the file, used in the execution result details
+        getAbsoluteFile(transformedAppFolder, transformationContext);
+        return new LineOperationStage(content);
+    }
+
     @Override
     @edu.umd.cs.findbugs.annotations.SuppressFBWarnings (value="NP_ALWAYS_NULL_EXCEPTION")
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
@@ -190,20 +212,20 @@ public abstract class AbstractLineOperation<T extends AbstractLineOperation> ext
             return TOExecutionResult.noOp(this, details);
         }
 
-        BufferedReader reader = null;
+        Reader reader = null;
         BufferedWriter writer = null;
         TOExecutionResult result = null;
 
         try {
-            File readFile = getOrCreateReadFile(transformedAppFolder, transformationContext);
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream(readFile), StandardCharsets.UTF_8));
-            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileToBeChanged), StandardCharsets.UTF_8));
+            byte[] content = readFileContent(fileToBeChanged, transformationContext);
+            reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length);
+            writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
 
-            if (lineNumber != null) {
-                result = manipulateBasedOnLineNumber(reader, writer);
-            } else {
-                result = manipulateBasedOnRegex(reader, writer);
-            }
+            result = new LineOperationStage(reader).writeAllTo(writer);
+
+            writer.flush();
+            writeFileContent(fileToBeChanged, outputStream.toByteArray(), transformationContext);
         } catch (IOException e) {
             result = TOExecutionResult.error(this, e);
         } finally {
@@ -225,67 +247,88 @@ public abstract class AbstractLineOperation<T extends AbstractLineOperation> ext
         return result;
     }
 
-    private TOExecutionResult manipulateBasedOnLineNumber(BufferedReader reader, BufferedWriter writer) throws IOException {
-        String currentLine;
-        int n = 0;
-        boolean lineManipulated = false;
-        EolBufferedReader eolReader = new EolBufferedReader(reader);
-        while((currentLine = eolReader.readLineKeepStartEol()) != null) {
-            n++;
-            if(n == lineNumber) {
-                manipulateLine(currentLine, writer);
+    /*
+     * Manipulates the line(s) chosen either based on the line number, or on the regular expression
+     */
+    private class LineOperationStage extends LineStage {
 
-                lineManipulated = true;
-                continue;
+        private final FastMatcher matcher = (lineNumber == null ? FastPattern.compile(regex).matcher() : null);
+        private int n = 0;
+        private boolean foundFirstMatch = false;
+        private boolean lineManipulated = false;
+        private boolean firstLine = true;
+
+        private LineOperationStage(Reader content) {
+            super(content);
+        }
+
+        @Override
+        protected boolean step(Writer writer) throws IOException {
+            EolLineScanner.Line currentLine = scanner.nextLineKeepStartEol();
+            if (currentLine == null) {
+                return false;
+            }
+            if (lineNumber != null) {
+                manipulateBasedOnLineNumber(currentLine, writer);
+            } else {
+                manipulateBasedOnRegex(currentLine, writer);
             }
-            writer.write(currentLine);
+            return true;
         }
 
-        if (lineManipulated) {
-            String details = String.format("File %s has had line number %d %s", getRelativePath(), lineNumber, manipulationWord);
-            return TOExecutionResult.success(this, details);
-        } else {
-            String details = String.format("File %s has had no lines %s, since line %s does not exist", getRelativePath(), manipulationWord, lineNumber);
-            return TOExecutionResult.noOp(this, details);
+        private void manipulateBasedOnLineNumber(EolLineScanner.Line currentLine, Writer writer) throws IOException {
+            n++;
+            if(n == lineNumber) {
+                manipulateLine(currentLine.toString(), writer);
+                lineManipulated = true;
+                return;
+            }
+            currentLine.writeTo(writer);
         }
-    }
 
-    private TOExecutionResult manipulateBasedOnRegex(BufferedReader reader, BufferedWriter writer) throws IOException {
-        String currentLine;
-        int n = 0;
-        boolean foundFirstMatch = false;
-        final Pattern pattern = Pattern.compile(regex);
-        boolean firstLine = true;
-        EolBufferedReader eolReader = new EolBufferedReader(reader);
-        boolean written;
-        while((currentLine = eolReader.readLineKeepStartEol()) != null) {
-            if((!firstOnly || !foundFirstMatch) && pattern.matcher(removeEol(currentLine)).matches()) {
-                written = manipulateLine(currentLine, writer);
+        private void manipulateBasedOnRegex(EolLineScanner.Line currentLine, Writer writer) throws IOException {
+            if((!firstOnly || !foundFirstMatch) && matcher.matches(currentLine.withoutEol())) {
+                boolean written = manipulateLine(currentLine.toString(), writer);
 
                 if (written) {
                     firstLine = false;
                 }
                 foundFirstMatch = true;
                 n++;
-                continue;
+                return;
             }
             if(firstLine) {
-                currentLine = removeEol(currentLine);
+                currentLine.withoutEol().writeTo(writer);
+            } else {
+                currentLine.writeTo(writer);
             }
             firstLine = false;
-            writer.write(currentLine);
         }
 
-        String details = String.format("File %s has had %d line(s) %s based on regular expression '%s'", getRelativePath(), n, manipulationWord, regex);
+        @Override
+        protected TOExecutionResult createResult() {
+            if (lineNumber != null) {
+                if (lineManipulated) {
+                    String details = String.format("File %s has had line number %d %s", getRelativePath(), lineNumber, manipulationWord);
+                    return TOExecutionResult.success(AbstractLineOperation.this, details);
+                } else {
+                    String details = String.format("File %s has had no lines %s, since line %s does not exist", getRelativePath(), manipulationWord, lineNumber);
+                    return TOExecutionResult.noOp(AbstractLineOperation.this, details);
+                }
+            }
+
+            String details = String.format("File %s has had %d line(s) %s based on regular expression '%s'", getRelativePath(), n, manipulationWord, regex);
 
-        TOExecutionResult result;
-        if (n == 0) {
-            result = TOExecutionResult.noOp(this, details);
-        } else {
-            result = TOExecutionResult.success(this, details);
+            TOExecutionResult result;
+            if (n == 0) {
+                result = TOExecutionResult.noOp(AbstractLineOperation.this, details);
+            } else {
+                result = TOExecutionResult.success(AbstractLineOperation.this, details);
+            }
+
+            return result;
         }
 
-        return result;
     }
 
     /**
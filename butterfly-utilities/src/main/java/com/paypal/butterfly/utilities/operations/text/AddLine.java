@@ -1,14 +1,18 @@
 package com.paypal.butterfly.utilities.operations.text;
 
+import com.paypal.butterfly.extensions.api.FusedStage;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationOperation;
 import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.utilities.operations.EolHelper;
+import com.paypal.butterfly.utilities.operations.EolLineScanner;
 import org.codehaus.plexus.util.FileUtils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 
 /**
  * Adds a new line to the end of a file.
@@ -49,6 +53,23 @@ public class AddLine extends TransformationOperation<AddLine> {
         return newLine;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
+    @Override
+    protected FusedStage createFusedStage(Reader content, File transformedAppFolder, TransformationContext transformationContext) {
+        File fileToBeModified = getAbsoluteFile(transformedAppFolder, transformationContext);
+        String details =  "A new line has been added to file " + getRelativePath(transformedAppFolder, fileToBeModified);
+        return new AddLineStage(content, details);
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, newLine, getRelativePath());
@@ -67,8 +88,10 @@ public class AddLine extends TransformationOperation<AddLine> {
         TOExecutionResult result = null;
 
         try {
-            FileUtils.fileAppend(fileToBeModified.getAbsolutePath(), EolHelper.findEolDefaultToOs(fileToBeModified));
+            String eol = EolHelper.findEolDefaultToOs(fileToBeModified);
+            FileUtils.fileAppend(fileToBeModified.getAbsolutePath(), eol);
             FileUtils.fileAppend(fileToBeModified.getAbsolutePath(), newLine);
+            registerWrite((eol + newLine).getBytes().length);
             String details =  "A new line has been added to file " + getRelativePath(transformedAppFolder, fileToBeModified);
             result = TOExecutionResult.success(this, details);
         } catch (IOException e) {
@@ -78,4 +101,43 @@ public class AddLine extends TransformationOperation<AddLine> {
         return result;
     }
 
+    /*
+     * Copies the content, adding the new line to its end, after the first EOL character(s)
+     * found in the content, or the OS default ones, if none
+     */
+    private class AddLineStage extends LineStage {
+
+        private final String details;
+        private String eol = null;
+
+        private AddLineStage(Reader content, String details) {
+            super(content);
+            this.details = details;
+        }
+
+        @Override
+        protected boolean step(Writer writer) throws IOException {
+            EolLineScanner.Line currentLine = scanner.nextLineKeepEol();
+            if (currentLine != null) {
+                if (eol == null) {
+                    eol = currentLine.getEndEol();
+                    if (eol == null) {
+                        eol = System.lineSeparator();
+                    }
+                }
+                currentLine.writeTo(writer);
+                return true;
+            }
+            writer.write(eol == null ? System.lineSeparator() : eol);
+            writer.write(newLine);
+            return false;
+        }
+
+        @Override
+        protected TOExecutionResult createResult() {
+            return TOExecutionResult.success(AddLine.this, details);
+        }
+
+    }
+
 }
@@ -1,18 +1,16 @@
 package com.paypal.butterfly.utilities.operations.text;
 
+import com.paypal.butterfly.extensions.api.FusedStage;
 import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationOperation;
 import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
-import com.paypal.butterfly.utilities.operations.EolBufferedReader;
-import com.paypal.butterfly.utilities.operations.EolHelper;
+import com.paypal.butterfly.utilities.operations.EolLineScanner;
+import com.paypal.butterfly.utilities.operations.FastMatcher;
+import com.paypal.butterfly.utilities.operations.FastPattern;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Pattern;
-
-import static com.paypal.butterfly.utilities.operations.EolHelper.getEndEol;
-import static com.paypal.butterfly.utilities.operations.EolHelper.removeEol;
 
 /**
  * Inserts new line(s) into a text file.
@@ -193,6 +191,23 @@ public class InsertLine extends TransformationOperation<InsertLine> {
         return this;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
+    @Override
+    protected FusedStage createFusedStage(Reader content, File transformedAppFolder, TransformationContext transformationContext) {
+        // Resolving the file, used in the execution result details
+        getAbsoluteFile(transformedAppFolder, transformationContext);
+        return new InsertLineStage(content);
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, getRelativePath());
@@ -209,37 +224,16 @@ public class InsertLine extends TransformationOperation<InsertLine> {
             return TOExecutionResult.error(this, ex);
         }
 
-        BufferedReader reader = null;
+        Reader reader = null;
         BufferedWriter writer = null;
         TOExecutionResult result = null;
 
         try {
-            final String eol = EolHelper.findEolDefaultToOs(fileToBeChanged);
-            File readFile = getOrCreateReadFile(transformedAppFolder, transformationContext);
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream(readFile), StandardCharsets.UTF_8));
-            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileToBeChanged), StandardCharsets.UTF_8));
+            File writeFile = getOrCreateWriteFile(transformedAppFolder, transformationContext);
+            reader = new InputStreamReader(new FileInputStream(fileToBeChanged), StandardCharsets.UTF_8);
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(writeFile), StandardCharsets.UTF_8));
 
-            switch (insertionMode) {
-                case LINE_NUMBER:
-                    result = insertAtSpecificLine(reader, writer, eol);
-                    break;
-                case REGEX_FIRST:
-                    result = insertRegex(reader, writer, true, true, eol);
-                    break;
-                case REGEX_ALL:
-                    result = insertRegex(reader, writer, false, true, eol);
-                    break;
-                case REGEX_BEFORE_FIRST:
-                    result = insertRegex(reader, writer, true, false, eol);
-                    break;
-                case REGEX_BEFORE_ALL:
-                    result = insertRegex(reader, writer, false, false, eol);
-                    break;
-                default:
-                case CONCAT:
-                    result = concat(reader, writer, eol);
-                    break;
-            }
+            result = new InsertLineStage(reader).writeAllTo(writer);
         } catch (IOException e) {
             result = TOExecutionResult.error(this, e);
         } finally {
@@ -258,85 +252,148 @@ public class InsertLine extends TransformationOperation<InsertLine> {
             }
         }
 
-        return result;
+        return commitWriteFile(result);
     }
 
-    private TOExecutionResult insertAtSpecificLine(BufferedReader reader, BufferedWriter writer, String eol) throws IOException {
-        String currentLine;
-        int n = 0;
-        EolBufferedReader eolReader = new EolBufferedReader(reader);
-        boolean newLineInserted = false;
-        while((currentLine = eolReader.readLineKeepEol()) != null) {
+    /*
+     * Inserts the new line according to the insertion mode. The EOL character(s) used
+     * for the new line are the first ones found in the content, or the OS default ones, if none
+     */
+    private class InsertLineStage extends LineStage {
+
+        private final FastMatcher matcher = (insertionMode.equals(InsertionMode.CONCAT) || insertionMode.equals(InsertionMode.LINE_NUMBER) ? null : FastPattern.compile(regex).matcher());
+        private String eol = null;
+        private int n = 0;
+        private boolean foundFirstMatch = false;
+        private boolean newLineInserted = false;
+        private boolean firstLine = true;
+
+        private InsertLineStage(Reader content) {
+            super(content);
+        }
+
+        @Override
+        protected boolean step(Writer writer) throws IOException {
+            switch (insertionMode) {
+                case LINE_NUMBER:
+                    return insertAtSpecificLine(writer);
+                case REGEX_FIRST:
+                    return insertRegex(writer, true, true);
+                case REGEX_ALL:
+                    return insertRegex(writer, false, true);
+                case REGEX_BEFORE_FIRST:
+                    return insertRegex(writer, true, false);
+                case REGEX_BEFORE_ALL:
+                    return insertRegex(writer, false, false);
+                default:
+                case CONCAT:
+                    return concat(writer);
+            }
+        }
+
+        /*
+         * Reads the next line, keeping its EOL character(s) in its end,
+         * also finding out the EOL character(s) to be used, if that is the first line
+         */
+        private EolLineScanner.Line nextLineKeepEol() throws IOException {
+            EolLineScanner.Line currentLine = scanner.nextLineKeepEol();
+            if (firstLine && currentLine != null) {
+                eol = currentLine.getEndEol();
+                if (eol == null) {
+                    eol = System.lineSeparator();
+                }
+                firstLine = false;
+            }
+            return currentLine;
+        }
+
+        private boolean insertAtSpecificLine(Writer writer) throws IOException {
+            EolLineScanner.Line currentLine = nextLineKeepEol();
+            if (currentLine == null) {
+                return false;
+            }
             n++;
             if (n == lineNumber) {
                 writer.write(newLine);
                 writer.write(eol);
                 newLineInserted = true;
             }
-            writer.write(currentLine);
+            currentLine.writeTo(writer);
+            return true;
         }
 
-        String details;
-        if (newLineInserted) {
-            details = String.format("A new line has been inserted into %s after line number %d", getRelativePath(), lineNumber);
-            return TOExecutionResult.success(this, details);
-        } else {
-            details = String.format("No line has been inserted into %s because line number does not exist %d", getRelativePath(), lineNumber);
-            return TOExecutionResult.noOp(this, details);
-        }
-    }
-
-    private TOExecutionResult insertRegex(BufferedReader reader, BufferedWriter writer, boolean firstOnly, boolean insertAfter, String eol) throws IOException {
-        String currentLine;
-        int n = 0;
-        boolean foundFirstMatch = false;
-        final Pattern pattern = Pattern.compile(regex);
-        EolBufferedReader eolReader = new EolBufferedReader(reader);
-
-        while((currentLine = eolReader.readLineKeepEol()) != null) {
+        private boolean insertRegex(Writer writer, boolean firstOnly, boolean insertAfter) throws IOException {
+            EolLineScanner.Line currentLine = nextLineKeepEol();
+            if (currentLine == null) {
+                return false;
+            }
             if (insertAfter) {
-                writer.write(currentLine);
+                currentLine.writeTo(writer);
             }
-            if((!firstOnly || !foundFirstMatch) && pattern.matcher(removeEol(currentLine)).matches()) {
+            if((!firstOnly || !foundFirstMatch) && matcher.matches(currentLine.withoutEol())) {
                 foundFirstMatch = true;
                 n++;
-                if (insertAfter && getEndEol(currentLine) == null) {
+                if (insertAfter && !currentLine.endsWithEol()) {
                     writer.write(eol);
                 }
                 writer.write(newLine);
                 writer.write(eol);
             }
             if (!insertAfter) {
-                writer.write(currentLine);
+                currentLine.writeTo(writer);
             }
+            return true;
         }
 
-        String details;
-        if (foundFirstMatch) {
-            details = String.format("New line(s) has been inserted into %s %s %d line(s) that matches regular expression '%s'", getRelativePath(), (insertAfter? "after": "before"), n, regex);
-            return TOExecutionResult.success(this, details);
-        } else {
-            details = String.format("No new line has been inserted into %s, since no line has been found to match regular expression '%s'", getRelativePath(), regex);
-            return TOExecutionResult.noOp(this, details);
+        private boolean concat(Writer writer) throws IOException {
+            EolLineScanner.Line currentLine = scanner.nextLineKeepStartEol();
+            if (currentLine != null) {
+                if (eol == null) {
+                    // Only the first line might not start with EOL character(s)
+                    eol = currentLine.getStartEol();
+                }
+                currentLine.writeTo(writer);
+                firstLine = false;
+                return true;
+            }
+            if(!firstLine) {
+                writer.write(eol == null ? System.lineSeparator() : eol);
+            }
+            writer.write(newLine);
+            return false;
         }
-    }
 
-    private TOExecutionResult concat(BufferedReader reader, BufferedWriter writer, String eol) throws IOException {
-        String currentLine;
-        boolean firstLine = true;
-        EolBufferedReader eolReader = new EolBufferedReader(reader);
-
-        while((currentLine = eolReader.readLineKeepStartEol()) != null) {
-            writer.write(currentLine);
-            firstLine = false;
-        }
-        if(!firstLine) {
-            writer.write(eol);
+        @Override
+        protected TOExecutionResult createResult() {
+            String details;
+            switch (insertionMode) {
+                case LINE_NUMBER:
+                    if (newLineInserted) {
+                        details = String.format("A new line has been inserted into %s after line number %d", getRelativePath(), lineNumber);
+                        return TOExecutionResult.success(InsertLine.this, details);
+                    } else {
+                        details = String.format("No line has been inserted into %s because line number does not exist %d", getRelativePath(), lineNumber);
+                        return TOExecutionResult.noOp(InsertLine.this, details);
+                    }
+                case REGEX_FIRST:
+                case REGEX_ALL:
+                case REGEX_BEFORE_FIRST:
+                case REGEX_BEFORE_ALL:
+                    boolean insertAfter = insertionMode.equals(InsertionMode.REGEX_FIRST) || insertionMode.equals(InsertionMode.REGEX_ALL);
+                    if (foundFirstMatch) {
+                        details = String.format("New line(s) has been inserted into %s %s %d line(s) that matches regular expression '%s'", getRelativePath(), (insertAfter? "after": "before"), n, regex);
+                        return TOExecutionResult.success(InsertLine.this, details);
+                    } else {
+                        details = String.format("No new line has been inserted into %s, since no line has been found to match regular expression '%s'", getRelativePath(), regex);
+                        return TOExecutionResult.noOp(InsertLine.this, details);
+                    }
+                default:
+                case CONCAT:
+                    details = String.format("A new line has been inserted into %s at the end of the file", getRelativePath());
+                    return TOExecutionResult.success(InsertLine.this, details);
+            }
         }
-        writer.write(newLine);
 
-        String details = String.format("A new line has been inserted into %s at the end of the file", getRelativePath());
-        return TOExecutionResult.success(this, details);
     }
 
 }
@@ -4,16 +4,14 @@ import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationOperation;
 import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
-import com.paypal.butterfly.utilities.operations.EolBufferedReader;
+import com.paypal.butterfly.utilities.operations.EolLineScanner;
 import com.paypal.butterfly.utilities.operations.EolHelper;
+import com.paypal.butterfly.utilities.operations.FastMatcher;
+import com.paypal.butterfly.utilities.operations.FastPattern;
 
 import java.io.*;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Pattern;
-
-import static com.paypal.butterfly.utilities.operations.EolHelper.getEndEol;
-import static com.paypal.butterfly.utilities.operations.EolHelper.removeEol;
 
 /**
  * Inserts text from one file into another text file.
@@ -173,6 +171,11 @@ public class InsertText extends TransformationOperation<InsertText> {
         return this;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, textFileUrl.getFile(), getRelativePath());
@@ -197,10 +200,10 @@ public class InsertText extends TransformationOperation<InsertText> {
         try {
             final String eol = EolHelper.findEolDefaultToOs(fileToBeChanged);
 
-            File readFile = getOrCreateReadFile(transformedAppFolder, transformationContext);
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream(readFile), StandardCharsets.UTF_8));
+            File writeFile = getOrCreateWriteFile(transformedAppFolder, transformationContext);
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileToBeChanged), StandardCharsets.UTF_8));
             readerText = new BufferedReader(new InputStreamReader(textFileUrl.openStream(), StandardCharsets.UTF_8));
-            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileToBeChanged), StandardCharsets.UTF_8));
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(writeFile), StandardCharsets.UTF_8));
 
             switch (insertionMode) {
                 case LINE_NUMBER:
@@ -241,21 +244,22 @@ public class InsertText extends TransformationOperation<InsertText> {
             }
         }
 
-        return result;
+        return commitWriteFile(result);
     }
 
     private TOExecutionResult insertAtSpecificLine(BufferedReader readerText, BufferedReader readerOriginalFile, BufferedWriter writer, String eol) throws IOException {
         String currentLine;
+        EolLineScanner.Line currentOriginalLine;
         int n = 1;
-        EolBufferedReader eolReaderOriginalFile = new EolBufferedReader(readerOriginalFile);
+        EolLineScanner eolScannerOriginalFile = new EolLineScanner(readerOriginalFile);
         boolean textInserted = false;
 
         for (; n < lineNumber; n++) {
-            currentLine = eolReaderOriginalFile.readLineKeepEol();
-            if (currentLine == null) {
+            currentOriginalLine = eolScannerOriginalFile.nextLineKeepEol();
+            if (currentOriginalLine == null) {
                 break;
             }
-            writer.write(currentLine);
+            currentOriginalLine.writeTo(writer);
         }
         if (n == lineNumber) {
             textInserted = true;
@@ -264,8 +268,8 @@ public class InsertText extends TransformationOperation<InsertText> {
                 writer.write(eol);
             }
         }
-        while((currentLine = eolReaderOriginalFile.readLineKeepEol()) != null) {
-            writer.write(currentLine);
+        while((currentOriginalLine = eolScannerOriginalFile.nextLineKeepEol()) != null) {
+            currentOriginalLine.writeTo(writer);
         }
 
         if (textInserted) {
@@ -279,22 +283,23 @@ public class InsertText extends TransformationOperation<InsertText> {
 
     private TOExecutionResult insertAfterRegex(BufferedReader readerText, BufferedReader readerOriginalFile, BufferedWriter writer, boolean firstOnly, String eol) throws IOException {
         String currentLine;
+        EolLineScanner.Line currentOriginalLine;
         int n = 0;
         boolean foundFirstMatch = false;
-        final Pattern pattern = Pattern.compile(regex);
-        EolBufferedReader eolReaderOriginalFile = new EolBufferedReader(readerOriginalFile);
+        final FastMatcher matcher = FastPattern.compile(regex).matcher();
+        EolLineScanner eolScannerOriginalFile = new EolLineScanner(readerOriginalFile);
         StringBuilder readerTextStringBuilder = null;
         String readerTextString = null;
         if (!firstOnly) {
             readerTextStringBuilder = new StringBuilder();
         }
 
-        while((currentLine = eolReaderOriginalFile.readLineKeepEol()) != null) {
-            writer.write(currentLine);
-            if((!firstOnly || !foundFirstMatch) && pattern.matcher(removeEol(currentLine)).matches()) {
+        while((currentOriginalLine = eolScannerOriginalFile.nextLineKeepEol()) != null) {
+            currentOriginalLine.writeTo(writer);
+            if((!firstOnly || !foundFirstMatch) && matcher.matches(currentOriginalLine.withoutEol())) {
                 foundFirstMatch = true;
                 n++;
-                if (getEndEol(currentLine) == null) {
+                if (!currentOriginalLine.endsWithEol()) {
                     writer.write(eol);
                 }
                 if (n == 1) {
@@ -326,11 +331,12 @@ public class InsertText extends TransformationOperation<InsertText> {
 
     private TOExecutionResult concat(BufferedReader readerText, BufferedReader readerOriginalFile, BufferedWriter writer, String eol) throws IOException {
         String currentLine;
-        EolBufferedReader eolReaderOriginalFile = new EolBufferedReader(readerOriginalFile);
+        EolLineScanner.Line currentOriginalLine;
+        EolLineScanner eolScannerOriginalFile = new EolLineScanner(readerOriginalFile);
         boolean lastLineEndsWithEol = true;
-        while((currentLine = eolReaderOriginalFile.readLineKeepEol()) != null) {
-            writer.write(currentLine);
-            lastLineEndsWithEol = EolHelper.endsWithEol(currentLine);
+        while((currentOriginalLine = eolScannerOriginalFile.nextLineKeepEol()) != null) {
+            currentOriginalLine.writeTo(writer);
+            lastLineEndsWithEol = currentOriginalLine.endsWithEol();
         }
         if (!lastLineEndsWithEol) {
             writer.write(eol);
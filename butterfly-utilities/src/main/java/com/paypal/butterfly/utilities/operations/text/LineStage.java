@@ -0,0 +1,152 @@
+package com.paypal.butterfly.utilities.operations.text;
+
+import com.paypal.butterfly.extensions.api.FusedStage;
+import com.paypal.butterfly.extensions.api.TOExecutionResult;
+import com.paypal.butterfly.utilities.operations.EolLineScanner;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Applies a text operation to a text content, line by line, as it is read.
+ * <br>
+ * It can either write the whole modified content straight to a writer,
+ * when the operation is performed on its own (see {@link #writeAllTo(Writer)}),
+ * or be read as a {@link java.io.Reader}, when the operation is fused with adjacent
+ * ones against the same file. Both ways produce the exact same content and result.
+ *
+ * @author facarvalho
+ */
+abstract class LineStage extends FusedStage {
+
+    protected final EolLineScanner scanner;
+
+    // Content produced by the last step, not read yet
+    private final PendingWriter pending = new PendingWriter();
+
+    private boolean done = false;
+
+    private TOExecutionResult result;
+
+    LineStage(Reader content) {
+        scanner = new EolLineScanner(content);
+    }
+
+    /**
+     * Reads the next line from {@link #scanner}, writing the modified content to {@code writer}
+     *
+     * @param writer where the modified content should be written to
+     * @return false if there was no line left to be read, after writing anything that goes in the end of the content
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract boolean step(Writer writer) throws IOException;
+
+    /**
+     * Creates the operation execution result, called once all lines have been read
+     *
+     * @return the operation execution result
+     */
+    protected abstract TOExecutionResult createResult();
+
+    /**
+     * Writes the whole modified content to the given writer, returning the operation execution result
+     *
+     * @param writer where the modified content should be written to
+     * @return the operation execution result
+     * @throws IOException if an I/O error occurs
+     */
+    final TOExecutionResult writeAllTo(Writer writer) throws IOException {
+        while (!done) {
+            advance(writer);
+        }
+        return result;
+    }
+
+    private void advance(Writer writer) throws IOException {
+        if (!step(writer)) {
+            done = true;
+            result = createResult();
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (pending.isEmpty()) {
+            if (done) {
+                return -1;
+            }
+            pending.clear();
+            advance(pending);
+        }
+        return pending.drain(cbuf, off, len);
+    }
+
+    @Override
+    public TOExecutionResult getResult() {
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        scanner.close();
+    }
+
+    /*
+     * Writer keeping the content produced by one step, until it is read
+     */
+    private static class PendingWriter extends Writer {
+
+        private char[] buffer = new char[256];
+        private int start = 0;
+        private int end = 0;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            if (end + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, end + len));
+            }
+            System.arraycopy(cbuf, off, buffer, end, len);
+            end += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            if (end + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, end + len));
+            }
+            str.getChars(off, off + len, buffer, end);
+            end += len;
+        }
+
+        private boolean isEmpty() {
+            return start == end;
+        }
+
+        private void clear() {
+            start = 0;
+            end = 0;
+        }
+
+        private int drain(char[] cbuf, int off, int len) {
+            int n = Math.min(len, end - start);
+            System.arraycopy(buffer, start, cbuf, off, n);
+            start += n;
+            return n;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
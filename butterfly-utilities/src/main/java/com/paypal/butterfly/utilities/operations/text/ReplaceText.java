@@ -1,16 +1,18 @@
 package com.paypal.butterfly.utilities.operations.text;
 
+import com.paypal.butterfly.extensions.api.FusedStage;
 import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationOperation;
 import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
-import com.paypal.butterfly.utilities.operations.EolBufferedReader;
+import com.paypal.butterfly.utilities.operations.EolLineScanner;
+import com.paypal.butterfly.utilities.operations.FastMatcher;
+import com.paypal.butterfly.utilities.operations.FastPattern;
+import com.paypal.butterfly.utilities.operations.PatternCache;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Pattern;
-
-import static com.paypal.butterfly.utilities.operations.EolHelper.removeEol;
+import java.util.regex.Matcher;
 
 /**
  * Replaces text in a text file
@@ -113,6 +115,28 @@ public class ReplaceText extends TransformationOperation<ReplaceText> {
         return firstOnly;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
+    @Override
+    public boolean isWorkingSetAware() {
+        return true;
+    }
+
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
+    @Override
+    protected FusedStage createFusedStage(Reader content, File transformedAppFolder, TransformationContext transformationContext) {
+        // Resolving the file, used in the execution result details
+        getAbsoluteFile(transformedAppFolder, transformationContext);
+        return new ReplaceTextStage(content);
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, getRelativePath(), regex);
@@ -130,15 +154,19 @@ public class ReplaceText extends TransformationOperation<ReplaceText> {
             return TOExecutionResult.error(this, toex);
         }
 
-        BufferedReader reader = null;
+        Reader reader = null;
         BufferedWriter writer = null;
         TOExecutionResult result = null;
 
         try {
-            File readFile = getOrCreateReadFile(transformedAppFolder, transformationContext);
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream(readFile), StandardCharsets.UTF_8));
-            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileToBeChanged), StandardCharsets.UTF_8));
-            result = replace(reader, writer);
+            byte[] content = readFileContent(fileToBeChanged, transformationContext);
+            reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length);
+            writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            result = new ReplaceTextStage(reader).writeAllTo(writer);
+
+            writer.flush();
+            writeFileContent(fileToBeChanged, outputStream.toByteArray(), transformationContext);
         } catch (IOException e) {
             result = TOExecutionResult.error(this,  new TransformationOperationException("Could not replace text", e));
         } finally {
@@ -160,31 +188,49 @@ public class ReplaceText extends TransformationOperation<ReplaceText> {
         return result;
     }
 
-    private TOExecutionResult replace(BufferedReader reader, BufferedWriter writer) throws IOException {
-        String currentLine;
-        int n = 0;
-        boolean foundFirstMatch = false;
-        final Pattern pattern = Pattern.compile("(.*)" + regex + "(.*)");
-        EolBufferedReader eolReader = new EolBufferedReader(reader);
-        while((currentLine = eolReader.readLineKeepStartEol()) != null) {
-            if((!firstOnly || !foundFirstMatch) && pattern.matcher(removeEol(currentLine)).matches()) {
+    /*
+     * Replaces text in the line(s) that match the regular expression
+     */
+    private class ReplaceTextStage extends LineStage {
+
+        private final FastMatcher matcher = FastPattern.compile("(.*)" + regex + "(.*)").matcher();
+        private final Matcher replacer = PatternCache.compile(regex).matcher("");
+        private int n = 0;
+        private boolean foundFirstMatch = false;
+
+        private ReplaceTextStage(Reader content) {
+            super(content);
+        }
+
+        @Override
+        protected boolean step(Writer writer) throws IOException {
+            EolLineScanner.Line currentLine = scanner.nextLineKeepStartEol();
+            if (currentLine == null) {
+                return false;
+            }
+            if((!firstOnly || !foundFirstMatch) && matcher.matches(currentLine.withoutEol())) {
                 foundFirstMatch = true;
                 n++;
-                currentLine = currentLine.replaceAll(regex, replacement);
+                writer.write(replacer.reset(currentLine).replaceAll(replacement));
+                return true;
             }
-            writer.write(currentLine);
+            currentLine.writeTo(writer);
+            return true;
         }
 
-        String details = String.format("File %s has had %d line(s) where text replacement was applied based on regular expression '%s'", getRelativePath(), n, regex);
-        TOExecutionResult result;
-        if (n > 0) {
-            result = TOExecutionResult.success(this, details);
-        } else {
-            result = TOExecutionResult.noOp(this, details);
+        @Override
+        protected TOExecutionResult createResult() {
+            String details = String.format("File %s has had %d line(s) where text replacement was applied based on regular expression '%s'", getRelativePath(), n, regex);
+            TOExecutionResult result;
+            if (n > 0) {
+                result = TOExecutionResult.success(ReplaceText.this, details);
+            } else {
+                result = TOExecutionResult.noOp(ReplaceText.this, details);
+            }
+
+            return result;
         }
 
-        return result;
     }
 
-
 }
@@ -0,0 +1,223 @@
+package com.paypal.butterfly.utilities.operations.xml;
+
+import com.paypal.butterfly.extensions.api.TOExecutionResult;
+import com.paypal.butterfly.extensions.api.TUExecutionResult;
+import com.paypal.butterfly.extensions.api.TransformationContext;
+import com.paypal.butterfly.extensions.api.TransformationOperation;
+import com.paypal.butterfly.extensions.api.TransformationUtility;
+import com.paypal.butterfly.extensions.api.TransformationUtilityParent;
+import com.paypal.butterfly.extensions.api.XmlParserPool;
+import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
+import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Applies an ordered list of XPath based XML operations ({@link XmlXPathReplace} and {@link XmlXPathInsert})
+ * against the same XML file, parsing the file once, applying all operations to the same DOM document,
+ * and writing it only once, instead of parsing and writing the whole file once per operation.
+ * The document is written the same way {@link XmlXPathReplace} writes it when it is not streamed,
+ * and only if at least one operation has changed it.
+ * <br>
+ * Every member operation is still performed regularly, right after this session,
+ * getting its own execution result out of the session. The file is modified when the first
+ * one of them is performed. If a member operation results in error, it does not change the document,
+ * and, if it is set to abort on failure, the operations after it are not applied.
+ * If the session fails for any other reason, the file is left untouched, and every member operation
+ * is executed on its own, as if it had never been part of the session.
+ * <br>
+ * Member operations are all performed against the file set to this session, regardless
+ * of any file set to them, and they cannot have dependencies or conditions.
+ * This session has to be added to a transformation template, or another utilities parent,
+ * before member operations are added to it.
+ *
+ * @author facarvalho
+ */
+public class XmlEditSession extends TransformationUtility<XmlEditSession> implements TransformationUtilityParent {
+
+    private static final Logger logger = LoggerFactory.getLogger(XmlEditSession.class);
+
+    private static final String DESCRIPTION = "Apply %d XML operations to XML file %s at once";
+
+    private List<TransformationUtility> operations = new ArrayList<>();
+
+    private boolean performed = false;
+
+    // Null if the session has failed
+    private List<TOExecutionResult> results;
+
+    /**
+     * Applies an ordered list of XPath based XML operations against the same XML file, parsing
+     * the file once, applying all operations to the same DOM document, and writing it only once.
+     * See {@link XmlEditSession} for further details.
+     */
+    public XmlEditSession() {
+    }
+
+    /**
+     * Adds a XML operation to this session, to be applied after the ones added before it.
+     * Any file set to the given operation is ignored
+     *
+     * @param operation the XML operation to be added
+     * @return this transformation utility instance
+     * @throws TransformationDefinitionException if this session has not been added to a parent yet,
+     * or if the given operation is not a XML operation that can be part of a session
+     */
+    public XmlEditSession add(TransformationOperation operation) {
+        if (getParent() == null) {
+            String exceptionMessage = String.format("Invalid attempt to add XML operation to XML edit session. This session has to be added to a transformation utilities parent first.");
+            throw new TransformationDefinitionException(exceptionMessage);
+        }
+        if (!(operation instanceof XmlXPathReplace) && !(operation instanceof XmlXPathInsert)) {
+            String exceptionMessage = String.format("Invalid attempt to add %s to XML edit session %s, it is not a XPath based XML operation", operation.getClass().getName(), getName());
+            throw new TransformationDefinitionException(exceptionMessage);
+        }
+        if (operation.getParent() != null) {
+            String exceptionMessage = String.format("Invalid attempt to add already registered transformation operation %s to XML edit session %s", operation.getName(), getName());
+            throw new TransformationDefinitionException(exceptionMessage);
+        }
+
+        int order;
+        synchronized (this) {
+            operations.add(operation);
+            order = operations.size();
+        }
+        operation.setParent(this, order);
+
+        return this;
+    }
+
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format(DESCRIPTION, operations.size(), getRelativePath());
+    }
+
+    @Override
+    public List<TransformationUtility> getChildren() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    @Override
+    protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+        File xmlFile = getAbsoluteFile(transformedAppFolder, transformationContext);
+        String relativeXmlFile = getRelativePath(transformedAppFolder, xmlFile);
+        if (relativeXmlFile.equals(xmlFile.getAbsolutePath())) {
+            String exceptionMessage = String.format("XML file %s is not in the transformed application folder", xmlFile.getAbsolutePath());
+            return TUExecutionResult.error(this, new TransformationUtilityException(exceptionMessage));
+        }
+        if (relativeXmlFile.startsWith(File.separator)) {
+            relativeXmlFile = relativeXmlFile.substring(1);
+        }
+        for (TransformationUtility operation : operations) {
+            if (!operation.getReferencedResults().isEmpty()
+                    || operation.getIfConditionAttributeName() != null
+                    || operation.getUnlessConditionAttributeName() != null
+                    || operation.getUtilityCondition() != null) {
+                String exceptionMessage = String.format("XML operation %s cannot have dependencies or conditions, since it is part of XML edit session %s", operation.getName(), getName());
+                return TUExecutionResult.error(this, new TransformationUtilityException(exceptionMessage));
+            }
+        }
+
+        for (int i = 0; i < operations.size(); i++) {
+            TransformationOperation<?> operation = (TransformationOperation<?>) operations.get(i);
+            operation.absolute((String) null);
+            operation.relative(relativeXmlFile);
+
+            int operationIndex = i;
+            operation.setFusedResultSupplier(() -> getResult(operationIndex, xmlFile, transformationContext));
+        }
+
+        return TUExecutionResult.value(this, getChildren());
+    }
+
+    /*
+     * Returns the execution result of the operation at the given index,
+     * applying the session first if not applied yet. Returns null if the session has failed,
+     * or if the operation has not been applied
+     */
+    private synchronized TOExecutionResult getResult(int index, File xmlFile, TransformationContext transformationContext) {
+        if (!performed) {
+            performed = true;
+            try {
+                results = apply(operations.get(index), xmlFile, transformationContext);
+            } catch (Exception e) {
+                logger.warn("XML edit session " + getName() + " failed, its operations will be applied one by one", e);
+                results = null;
+            }
+        }
+        return (results == null || index >= results.size() ? null : results.get(index));
+    }
+
+    /*
+     * Applies all operations to the XML file DOM document, writing it on behalf of
+     * the operation being currently performed, returning their execution results
+     */
+    private List<TOExecutionResult> apply(TransformationUtility performer, File xmlFile, TransformationContext transformationContext) throws IOException, SAXException, TransformerException {
+        // Not read from the transformation document cache, since its copies would not keep the original XML encoding
+        Document doc = XmlParserPool.getDocumentBuilder().parse(xmlFile);
+
+        List<TOExecutionResult> results = new ArrayList<>();
+        int lastChange = -1;
+
+        for (TransformationUtility operation : operations) {
+            TOExecutionResult result;
+            if (operation instanceof XmlXPathReplace) {
+                result = ((XmlXPathReplace) operation).sessionExecution(doc, transformationContext);
+            } else {
+                result = ((XmlXPathInsert) operation).sessionExecution(doc, transformationContext);
+            }
+            results.add(result);
+            if (result.getType().equals(TOExecutionResult.Type.SUCCESS)) {
+                lastChange = results.size() - 1;
+            }
+            if (result.getType().equals(TOExecutionResult.Type.ERROR) && operation.isAbortOnFailure()) {
+                break;
+            }
+        }
+
+        if (lastChange != -1) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) xmlFile.length() + 1024);
+            XmlParserPool.getTransformer().transform(new DOMSource(doc), new StreamResult(outputStream));
+            byte[] content = outputStream.toByteArray();
+            boolean written = (performer instanceof XmlXPathReplace ? ((XmlXPathReplace) performer).sessionWrite(xmlFile, content, transformationContext) : ((XmlXPathInsert) performer).sessionWrite(xmlFile, content, transformationContext));
+            if (written) {
+                results.get(lastChange).addWrites(1, content.length);
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public XmlEditSession clone() {
+        XmlEditSession sessionClone = super.clone();
+        sessionClone.operations = new ArrayList<>();
+        sessionClone.performed = false;
+        sessionClone.results = null;
+        for (TransformationUtility operation : operations) {
+            TransformationUtility operationClone = operation.clone();
+            operationClone.setParent(sessionClone, operation.getOrder());
+            sessionClone.operations.add(operationClone);
+        }
+
+        return sessionClone;
+    }
+
+}
@@ -0,0 +1,256 @@
+package com.paypal.butterfly.utilities.operations.xml;
+
+import com.paypal.butterfly.extensions.api.TOExecutionResult;
+import com.paypal.butterfly.extensions.api.TransformationContext;
+import com.paypal.butterfly.extensions.api.TransformationOperation;
+import com.paypal.butterfly.extensions.api.XmlParserPool;
+import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
+import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
+import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts a copy of the given {@link org.w3c.dom.Element} in an XML file,
+ * relative to every element selected by a given XPath expression.
+ * <br>
+ * It has the following insertion modes:
+ * <ol>
+ *     <li>InsertionMode.CHILD: As the last child of every selected element (default)</li>
+ *     <li>InsertionMode.BEFORE: Right before every selected element</li>
+ *     <li>InsertionMode.AFTER: Right after every selected element</li>
+ * </ol>
+ * See {@link #setInsertionMode(InsertionMode)}.
+ * <br>
+ * Nodes selected by the XPath expression that are not elements are ignored,
+ * and elements cannot be inserted before or after the root element.
+ * If no element is selected, a {@link com.paypal.butterfly.extensions.api.TOExecutionResult.Type#NO_OP} is returned.
+ * If the XPath expression doesn't compile, or if the file is not a well formed XML file, an error is returned.
+ *
+ * @see InsertionMode
+ * @author facarvalho
+ */
+public class XmlXPathInsert extends TransformationOperation<XmlXPathInsert> {
+
+    /**
+     * The insertion mode, relative to every element selected by the XPath expression
+     * <ol>
+     *     <li>InsertionMode.CHILD: As the last child of every selected element (default)</li>
+     *     <li>InsertionMode.BEFORE: Right before every selected element</li>
+     *     <li>InsertionMode.AFTER: Right after every selected element</li>
+     * </ol>
+     */
+    public enum InsertionMode {
+        CHILD,
+        BEFORE,
+        AFTER
+    }
+
+    private static final String DESCRIPTION = "Insert user supplied XML Element %s every element that matches XPath %s in XML file %s";
+
+    private String xpathExpressionString;
+    private XPathExpression xpathExpression;
+    private Element element;
+    private InsertionMode insertionMode = InsertionMode.CHILD;
+
+    /**
+     * Inserts a copy of the given {@link org.w3c.dom.Element} in an XML file,
+     * as the last child of every element selected by a given XPath expression.
+     * See {@link XmlXPathInsert} for further details.
+     *
+     * @param xpathExpressionString a String that compiles into a {@link javax.xml.xpath.XPathExpression}
+     * @param element the {@link org.w3c.dom.Element} to be inserted
+     */
+    public XmlXPathInsert(String xpathExpressionString, Element element) {
+        setXPathExpression(xpathExpressionString);
+        setElement(element);
+    }
+
+    /**
+     * Inserts a copy of the given {@link org.w3c.dom.Element} in an XML file,
+     * relative to every element selected by a given XPath expression, according to the given insertion mode.
+     * See {@link XmlXPathInsert} for further details.
+     *
+     * @param xpathExpressionString a String that compiles into a {@link javax.xml.xpath.XPathExpression}
+     * @param element the {@link org.w3c.dom.Element} to be inserted
+     * @param insertionMode the insertion mode
+     */
+    public XmlXPathInsert(String xpathExpressionString, Element element, InsertionMode insertionMode) {
+        this(xpathExpressionString, element);
+        setInsertionMode(insertionMode);
+    }
+
+    /**
+     * The {@link javax.xml.xpath.XPathExpression} whose evaluation finds the
+     * elements the given element is inserted relative to
+     *
+     * @param xpathExpressionString a String that compiles into a {@link javax.xml.xpath.XPathExpression}
+     * @return this instance
+     */
+    public XmlXPathInsert setXPathExpression(String xpathExpressionString) {
+        checkForBlankString("XPath Expression", xpathExpressionString);
+        try {
+            this.xpathExpression = XmlParserPool.getXPath().compile(xpathExpressionString);
+        } catch (XPathExpressionException e) {
+            throw new TransformationDefinitionException("XPath expression '" + xpathExpressionString + "' didn't compile correctly.");
+        }
+        this.xpathExpressionString = xpathExpressionString;
+        return this;
+    }
+
+    /**
+     * The {@link org.w3c.dom.Element} to be inserted
+     *
+     * @param element the {@link org.w3c.dom.Element} to be inserted
+     * @return this instance
+     */
+    public XmlXPathInsert setElement(Element element) {
+        checkForNull("Element", element);
+        this.element = element;
+        return this;
+    }
+
+    /**
+     * Sets the insertion mode
+     *
+     * @param insertionMode the insertion mode
+     * @return this instance
+     */
+    public XmlXPathInsert setInsertionMode(InsertionMode insertionMode) {
+        checkForNull("Insertion Mode", insertionMode);
+        this.insertionMode = insertionMode;
+        return this;
+    }
+
+    public String getXPathExpression() {
+        return xpathExpressionString;
+    }
+
+    public Element getElement() {
+        return element;
+    }
+
+    public InsertionMode getInsertionMode() {
+        return insertionMode;
+    }
+
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        String position = (insertionMode == InsertionMode.CHILD ? "as last child of" : insertionMode.name().toLowerCase());
+        return String.format(DESCRIPTION, position, xpathExpressionString, getRelativePath());
+    }
+
+    @Override
+    protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
+        File fileToBeChanged = getAbsoluteFile(transformedAppFolder, transformationContext);
+        TOExecutionResult result;
+
+        try {
+            // Not read from the transformation document cache, since its copies would not keep the original XML encoding
+            Document doc = XmlParserPool.getDocumentBuilder().parse(fileToBeChanged);
+            int count = insert(doc);
+            if (count > 0) {
+                XmlParserPool.getTransformer().transform(new DOMSource(doc), new StreamResult(getOrCreateWriteFile(transformedAppFolder, transformationContext)));
+            }
+            result = getResult(count);
+        } catch (SAXException | IOException e) {
+            result = TOExecutionResult.error(this,
+                    new TransformationOperationException("File content could not be parsed properly in XML format", e));
+        } catch (TransformationOperationException | TransformerException e) {
+            result = TOExecutionResult.error(this, e);
+        } catch (XPathExpressionException e) {
+            result = TOExecutionResult.error(this,
+                    new TransformationOperationException("XPathExpression could not be evaluated correctly", e));
+        }
+
+        return commitWriteFile(result);
+    }
+
+    /*
+     * Inserts a copy of the element relative to every element selected in the given document,
+     * returning the number of selected elements
+     */
+    private int insert(Document doc) throws XPathExpressionException, TransformationOperationException {
+        NodeList nodes = (NodeList) xpathExpression.evaluate(doc, XPathConstants.NODESET);
+        List<Node> elements = new ArrayList<>();
+        for (int idx = 0; idx < nodes.getLength(); idx++) {
+            Node node = nodes.item(idx);
+            if (node.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+
+            // Checked before changing anything, so the document is left untouched in case of error
+            if (insertionMode != InsertionMode.CHILD && node.getParentNode().getNodeType() == Node.DOCUMENT_NODE) {
+                throw new TransformationOperationException("XML Element cannot be inserted " + insertionMode.name().toLowerCase() + " the root element");
+            }
+            elements.add(node);
+        }
+        for (Node node : elements) {
+            Node newNode = doc.importNode(element, true);
+            switch (insertionMode) {
+                case CHILD:
+                    node.appendChild(newNode);
+                    break;
+                case BEFORE:
+                    node.getParentNode().insertBefore(newNode, node);
+                    break;
+                case AFTER:
+                    node.getParentNode().insertBefore(newNode, node.getNextSibling());
+                    break;
+            }
+        }
+        return elements.size();
+    }
+
+    /*
+     * Applies this operation, as a member of a XML edit session, to the given DOM document (see XmlEditSession)
+     */
+    TOExecutionResult sessionExecution(Document doc, TransformationContext transformationContext) {
+        try {
+            applyPropertiesFromContext(transformationContext);
+            return getResult(insert(doc));
+        } catch (TransformationUtilityException e) {
+            return TOExecutionResult.error(this, e);
+        } catch (XPathExpressionException e) {
+            return TOExecutionResult.error(this,
+                    new TransformationOperationException("XPathExpression could not be evaluated correctly", e));
+        }
+    }
+
+    /*
+     * Writes the XML file on behalf of a XML edit session, while this operation is performed
+     */
+    boolean sessionWrite(File xmlFile, byte[] content, TransformationContext transformationContext) throws IOException {
+        return writeFileContent(xmlFile, content, transformationContext);
+    }
+
+    private TOExecutionResult getResult(int count) {
+        String details = String.format(
+                "File %s has had %d element(s) inserted based on xml xpath expression '%s'",
+                getRelativePath(), count, xpathExpressionString);
+        if (count > 0) {
+            return TOExecutionResult.success(this, details);
+        }
+        return TOExecutionResult.noOp(this, details);
+    }
+
+}
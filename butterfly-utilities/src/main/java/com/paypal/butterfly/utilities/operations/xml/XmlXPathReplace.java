@@ -3,26 +3,29 @@ package com.paypal.butterfly.utilities.operations.xml;
 import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationOperation;
+import com.paypal.butterfly.extensions.api.XmlParserPool;
 import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
 import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
+import com.paypal.butterfly.utilities.xml.StreamingXPath;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.*;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Modify an XML file based on a given XPath expression.
@@ -35,6 +38,11 @@ import java.io.IOException;
  * </ol>
  * <br>
  * If the XPath expression doesn't compile, or if the file is not a well formed XML file, an error is returned.
+ * <br>
+ * If the XPath expression is supported by {@link StreamingXPath}, the XML file is streamed,
+ * instead of parsed into a DOM, and only the selected nodes are changed, keeping the rest of the file as it is,
+ * except for the formatting inside tags. Removing attributes, replacing attributes by elements,
+ * and replacing nodes by elements that have namespaces, are always done using DOM though.
  *
  * @author mmcrockett
  */
@@ -44,6 +52,7 @@ public class XmlXPathReplace extends TransformationOperation<XmlXPathReplace> {
 
     private String xpathExpressionString;
     private XPathExpression xpathExpression;
+    private StreamingXPath streamingXPath;
     private Object replacementObject;
     private Mode mode;
 
@@ -98,6 +107,11 @@ public class XmlXPathReplace extends TransformationOperation<XmlXPathReplace> {
         setReplacementString(replacementString);
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         String description = null;
@@ -162,13 +176,13 @@ public class XmlXPathReplace extends TransformationOperation<XmlXPathReplace> {
     public XmlXPathReplace setXPathExpression(String xpathExpressionString) {
         checkForBlankString("XPath Expression", xpathExpressionString);
         this.xpathExpression = checkXPathCompile(xpathExpressionString);
+        this.streamingXPath = StreamingXPath.compile(xpathExpressionString);
         this.xpathExpressionString = xpathExpressionString;
         return this;
     }
 
     private XPathExpression checkXPathCompile(String expression) throws TransformationDefinitionException {
-        XPathFactory xpathFactory = XPathFactory.newInstance();
-        XPath xpath = xpathFactory.newXPath();
+        XPath xpath = XmlParserPool.getXPath();
         XPathExpression expr = null;
 
         try {
@@ -183,37 +197,24 @@ public class XmlXPathReplace extends TransformationOperation<XmlXPathReplace> {
     @Override
     protected TOExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         File fileToBeChanged = getAbsoluteFile(transformedAppFolder, transformationContext);
+        if (isStreamable()) {
+            return streamingExecution(fileToBeChanged, transformedAppFolder, transformationContext);
+        }
+
         TOExecutionResult result = null;
         NodeList nodes = null;
 
         try {
-            File readFile = getOrCreateReadFile(transformedAppFolder, transformationContext);
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder;
-            builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(readFile);
+            // Not read from the transformation document cache, since its copies would not keep the original XML encoding
+            Document doc = XmlParserPool.getDocumentBuilder().parse(fileToBeChanged);
             nodes = (NodeList) xpathExpression.evaluate(doc, XPathConstants.NODESET);
 
             if (nodes.getLength() > 0) {
-                for (int idx = 0; idx < nodes.getLength(); idx++) {
-                    Node node = nodes.item(idx);
-                    switch (mode) {
-                        case TextReplace:
-                            node.setTextContent((String) replacementObject);
-                            break;
-                        case ElementReplace:
-                            Node newNode = doc.importNode((Element) replacementObject, true);
-                            node.getParentNode().replaceChild(newNode, node);
-                            break;
-                        case Removal:
-                            node.getParentNode().removeChild(node);
-                            break;
-                    }
-                }
-                Transformer xformer = TransformerFactory.newInstance().newTransformer();
-                xformer.transform(new DOMSource(doc), new StreamResult(fileToBeChanged));
+                edit(doc, nodes);
+                Transformer xformer = XmlParserPool.getTransformer();
+                xformer.transform(new DOMSource(doc), new StreamResult(getOrCreateWriteFile(transformedAppFolder, transformationContext)));
             }
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+        } catch (SAXException | IOException e) {
             result = TOExecutionResult.error(this,
                     new TransformationOperationException("File content could not be parsed properly in XML format", e));
         } catch (TransformerException e) {
@@ -225,20 +226,105 @@ public class XmlXPathReplace extends TransformationOperation<XmlXPathReplace> {
 
         if (result == null) {
             if (nodes != null) {
-                String details = String.format(
-                        "File %s has had %d node(s) where modification was applied based on xml xpath expression '%s'",
-                        getRelativePath(), nodes.getLength(), xpathExpressionString);
-                if (nodes.getLength() > 0) {
-                    result = TOExecutionResult.success(this, details);
-                } else {
-                    result = TOExecutionResult.noOp(this, details);
-                }
+                result = getResult(nodes.getLength());
             } else {
                 result = TOExecutionResult.error(this,
                         new TransformationOperationException("XPathExpression could not be evaluated correctly"));
             }
         }
-        return result;
+        return commitWriteFile(result);
+    }
+
+    private void edit(Document doc, NodeList nodes) {
+        for (int idx = 0; idx < nodes.getLength(); idx++) {
+            Node node = nodes.item(idx);
+            switch (mode) {
+                case TextReplace:
+                    node.setTextContent((String) replacementObject);
+                    break;
+                case ElementReplace:
+                    Node newNode = doc.importNode((Element) replacementObject, true);
+                    node.getParentNode().replaceChild(newNode, node);
+                    break;
+                case Removal:
+                    node.getParentNode().removeChild(node);
+                    break;
+            }
+        }
+    }
+
+    /*
+     * Applies this operation, as a member of a XML edit session, to the given DOM document (see XmlEditSession)
+     */
+    TOExecutionResult sessionExecution(Document doc, TransformationContext transformationContext) {
+        try {
+            applyPropertiesFromContext(transformationContext);
+            NodeList nodes = (NodeList) xpathExpression.evaluate(doc, XPathConstants.NODESET);
+            edit(doc, nodes);
+            return getResult(nodes.getLength());
+        } catch (TransformationUtilityException e) {
+            return TOExecutionResult.error(this, e);
+        } catch (XPathExpressionException e) {
+            return TOExecutionResult.error(this,
+                    new TransformationOperationException("XPathExpression could not be evaluated correctly", e));
+        }
+    }
+
+    /*
+     * Writes the XML file on behalf of a XML edit session, while this operation is performed
+     */
+    boolean sessionWrite(File xmlFile, byte[] content, TransformationContext transformationContext) throws IOException {
+        return writeFileContent(xmlFile, content, transformationContext);
+    }
+
+    private boolean isStreamable() {
+        if (streamingXPath == null) {
+            return false;
+        }
+        switch (mode) {
+            case TextReplace:
+                return true;
+            case ElementReplace:
+                return streamingXPath.selectsNodes() && StreamingXPath.isWritable((Element) replacementObject);
+            default:
+                return streamingXPath.selectsNodes();
+        }
+    }
+
+    private TOExecutionResult streamingExecution(File fileToBeChanged, File transformedAppFolder, TransformationContext transformationContext) {
+        TOExecutionResult result;
+
+        try (InputStream inputStream = new FileInputStream(fileToBeChanged);
+             OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(getOrCreateWriteFile(transformedAppFolder, transformationContext)))) {
+            int count;
+            switch (mode) {
+                case TextReplace:
+                    count = streamingXPath.replaceText(inputStream, outputStream, (String) replacementObject);
+                    break;
+                case ElementReplace:
+                    count = streamingXPath.replaceElement(inputStream, outputStream, (Element) replacementObject);
+                    break;
+                default:
+                    count = streamingXPath.remove(inputStream, outputStream);
+                    break;
+            }
+            result = getResult(count);
+        } catch (SAXException | IOException e) {
+            result = TOExecutionResult.error(this,
+                    new TransformationOperationException("File content could not be parsed properly in XML format", e));
+        }
+
+        return commitWriteFile(result);
+    }
+
+    private TOExecutionResult getResult(int count) {
+        String details = String.format(
+                "File %s has had %d node(s) where modification was applied based on xml xpath expression '%s'",
+                getRelativePath(), count, xpathExpressionString);
+        if (count > 0) {
+            return TOExecutionResult.success(this, details);
+        }
+        return TOExecutionResult.noOp(this, details);
     }
 
 }
@@ -1,11 +1,9 @@
 package com.paypal.butterfly.utilities.pom;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 
 import org.apache.maven.model.Model;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
@@ -58,6 +56,11 @@ public abstract class AbstractPomGetUtility<T extends AbstractPomGetUtility> ext
         return modelAttributeName;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         Model model;
@@ -66,8 +69,8 @@ public abstract class AbstractPomGetUtility<T extends AbstractPomGetUtility> ext
                 return TUExecutionResult.error(this, new TransformationUtilityException("Model transformation context attribute name nor pom file were set"));
             }
             File pomFile = getAbsoluteFile(transformedAppFolder, transformationContext);
-            try (FileInputStream fileInputStream = new FileInputStream(pomFile)) {
-                model = new MavenXpp3Reader().read(fileInputStream);
+            try {
+                model = readPomModel(pomFile, transformationContext);
             } catch (IOException | XmlPullParserException e) {
                 return TUExecutionResult.error(this, new TransformationUtilityException("The specified file could not be found or read and parsed as valid Maven pom file", e));
             }
@@ -183,6 +183,11 @@ public class PomModel extends TransformationUtility<PomModel> {
         return "https".equals(url.getProtocol()) || "http".equals(url.getProtocol());
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION);
@@ -192,18 +197,17 @@ public class PomModel extends TransformationUtility<PomModel> {
     protected TUExecutionResult execution(File transformedAppFolder, TransformationContext transformationContext) {
         Model model;
         try {
-            URL mavenArtifactUrl;
             if (StringUtils.isNotBlank(groupId) && StringUtils.isNotBlank(artifactId) && StringUtils.isNotBlank(version)) {
-                mavenArtifactUrl = new URL(String.format("%s/%s/%s/%s/%s-%s.pom", repoURI, groupId, artifactId, version, artifactId, version));
+                URL mavenArtifactUrl = new URL(String.format("%s/%s/%s/%s/%s-%s.pom", repoURI, groupId, artifactId, version, artifactId, version));
+                try (BufferedInputStream inputStream = new BufferedInputStream(mavenArtifactUrl.openStream())) {
+                    model = new MavenXpp3Reader().read(inputStream);
+                }
             } else if (wasFileExplicitlySet()) {
                 File localPomFile = getAbsoluteFile(transformedAppFolder, transformationContext);
-                mavenArtifactUrl = localPomFile.toURI().toURL();
+                model = readPomModel(localPomFile, transformationContext);
             } else {
                 return TUExecutionResult.error(this, new TransformationUtilityException("Maven coordinates are missing and local file was not set"));
             }
-            try (BufferedInputStream inputStream = new BufferedInputStream(mavenArtifactUrl.openStream())) {
-                model = new MavenXpp3Reader().read(inputStream);
-            }
 
             if (model == null) {
                 return TUExecutionResult.error(this, new TransformationUtilityException("Returned maven model is null"));
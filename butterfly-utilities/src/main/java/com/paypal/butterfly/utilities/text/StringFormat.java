@@ -76,6 +76,11 @@ public class StringFormat extends TransformationUtility<StringFormat> {
         return attributeNames.clone();
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, Arrays.toString(attributeNames), format);
@@ -0,0 +1,801 @@
+package com.paypal.butterfly.utilities.xml;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.ctc.wstx.stax.WstxOutputFactory;
+import org.codehaus.stax2.XMLInputFactory2;
+import org.codehaus.stax2.XMLStreamProperties;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.XMLStreamWriter2;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates a subset of XPath against XML content while streaming it with StAX,
+ * without building a DOM, which is relevant for large XML files.
+ * <br>
+ * The supported subset is made of absolute location paths, whose steps are separated by
+ * {@code /} (child) or {@code //} (descendant), and are element names, or {@code *},
+ * optionally followed by attribute predicates, such as {@code [@name]} or {@code [@name='value']}.
+ * The last step can also be an attribute, such as {@code @name}, or {@code text()}, as long as it is
+ * separated from the previous one by {@code /}. Examples:
+ * <ul>
+ *     <li>{@code /web-app/display-name}</li>
+ *     <li>{@code //servlet[@id='foo']/servlet-class/text()}</li>
+ *     <li>{@code /beans/bean[@class]/@id}</li>
+ * </ul>
+ * Just like the DOM documents XPath expressions are usually evaluated against in Butterfly,
+ * XML content is read without namespace awareness. Element and attribute names in the XML content
+ * are matched by their local parts, ignoring any prefix, the same way XPath matches them against those DOM documents,
+ * while names containing prefixes are not supported in expressions.
+ * Namespace declarations are not attributes, so they are never matched.
+ * <br>
+ * Evaluations and edits result in the same string values, and XML content, as DOM based ones would,
+ * except for formatting, which is kept as it is while streaming. The only case that cannot be
+ * evaluated while streaming is an expression selecting attributes, whose first selected element
+ * has more than one attribute with the selected local name (such as {@code id} and {@code p:id}),
+ * since which one comes first depends on the DOM implementation. See {@link #evaluate(InputStream)}.
+ * <br>
+ * Expressions out of this subset are not compiled, and should be evaluated using DOM instead.
+ * <br>
+ * Instances of this class are immutable and thread-safe.
+ *
+ * @author facarvalho
+ */
+public final class StreamingXPath {
+
+    // Woodstox factories are thread-safe once configured
+    private static final WstxInputFactory inputFactory = new WstxInputFactory();
+    private static final WstxOutputFactory outputFactory = new WstxOutputFactory();
+
+    static {
+        inputFactory.setProperty(XMLStreamProperties.XSP_NAMESPACE_AWARE, false);
+        inputFactory.setProperty(XMLInputFactory2.P_PRESERVE_LOCATION, false);
+        inputFactory.setProperty(XMLInputFactory2.P_REPORT_PROLOG_WHITESPACE, true);
+        outputFactory.setProperty(XMLStreamProperties.XSP_NAMESPACE_AWARE, false);
+    }
+
+    // Steps are tracked as bits of a long
+    private static final int MAX_STEPS = Long.SIZE - 1;
+
+    private enum Target {
+        ELEMENT, ATTRIBUTE, TEXT
+    }
+
+    private enum Mode {
+        TEXT_REPLACE, ELEMENT_REPLACE, REMOVAL
+    }
+
+    private final String expression;
+    private final Step[] steps;
+    private final Target target;
+    private final String targetAttribute;
+
+    private StreamingXPath(String expression, Step[] steps, Target target, String targetAttribute) {
+        this.expression = expression;
+        this.steps = steps;
+        this.target = target;
+        this.targetAttribute = targetAttribute;
+    }
+
+    /**
+     * Compiles the given XPath expression, if it is part of the supported subset,
+     * returning null otherwise
+     *
+     * @param expression the XPath expression
+     * @return the compiled expression, or null, if it is not part of the supported subset
+     */
+    public static StreamingXPath compile(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        return new Parser(expression).parse();
+    }
+
+    /**
+     * Returns the XPath expression
+     *
+     * @return the XPath expression
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns true if this expression selects elements or text nodes, which can be
+     * removed or replaced by elements, and false if it selects attributes,
+     * which can only have their values replaced
+     *
+     * @return true if this expression selects elements or text nodes
+     */
+    public boolean selectsNodes() {
+        return target != Target.ATTRIBUTE;
+    }
+
+    /**
+     * Returns the string value of the first node selected by this expression,
+     * in document order, or an empty string if no node is selected,
+     * which is the same result as evaluating it as {@link javax.xml.xpath.XPathConstants#STRING}.
+     * The XML content is read only up to the end of the first selected node.
+     * <br>
+     * If this expression selects attributes, and the first element they are selected from has more than one
+     * attribute with the selected local name, null is returned, and the expression should be evaluated using DOM instead.
+     *
+     * @param inputStream the XML content
+     * @return the string value of the first selected node, or null, if it has to be evaluated using DOM
+     * @throws IOException if the XML content could not be read
+     * @throws SAXException if the XML content could not be parsed
+     */
+    public String evaluate(InputStream inputStream) throws IOException, SAXException {
+        try {
+            return evaluateFirst(inputStream);
+        } catch (XMLStreamException e) {
+            throw toSAXException(e);
+        }
+    }
+
+    /**
+     * Copies the XML content to the output stream, replacing the text of every node selected
+     * by this expression by the given text
+     *
+     * @param inputStream the XML content
+     * @param outputStream the output stream the changed XML content is written to
+     * @param text the replacement text
+     * @return how many nodes were selected
+     * @throws IOException if the XML content could not be read or written
+     * @throws SAXException if the XML content could not be parsed
+     */
+    public int replaceText(InputStream inputStream, OutputStream outputStream, String text) throws IOException, SAXException {
+        return edit(inputStream, outputStream, Mode.TEXT_REPLACE, text, null);
+    }
+
+    /**
+     * Copies the XML content to the output stream, replacing every node selected
+     * by this expression by the given element.
+     * Only applicable if {@link #selectsNodes()} is true
+     *
+     * @param inputStream the XML content
+     * @param outputStream the output stream the changed XML content is written to
+     * @param element the replacement element
+     * @return how many nodes were selected
+     * @throws IOException if the XML content could not be read or written
+     * @throws SAXException if the XML content could not be parsed
+     */
+    public int replaceElement(InputStream inputStream, OutputStream outputStream, Element element) throws IOException, SAXException {
+        checkSelectsNodes();
+        return edit(inputStream, outputStream, Mode.ELEMENT_REPLACE, null, element);
+    }
+
+    /**
+     * Copies the XML content to the output stream, removing every node selected by this expression.
+     * Only applicable if {@link #selectsNodes()} is true
+     *
+     * @param inputStream the XML content
+     * @param outputStream the output stream the changed XML content is written to
+     * @return how many nodes were selected
+     * @throws IOException if the XML content could not be read or written
+     * @throws SAXException if the XML content could not be parsed
+     */
+    public int remove(InputStream inputStream, OutputStream outputStream) throws IOException, SAXException {
+        checkSelectsNodes();
+        return edit(inputStream, outputStream, Mode.REMOVAL, null, null);
+    }
+
+    private String evaluateFirst(InputStream inputStream) throws XMLStreamException {
+        XMLStreamReader2 reader = (XMLStreamReader2) inputFactory.createXMLStreamReader(inputStream);
+        try {
+            Matcher matcher = new Matcher();
+            while (reader.hasNext()) {
+                int eventType = reader.next();
+                switch (eventType) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        boolean match = matcher.push(reader);
+                        if (match && target == Target.ELEMENT) {
+                            return readElementText(reader);
+                        }
+                        if (match && target == Target.ATTRIBUTE) {
+                            int attributes = countAttributes(reader, targetAttribute);
+                            if (attributes > 1) {
+                                return null;
+                            }
+                            if (attributes == 1) {
+                                return getAttributeValue(reader, targetAttribute);
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        matcher.pop();
+                        break;
+                    default:
+                        if (target == Target.TEXT && isText(eventType) && matcher.isMatched()) {
+                            return readText(reader);
+                        }
+                        break;
+                }
+            }
+            return "";
+        } finally {
+            reader.closeCompletely();
+        }
+    }
+
+    /**
+     * Returns true if the given DOM element, and all its descendants, can be written
+     * without namespace awareness, which is required to replace nodes by it while streaming
+     *
+     * @param element the DOM element
+     * @return true if the given DOM element has no namespaces
+     */
+    public static boolean isWritable(Element element) {
+        if (element.getNamespaceURI() != null) {
+            return false;
+        }
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            if (attributes.item(i).getNamespaceURI() != null) {
+                return false;
+            }
+        }
+        NodeList children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child.getNodeType() == Node.ELEMENT_NODE && !isWritable((Element) child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private void checkSelectsNodes() {
+        if (!selectsNodes()) {
+            throw new IllegalStateException("XPath expression '" + expression + "' selects attributes, which can only have their values replaced");
+        }
+    }
+
+    /*
+     * Copies the XML content, applying the given edit to every selected node.
+     * Nodes selected inside nodes already removed or replaced are counted, but have no effect
+     */
+    private int edit(InputStream inputStream, OutputStream outputStream, Mode mode, String text, Element element) throws IOException, SAXException {
+        try {
+            return copy(inputStream, outputStream, mode, text, element);
+        } catch (XMLStreamException e) {
+            throw toSAXException(e);
+        }
+    }
+
+    private int copy(InputStream inputStream, OutputStream outputStream, Mode mode, String text, Element element) throws XMLStreamException {
+        XMLStreamReader2 reader = (XMLStreamReader2) inputFactory.createXMLStreamReader(inputStream);
+        XMLStreamWriter2 writer = null;
+        try {
+            writer = createWriter(reader, outputStream);
+
+            Matcher matcher = new Matcher();
+            int count = 0;
+
+            // Depth of the element whose content is being skipped, or -1, if none
+            int skipDepth = -1;
+
+            // Whether the end tag of the element whose content is being skipped has to be written
+            boolean writeSkippedEnd = false;
+
+            // Whether the reader is in a text node selected by this expression
+            boolean inSelectedText = false;
+
+            while (reader.hasNext()) {
+                int eventType = reader.next();
+
+                if (target == Target.TEXT && isText(eventType) && matcher.isMatched()) {
+                    if (!inSelectedText) {
+                        inSelectedText = true;
+                        count++;
+                        if (skipDepth == -1) {
+                            if (mode == Mode.TEXT_REPLACE) {
+                                writer.writeCharacters(text);
+                            } else if (mode == Mode.ELEMENT_REPLACE) {
+                                writeNode(writer, element);
+                            }
+                        }
+                    }
+                    continue;
+                }
+                inSelectedText = false;
+
+                switch (eventType) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        boolean match = matcher.push(reader);
+                        if (match && target == Target.ELEMENT) {
+                            count++;
+                            if (skipDepth == -1) {
+                                skipDepth = matcher.depth;
+                                writeSkippedEnd = (mode == Mode.TEXT_REPLACE);
+                                if (mode == Mode.TEXT_REPLACE) {
+                                    writer.copyEventFromReader(reader, false);
+                                    writer.writeCharacters(text);
+                                } else if (mode == Mode.ELEMENT_REPLACE) {
+                                    writeNode(writer, element);
+                                }
+                            }
+                            continue;
+                        }
+                        int attributes = (match && target == Target.ATTRIBUTE ? countAttributes(reader, targetAttribute) : 0);
+                        if (attributes > 0) {
+                            count += attributes;
+                            if (skipDepth == -1) {
+                                writeStartElement(reader, writer, text);
+                            }
+                            continue;
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        boolean skippedEnd = (skipDepth == matcher.depth);
+                        matcher.pop();
+                        if (skippedEnd) {
+                            skipDepth = -1;
+                            if (writeSkippedEnd) {
+                                writer.writeEndElement();
+                            }
+                            continue;
+                        }
+                        break;
+                    case XMLStreamConstants.END_DOCUMENT:
+                        continue;
+                    default:
+                        break;
+                }
+                if (skipDepth == -1) {
+                    writer.copyEventFromReader(reader, false);
+                }
+            }
+            writer.writeEndDocument();
+            writer.flush();
+
+            return count;
+        } finally {
+            if (writer != null) {
+                writer.closeCompletely();
+            }
+            reader.closeCompletely();
+        }
+    }
+
+    /*
+     * Converts the given StAX exception into the same exception a DOM parser would throw,
+     * or throws its cause, if it is an IO exception
+     */
+    private static SAXException toSAXException(XMLStreamException e) throws IOException {
+        if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+        }
+        Location location = e.getLocation();
+        if (location == null) {
+            return new SAXParseException(e.getMessage(), null, null, -1, -1, e);
+        }
+        return new SAXParseException(e.getMessage(), location.getPublicId(), location.getSystemId(), location.getLineNumber(), location.getColumnNumber(), e);
+    }
+
+    /*
+     * Creates a writer using the same encoding as the reader, and writes
+     * the XML declaration, if there is one, keeping its attributes
+     */
+    private static XMLStreamWriter2 createWriter(XMLStreamReader2 reader, OutputStream outputStream) throws XMLStreamException {
+        String declaredEncoding = reader.getCharacterEncodingScheme();
+        String encoding = (declaredEncoding != null ? declaredEncoding : reader.getEncoding());
+        if (encoding == null) {
+            encoding = "UTF-8";
+        }
+        XMLStreamWriter2 writer = (XMLStreamWriter2) outputFactory.createXMLStreamWriter(outputStream, encoding);
+
+        // Written raw, since the writer would always add the encoding to it
+        String version = reader.getVersion();
+        if (version != null) {
+            StringBuilder declaration = new StringBuilder("<?xml version=\"").append(version).append('"');
+            if (declaredEncoding != null) {
+                declaration.append(" encoding=\"").append(declaredEncoding).append('"');
+            }
+            if (reader.standaloneSet()) {
+                declaration.append(" standalone=\"").append(reader.isStandalone() ? "yes" : "no").append('"');
+            }
+            writer.writeRaw(declaration.append("?>").toString());
+        }
+        return writer;
+    }
+
+    /*
+     * Writes the start tag the reader is positioned at, replacing the value of the target attributes
+     */
+    private void writeStartElement(XMLStreamReader2 reader, XMLStreamWriter2 writer, String value) throws XMLStreamException {
+        writer.writeStartElement(getName(reader.getPrefix(), reader.getLocalName()));
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+            writer.writeAttribute(name, (isAttribute(name, targetAttribute) ? value : reader.getAttributeValue(i)));
+        }
+    }
+
+    private static void writeNode(XMLStreamWriter2 writer, Node node) throws XMLStreamException {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                NodeList children = node.getChildNodes();
+                if (children.getLength() == 0) {
+                    writer.writeEmptyElement(node.getNodeName());
+                } else {
+                    writer.writeStartElement(node.getNodeName());
+                }
+                NamedNodeMap attributes = node.getAttributes();
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    Attr attribute = (Attr) attributes.item(i);
+                    writer.writeAttribute(attribute.getName(), attribute.getValue());
+                }
+                if (children.getLength() > 0) {
+                    for (int i = 0; i < children.getLength(); i++) {
+                        writeNode(writer, children.item(i));
+                    }
+                    writer.writeEndElement();
+                }
+                break;
+            case Node.TEXT_NODE:
+                writer.writeCharacters(node.getNodeValue());
+                break;
+            case Node.CDATA_SECTION_NODE:
+                writer.writeCData(node.getNodeValue());
+                break;
+            case Node.COMMENT_NODE:
+                writer.writeComment(node.getNodeValue());
+                break;
+            case Node.PROCESSING_INSTRUCTION_NODE:
+                writer.writeProcessingInstruction(node.getNodeName(), node.getNodeValue());
+                break;
+            case Node.ENTITY_REFERENCE_NODE:
+                writer.writeEntityRef(node.getNodeName());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /*
+     * Reads the string value of the element the reader is positioned at,
+     * which is the concatenation of all its descendant text nodes
+     */
+    private static String readElementText(XMLStreamReader2 reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int eventType = reader.next();
+            if (eventType == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (isText(eventType)) {
+                text.append(reader.getText());
+            }
+        }
+        return text.toString();
+    }
+
+    /*
+     * Reads the text node the reader is positioned at, which may be split in several adjacent events
+     */
+    private static String readText(XMLStreamReader2 reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder(reader.getText());
+        while (reader.hasNext() && isText(reader.next())) {
+            text.append(reader.getText());
+        }
+        return text.toString();
+    }
+
+    private static boolean isText(int eventType) {
+        return eventType == XMLStreamConstants.CHARACTERS || eventType == XMLStreamConstants.CDATA || eventType == XMLStreamConstants.SPACE;
+    }
+
+    /*
+     * Returns the value of the first attribute with the given local name, or null if there is none
+     */
+    private static String getAttributeValue(XMLStreamReader2 reader, String localName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (isAttribute(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), localName)) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Returns true if there is an attribute with the given local name and value, null meaning any value
+     */
+    private static boolean hasAttribute(XMLStreamReader2 reader, String localName, String value) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (isAttribute(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), localName)
+                    && (value == null || value.equals(reader.getAttributeValue(i)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int countAttributes(XMLStreamReader2 reader, String localName) {
+        int count = 0;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (isAttribute(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), localName)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * Returns true if the attribute with the given qualified name has the given local name.
+     * Namespace declarations are read as regular attributes, since namespace awareness is off,
+     * but they are not attributes in the XPath data model, so they are never matched
+     */
+    private static boolean isAttribute(String name, String localName) {
+        if (name.equals("xmlns") || name.startsWith("xmlns:")) {
+            return false;
+        }
+        return localName.equals(getLocalPart(name));
+    }
+
+    private static String getName(String prefix, String localName) {
+        return (prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName);
+    }
+
+    /*
+     * Returns the given qualified name without its prefix, if any
+     */
+    private static String getLocalPart(String name) {
+        int i = name.indexOf(':');
+        return (i == -1 ? name : name.substring(i + 1));
+    }
+
+    /*
+     * Keeps track, for every open element, of which steps have been matched by it and its ancestors.
+     * Bit k of the active mask of an element means steps 0 to k - 1 have been matched,
+     * the last one by that element, so step k can be matched by its children,
+     * or by any of its descendants, if step k uses the descendant axis.
+     */
+    private final class Matcher {
+
+        private long[] active = new long[32];
+        private long[] descendant = new long[32];
+        private boolean[] matched = new boolean[32];
+        private int depth = 0;
+
+        private Matcher() {
+            // The document node
+            active[0] = 1L;
+            descendant[0] = (steps[0].descendant ? 1L : 0L);
+        }
+
+        /*
+         * Pushes the element the reader is positioned at, returning true if it matches all steps
+         */
+        private boolean push(XMLStreamReader2 reader) {
+            long parentActive = active[depth];
+            long parentDescendant = descendant[depth];
+            long childActive = 0L;
+            for (int k = 0; k < steps.length; k++) {
+                long bit = 1L << k;
+                boolean candidate = (parentDescendant & bit) != 0 || (parentActive & bit) != 0 && !steps[k].descendant;
+                if (candidate && steps[k].matches(reader)) {
+                    childActive |= 1L << (k + 1);
+                }
+            }
+            long last = 1L << steps.length;
+            boolean match = (childActive & last) != 0;
+            childActive &= ~last;
+
+            long childDescendant = parentDescendant;
+            for (int k = 1; k < steps.length; k++) {
+                if ((childActive & (1L << k)) != 0 && steps[k].descendant) {
+                    childDescendant |= 1L << k;
+                }
+            }
+
+            depth++;
+            if (depth == active.length) {
+                active = Arrays.copyOf(active, depth * 2);
+                descendant = Arrays.copyOf(descendant, depth * 2);
+                matched = Arrays.copyOf(matched, depth * 2);
+            }
+            active[depth] = childActive;
+            descendant[depth] = childDescendant;
+            matched[depth] = match;
+
+            return match;
+        }
+
+        private void pop() {
+            depth--;
+        }
+
+        /*
+         * Returns true if the current element matches all steps
+         */
+        private boolean isMatched() {
+            return depth > 0 && matched[depth];
+        }
+
+    }
+
+    private static final class Step {
+
+        private final boolean descendant;
+
+        // Null means any element name
+        private final String name;
+
+        // Pairs of attribute names and values, null values meaning any value
+        private final String[] predicates;
+
+        private Step(boolean descendant, String name, String[] predicates) {
+            this.descendant = descendant;
+            this.name = name;
+            this.predicates = predicates;
+        }
+
+        private boolean matches(XMLStreamReader2 reader) {
+            if (name != null && !name.equals(getLocalPart(getName(reader.getPrefix(), reader.getLocalName())))) {
+                return false;
+            }
+            for (int i = 0; i < predicates.length; i += 2) {
+                if (!hasAttribute(reader, predicates[i], predicates[i + 1])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    /*
+     * Parses expressions of the supported subset, returning null for anything else
+     */
+    private static final class Parser {
+
+        private final String expression;
+        private int position = 0;
+
+        private Parser(String expression) {
+            this.expression = expression;
+        }
+
+        private StreamingXPath parse() {
+            List<Step> steps = new ArrayList<>();
+            while (position < expression.length()) {
+                if (!consume('/')) {
+                    return null;
+                }
+                boolean descendant = consume('/');
+                if (consume('@')) {
+                    String attribute = parseName();
+                    if (descendant || steps.isEmpty() || attribute == null || position < expression.length()) {
+                        return null;
+                    }
+                    return create(steps, Target.ATTRIBUTE, attribute);
+                }
+                if (expression.startsWith("text()", position)) {
+                    position += "text()".length();
+                    if (descendant || steps.isEmpty() || position < expression.length()) {
+                        return null;
+                    }
+                    return create(steps, Target.TEXT, null);
+                }
+                boolean anyName = consume('*');
+                String name = (anyName ? null : parseName());
+                if (!anyName && name == null) {
+                    return null;
+                }
+                List<String> predicates = new ArrayList<>();
+                while (consume('[')) {
+                    skipWhitespaces();
+                    String attribute = (consume('@') ? parseName() : null);
+                    if (attribute == null) {
+                        return null;
+                    }
+                    skipWhitespaces();
+                    String value = null;
+                    if (consume('=')) {
+                        skipWhitespaces();
+                        value = parseLiteral();
+                        if (value == null) {
+                            return null;
+                        }
+                        skipWhitespaces();
+                    }
+                    if (!consume(']')) {
+                        return null;
+                    }
+                    predicates.add(attribute);
+                    predicates.add(value);
+                }
+                steps.add(new Step(descendant, name, predicates.toArray(new String[0])));
+            }
+            return create(steps, Target.ELEMENT, null);
+        }
+
+        private StreamingXPath create(List<Step> steps, Target target, String targetAttribute) {
+            if (steps.isEmpty() || steps.size() > MAX_STEPS) {
+                return null;
+            }
+            return new StreamingXPath(expression, steps.toArray(new Step[0]), target, targetAttribute);
+        }
+
+        private boolean consume(char c) {
+            if (position < expression.length() && expression.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespaces() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        /*
+         * Parses a name with no prefix, returning null if there is none, or if it is followed by a prefix separator,
+         * an opening parenthesis (a function), or any other character not expected after a name
+         */
+        private String parseName() {
+            int start = position;
+            if (position < expression.length() && (Character.isLetter(expression.charAt(position)) || expression.charAt(position) == '_')) {
+                position++;
+                while (position < expression.length() && isNameChar(expression.charAt(position))) {
+                    position++;
+                }
+            }
+            if (start == position) {
+                return null;
+            }
+            if (position < expression.length() && "/[]= \t\r\n".indexOf(expression.charAt(position)) == -1) {
+                return null;
+            }
+            return expression.substring(start, position);
+        }
+
+        private String parseLiteral() {
+            if (position >= expression.length()) {
+                return null;
+            }
+            char quote = expression.charAt(position);
+            if (quote != '\'' && quote != '"') {
+                return null;
+            }
+            int end = expression.indexOf(quote, position + 1);
+            if (end == -1) {
+                return null;
+            }
+            String literal = expression.substring(position + 1, end);
+            position = end + 1;
+            return literal;
+        }
+
+        private static boolean isNameChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.';
+        }
+
+    }
+
+}
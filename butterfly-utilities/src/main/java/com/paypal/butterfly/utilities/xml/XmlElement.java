@@ -11,9 +11,6 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
 import java.util.regex.Pattern;
@@ -125,6 +122,11 @@ public class XmlElement extends TransformationUtility<XmlElement> {
         return this;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, xmlElement, getRelativePath());
@@ -137,10 +139,7 @@ public class XmlElement extends TransformationUtility<XmlElement> {
 
         try {
             Node node;
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder;
-            builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(xmlFile);
+            Document doc = readXmlDocument(xmlFile, transformationContext);
             node = findNode(doc.getChildNodes(), XML_ELEMENT_SPLIT_REGEX_PATTERN.split(xmlElement), 0);
 
             if (node == null) {
@@ -160,7 +159,7 @@ public class XmlElement extends TransformationUtility<XmlElement> {
                     }
                 }
             }
-        } catch (ParserConfigurationException|SAXException|IOException e) {
+        } catch (SAXException|IOException e) {
             result = TUExecutionResult.error(this, new TransformationUtilityException("File content could not be parsed properly in XML format", e));
         } catch (TransformationUtilityException e) {
             result = TUExecutionResult.error(this, e);
@@ -13,6 +13,7 @@ import javax.xml.stream.events.XMLEvent;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 
 /**
  * Utility to find out indentation usage in a given XML file.
@@ -42,6 +43,21 @@ public class XmlIndentation extends TransformationUtility<XmlIndentation> {
      * @throws XMLStreamException if an error occurs when reading the XML file
      */
     public static String getFirst(File xmlFile) throws XMLStreamException, FileNotFoundException {
+        return getFirst(new FileInputStream(xmlFile));
+    }
+
+    /**
+     * Returns a String that represents the indentation used in the very first
+     * tag, inside the root tag, in the given XML content.
+     * Returns {@code null} if the root tag has no children,
+     * or if the first tag is at the same line as the root tag.
+     *
+     * @param xmlInputStream XML content to be evaluated
+     * @return a String that represents the indentation used in the very first tag,
+     * inside the root tag, in the given XML content
+     * @throws XMLStreamException if an error occurs when reading the XML content
+     */
+    public static String getFirst(InputStream xmlInputStream) throws XMLStreamException {
 
         // first occurrences of a set of ignored characters in between elements
         String firstElementsGap = null;
@@ -53,7 +69,7 @@ public class XmlIndentation extends TransformationUtility<XmlIndentation> {
         XMLEventReader reader = null;
 
         try {
-            reader = xmlInputFactory.createXMLEventReader(new FileInputStream(xmlFile));
+            reader = xmlInputFactory.createXMLEventReader(xmlInputStream);
 
             while (reader.hasNext()) {
                 xmlEvent = reader.nextEvent();
@@ -85,6 +101,11 @@ public class XmlIndentation extends TransformationUtility<XmlIndentation> {
         return indentationSample;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, getRelativePath());
@@ -1,17 +1,15 @@
 package com.paypal.butterfly.utilities.xml;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import javax.xml.namespace.QName;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.apache.commons.lang3.StringUtils;
 import org.w3c.dom.Document;
@@ -20,6 +18,7 @@ import org.xml.sax.SAXException;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.TransformationContext;
 import com.paypal.butterfly.extensions.api.TransformationUtility;
+import com.paypal.butterfly.extensions.api.XmlParserPool;
 import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 
@@ -30,6 +29,12 @@ import com.paypal.butterfly.extensions.api.exception.TransformationUtilityExcept
  * {@link XPathConstants#NODESET}, an empty node list is returned. If the XPath
  * expression won't compile, an error is returned. <br>
  * If the file is not a well formed XML file, an error is returned.
+ * <br>
+ * If the return data type is {@link XPathConstants#STRING}, and the XPath expression is
+ * supported by {@link StreamingXPath}, the XML file is streamed, instead of parsed into a DOM,
+ * and only read up to the first node selected by the expression.
+ * It is still parsed into a DOM if the first selected element has more than one attribute
+ * with the selected name, differing only by their prefixes.
  *
  * @author spetratos
  */
@@ -37,6 +42,7 @@ public class XmlXPathRetrieve extends TransformationUtility<XmlXPathRetrieve> {
 
     private String xpathExpressionString;
     private XPathExpression xpathExpression;
+    private StreamingXPath streamingXPath;
     private QName returnDataType;
 
     private static final String DESCRIPTION = "Retrieve the XML data based on the given XPath query %s and XML file %s";
@@ -118,6 +124,7 @@ public class XmlXPathRetrieve extends TransformationUtility<XmlXPathRetrieve> {
     public XmlXPathRetrieve setXPathExpression(String xpathExpressionString, QName returnDataType) {
         checkForBlankString("XPath Expression", xpathExpressionString);
         this.xpathExpression = checkXPathCompile(xpathExpressionString);
+        this.streamingXPath = StreamingXPath.compile(xpathExpressionString);
         if (returnDataType == null || !isReturnTypeValid(returnDataType)) {
             throw new TransformationDefinitionException("XPath data return type '" + returnDataType + "' is not valid.");
         }
@@ -154,6 +161,11 @@ public class XmlXPathRetrieve extends TransformationUtility<XmlXPathRetrieve> {
         this.returnDataType = returnDataType;
     }
 
+    @Override
+    public boolean isFileScoped() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return String.format(DESCRIPTION, xpathExpressionString, getRelativePath());
@@ -169,14 +181,20 @@ public class XmlXPathRetrieve extends TransformationUtility<XmlXPathRetrieve> {
             if (xpathExpression == null) {
                 result = TUExecutionResult.error(this, new TransformationUtilityException("XPathExpression was not specified"));
             } else {
-                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder builder;
-                builder = factory.newDocumentBuilder();
-                Document doc = builder.parse(xmlFile);
-                xpathResult = xpathExpression.evaluate(doc, returnDataType);
+                if (streamingXPath != null && XPathConstants.STRING.equals(returnDataType)) {
+                    try (InputStream inputStream = new FileInputStream(xmlFile)) {
+                        xpathResult = streamingXPath.evaluate(inputStream);
+                    }
+                }
+
+                // Null if it could not be evaluated while streaming
+                if (xpathResult == null) {
+                    Document doc = readXmlDocument(xmlFile, transformationContext);
+                    xpathResult = xpathExpression.evaluate(doc, returnDataType);
+                }
                 result = TUExecutionResult.value(this, xpathResult);
             }
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+        } catch (SAXException | IOException e) {
             result = TUExecutionResult.error(this, new TransformationUtilityException("File content could not be parsed properly in XML format", e));
         } catch (XPathExpressionException e) {
             result = TUExecutionResult.error(this, new TransformationUtilityException("XPathExpression could not be evaluated correctly", e));
@@ -186,8 +204,7 @@ public class XmlXPathRetrieve extends TransformationUtility<XmlXPathRetrieve> {
     }
 
     private XPathExpression checkXPathCompile(String expression) throws TransformationDefinitionException {
-        XPathFactory xpathFactory = XPathFactory.newInstance();
-        XPath xpath = xpathFactory.newXPath();
+        XPath xpath = XmlParserPool.getXPath();
         XPathExpression expr = null;
 
         try {
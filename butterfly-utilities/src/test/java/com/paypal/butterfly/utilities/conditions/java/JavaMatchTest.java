@@ -1,12 +1,19 @@
 package com.paypal.butterfly.utilities.conditions.java;
 
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.paypal.butterfly.extensions.api.CompilationUnitCache;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import com.paypal.butterfly.utilities.TransformationUtilityTestHelper;
+import com.paypal.butterfly.utilities.java.IndexJavaSources;
+import com.paypal.butterfly.utilities.java.JavaTypeIndex;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -45,6 +52,97 @@ public class JavaMatchTest extends TransformationUtilityTestHelper {
         Assert.assertTrue(javaMatch.getConditions().contains(ext));
     }
 
+    @Test
+    public void compilationUnitCacheTest() throws IOException {
+        CompilationUnit compilationUnit = StaticJavaParser.parse(new File(transformedAppFolder, "/src/main/java/com/testapp/JavaLangSubclass.java"));
+        CompilationUnitCache compilationUnitCache = Mockito.mock(CompilationUnitCache.class);
+        Mockito.when(compilationUnitCache.getCompilationUnit(Mockito.any(File.class))).thenReturn(compilationUnit);
+        Mockito.when(transformationContext.getCompilationUnitCache()).thenReturn(compilationUnitCache);
+
+        // The Java class file does not exist, but it is not read, since its compilation unit is cached
+        JavaMatch javaMatch = new JavaMatch(ext).addCondition(new AnnotatedWith(SuppressWarnings.class).setNegate(true)).relative("/src/main/java/com/testapp/Cached.java");
+        TUExecutionResult executionResult = javaMatch.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        Assert.assertTrue((Boolean) executionResult.getValue());
+        Mockito.verify(compilationUnitCache).getCompilationUnit(new File(transformedAppFolder, "/src/main/java/com/testapp/Cached.java"));
+    }
+
+    @Test
+    public void javaTypeIndexTest() {
+        JavaTypeIndex javaTypeIndex = (JavaTypeIndex) ((TUExecutionResult) new IndexJavaSources().perform(transformedAppFolder, transformationContext).getExecutionResult()).getValue();
+        CompilationUnitCache compilationUnitCache = Mockito.mock(CompilationUnitCache.class);
+        Mockito.when(transformationContext.getCompilationUnitCache()).thenReturn(compilationUnitCache);
+        Mockito.when(transformationContext.contains("javaTypeIndex")).thenReturn(true);
+        Mockito.when(transformationContext.get("javaTypeIndex")).thenReturn(javaTypeIndex);
+
+        JavaMatch javaMatch = new JavaMatch(ext).setJavaTypeIndexAttributeName("javaTypeIndex").relative("/src/main/java/com/testapp/JavaLangSubclass.java");
+        TUExecutionResult executionResult = javaMatch.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        Assert.assertTrue((Boolean) executionResult.getValue());
+        Assert.assertEquals(javaMatch.getJavaTypeIndexAttributeName(), "javaTypeIndex");
+
+        javaMatch = new JavaMatch(new AnnotatedWith("org.springframework.context.annotation.ComponentScan")).addCondition(new Extends(Throwable.class).setNegate(true)).setJavaTypeIndexAttributeName("javaTypeIndex").relative("/src/main/java/com/testapp/Application.java");
+        executionResult = javaMatch.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        Assert.assertTrue((Boolean) executionResult.getValue());
+
+        javaMatch = new JavaMatch(ext).setJavaTypeIndexAttributeName("javaTypeIndex").relative("/src/main/java/com/testapp/NoCompilationUnits.java");
+        executionResult = javaMatch.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.WARNING);
+        Assert.assertFalse((Boolean) executionResult.getValue());
+
+        // None of the Java class files has been parsed, since they all are indexed
+        Mockito.verifyZeroInteractions(compilationUnitCache);
+    }
+
+    @Test
+    public void javaTypeIndexFallbackTest() throws IOException {
+        JavaTypeIndex javaTypeIndex = (JavaTypeIndex) ((TUExecutionResult) new IndexJavaSources().perform(transformedAppFolder, transformationContext).getExecutionResult()).getValue();
+        CompilationUnit compilationUnit = StaticJavaParser.parse(new File(transformedAppFolder, "/src/main/java/com/testapp/JavaLangSubclass.java"));
+        CompilationUnitCache compilationUnitCache = Mockito.mock(CompilationUnitCache.class);
+        Mockito.when(compilationUnitCache.getCompilationUnit(Mockito.any(File.class))).thenReturn(compilationUnit);
+        Mockito.when(transformationContext.getCompilationUnitCache()).thenReturn(compilationUnitCache);
+        Mockito.when(transformationContext.contains("javaTypeIndex")).thenReturn(true);
+        Mockito.when(transformationContext.get("javaTypeIndex")).thenReturn(javaTypeIndex);
+
+        // Conditions that cannot be evaluated based on the index
+        JavaCondition publicClass = new JavaCondition() {
+            @Override
+            protected boolean eval(CompilationUnit compilationUnit) {
+                return compilationUnit.getType(0).isPublic();
+            }
+        };
+        JavaMatch javaMatch = new JavaMatch(ext).addCondition(publicClass).setJavaTypeIndexAttributeName("javaTypeIndex").relative("/src/main/java/com/testapp/JavaLangSubclass.java");
+        TUExecutionResult executionResult = javaMatch.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        Assert.assertTrue((Boolean) executionResult.getValue());
+        Mockito.verify(compilationUnitCache).getCompilationUnit(new File(transformedAppFolder, "/src/main/java/com/testapp/JavaLangSubclass.java"));
+
+        // Java class files that are not indexed
+        javaMatch = new JavaMatch(ext).setJavaTypeIndexAttributeName("javaTypeIndex").relative("/src/main/java/com/testapp/NotIndexed.java");
+        executionResult = javaMatch.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        Assert.assertTrue((Boolean) executionResult.getValue());
+        Mockito.verify(compilationUnitCache).getCompilationUnit(new File(transformedAppFolder, "/src/main/java/com/testapp/NotIndexed.java"));
+    }
+
+    @Test
+    public void invalidJavaTypeIndexAttributeTest() {
+        Mockito.when(transformationContext.contains("javaTypeIndex")).thenReturn(true);
+        Mockito.when(transformationContext.get("javaTypeIndex")).thenReturn("javaTypeIndex");
+
+        JavaMatch javaMatch = new JavaMatch(ext).setJavaTypeIndexAttributeName("javaTypeIndex").relative("/src/main/java/com/testapp/JavaLangSubclass.java");
+        TUExecutionResult executionResult = javaMatch.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.ERROR);
+        Assert.assertEquals(executionResult.getException().getClass(), TransformationUtilityException.class);
+        Assert.assertEquals(executionResult.getException().getMessage(), "Transformation context attribute javaTypeIndex is not a Java type index");
+
+        javaMatch.setJavaTypeIndexAttributeName("missingJavaTypeIndex");
+        executionResult = javaMatch.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.ERROR);
+        Assert.assertEquals(executionResult.getException().getMessage(), "Transformation context attribute missingJavaTypeIndex does not exist");
+    }
+
     @Test
     public void noCompilationUnitTest() {
         JavaMatch javaMatch = new JavaMatch().relative("/src/main/java/com/testapp/NoCompilationUnits.java");
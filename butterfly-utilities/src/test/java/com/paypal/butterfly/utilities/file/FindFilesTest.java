@@ -1,13 +1,21 @@
 package com.paypal.butterfly.utilities.file;
 
+import com.paypal.butterfly.extensions.api.FileTreeIndex;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import com.paypal.butterfly.utilities.TransformationUtilityTestHelper;
+import org.apache.commons.io.FileUtils;
 import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -537,4 +545,149 @@ public class FindFilesTest extends TransformationUtilityTestHelper {
         Assert.assertEquals(executionResult.getException().getMessage(), "No files have been found");
     }
 
+    @Test
+    public void sameOrderAsListFilesTest() {
+        FindFiles findFiles =  new FindFiles().setRecursive(true);
+        TUExecutionResult executionResult = findFiles.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+
+        List<File> files = (List<File>) executionResult.getValue();
+        Assert.assertEquals(files, new ArrayList<>(FileUtils.listFiles(transformedAppFolder, null, true)));
+    }
+
+    @Test
+    public void pathRegexPrefixTest() {
+        FindFiles findFiles =  new FindFiles().setPathRegex("/src/main/resources.*").setIncludeFiles(true).setIncludeFolders(true);
+        TUExecutionResult executionResult = findFiles.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        List<File> files = (List<File>) executionResult.getValue();
+        Assert.assertEquals(files.size(), 14);
+        Assert.assertTrue(files.contains(new File(transformedAppFolder, "/src/main/resources/more_yaml/dogs.yaml")));
+        Assert.assertTrue(files.contains(new File(transformedAppFolder, "/src/main/resources/more_yaml/testapp")));
+
+        // Same search, but with a regular expression that does not allow any folder to be skipped
+        findFiles =  new FindFiles().setPathRegex("[/]src/main/resources.*").setIncludeFiles(true).setIncludeFolders(true);
+        executionResult = findFiles.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getValue(), files);
+    }
+
+    @Test
+    public void searchFolderNotFoundTest() {
+        FindFiles findFiles =  new FindFiles("(.*\\.xml)", true).relative("casa");
+        TUExecutionResult executionResult = findFiles.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.ERROR);
+        Assert.assertNull(executionResult.getValue());
+        Assert.assertEquals(executionResult.getException().getClass(), TransformationUtilityException.class);
+        Assert.assertEquals(executionResult.getException().getMessage(), "An exception happened when searching files under " + File.separator + "casa");
+    }
+
+    @Test
+    public void unreadableFolderTest() {
+        File unreadableFolder = new File(transformedAppFolder, "src/main/resources/more_yaml");
+        Mockito.when(transformationContext.getFileTreeIndex()).thenReturn(new DiskFileTreeIndex(unreadableFolder));
+
+        FindFiles findFiles =  new FindFiles("dogs.yaml", true);
+        TUExecutionResult executionResult = findFiles.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        Assert.assertNull(executionResult.getException());
+        Assert.assertEquals(executionResult.getValue(), Arrays.asList(new File(transformedAppFolder, "src/main/resources/dogs.yaml")));
+    }
+
+    @Test
+    public void symbolicLinkTest() throws IOException {
+        Files.createSymbolicLink(new File(transformedAppFolder, "linked").toPath(), new File(transformedAppFolder, "src/main/resources").toPath());
+        Files.createSymbolicLink(new File(transformedAppFolder, "src/main/loop").toPath(), new File(transformedAppFolder, "src").toPath());
+        List<File> expectedFiles = Arrays.asList(
+                new File(transformedAppFolder, "linked/dogs.yaml"),
+                new File(transformedAppFolder, "linked/more_yaml/dogs.yaml"),
+                new File(transformedAppFolder, "src/main/resources/dogs.yaml"),
+                new File(transformedAppFolder, "src/main/resources/more_yaml/dogs.yaml"));
+
+        FindFiles findFiles =  new FindFiles("dogs.yaml", true);
+        TUExecutionResult executionResult = findFiles.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        List<File> files = new ArrayList<>((List<File>) executionResult.getValue());
+        files.sort(null);
+        Assert.assertEquals(files, expectedFiles);
+
+        findFiles =  new FindFiles("linked", false, false, true);
+        executionResult = findFiles.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getValue(), Arrays.asList(new File(transformedAppFolder, "linked")));
+
+        // File tree indexes do not follow symbolic links
+        Mockito.when(transformationContext.getFileTreeIndex()).thenReturn(new DiskFileTreeIndex(null));
+        findFiles =  new FindFiles("dogs.yaml", true);
+        executionResult = findFiles.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        files = new ArrayList<>((List<File>) executionResult.getValue());
+        files.sort(null);
+        Assert.assertEquals(files, expectedFiles);
+
+        findFiles =  new FindFiles("linked", false, false, true);
+        executionResult = findFiles.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getValue(), Arrays.asList(new File(transformedAppFolder, "linked")));
+    }
+
+    /*
+     * File tree index walking the file system, not following symbolic links,
+     * just like the actual file tree index does, and failing to list the given folder
+     */
+    private static class DiskFileTreeIndex implements FileTreeIndex {
+
+        private final File unreadableFolder;
+
+        private DiskFileTreeIndex(File unreadableFolder) {
+            this.unreadableFolder = unreadableFolder;
+        }
+
+        @Override
+        public boolean exists(File file) {
+            return file.exists();
+        }
+
+        @Override
+        public boolean isFile(File file) {
+            return file.isFile();
+        }
+
+        @Override
+        public boolean isDirectory(File file) {
+            return file.isDirectory();
+        }
+
+        @Override
+        public void walkFileTree(Path start, int maxDepth, FileVisitor<? super Path> visitor) throws IOException {
+            Files.walkFileTree(start, EnumSet.noneOf(FileVisitOption.class), maxDepth, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (dir.toFile().equals(unreadableFolder)) {
+                        visitor.visitFileFailed(dir, new AccessDeniedException(dir.toString()));
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return visitor.preVisitDirectory(dir, attrs);
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    return visitor.visitFile(file, attrs);
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                    return visitor.visitFileFailed(file, exc);
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    return visitor.postVisitDirectory(dir, exc);
+                }
+            });
+        }
+
+        @Override
+        public void refresh(File file) {
+        }
+
+    }
+
 }
@@ -0,0 +1,117 @@
+package com.paypal.butterfly.utilities.java;
+
+import com.paypal.butterfly.extensions.api.TUExecutionResult;
+import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
+import com.paypal.butterfly.utilities.TransformationUtilityTestHelper;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Unit test for {@link IndexJavaSources}
+ *
+ * @author facarvalho
+ */
+public class IndexJavaSourcesTest extends TransformationUtilityTestHelper {
+
+    @Test
+    public void simpleTest() {
+        IndexJavaSources indexJavaSources = new IndexJavaSources();
+        TUExecutionResult executionResult = indexJavaSources.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        Assert.assertEquals(executionResult.getDetails(), "13 Java files have been indexed");
+        Assert.assertEquals(indexJavaSources.getDescription(), "Index Java types declared in Java source roots under the root folder");
+
+        JavaTypeIndex javaTypeIndex = (JavaTypeIndex) executionResult.getValue();
+        Assert.assertEquals(javaTypeIndex.size(), 13);
+        Assert.assertEquals(javaTypeIndex.getJavaFiles().size(), 13);
+
+        JavaTypeIndex.JavaFile application = javaTypeIndex.getJavaFile(new File(transformedAppFolder, "src/main/java/com/testapp/Application.java"));
+        Assert.assertNotNull(application);
+        Assert.assertEquals(application.getFile(), new File(transformedAppFolder, "src/main/java/com/testapp/Application.java").getAbsoluteFile());
+        Assert.assertEquals(application.getPackageName(), "com.testapp");
+        Assert.assertEquals(application.getImports(), Arrays.asList("org.springframework.boot.SpringApplication", "org.springframework.boot.context.web.SpringBootServletInitializer", "org.springframework.context.annotation.ComponentScan", "java.io.IOException"));
+        Assert.assertEquals(application.getTypeNames(), Collections.singletonList("Application"));
+        Assert.assertEquals(application.getAnnotations(), Arrays.asList("org.springframework.boot.autoconfigure.EnableAutoConfiguration", "ComponentScan", "SuppressWarnings", "MyAnnotation"));
+        Assert.assertEquals(application.getExtendedTypes(), Collections.singletonList("SpringBootServletInitializer"));
+        Assert.assertTrue(application.getImplementedTypes().isEmpty());
+        Assert.assertSame(javaTypeIndex.getJavaFile("com.testapp.Application"), application);
+
+        JavaTypeIndex.JavaFile fqdnSubclass = javaTypeIndex.getJavaFile("com.testapp.FqdnSubclass");
+        Assert.assertNotNull(fqdnSubclass);
+        Assert.assertEquals(fqdnSubclass.getExtendedTypes(), Collections.singletonList("java.util.logging.Logger"));
+
+        JavaTypeIndex.JavaFile noCompilationUnits = javaTypeIndex.getJavaFile(new File(transformedAppFolder, "src/main/java/com/testapp/NoCompilationUnits.java"));
+        Assert.assertNotNull(noCompilationUnits);
+        Assert.assertNull(noCompilationUnits.getPackageName());
+        Assert.assertTrue(noCompilationUnits.getTypeNames().isEmpty());
+
+        Assert.assertNull(javaTypeIndex.getJavaFile(new File(transformedAppFolder, "src/main/java/com/testapp/Foo.java")));
+        Assert.assertNull(javaTypeIndex.getJavaFile("com.testapp.Foo"));
+    }
+
+    @Test
+    public void sourceRootsTest() throws IOException {
+        FileUtils.write(new File(transformedAppFolder, "module/src/test/java/com/testapp/module/ModuleTest.java"), "package com.testapp.module;\n\npublic class ModuleTest implements java.io.Serializable, Cloneable {\n}\n", StandardCharsets.UTF_8);
+        FileUtils.write(new File(transformedAppFolder, "module/src/main/resources/Template.java"), "package com.testapp.module;\n\npublic class Template {\n}\n", StandardCharsets.UTF_8);
+
+        IndexJavaSources indexJavaSources = new IndexJavaSources();
+        TUExecutionResult executionResult = indexJavaSources.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+
+        JavaTypeIndex javaTypeIndex = (JavaTypeIndex) executionResult.getValue();
+        Assert.assertEquals(javaTypeIndex.size(), 14);
+        JavaTypeIndex.JavaFile moduleTest = javaTypeIndex.getJavaFile("com.testapp.module.ModuleTest");
+        Assert.assertNotNull(moduleTest);
+        Assert.assertTrue(moduleTest.getExtendedTypes().isEmpty());
+        Assert.assertEquals(moduleTest.getImplementedTypes(), Arrays.asList("java.io.Serializable", "Cloneable"));
+        Assert.assertNull(javaTypeIndex.getJavaFile("com.testapp.module.Template"));
+
+        indexJavaSources = new IndexJavaSources().relative("module").setSourceRoots("src/main/resources");
+        executionResult = indexJavaSources.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        Assert.assertEquals(indexJavaSources.getSourceRoots(), Collections.singletonList("src/main/resources"));
+        Assert.assertEquals(indexJavaSources.getDescription(), "Index Java types declared in Java source roots under module");
+
+        javaTypeIndex = (JavaTypeIndex) executionResult.getValue();
+        Assert.assertEquals(javaTypeIndex.size(), 1);
+        Assert.assertNotNull(javaTypeIndex.getJavaFile("com.testapp.module.Template"));
+    }
+
+    @Test
+    public void unparseableFileTest() throws IOException {
+        FileUtils.write(new File(transformedAppFolder, "src/main/java/com/testapp/Unparseable.java"), "package com.testapp;\n\npublic class Unparseable extends {\n", StandardCharsets.UTF_8);
+
+        TUExecutionResult executionResult = new IndexJavaSources().execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.WARNING);
+        Assert.assertEquals(executionResult.getDetails(), "13 Java files have been indexed, but the following ones could not be parsed: " + File.separator + "src" + File.separator + "main" + File.separator + "java" + File.separator + "com" + File.separator + "testapp" + File.separator + "Unparseable.java");
+
+        JavaTypeIndex javaTypeIndex = (JavaTypeIndex) executionResult.getValue();
+        Assert.assertEquals(javaTypeIndex.size(), 13);
+        Assert.assertNull(javaTypeIndex.getJavaFile(new File(transformedAppFolder, "src/main/java/com/testapp/Unparseable.java")));
+    }
+
+    @Test
+    public void modifiedFileTest() throws IOException {
+        File javaFile = new File(transformedAppFolder, "src/main/java/com/testapp/JavaLangSubclass.java");
+
+        JavaTypeIndex javaTypeIndex = (JavaTypeIndex) new IndexJavaSources().execution(transformedAppFolder, transformationContext).getValue();
+        Assert.assertNotNull(javaTypeIndex.getJavaFile(javaFile));
+
+        FileUtils.write(javaFile, "package com.testapp;\n\npublic class JavaLangSubclass extends RuntimeException {\n}\n", StandardCharsets.UTF_8);
+        Assert.assertNull(javaTypeIndex.getJavaFile(javaFile));
+        Assert.assertNull(javaTypeIndex.getJavaFile("com.testapp.JavaLangSubclass"));
+    }
+
+    @Test(expectedExceptions = TransformationDefinitionException.class, expectedExceptionsMessageRegExp = "Source roots cannot be empty")
+    public void emptySourceRootsTest() {
+        new IndexJavaSources().setSourceRoots();
+    }
+
+}
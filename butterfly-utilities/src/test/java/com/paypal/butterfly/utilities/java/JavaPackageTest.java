@@ -3,9 +3,15 @@ package com.paypal.butterfly.utilities.java;
 import com.paypal.butterfly.extensions.api.TUExecutionResult;
 import com.paypal.butterfly.extensions.api.exception.TransformationUtilityException;
 import com.paypal.butterfly.utilities.TransformationUtilityTestHelper;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
 /**
  * Unit test for {@link JavaPackage}
  *
@@ -34,4 +40,31 @@ public class JavaPackageTest extends TransformationUtilityTestHelper {
         Assert.assertEquals(javaPackage.getDescription(), "Retrieve the package of a Java class file src/main/java/com/testapp/NoCompilationUnits.java");
     }
 
+    @Test
+    public void javaTypeIndexTest() throws IOException {
+        JavaTypeIndex javaTypeIndex = (JavaTypeIndex) new IndexJavaSources().execution(transformedAppFolder, transformationContext).getValue();
+        Mockito.when(transformationContext.contains("javaTypeIndex")).thenReturn(true);
+        Mockito.when(transformationContext.get("javaTypeIndex")).thenReturn(javaTypeIndex);
+
+        JavaPackage javaPackage = new JavaPackage().setJavaTypeIndexAttributeName("javaTypeIndex").relative("src/main/java/com/testapp/Application.java");
+        TUExecutionResult executionResult = javaPackage.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        Assert.assertEquals(executionResult.getValue(), "com.testapp");
+        Assert.assertEquals(javaPackage.getJavaTypeIndexAttributeName(), "javaTypeIndex");
+
+        // Modified after indexed, so it is parsed again
+        File javaFile = new File(transformedAppFolder, "src/main/java/com/testapp/SamePackageSubclass.java");
+        Files.write(javaFile.toPath(), "package com.testapp.other;\n\npublic class SamePackageSubclass {\n}\n".getBytes(StandardCharsets.UTF_8));
+        javaPackage = new JavaPackage().setJavaTypeIndexAttributeName("javaTypeIndex").relative("src/main/java/com/testapp/SamePackageSubclass.java");
+        executionResult = javaPackage.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+        Assert.assertEquals(executionResult.getValue(), "com.testapp.other");
+
+        // No package declaration, so it is parsed, resulting in the same error
+        javaPackage = new JavaPackage().setJavaTypeIndexAttributeName("javaTypeIndex").relative("src/main/java/com/testapp/NoCompilationUnits.java");
+        executionResult = javaPackage.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TUExecutionResult.Type.ERROR);
+        Assert.assertEquals(executionResult.getException().getMessage(), "An exception happened when trying to read and parse the specified Java file /src/main/java/com/testapp/NoCompilationUnits.java");
+    }
+
 }
@@ -0,0 +1,103 @@
+package com.paypal.butterfly.utilities.maven;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark building a {@link ModelTree} out of synthetic module graphs of 10k artifacts,
+ * given in random order, both out of already parsed models (linking only)
+ * and out of pom.xml files (parsing and linking).
+ * Graph shapes are a wide one (all artifacts are children of the root), a deep one
+ * (every artifact is the parent of the next one) and a balanced one (every artifact has ten children).
+ * It is not run as part of the unit tests, run it with {@code gradle :butterfly-utilities:jmh -Pjmh=ModelTreeBenchmark}.
+ *
+ * @author facarvalho
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelTreeBenchmark {
+
+    private static final int SIZE = 10000;
+
+    @Param({"wide", "deep", "balanced"})
+    private String shape;
+
+    private File folder;
+    private List<Model> models;
+    private List<File> pomFiles;
+
+    @Setup
+    public void setup() throws IOException {
+        models = new ArrayList<>(SIZE);
+        for (int i = 1; i <= SIZE; i++) {
+            models.add(ModelTreeTest.createModel("a" + i, getParentArtifactId(i)));
+        }
+        Collections.shuffle(models, new Random(SIZE));
+
+        folder = Files.createTempDirectory("model-tree-benchmark").toFile();
+        pomFiles = new ArrayList<>(SIZE);
+        MavenXpp3Writer writer = new MavenXpp3Writer();
+        for (Model model : models) {
+            File pomFile = new File(folder, model.getArtifactId() + ".xml");
+            try (OutputStream outputStream = new FileOutputStream(pomFile)) {
+                writer.write(outputStream, model);
+            }
+            pomFiles.add(pomFile);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(folder);
+    }
+
+    private String getParentArtifactId(int i) {
+        int parent;
+        switch (shape) {
+            case "wide":
+                parent = 0;
+                break;
+            case "deep":
+                parent = i - 1;
+                break;
+            default:
+                parent = (i - 1) / 10;
+        }
+        return (parent == 0 ? "root" : "a" + parent);
+    }
+
+    @Benchmark
+    public List<File> link() {
+        return new ModelTree(ModelTreeTest.createModel("root", null), models).getPomFilesInTree();
+    }
+
+    @Benchmark
+    public List<File> parseAndLink() {
+        return new ModelTree("com.test", "root", "1.0", pomFiles, null).getPomFilesInTree();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ModelTreeBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.paypal.butterfly.utilities.maven;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link ModelTree}
+ *
+ * @author facarvalho
+ */
+public class ModelTreeTest {
+
+    @Test
+    public void treeTest() {
+        List<Model> models = new ArrayList<>();
+
+        // Children are given before their parents on purpose
+        models.add(createModel("c1", "b"));
+        models.add(createModel("c2", "b"));
+        models.add(createModel("b", "root"));
+        models.add(createModel("d", "c1"));
+        models.add(createModel("other", null));
+        models.add(createModel("other-child", "other"));
+
+        ModelTree modelTree = new ModelTree(createModel("root", null), models);
+
+        assertEquals(modelTree.size(), 5);
+        assertEquals(getNames(modelTree.getPomFilesInTree()), Arrays.asList("c1", "c2", "b", "d"));
+        assertTrue(modelTree.getOrphanPomFiles().isEmpty());
+        assertTrue(modelTree.getCyclicPomFiles().isEmpty());
+    }
+
+    @Test
+    public void orphansAndCyclesTest() {
+        List<Model> models = new ArrayList<>();
+        models.add(createModel("a", "root"));
+        models.add(createModel("orphan", "unknown"));
+        models.add(createModel("orphan-child", "orphan"));
+        models.add(createModel("x", "z"));
+        models.add(createModel("y", "x"));
+        models.add(createModel("z", "y"));
+        models.add(createModel("x-child", "x"));
+        models.add(createModel("self", "self"));
+
+        ModelTree modelTree = new ModelTree(createModel("root", null), models);
+
+        assertEquals(modelTree.size(), 2);
+        assertEquals(getNames(modelTree.getPomFilesInTree()), Collections.singletonList("a"));
+        assertEquals(getNames(modelTree.getOrphanPomFiles()), Collections.singletonList("orphan"));
+        assertEquals(getNames(modelTree.getCyclicPomFiles()), Arrays.asList("x", "z", "y", "self"));
+    }
+
+    @Test
+    public void largeTreeTest() {
+        // Every artifact is the parent of the one given before it, which is the worst case for linking them in many passes
+        int size = 10000;
+        List<Model> models = new ArrayList<>(size);
+        for (int i = size; i > 0; i--) {
+            models.add(createModel("a" + i, (i == 1 ? "root" : "a" + (i - 1))));
+        }
+
+        ModelTree modelTree = new ModelTree(createModel("root", null), models);
+
+        assertEquals(modelTree.size(), size + 1);
+        assertEquals(modelTree.getPomFilesInTree().size(), size);
+    }
+
+    private static List<String> getNames(List<File> files) {
+        return files.stream().map(File::getName).collect(Collectors.toList());
+    }
+
+    static Model createModel(String artifactId, String parentArtifactId) {
+        Model model = new Model();
+        model.setGroupId("com.test");
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0");
+        model.setPomFile(new File(artifactId));
+        if (parentArtifactId != null) {
+            Parent parent = new Parent();
+            parent.setGroupId("com.test");
+            parent.setArtifactId(parentArtifactId);
+            parent.setVersion("1.0");
+            model.setParent(parent);
+        }
+        return model;
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.paypal.butterfly.utilities.operations;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing {@link EolLineScanner} with {@link EolBufferedReader}
+ * when reading all lines of an 11k lines Java file.
+ * It is not run as part of the unit tests, run it with {@code gradle :butterfly-utilities:jmh}.
+ *
+ * @author facarvalho
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EolLineScannerBenchmark {
+
+    private static final String RESOURCE = "/test-app/src/main/java/com/testapp/JavaLangSubclassLong.java";
+
+    private String content;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream inputStream = EolLineScannerBenchmark.class.getResourceAsStream(RESOURCE)) {
+            content = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public void eolBufferedReaderKeepEol(Blackhole blackhole) throws IOException {
+        EolBufferedReader reader = new EolBufferedReader(new BufferedReader(new StringReader(content)));
+        String line;
+        while ((line = reader.readLineKeepEol()) != null) {
+            blackhole.consume(EolHelper.removeEol(line));
+        }
+        reader.close();
+    }
+
+    @Benchmark
+    public void eolLineScannerKeepEol(Blackhole blackhole) throws IOException {
+        try (EolLineScanner scanner = new EolLineScanner(new StringReader(content))) {
+            EolLineScanner.Line line;
+            while ((line = scanner.nextLineKeepEol()) != null) {
+                blackhole.consume(line.withoutEol().length());
+            }
+        }
+    }
+
+    @Benchmark
+    public void eolBufferedReaderKeepStartEol(Blackhole blackhole) throws IOException {
+        EolBufferedReader reader = new EolBufferedReader(new BufferedReader(new StringReader(content)));
+        String line;
+        while ((line = reader.readLineKeepStartEol()) != null) {
+            blackhole.consume(EolHelper.removeEol(line));
+        }
+        reader.close();
+    }
+
+    @Benchmark
+    public void eolLineScannerKeepStartEol(Blackhole blackhole) throws IOException {
+        try (EolLineScanner scanner = new EolLineScanner(new StringReader(content))) {
+            EolLineScanner.Line line;
+            while ((line = scanner.nextLineKeepStartEol()) != null) {
+                blackhole.consume(line.withoutEol().length());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EolLineScannerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
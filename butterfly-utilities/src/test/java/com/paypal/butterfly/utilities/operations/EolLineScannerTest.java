@@ -0,0 +1,173 @@
+package com.paypal.butterfly.utilities.operations;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for {@link EolLineScanner}
+ *
+ * @author facarvalho
+ */
+public class EolLineScannerTest {
+
+    //line1\n
+    //line2\r
+    //line3\r\n
+    //\n
+    //
+    private static final String TEST_STRING = "line1\nline2\rline3\r\n\n";
+
+    // Odd cases, such as consecutive carriage returns, and no EOL in the end
+    private static final String[] EDGE_CASES = {"", "\n", "\r", "\r\n", "a", "\r\r", "\r\r\n\n", "\n\r", "a\r\rb", "abc\r", "\rabc\n\rdef", "line1\r\nline2\r\n", "x\n\ny\r\rz"};
+
+    @Test
+    public void nextLineKeepEolTest() throws IOException {
+        try (EolLineScanner scanner = new EolLineScanner(new StringReader(TEST_STRING))) {
+            Assert.assertEquals(scanner.nextLineKeepEol().toString(), "line1\n");
+            Assert.assertEquals(scanner.nextLineKeepEol().toString(), "line2\r");
+            Assert.assertEquals(scanner.nextLineKeepEol().toString(), "line3\r\n");
+            Assert.assertEquals(scanner.nextLineKeepEol().toString(), "\n");
+            Assert.assertNull(scanner.nextLineKeepEol());
+        }
+    }
+
+    @Test
+    public void nextLineKeepStartEolTest() throws IOException {
+        try (EolLineScanner scanner = new EolLineScanner(new StringReader(TEST_STRING))) {
+            Assert.assertEquals(scanner.nextLineKeepStartEol().toString(), "line1");
+            Assert.assertEquals(scanner.nextLineKeepStartEol().toString(), "\nline2");
+            Assert.assertEquals(scanner.nextLineKeepStartEol().toString(), "\rline3");
+            Assert.assertEquals(scanner.nextLineKeepStartEol().toString(), "\r\n");
+            Assert.assertEquals(scanner.nextLineKeepStartEol().toString(), "\n");
+            Assert.assertNull(scanner.nextLineKeepStartEol());
+        }
+    }
+
+    @Test
+    public void lineViewTest() throws IOException {
+        try (EolLineScanner scanner = new EolLineScanner(new StringReader("\r\nabc"))) {
+            scanner.nextLineKeepEol();
+            EolLineScanner.Line line = scanner.nextLineKeepEol();
+            Assert.assertEquals(line.length(), 3);
+            Assert.assertEquals(line.charAt(1), 'b');
+            Assert.assertEquals(line.subSequence(1, 3), "bc");
+            Assert.assertFalse(line.endsWithEol());
+        }
+        try (EolLineScanner scanner = new EolLineScanner(new StringReader("abc\ndef"))) {
+            EolLineScanner.Line line = scanner.nextLineKeepStartEol();
+            line = scanner.nextLineKeepStartEol();
+            Assert.assertEquals(line.toString(), "\ndef");
+            Assert.assertEquals(line.withoutEol().toString(), "def");
+            Assert.assertTrue("def".contentEquals(line.withoutEol()));
+
+            StringWriter writer = new StringWriter();
+            line.writeTo(writer);
+            line.withoutEol().writeTo(writer);
+            Assert.assertEquals(writer.toString(), "\ndefdef");
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void lineViewOutOfBoundsTest() throws IOException {
+        try (EolLineScanner scanner = new EolLineScanner(new StringReader("abc\n"))) {
+            scanner.nextLineKeepEol().charAt(4);
+        }
+    }
+
+    @Test
+    public void sameAsEolBufferedReaderTest() throws IOException {
+        for (String edgeCase : EDGE_CASES) {
+            // The smallest buffer exercises lines and EOLs split across buffer refills
+            for (int bufferSize : new int[]{2, 3, 8192}) {
+                Assert.assertEquals(readKeepEol(edgeCase, bufferSize), readKeepEolOld(edgeCase), edgeCase);
+                Assert.assertEquals(readKeepStartEol(edgeCase, bufferSize), readKeepStartEolOld(edgeCase), edgeCase);
+            }
+        }
+    }
+
+    @Test
+    public void longFileTest() throws IOException, URISyntaxException {
+        File file = new File(getClass().getResource("/test-app/src/main/java/com/testapp/JavaLangSubclassLong.java").toURI());
+        String content = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+
+        List<String> lines = readKeepEol(content, 64);
+        Assert.assertEquals(lines, readKeepEolOld(content));
+        Assert.assertEquals(String.join("", lines), content);
+
+        lines = readKeepStartEol(content, 64);
+        Assert.assertEquals(lines, readKeepStartEolOld(content));
+        Assert.assertEquals(String.join("", lines), content);
+    }
+
+    @Test
+    public void longLineTest() throws IOException {
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longLine.append("0123456789");
+        }
+        String content = "first\r\n" + longLine + "\r\nlast";
+        Assert.assertEquals(readKeepEol(content, 16), readKeepEolOld(content));
+        Assert.assertEquals(readKeepStartEol(content, 16), readKeepStartEolOld(content));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Reader object cannot be null")
+    public void nullReaderTest() {
+        new EolLineScanner(null);
+    }
+
+    private static List<String> readKeepEol(String content, int bufferSize) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (EolLineScanner scanner = new EolLineScanner(new StringReader(content), bufferSize)) {
+            EolLineScanner.Line line;
+            while ((line = scanner.nextLineKeepEol()) != null) {
+                lines.add(line.toString());
+            }
+        }
+        return lines;
+    }
+
+    private static List<String> readKeepStartEol(String content, int bufferSize) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (EolLineScanner scanner = new EolLineScanner(new StringReader(content), bufferSize)) {
+            EolLineScanner.Line line;
+            while ((line = scanner.nextLineKeepStartEol()) != null) {
+                lines.add(line.toString());
+            }
+        }
+        return lines;
+    }
+
+    private static List<String> readKeepEolOld(String content) throws IOException {
+        List<String> lines = new ArrayList<>();
+        EolBufferedReader reader = new EolBufferedReader(new BufferedReader(new StringReader(content)));
+        String line;
+        while ((line = reader.readLineKeepEol()) != null) {
+            lines.add(line);
+        }
+        reader.close();
+        return lines;
+    }
+
+    private static List<String> readKeepStartEolOld(String content) throws IOException {
+        List<String> lines = new ArrayList<>();
+        EolBufferedReader reader = new EolBufferedReader(new BufferedReader(new StringReader(content)));
+        String line;
+        while ((line = reader.readLineKeepStartEol()) != null) {
+            lines.add(line);
+        }
+        reader.close();
+        return lines;
+    }
+
+}
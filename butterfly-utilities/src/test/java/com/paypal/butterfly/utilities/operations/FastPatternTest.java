@@ -0,0 +1,109 @@
+package com.paypal.butterfly.utilities.operations;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.regex.Pattern;
+
+/**
+ * Unit test for {@link FastPattern} and {@link FastMatcher}
+ *
+ * @author facarvalho
+ */
+public class FastPatternTest {
+
+    private static final String[] REGEXES = {
+            "", "foo", "^foo$", "(Spring framework)", ".*", "(.*)", "foo.*", ".*foo", ".*foo.*", "(.*)foo(.*)", ".*?foo.*?",
+            "(?:.*)foo", "foo\\.bar.*", ".*\\.java", "foo.*bar", ".*foo.*bar.*", "fo+", "fo?o", "fooo*", "foo{2}",
+            "foo\\d+", "[a-z]+", "foo|bar", ".*(foo|bar).*", "(?i)foo", "(?i:foo).*", "\\Qfoo\\E.*", "foo$", "^.*",
+            ".*foo\\s*=.*", "\\bfoo\\b.*", "(foo)\\1", ".*+foo", "\\w+\\.xml", "\\.", "a.b", "𝄞?foo", ".*[]]foo.*",
+            "[^]]foo.*", "foo(?=bar).*", "foo(?!bar).*", "(?<=x)foo.*", ".*\\p{Alpha}foo", "\\x41.*", "\\u0041.*",
+            "(?<a>foo)\\k<a>", "(foo)?bar", "(?:foo)bar", "(fo)+", "()foo", "foo\\R", ".*\\\\foo",
+    };
+
+    private static final String[] INPUTS = {
+            "", "foo", "Foo", "foofoo", "foo.bar", "foobar", "barfoo", "xfoox", "foo\nbar", "\nfoo", "foo\r", "foo ",
+            "foo\u0085x", "x foo", "fo", "fooo", "foooo", "foo123", "Spring framework", "(Spring framework)",
+            "Test.java", "Test.java.txt", "pom.xml", ".", "a.b", "axb", "𝄞foo", "]foo", "xfoo", "foo = bar", "foo\\foo",
+            "\\foo", "Afoo", "A", "foo\r\n", "foo\n",
+    };
+
+    @Test
+    public void sameAsPatternTest() {
+        for (String regex : REGEXES) {
+            Pattern pattern = Pattern.compile(regex);
+            FastMatcher fastMatcher = FastPattern.compile(regex).matcher();
+            for (String input : INPUTS) {
+                Assert.assertEquals(fastMatcher.matches(input), pattern.matcher(input).matches(), "Regex: " + regex + ", input: " + input);
+            }
+        }
+    }
+
+    @Test
+    public void kindTest() {
+        assertKind("", FastPattern.Kind.LITERAL, "");
+        assertKind("foo", FastPattern.Kind.LITERAL, "foo");
+        assertKind("^foo$", FastPattern.Kind.LITERAL, "foo");
+        assertKind("(Spring framework)", FastPattern.Kind.LITERAL, "Spring framework");
+        assertKind("(?:foo)bar", FastPattern.Kind.LITERAL, "foobar");
+        assertKind("(foo)?bar", FastPattern.Kind.REGEX, "bar");
+        assertKind("foo\\.bar", FastPattern.Kind.LITERAL, "foo.bar");
+        assertKind(".*", FastPattern.Kind.ANY_LINE, null);
+        assertKind("(.*)", FastPattern.Kind.ANY_LINE, null);
+        assertKind("foo.*", FastPattern.Kind.PREFIX, "foo");
+        assertKind(".*\\.java", FastPattern.Kind.SUFFIX, ".java");
+        assertKind(".*foo.*", FastPattern.Kind.CONTAINS, "foo");
+        assertKind("(.*)foo(.*)", FastPattern.Kind.CONTAINS, "foo");
+        assertKind("(.*)(Spring framework)(.*)", FastPattern.Kind.CONTAINS, "Spring framework");
+        assertKind(".*?foo.*?", FastPattern.Kind.CONTAINS, "foo");
+        assertKind("foo.*bar", FastPattern.Kind.REGEX, "foo");
+        assertKind("foo\\d+bar.*", FastPattern.Kind.REGEX, "foo");
+        assertKind("fooo*", FastPattern.Kind.REGEX, "foo");
+        assertKind("fo+", FastPattern.Kind.REGEX, null);
+        assertKind("foo|bar", FastPattern.Kind.REGEX, null);
+        assertKind("(?i)foo", FastPattern.Kind.REGEX, null);
+        assertKind("\\Qfoo\\E", FastPattern.Kind.REGEX, null);
+        assertKind(".*+foo", FastPattern.Kind.REGEX, null);
+    }
+
+    @Test
+    public void literalPrefixTest() {
+        Assert.assertEquals(new FastPattern("foo").getLiteralPrefix(), "foo");
+        Assert.assertEquals(new FastPattern("^/src/main.*").getLiteralPrefix(), "/src/main");
+        Assert.assertEquals(new FastPattern("fooo*").getLiteralPrefix(), "foo");
+        Assert.assertEquals(new FastPattern("(foo)bar\\d").getLiteralPrefix(), "foobar");
+        Assert.assertEquals(new FastPattern(".*foo").getLiteralPrefix(), "");
+        Assert.assertEquals(new FastPattern("foo|bar").getLiteralPrefix(), "");
+        Assert.assertEquals(new FastPattern("[a-z]foo").getLiteralPrefix(), "");
+    }
+
+    @Test
+    public void literalSearchTest() {
+        String[] needles = {"a", "ab", "abcd", "needle", "dle"};
+        String[] texts = {"", "a", "xxab", "abcabcd", "haystack with a needle in it", "needl", "nneedle", "ĀĂabcd"};
+        for (String needle : needles) {
+            FastPattern.LiteralSearch literalSearch = new FastPattern.LiteralSearch(needle);
+            for (String text : texts) {
+                Assert.assertEquals(literalSearch.indexOf(text), text.indexOf(needle), "Needle: " + needle + ", text: " + text);
+            }
+        }
+
+        // Characters whose lowest 8 bits are the same share the same shift
+        FastPattern.LiteralSearch literalSearch = new FastPattern.LiteralSearch("aĀbcd");
+        Assert.assertEquals(literalSearch.indexOf("xxaaĀbcdĀ"), 3);
+    }
+
+    @Test
+    public void cachedTest() {
+        Assert.assertSame(FastPattern.compile(".*foo.*"), FastPattern.compile(".*foo.*"));
+        Assert.assertSame(FastPattern.compile(".*foo.*").getPattern(), PatternCache.compile(".*foo.*"));
+        Assert.assertEquals(FastPattern.compile(".*foo.*").getRegex(), ".*foo.*");
+    }
+
+    private static void assertKind(String regex, FastPattern.Kind kind, String literal) {
+        FastPattern fastPattern = new FastPattern(regex);
+        Assert.assertEquals(fastPattern.getKind(), kind, regex);
+        Assert.assertEquals(fastPattern.getLiteral(), literal, regex);
+    }
+
+}
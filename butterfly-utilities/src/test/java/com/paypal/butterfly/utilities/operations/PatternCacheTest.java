@@ -0,0 +1,49 @@
+package com.paypal.butterfly.utilities.operations;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Unit test for {@link PatternCache}
+ *
+ * @author facarvalho
+ */
+public class PatternCacheTest {
+
+    @Test
+    public void compileOnceTest() {
+        Pattern pattern = PatternCache.compile("(.*)foo(.*)");
+        Assert.assertEquals(pattern.pattern(), "(.*)foo(.*)");
+        Assert.assertSame(PatternCache.compile("(.*)foo(.*)"), pattern);
+        Assert.assertNotSame(PatternCache.compile("(.*)bar(.*)"), pattern);
+    }
+
+    @Test
+    public void matchesTest() {
+        Assert.assertTrue(PatternCache.matches(".*\\.java", "Foo.java"));
+        Assert.assertFalse(PatternCache.matches(".*\\.java", "Foo.java.txt"));
+        Assert.assertFalse(PatternCache.matches("foo", "foobar"));
+    }
+
+    @Test
+    public void boundedTest() {
+        for (int i = 0; i < PatternCache.MAX_SIZE * 3; i++) {
+            Assert.assertTrue(PatternCache.matches("bounded" + i + ".*", "bounded" + i + "test"));
+        }
+        Assert.assertTrue(PatternCache.size() <= PatternCache.MAX_SIZE);
+    }
+
+    @Test(expectedExceptions = PatternSyntaxException.class)
+    public void invalidRegexTest() {
+        PatternCache.compile("(foo");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Regular expression cannot be null")
+    public void nullRegexTest() {
+        PatternCache.compile(null);
+    }
+
+}
@@ -4,6 +4,7 @@ import static org.testng.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 
 import org.apache.commons.io.FileUtils;
 import org.testng.annotations.Test;
@@ -89,4 +90,14 @@ public class CopyFileTest extends TransformationUtilityTestHelper {
         assertNull(executionResult.getDetails());
     }
 
+    @Test
+    public void modifiedFilesTest() {
+        CopyFile copyFile = new CopyFile().relative("foo.xml").setToRelative("src/main/resources");
+        assertEquals(copyFile.getModifiedFiles(transformedAppFolder, transformationContext), Collections.singletonList(new File(transformedAppFolder, "src/main/resources/foo.xml")));
+
+        // The destination location is not known yet
+        copyFile = new CopyFile().relative("foo.xml").setToAbsolute("ATT");
+        assertNull(copyFile.getModifiedFiles(transformedAppFolder, transformationContext));
+    }
+
 }
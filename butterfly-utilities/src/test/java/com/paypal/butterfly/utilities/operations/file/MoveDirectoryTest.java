@@ -7,6 +7,7 @@ import org.mockito.Mockito;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.util.Arrays;
 
 import static org.testng.Assert.*;
 
@@ -86,4 +87,10 @@ public class MoveDirectoryTest extends TransformationUtilityTestHelper {
         assertNull(executionResult.getDetails());
     }
 
+    @Test
+    public void modifiedFilesTest() {
+        MoveDirectory moveDirectory = new MoveDirectory().relative("src/main/resources").setToRelative("src/main/resources_moved");
+        assertEquals(moveDirectory.getModifiedFiles(transformedAppFolder, transformationContext), Arrays.asList(new File(transformedAppFolder, "src/main/resources"), new File(transformedAppFolder, "src/main/resources_moved")));
+    }
+
 }
@@ -88,9 +88,7 @@ public class PomAddDependencyTest extends TransformationUtilityTestHelper {
         Dependency dependencyAfterChange = getDependencyInList(getTransformedPomModel("pom.xml"), "xmlunit", "xmlunit", "1.7");
         Assert.assertNull(dependencyAfterChange);
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
     }
 
     @Test
@@ -74,9 +74,7 @@ public class PomAddManagedDependencyTest extends TransformationUtilityTestHelper
         Dependency dependencyAfterChange = getManagedDependencyInList(getTransformedPomModel("pom.xml"), "xmlunit", "xmlunit", "1.7");
         Assert.assertNull(dependencyAfterChange);
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
     }
 
     @Test
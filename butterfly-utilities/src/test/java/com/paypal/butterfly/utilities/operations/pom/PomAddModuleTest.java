@@ -88,9 +88,7 @@ public class PomAddModuleTest extends TransformationUtilityTestHelper {
         assertEquals(executionResult.getWarnings().get(0).getClass(), TransformationOperationException.class);
         assertEquals(executionResult.getWarnings().get(0).getMessage(), "Module module1 was not added to POM file pom.xml because it is already present");
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
     }
 
     @Test
@@ -109,9 +107,7 @@ public class PomAddModuleTest extends TransformationUtilityTestHelper {
         assertEquals(pomModelAfterChange.getModules().size(), 1);
         assertTrue(pomModelAfterChange.getModules().contains("module1"));
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
     }
 
     @Test
@@ -89,9 +89,7 @@ public class PomAddPropertyTest extends TransformationUtilityTestHelper {
         assertEquals(executionResult.getWarnings().get(0).getClass(), TransformationOperationException.class);
         assertEquals(executionResult.getWarnings().get(0).getMessage(), "Property encoding was not added to POM file pom.xml because it is already present");
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
     }
 
     @Test
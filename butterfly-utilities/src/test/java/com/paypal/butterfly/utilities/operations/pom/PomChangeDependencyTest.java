@@ -150,9 +150,7 @@ public class PomChangeDependencyTest extends TransformationUtilityTestHelper {
         assertNull(executionResult.getException());
         assertEquals(executionResult.getWarnings().get(0).getClass(), TransformationOperationException.class);
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
     }
 
     @Test
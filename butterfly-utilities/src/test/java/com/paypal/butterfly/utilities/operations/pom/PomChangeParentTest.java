@@ -137,9 +137,7 @@ public class PomChangeParentTest extends TransformationUtilityTestHelper {
         assertNull(pomModelAfterChange.getParent());
 
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("/src/main/resources/no_parent_pom.xml");
+        assertNotChangedFile("/src/main/resources/no_parent_pom.xml");
     }
 
     @Test
@@ -0,0 +1,168 @@
+package com.paypal.butterfly.utilities.operations.pom;
+
+import com.paypal.butterfly.extensions.api.TOExecutionResult;
+import com.paypal.butterfly.extensions.api.TUExecutionResult;
+import com.paypal.butterfly.extensions.api.TransformationOperation;
+import com.paypal.butterfly.extensions.api.TransformationUtility;
+import com.paypal.butterfly.extensions.api.TransformationUtilityParent;
+import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
+import com.paypal.butterfly.utilities.TransformationUtilityTestHelper;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Model;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Unit test class for {@link PomEditSession}
+ *
+ * @author facarvalho
+ */
+public class PomEditSessionTest extends TransformationUtilityTestHelper {
+
+    @Test
+    public void sameAsOneByOneTest() throws IOException {
+        FileUtils.copyFile(new File(transformedAppFolder, "pom.xml"), new File(transformedAppFolder, "pom2.xml"));
+
+        List<TOExecutionResult> oneByOneResults = new ArrayList<>();
+        for (TransformationOperation operation : getOperations()) {
+            operation.relative("pom2.xml");
+            oneByOneResults.add((TOExecutionResult) operation.perform(transformedAppFolder, transformationContext).getExecutionResult());
+        }
+
+        PomEditSession pomEditSession = newSession().relative("pom.xml");
+        for (TransformationOperation operation : getOperations()) {
+            pomEditSession.add(operation);
+        }
+        List<TOExecutionResult> sessionResults = performSession(pomEditSession);
+
+        assertEquals(pomEditSession.getDescription(), "Apply 5 POM operations to POM file pom.xml at once");
+        assertEquals(sessionResults.size(), oneByOneResults.size());
+        for (int i = 0; i < sessionResults.size(); i++) {
+            assertEquals(sessionResults.get(i).getType(), oneByOneResults.get(i).getType());
+        }
+        assertEquals(sessionResults.get(2).getType(), TOExecutionResult.Type.ERROR);
+        assertEquals(FileUtils.readFileToString(new File(transformedAppFolder, "pom.xml"), "UTF-8"), FileUtils.readFileToString(new File(transformedAppFolder, "pom2.xml"), "UTF-8"));
+    }
+
+    @Test
+    public void changesTest() throws IOException, XmlPullParserException {
+        PomEditSession pomEditSession = newSession().relative("pom.xml");
+        for (TransformationOperation operation : getOperations()) {
+            pomEditSession.add(operation);
+        }
+        List<TOExecutionResult> sessionResults = performSession(pomEditSession);
+
+        assertEquals(sessionResults.get(0).getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(sessionResults.get(1).getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(sessionResults.get(3).getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(sessionResults.get(4).getType(), TOExecutionResult.Type.SUCCESS);
+
+        Model pomModelAfterChange = getTransformedPomModel("pom.xml");
+        assertEquals(pomModelAfterChange.getParent().getVersion(), "2.0");
+        assertEquals(pomModelAfterChange.getProperties().getProperty("foo"), "bar");
+        assertTrue(pomModelAfterChange.getDependencies().stream().anyMatch(d -> d.getArtifactId().equals("spring-batch-core")));
+        assertFalse(pomModelAfterChange.getDependencies().stream().anyMatch(d -> d.getArtifactId().equals("commons-lang3")));
+    }
+
+    @Test
+    public void abortOnFailureTest() throws IOException, XmlPullParserException {
+        PomEditSession pomEditSession = newSession().relative("pom.xml")
+                .add(new PomAddProperty("foo", "bar"))
+                .add(new PomRemoveDependency("not", "there").abortOnFailure(true))
+                .add(new PomAddModule("module2"));
+        pomEditSession.perform(transformedAppFolder, transformationContext);
+
+        // The transformation would be aborted right after the second operation, so the third one is never performed
+        TOExecutionResult executionResult1 = (TOExecutionResult) pomEditSession.getChildren().get(0).perform(transformedAppFolder, transformationContext).getExecutionResult();
+        TOExecutionResult executionResult2 = (TOExecutionResult) pomEditSession.getChildren().get(1).perform(transformedAppFolder, transformationContext).getExecutionResult();
+        assertEquals(executionResult1.getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(executionResult2.getType(), TOExecutionResult.Type.ERROR);
+
+        Model pomModelAfterChange = getTransformedPomModel("pom.xml");
+        assertEquals(pomModelAfterChange.getProperties().getProperty("foo"), "bar");
+        assertFalse(pomModelAfterChange.getModules().contains("module2"));
+    }
+
+    @Test
+    public void noChangesTest() throws IOException {
+        PomEditSession pomEditSession = newSession().relative("pom.xml")
+                .add(new PomRemoveDependency("not", "there"))
+                .add(new PomRemoveModule("not-there").noOpIfNotPresent());
+        performSession(pomEditSession);
+
+        assertNotChangedFile("pom.xml");
+    }
+
+    @Test
+    public void conditionTest() {
+        PomEditSession pomEditSession = newSession().relative("pom.xml")
+                .add(new PomAddProperty("foo", "bar").executeIf("condition"));
+
+        TUExecutionResult executionResult = (TUExecutionResult) pomEditSession.perform(transformedAppFolder, transformationContext).getExecutionResult();
+        assertEquals(executionResult.getType(), TUExecutionResult.Type.ERROR);
+    }
+
+    @Test(expectedExceptions = TransformationDefinitionException.class, expectedExceptionsMessageRegExp = "Invalid attempt to add POM operation to POM edit session. This session has to be added to a transformation utilities parent first.")
+    public void noParentTest() {
+        new PomEditSession().relative("pom.xml").add(new PomAddProperty("foo", "bar"));
+    }
+
+    @Test(expectedExceptions = TransformationDefinitionException.class)
+    public void notPomOperationTest() {
+        TransformationOperation operation = Mockito.mock(TransformationOperation.class);
+        newSession().add(operation);
+    }
+
+    @Test
+    public void cloneTest() {
+        PomEditSession pomEditSession = newSession().relative("pom.xml")
+                .add(new PomAddProperty("foo", "bar"))
+                .add(new PomAddModule("module2"));
+        PomEditSession clone = pomEditSession.clone();
+
+        assertEquals(clone.getChildren().size(), 2);
+        for (int i = 0; i < 2; i++) {
+            TransformationUtility operation = pomEditSession.getChildren().get(i);
+            TransformationUtility operationClone = clone.getChildren().get(i);
+            assertNotSame(operationClone, operation);
+            assertSame(operationClone.getParent(), clone);
+            assertEquals(operationClone.getOrder(), operation.getOrder());
+        }
+    }
+
+    private static List<TransformationOperation> getOperations() {
+        List<TransformationOperation> operations = new ArrayList<>();
+        operations.add(new PomAddDependency("org.springframework.batch", "spring-batch-core", "3.0.7.RELEASE"));
+        operations.add(new PomRemoveDependency("org.apache.commons", "commons-lang3"));
+        operations.add(new PomRemoveDependency("not", "there"));
+        operations.add(new PomAddProperty("foo", "bar"));
+        operations.add(new PomChangeParentVersion("2.0"));
+        return operations;
+    }
+
+    private static PomEditSession newSession() {
+        TransformationUtilityParent parent = Mockito.mock(TransformationUtilityParent.class);
+        Mockito.when(parent.getName()).thenReturn("parent");
+        return new PomEditSession().setParent(parent, 1);
+    }
+
+    private List<TOExecutionResult> performSession(PomEditSession pomEditSession) {
+        TUExecutionResult executionResult = (TUExecutionResult) pomEditSession.perform(transformedAppFolder, transformationContext).getExecutionResult();
+        assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+
+        List<TOExecutionResult> results = new ArrayList<>();
+        for (TransformationUtility operation : pomEditSession.getChildren()) {
+            results.add((TOExecutionResult) operation.perform(transformedAppFolder, transformationContext).getExecutionResult());
+        }
+        return results;
+    }
+
+}
@@ -20,7 +20,7 @@ public class PomRemoveDependencyTest extends TransformationUtilityTestHelper {
 	private static final String DEPENDENCY_NOT_REMOVED_MSG = "Dependency com.test:not-present has NOT been removed from POM file /pom.xml because it is not present";
 
 	@Test
-	public void miscTest() {
+	public void miscTest() throws IOException {
 		PomRemoveDependency pomRemoveDependency = new PomRemoveDependency("org.springframework.boot", "spring-boot-dependencies").relative("pom.xml");
 
 		assertEquals(pomRemoveDependency.getDescription(), "Remove dependency org.springframework.boot:spring-boot-dependencies from POM file pom.xml");
@@ -73,9 +73,7 @@ public class PomRemoveDependencyTest extends TransformationUtilityTestHelper {
 		assertEquals(executionResult.getWarnings().get(0).getClass(), TransformationOperationException.class);
 		assertEquals(executionResult.getWarnings().get(0).getMessage(), DEPENDENCY_NOT_REMOVED_MSG);
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
 	}
 
 	@Test
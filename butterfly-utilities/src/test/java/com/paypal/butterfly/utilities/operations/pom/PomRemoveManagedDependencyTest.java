@@ -22,7 +22,7 @@ public class PomRemoveManagedDependencyTest extends TransformationUtilityTestHel
 	private static final String MANAGED_DEPENDENCY_NOT_REMOVED_MSG = "Managed dependency com.test:not-present has NOT been removed from POM file /pom.xml because it is not present";
 
 	@Test
-	public void miscTest() {
+	public void miscTest() throws IOException {
 		PomRemoveManagedDependency pomRemoveManagedDependency = new PomRemoveManagedDependency("junit", "junit").relative("pom.xml");
 
 		assertEquals(pomRemoveManagedDependency.getDescription(), "Remove managed dependency junit:junit from POM file pom.xml");
@@ -75,9 +75,7 @@ public class PomRemoveManagedDependencyTest extends TransformationUtilityTestHel
 		assertEquals(executionResult.getWarnings().get(0).getClass(), TransformationOperationException.class);
 		assertEquals(executionResult.getWarnings().get(0).getMessage(), MANAGED_DEPENDENCY_NOT_REMOVED_MSG);
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
 	}
 
 	@Test
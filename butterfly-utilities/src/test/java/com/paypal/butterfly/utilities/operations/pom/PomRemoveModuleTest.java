@@ -87,9 +87,7 @@ public class PomRemoveModuleTest extends TransformationUtilityTestHelper {
         assertEquals(executionResult.getWarnings().get(0).getClass(), TransformationOperationException.class);
         assertEquals(executionResult.getWarnings().get(0).getMessage(), "Module zoo has not been removed from POM file /pom.xml because it is not present");
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
     }
 
     @Test
@@ -71,9 +71,7 @@ public class PomRemovePluginTest extends TransformationUtilityTestHelper {
 
         assertEqualsXml("pom.xml");
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
     }
 
     @Test
@@ -85,9 +85,7 @@ public class PomRemovePropertyTest extends TransformationUtilityTestHelper {
         assertEquals(executionResult.getWarnings().get(0).getClass(), TransformationOperationException.class);
         assertEquals(executionResult.getWarnings().get(0).getMessage(), "Property zoo has not been removed from POM file /pom.xml because it is not present");
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
     }
 
     @Test
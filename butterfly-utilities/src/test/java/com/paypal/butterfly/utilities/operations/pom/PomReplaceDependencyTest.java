@@ -58,7 +58,7 @@ public class PomReplaceDependencyTest extends TransformationUtilityTestHelper {
     }
 
     @Test
-    public void warningNotPresentTest() {
+    public void warningNotPresentTest() throws IOException {
         PomReplaceDependency pomReplaceDependency = new PomReplaceDependency("foo", "bar", "newfoo", "newbar").relative("pom.xml").warnIfNotPresent();
         TOExecutionResult executionResult = pomReplaceDependency.execution(transformedAppFolder, transformationContext);
 
@@ -67,9 +67,7 @@ public class PomReplaceDependencyTest extends TransformationUtilityTestHelper {
         assertEquals(executionResult.getWarnings().get(0).getClass(), TransformationOperationException.class);
         assertEquals(executionResult.getWarnings().get(0).getMessage(), "Dependency foo:bar has not been replaced by newfoo:newbar in POM file /pom.xml because it is not present");
 
-// FIXME
-// Uncomment this when STAX based version of this TO is implemented
-//        assertNotChangedFile("pom.xml");
+        assertNotChangedFile("pom.xml");
     }
 
     @Test
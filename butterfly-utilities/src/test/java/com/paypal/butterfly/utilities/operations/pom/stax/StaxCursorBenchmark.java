@@ -0,0 +1,127 @@
+package com.paypal.butterfly.utilities.operations.pom.stax;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.ctc.wstx.stax.WstxOutputFactory;
+import com.paypal.butterfly.utilities.xml.XmlIndentation;
+import org.codehaus.stax2.XMLInputFactory2;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.XMLStreamWriter2;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the XML event based StAX pipeline, used by POM operations before,
+ * with {@link StaxCursor}, when adding a parent to large POM files (with 500 and 5000 dependencies),
+ * which requires finding out their indentation first.
+ * It is not run as part of the unit tests, run it with {@code gradle :butterfly-utilities:jmh -Pjmh=StaxCursorBenchmark}.
+ *
+ * @author facarvalho
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaxCursorBenchmark {
+
+    private static final XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+    private static final XMLInputFactory eventInputFactory = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory eventOutputFactory = XMLOutputFactory.newInstance();
+    private static final WstxInputFactory streamInputFactory = new WstxInputFactory();
+    private static final WstxOutputFactory streamOutputFactory = new WstxOutputFactory();
+
+    static {
+        streamInputFactory.setProperty(XMLInputFactory2.P_PRESERVE_LOCATION, false);
+    }
+
+    @Param({"500", "5000"})
+    private int dependencies;
+
+    private byte[] content;
+
+    @Setup
+    public void setup() {
+        StringBuilder pom = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        pom.append("    <modelVersion>4.0.0</modelVersion>\n    <groupId>com.test</groupId>\n    <artifactId>foo</artifactId>\n    <version>1.0</version>\n");
+        pom.append("    <dependencies>\n");
+        for (int i = 0; i < dependencies; i++) {
+            pom.append("        <!-- Dependency ").append(i).append(" -->\n");
+            pom.append("        <dependency>\n");
+            pom.append("            <groupId>com.test.group").append(i % 20).append("</groupId>\n");
+            pom.append("            <artifactId>artifact").append(i).append("</artifactId>\n");
+            pom.append("            <version>1.").append(i).append("</version>\n");
+            pom.append("        </dependency>\n");
+        }
+        pom.append("    </dependencies>\n</project>\n");
+        content = pom.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] eventPipeline() throws XMLStreamException {
+        XMLEvent lineFeed = eventFactory.createCharacters("\n");
+        XMLEvent indentation = eventFactory.createCharacters(XmlIndentation.getFirst(new ByteArrayInputStream(content)));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length + 256);
+        XMLEventReader reader = eventInputFactory.createXMLEventReader(new ByteArrayInputStream(content));
+        XMLEventWriter writer = eventOutputFactory.createXMLEventWriter(outputStream);
+
+        while (reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+            writer.add(event);
+            if (event.isStartElement() && event.asStartElement().getName().getLocalPart().equals("project")) {
+                break;
+            }
+        }
+        writer.add(lineFeed);
+        writer.add(indentation);
+        writer.add(eventFactory.createStartElement("", "", "parent"));
+        writer.add(eventFactory.createCharacters("com.test:foo-parent:1.0"));
+        writer.add(eventFactory.createEndElement("", "", "parent"));
+        writer.add(reader);
+
+        writer.close();
+        reader.close();
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] cursorPipeline() throws XMLStreamException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length + 256);
+        XMLStreamReader2 reader = (XMLStreamReader2) streamInputFactory.createXMLStreamReader(new ByteArrayInputStream(content));
+        XMLStreamWriter2 writer = (XMLStreamWriter2) streamOutputFactory.createXMLStreamWriter(outputStream);
+        StaxCursor cursor = new StaxCursor(reader, writer);
+
+        cursor.copyUntil(new StartElementEventCondition("project"), true);
+        String indentation = cursor.getIndentation();
+        writer.writeCharacters("\n");
+        writer.writeCharacters(indentation);
+        writer.writeStartElement("parent");
+        writer.writeCharacters("com.test:foo-parent:1.0");
+        writer.writeEndElement();
+        cursor.copyToEnd();
+
+        writer.close();
+        reader.close();
+        return outputStream.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StaxCursorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
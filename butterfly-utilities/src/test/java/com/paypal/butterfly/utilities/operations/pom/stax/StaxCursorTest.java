@@ -0,0 +1,129 @@
+package com.paypal.butterfly.utilities.operations.pom.stax;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.ctc.wstx.stax.WstxOutputFactory;
+import com.paypal.butterfly.utilities.xml.XmlIndentation;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.XMLStreamWriter2;
+import org.testng.annotations.Test;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for {@link StaxCursor}
+ *
+ * @author facarvalho
+ */
+public class StaxCursorTest {
+
+    private static final WstxInputFactory inputFactory = new WstxInputFactory();
+    private static final WstxOutputFactory outputFactory = new WstxOutputFactory();
+
+    @Test
+    public void copyTest() throws IOException, XMLStreamException {
+        for (String file : new String[]{"/test-app/pom.xml", "/test-app/indentTests/spaces4comment.xml", "/test-app/indentTests/singleline.xml", "/test-app/indentTests/noindent.xml"}) {
+            byte[] content = getContent(file);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            StaxCursor cursor = createCursor(content, outputStream);
+            cursor.copyToEnd();
+            cursor.getWriter().close();
+
+            assertEquals(toString(outputStream), eventCopy(content), file);
+        }
+    }
+
+    @Test
+    public void indentationTest() throws IOException, XMLStreamException {
+        for (String file : new String[]{"spaces4.xml", "spaces4comment.xml", "spaces4xmltag.xml", "spaces3.xml", "tabs.xml", "noindent.xml", "spaces4firstinline.xml", "singleline.xml"}) {
+            byte[] content = getContent("/test-app/indentTests/" + file);
+            String expectedIndentation = XmlIndentation.getFirst(new ByteArrayInputStream(content));
+
+            // Indentation read ahead, before anything is copied
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            StaxCursor cursor = createCursor(content, outputStream);
+            assertEquals(cursor.getIndentation(), (expectedIndentation == null ? "" : expectedIndentation), file);
+            cursor.copyToEnd();
+            cursor.getWriter().close();
+            assertEquals(toString(outputStream), eventCopy(content), file);
+
+            // Indentation captured while copying
+            cursor = createCursor(content, new ByteArrayOutputStream());
+            assertTrue(cursor.copyUntil(new EndElementEventCondition("modelVersion"), true));
+            assertEquals(cursor.getIndentation(), (expectedIndentation == null ? "" : expectedIndentation), file);
+        }
+    }
+
+    @Test
+    public void changeTest() throws IOException, XMLStreamException {
+        byte[] content = getContent("/test-app/pom.xml");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        StaxCursor cursor = createCursor(content, outputStream);
+
+        // Inserting a new element right after the root one, while reading ahead to find out the indentation
+        assertTrue(cursor.copyUntil(new StartElementEventCondition("project"), true));
+        String indentation = cursor.getIndentation();
+        cursor.getWriter().writeCharacters("\n" + indentation);
+        cursor.getWriter().writeEmptyElement("foo");
+
+        // Replacing the parent version
+        assertTrue(cursor.copyUntil(new StartElementEventCondition("parent"), true));
+        assertTrue(cursor.copyUntil(new StartElementEventCondition("version"), true));
+        assertTrue(cursor.skipNext());
+        assertEquals(cursor.getText(), "1.0");
+        cursor.getWriter().writeCharacters("2.0");
+
+        cursor.copyToEnd();
+        cursor.getWriter().close();
+
+        String expected = eventCopy(content)
+                .replaceFirst("(<project[^>]*>)", "$1\n    <foo/>")
+                .replace("<version>1.0</version>\n    </parent>", "<version>2.0</version>\n    </parent>");
+        assertEquals(toString(outputStream), expected);
+    }
+
+    @Test
+    public void notFoundTest() throws IOException, XMLStreamException {
+        StaxCursor cursor = createCursor(getContent("/test-app/pom.xml"), new ByteArrayOutputStream());
+        assertFalse(cursor.skipUntil(new StartElementEventCondition("bar")));
+        assertFalse(cursor.skipNext());
+        assertFalse(cursor.copyUntil(new StartElementEventCondition("bar"), true));
+    }
+
+    private static StaxCursor createCursor(byte[] content, ByteArrayOutputStream outputStream) throws XMLStreamException {
+        XMLStreamReader2 reader = (XMLStreamReader2) inputFactory.createXMLStreamReader(new ByteArrayInputStream(content));
+        XMLStreamWriter2 writer = (XMLStreamWriter2) outputFactory.createXMLStreamWriter(outputStream);
+        return new StaxCursor(reader, writer);
+    }
+
+    private static String eventCopy(byte[] content) throws XMLStreamException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        XMLEventReader reader = inputFactory.createXMLEventReader(new ByteArrayInputStream(content));
+        XMLEventWriter writer = outputFactory.createXMLEventWriter(outputStream);
+        writer.add(reader);
+        writer.close();
+        return toString(outputStream);
+    }
+
+    private static byte[] getContent(String resource) throws IOException {
+        try (InputStream inputStream = StaxCursorTest.class.getResourceAsStream(resource)) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    private static String toString(ByteArrayOutputStream outputStream) {
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
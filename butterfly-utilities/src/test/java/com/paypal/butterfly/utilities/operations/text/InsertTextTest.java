@@ -2,10 +2,12 @@ package com.paypal.butterfly.utilities.operations.text;
 
 import com.paypal.butterfly.extensions.api.TOExecutionResult;
 import com.paypal.butterfly.utilities.TransformationUtilityTestHelper;
+import org.apache.commons.io.FileUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import sample.code.Dog;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URL;
@@ -144,6 +146,8 @@ public class InsertTextTest extends TransformationUtilityTestHelper {
         Assert.assertEquals(dog.getName(), "Billy");
         Assert.assertEquals(dog.getBreed(), "lab");
 
+        // The file to be modified is read straight, so it has to be restored before running the clone
+        FileUtils.copyFile(new File(appFolder, "src/main/resources/dogs.yaml"), new File(transformedAppFolder, "src/main/resources/dogs.yaml"));
         executionResult = insertText.clone().execution(transformedAppFolder, transformationContext);
         Assert.assertEquals(executionResult.getType(), TOExecutionResult.Type.SUCCESS);
         assertChangedFile("src/main/resources/dogs.yaml");
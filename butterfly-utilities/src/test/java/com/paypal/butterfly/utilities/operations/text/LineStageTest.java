@@ -0,0 +1,108 @@
+package com.paypal.butterfly.utilities.operations.text;
+
+import com.paypal.butterfly.extensions.api.FusedStage;
+import com.paypal.butterfly.extensions.api.PerformResult;
+import com.paypal.butterfly.extensions.api.TOExecutionResult;
+import com.paypal.butterfly.extensions.api.TransformationOperation;
+import com.paypal.butterfly.utilities.TransformationUtilityTestHelper;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Unit test for {@link LineStage}, making sure text operations applied
+ * fused in a single pass produce the exact same content and results as when
+ * performed one by one
+ *
+ * @author facarvalho
+ */
+public class LineStageTest extends TransformationUtilityTestHelper {
+
+    private static final String FILE = "fused.txt";
+
+    private static final String[] CONTENTS = {
+            "line1\nfoo\r\nbar\rlast",
+            "foo\nbar\nlast\n",
+            "\r\n\r\nfoo bar\n",
+            "single",
+            "",
+    };
+
+    private static List<TransformationOperation> newOperations() {
+        return Arrays.asList(
+                new ReplaceText("foo", "zoo").relative(FILE).setFirstOnly(false),
+                new InsertLine("inserted after", "zoo.*").relative(FILE),
+                new InsertLine().setNewLine("inserted before").setInsertionMode(InsertLine.InsertionMode.REGEX_BEFORE_ALL).setRegex("bar.*").relative(FILE),
+                new ReplaceLine(2, "second").relative(FILE),
+                new RemoveLine("last").relative(FILE),
+                new InsertLine("at one", 1).relative(FILE),
+                new AddLine("added").relative(FILE),
+                new InsertLine("concat").relative(FILE),
+                new ReplaceLine("zoo.*", "replaced").relative(FILE)
+        );
+    }
+
+    @Test
+    public void sameAsOneByOneTest() throws IOException {
+        File file = new File(transformedAppFolder, FILE);
+        for (String content : CONTENTS) {
+            FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+            List<TOExecutionResult> expectedResults = new ArrayList<>();
+            for (TransformationOperation operation : newOperations()) {
+                PerformResult performResult = operation.perform(transformedAppFolder, transformationContext);
+                expectedResults.add((TOExecutionResult) performResult.getExecutionResult());
+            }
+            String expectedContent = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+
+            FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+            List<FusedStage> stages = new ArrayList<>();
+            Reader reader = new StringReader(content);
+            for (TransformationOperation operation : newOperations()) {
+                FusedStage stage = operation.fusedStage(reader, transformedAppFolder, transformationContext);
+                assertNull(stage.getResult());
+                stages.add(stage);
+                reader = stage;
+            }
+
+            assertEquals(IOUtils.toString(reader), expectedContent, content);
+            for (int i = 0; i < stages.size(); i++) {
+                TOExecutionResult result = stages.get(i).getResult();
+                assertEquals(result.getType(), expectedResults.get(i).getType(), content);
+                assertEquals(result.getDetails(), expectedResults.get(i).getDetails(), content);
+            }
+        }
+    }
+
+    @Test
+    public void readInSmallChunksTest() throws IOException {
+        String content = "foo\nbar\nlast\n";
+        FusedStage stage = new ReplaceText("o", "00").relative(FILE).setFirstOnly(false).fusedStage(new StringReader(content), transformedAppFolder, transformationContext);
+        StringBuilder stringBuilder = new StringBuilder();
+        char[] chars = new char[1];
+        assertEquals(stage.read(chars, 0, 0), 0);
+        int read;
+        while ((read = stage.read(chars, 0, 1)) != -1) {
+            assertEquals(read, 1);
+            stringBuilder.append(chars[0]);
+        }
+        assertEquals(stringBuilder.toString(), "f0000\nbar\nlast\n");
+        assertEquals(stage.getResult().getType(), TOExecutionResult.Type.SUCCESS);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void notFusibleTest() {
+        new InsertText().relative(FILE).fusedStage(new StringReader(""), transformedAppFolder, transformationContext);
+    }
+
+}
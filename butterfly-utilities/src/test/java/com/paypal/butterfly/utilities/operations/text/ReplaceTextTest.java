@@ -71,6 +71,27 @@ public class ReplaceTextTest extends TransformationUtilityTestHelper {
         assertEquals(properties.getProperty("zoozoo"), "zoozoov");
     }
 
+    @Test
+    public void writeAvoidanceTest() throws IOException {
+        File file = new File(transformedAppFolder, "/src/main/resources/application.properties");
+        long lastModified = 1_000_000_000_000L;
+        assertTrue(file.setLastModified(lastModified));
+
+        ReplaceText replaceText = new ReplaceText("nothing").setReplacement("zoo").relative("/src/main/resources/application.properties");
+        TOExecutionResult executionResult = (TOExecutionResult) replaceText.perform(transformedAppFolder, transformationContext).getExecutionResult();
+        assertEquals(executionResult.getType(), TOExecutionResult.Type.NO_OP);
+        assertEquals(executionResult.getFilesTouched(), 0);
+        assertEquals(executionResult.getBytesWritten(), 0);
+        assertEquals(file.lastModified(), lastModified);
+
+        replaceText = new ReplaceText("foo").setReplacement("zoo").relative("/src/main/resources/application.properties");
+        executionResult = (TOExecutionResult) replaceText.perform(transformedAppFolder, transformationContext).getExecutionResult();
+        assertEquals(executionResult.getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(executionResult.getFilesTouched(), 1);
+        assertEquals(executionResult.getBytesWritten(), file.length());
+        assertTrue(file.lastModified() != lastModified);
+    }
+
     @Test
     public void fileDoesNotExistTest() {
         ReplaceText replaceText = new ReplaceText("foo").relative("/src/main/resources/application_zeta.properties");
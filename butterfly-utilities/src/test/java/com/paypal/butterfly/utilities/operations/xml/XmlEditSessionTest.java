@@ -0,0 +1,206 @@
+package com.paypal.butterfly.utilities.operations.xml;
+
+import com.paypal.butterfly.extensions.api.TOExecutionResult;
+import com.paypal.butterfly.extensions.api.TUExecutionResult;
+import com.paypal.butterfly.extensions.api.TransformationOperation;
+import com.paypal.butterfly.extensions.api.TransformationUtility;
+import com.paypal.butterfly.extensions.api.TransformationUtilityParent;
+import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
+import com.paypal.butterfly.utilities.TransformationUtilityTestHelper;
+import com.paypal.butterfly.utilities.operations.text.InsertLine;
+import org.apache.commons.io.FileUtils;
+import org.custommonkey.xmlunit.Diff;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.paypal.butterfly.utilities.operations.xml.XmlXPathInsertTest.createElement;
+import static org.testng.Assert.*;
+
+/**
+ * Unit test class for {@link XmlEditSession}
+ *
+ * @author facarvalho
+ */
+public class XmlEditSessionTest extends TransformationUtilityTestHelper {
+
+    private static final String WEB_XML = "src/main/webapp/WEB-INF/web.xml";
+    private static final String WEB_XML_2 = "src/main/webapp/WEB-INF/web2.xml";
+
+    @Test
+    public void sameAsOneByOneTest() throws Exception {
+        FileUtils.copyFile(new File(transformedAppFolder, WEB_XML), new File(transformedAppFolder, WEB_XML_2));
+
+        List<TOExecutionResult> oneByOneResults = new ArrayList<>();
+        for (TransformationOperation operation : getOperations()) {
+            operation.relative(WEB_XML_2);
+            oneByOneResults.add((TOExecutionResult) operation.perform(transformedAppFolder, transformationContext).getExecutionResult());
+        }
+
+        XmlEditSession xmlEditSession = newSession().relative(WEB_XML);
+        for (TransformationOperation operation : getOperations()) {
+            xmlEditSession.add(operation);
+        }
+        List<TOExecutionResult> sessionResults = performSession(xmlEditSession);
+
+        assertEquals(xmlEditSession.getDescription(), "Apply 6 XML operations to XML file " + WEB_XML + " at once");
+        assertEquals(sessionResults.size(), oneByOneResults.size());
+        for (int i = 0; i < sessionResults.size(); i++) {
+            assertEquals(sessionResults.get(i).getType(), oneByOneResults.get(i).getType());
+            if (oneByOneResults.get(i).getDetails() != null) {
+                assertEquals(sessionResults.get(i).getDetails(), oneByOneResults.get(i).getDetails().replace(WEB_XML_2, WEB_XML));
+            }
+        }
+        assertEquals(sessionResults.get(2).getType(), TOExecutionResult.Type.NO_OP);
+        assertEquals(sessionResults.get(4).getType(), TOExecutionResult.Type.ERROR);
+
+        Diff diff = new Diff(parse(WEB_XML_2), parse(WEB_XML));
+        assertTrue(diff.identical(), diff.toString());
+    }
+
+    @Test
+    public void changesTest() throws Exception {
+        XmlEditSession xmlEditSession = newSession().relative(WEB_XML);
+        for (TransformationOperation operation : getOperations()) {
+            xmlEditSession.add(operation);
+        }
+        List<TOExecutionResult> sessionResults = performSession(xmlEditSession);
+
+        assertEquals(sessionResults.get(0).getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(sessionResults.get(1).getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(sessionResults.get(3).getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(sessionResults.get(5).getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(sessionResults.get(5).getFilesTouched(), 1);
+        assertEquals(sessionResults.get(0).getFilesTouched(), 0);
+
+        assertEquals(evaluate("/web-app/display-name"), "foo");
+        assertEquals(evaluate("count(/web-app/filter-mapping/dispatcher)"), "2");
+        assertEquals(evaluate("/web-app/filter/async-supported"), "true");
+        assertEquals(evaluate("/web-app/display-name/following-sibling::*[1]"), "bar");
+    }
+
+    @Test
+    public void abortOnFailureTest() throws Exception {
+        XmlEditSession xmlEditSession = newSession().relative(WEB_XML)
+                .add(new XmlXPathReplace("/web-app/display-name", "foo"))
+                .add(new XmlXPathInsert("/web-app", createElement("foo", "bar"), XmlXPathInsert.InsertionMode.BEFORE).abortOnFailure(true))
+                .add(new XmlXPathReplace("/web-app/filter"));
+        xmlEditSession.perform(transformedAppFolder, transformationContext);
+
+        // The transformation would be aborted right after the second operation, so the third one is never performed
+        TOExecutionResult executionResult1 = (TOExecutionResult) xmlEditSession.getChildren().get(0).perform(transformedAppFolder, transformationContext).getExecutionResult();
+        TOExecutionResult executionResult2 = (TOExecutionResult) xmlEditSession.getChildren().get(1).perform(transformedAppFolder, transformationContext).getExecutionResult();
+        assertEquals(executionResult1.getType(), TOExecutionResult.Type.SUCCESS);
+        assertEquals(executionResult2.getType(), TOExecutionResult.Type.ERROR);
+
+        assertEquals(evaluate("/web-app/display-name"), "foo");
+        assertEquals(evaluate("count(/web-app/filter)"), "1");
+    }
+
+    @Test
+    public void noChangesTest() throws IOException {
+        XmlEditSession xmlEditSession = newSession().relative(WEB_XML)
+                .add(new XmlXPathReplace("/web-app/not-there", "foo"))
+                .add(new XmlXPathReplace("/web-app/not-there"));
+        List<TOExecutionResult> sessionResults = performSession(xmlEditSession);
+
+        assertEquals(sessionResults.get(0).getType(), TOExecutionResult.Type.NO_OP);
+        assertEquals(sessionResults.get(1).getType(), TOExecutionResult.Type.NO_OP);
+        assertNotChangedFile(WEB_XML);
+    }
+
+    @Test
+    public void failureTest() throws IOException {
+        // The session cannot parse the file, so every operation is executed on its own
+        XmlEditSession xmlEditSession = newSession().relative("src/main/resources/dogs.yaml")
+                .add(new XmlXPathReplace("/web-app/not-there", "foo"));
+        List<TOExecutionResult> sessionResults = performSession(xmlEditSession);
+
+        assertEquals(sessionResults.get(0).getType(), TOExecutionResult.Type.ERROR);
+        assertEquals(sessionResults.get(0).getException().getMessage(), "File content could not be parsed properly in XML format");
+        assertNotChangedFile("src/main/resources/dogs.yaml");
+    }
+
+    @Test
+    public void conditionTest() {
+        XmlEditSession xmlEditSession = newSession().relative(WEB_XML)
+                .add(new XmlXPathReplace("/web-app/display-name", "foo").executeIf("condition"));
+
+        TUExecutionResult executionResult = (TUExecutionResult) xmlEditSession.perform(transformedAppFolder, transformationContext).getExecutionResult();
+        assertEquals(executionResult.getType(), TUExecutionResult.Type.ERROR);
+    }
+
+    @Test(expectedExceptions = TransformationDefinitionException.class, expectedExceptionsMessageRegExp = "Invalid attempt to add XML operation to XML edit session. This session has to be added to a transformation utilities parent first.")
+    public void noParentTest() {
+        new XmlEditSession().relative(WEB_XML).add(new XmlXPathReplace("/web-app/display-name", "foo"));
+    }
+
+    @Test(expectedExceptions = TransformationDefinitionException.class)
+    public void notXmlOperationTest() {
+        newSession().add(new InsertLine("foo"));
+    }
+
+    @Test
+    public void cloneTest() {
+        XmlEditSession xmlEditSession = newSession().relative(WEB_XML)
+                .add(new XmlXPathReplace("/web-app/display-name", "foo"))
+                .add(new XmlXPathReplace("/web-app/filter"));
+        XmlEditSession clone = xmlEditSession.clone();
+
+        assertEquals(clone.getChildren().size(), 2);
+        for (int i = 0; i < 2; i++) {
+            TransformationUtility operation = xmlEditSession.getChildren().get(i);
+            TransformationUtility operationClone = clone.getChildren().get(i);
+            assertNotSame(operationClone, operation);
+            assertSame(operationClone.getParent(), clone);
+            assertEquals(operationClone.getOrder(), operation.getOrder());
+        }
+    }
+
+    private static List<TransformationOperation> getOperations() throws ParserConfigurationException {
+        List<TransformationOperation> operations = new ArrayList<>();
+        operations.add(new XmlXPathReplace("/web-app/display-name", "foo"));
+        operations.add(new XmlXPathReplace("/web-app/filter-mapping/dispatcher[text()='INCLUDE']"));
+        operations.add(new XmlXPathReplace("/web-app/not-there", "foo"));
+        operations.add(new XmlXPathInsert("/web-app/filter", createElement("async-supported", "true")));
+        operations.add(new XmlXPathInsert("/web-app", createElement("foo", "bar"), XmlXPathInsert.InsertionMode.AFTER));
+        operations.add(new XmlXPathInsert("/web-app/display-name", createElement("description", "bar"), XmlXPathInsert.InsertionMode.AFTER));
+        return operations;
+    }
+
+    private static XmlEditSession newSession() {
+        TransformationUtilityParent parent = Mockito.mock(TransformationUtilityParent.class);
+        Mockito.when(parent.getName()).thenReturn("parent");
+        return new XmlEditSession().setParent(parent, 1);
+    }
+
+    private List<TOExecutionResult> performSession(XmlEditSession xmlEditSession) {
+        TUExecutionResult executionResult = (TUExecutionResult) xmlEditSession.perform(transformedAppFolder, transformationContext).getExecutionResult();
+        assertEquals(executionResult.getType(), TUExecutionResult.Type.VALUE);
+
+        List<TOExecutionResult> results = new ArrayList<>();
+        for (TransformationUtility operation : xmlEditSession.getChildren()) {
+            results.add((TOExecutionResult) operation.perform(transformedAppFolder, transformationContext).getExecutionResult());
+        }
+        return results;
+    }
+
+    private Document parse(String relativeFilePath) throws ParserConfigurationException, IOException, SAXException {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(transformedAppFolder, relativeFilePath));
+    }
+
+    private String evaluate(String xpath) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException {
+        return XPathFactory.newInstance().newXPath().evaluate(xpath, parse(WEB_XML));
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.paypal.butterfly.utilities.operations.xml;
+
+import com.paypal.butterfly.extensions.api.TOExecutionResult;
+import com.paypal.butterfly.extensions.api.exception.TransformationDefinitionException;
+import com.paypal.butterfly.extensions.api.exception.TransformationOperationException;
+import com.paypal.butterfly.utilities.TransformationUtilityTestHelper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link XmlXPathInsert}
+ *
+ * @author facarvalho
+ */
+public class XmlXPathInsertTest extends TransformationUtilityTestHelper {
+
+    private static final String WEB_XML = "src/main/webapp/WEB-INF/web.xml";
+
+    @Test
+    public void childTest() throws Exception {
+        XmlXPathInsert xmlXPathInsert = new XmlXPathInsert("/web-app/filter", createElement("async-supported", "true")).relative(WEB_XML);
+        TOExecutionResult executionResult = xmlXPathInsert.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TOExecutionResult.Type.SUCCESS);
+        Assert.assertEquals(executionResult.getDetails(), "File " + WEB_XML + " has had 1 element(s) inserted based on xml xpath expression '/web-app/filter'");
+        Assert.assertEquals(xmlXPathInsert.getDescription(), "Insert user supplied XML Element as last child of every element that matches XPath /web-app/filter in XML file " + WEB_XML);
+        assertChangedFile(WEB_XML);
+        Assert.assertEquals(evaluate("name(/web-app/filter/*[last()])"), "async-supported");
+        Assert.assertEquals(evaluate("/web-app/filter/async-supported"), "true");
+    }
+
+    @Test
+    public void beforeTest() throws Exception {
+        XmlXPathInsert xmlXPathInsert = new XmlXPathInsert("/web-app/context-param", createElement("description", "foo"), XmlXPathInsert.InsertionMode.BEFORE).relative(WEB_XML);
+        TOExecutionResult executionResult = xmlXPathInsert.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TOExecutionResult.Type.SUCCESS);
+        Assert.assertEquals(executionResult.getDetails(), "File " + WEB_XML + " has had 2 element(s) inserted based on xml xpath expression '/web-app/context-param'");
+        Assert.assertEquals(xmlXPathInsert.getDescription(), "Insert user supplied XML Element before every element that matches XPath /web-app/context-param in XML file " + WEB_XML);
+        Assert.assertEquals(evaluate("count(/web-app/description)"), "2");
+        Assert.assertEquals(evaluate("name(/web-app/context-param[2]/preceding-sibling::*[1])"), "description");
+    }
+
+    @Test
+    public void afterTest() throws Exception {
+        XmlXPathInsert xmlXPathInsert = new XmlXPathInsert("/web-app/filter-mapping/dispatcher[text()='INCLUDE']", createElement("dispatcher", "ERROR"))
+                .setInsertionMode(XmlXPathInsert.InsertionMode.AFTER)
+                .relative(WEB_XML);
+        TOExecutionResult executionResult = xmlXPathInsert.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TOExecutionResult.Type.SUCCESS);
+        Assert.assertEquals(evaluate("/web-app/filter-mapping/dispatcher[3]"), "ERROR");
+        Assert.assertEquals(evaluate("/web-app/filter-mapping/dispatcher[4]"), "FORWARD");
+    }
+
+    @Test
+    public void noOpTest() throws IOException, ParserConfigurationException {
+        // Attributes are not elements, so nothing is inserted
+        XmlXPathInsert xmlXPathInsert = new XmlXPathInsert("/web-app/@version", createElement("foo", "bar")).relative(WEB_XML);
+        TOExecutionResult executionResult = xmlXPathInsert.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TOExecutionResult.Type.NO_OP);
+        Assert.assertEquals(executionResult.getDetails(), "File " + WEB_XML + " has had 0 element(s) inserted based on xml xpath expression '/web-app/@version'");
+        assertNotChangedFile(WEB_XML);
+    }
+
+    @Test
+    public void rootElementTest() throws IOException, ParserConfigurationException {
+        XmlXPathInsert xmlXPathInsert = new XmlXPathInsert("/web-app", createElement("foo", "bar"), XmlXPathInsert.InsertionMode.AFTER).relative(WEB_XML);
+        TOExecutionResult executionResult = xmlXPathInsert.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TOExecutionResult.Type.ERROR);
+        Assert.assertEquals(executionResult.getException().getClass(), TransformationOperationException.class);
+        Assert.assertEquals(executionResult.getException().getMessage(), "XML Element cannot be inserted after the root element");
+        assertNotChangedFile(WEB_XML);
+    }
+
+    @Test
+    public void badXmlTest() throws ParserConfigurationException {
+        XmlXPathInsert xmlXPathInsert = new XmlXPathInsert("/foo", createElement("foo", "bar")).relative("src/main/resources/dogs.yaml");
+        TOExecutionResult executionResult = xmlXPathInsert.execution(transformedAppFolder, transformationContext);
+        Assert.assertEquals(executionResult.getType(), TOExecutionResult.Type.ERROR);
+        Assert.assertEquals(executionResult.getException().getClass(), TransformationOperationException.class);
+        Assert.assertEquals(executionResult.getException().getMessage(), "File content could not be parsed properly in XML format");
+    }
+
+    @Test(expectedExceptions = TransformationDefinitionException.class)
+    public void badXPathTest() throws ParserConfigurationException {
+        new XmlXPathInsert("`", createElement("foo", "bar"));
+    }
+
+    @Test(expectedExceptions = TransformationDefinitionException.class)
+    public void nullElementTest() {
+        new XmlXPathInsert("/web-app", null);
+    }
+
+    static Element createElement(String name, String text) throws ParserConfigurationException {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element element = doc.createElement(name);
+        element.setTextContent(text);
+        return element;
+    }
+
+    private String evaluate(String xpath) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(transformedAppFolder, WEB_XML));
+        return XPathFactory.newInstance().newXPath().evaluate(xpath, doc);
+    }
+
+}
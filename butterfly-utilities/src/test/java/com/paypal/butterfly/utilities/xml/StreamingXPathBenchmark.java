@@ -0,0 +1,101 @@
+package com.paypal.butterfly.utilities.xml;
+
+import com.paypal.butterfly.extensions.api.XmlParserPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing DOM based XPath evaluation, used by XML utilities before,
+ * with {@link StreamingXPath}, when retrieving a value close to the beginning of large XML files
+ * (with 5000 and 50000 elements), and when replacing the text of all of their elements selected by an expression.
+ * It is not run as part of the unit tests, run it with {@code gradle :butterfly-utilities:jmh -Pjmh=StreamingXPathBenchmark}.
+ *
+ * @author facarvalho
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamingXPathBenchmark {
+
+    private static final String RETRIEVE_EXPRESSION = "/web-app/context-param[@id='param0']/param-value";
+    private static final String REPLACE_EXPRESSION = "//servlet[@load-on-startup]/servlet-class";
+
+    @Param({"5000", "50000"})
+    private int elements;
+
+    private byte[] content;
+
+    private final StreamingXPath retrieveStreamingXPath = StreamingXPath.compile(RETRIEVE_EXPRESSION);
+    private final StreamingXPath replaceStreamingXPath = StreamingXPath.compile(REPLACE_EXPRESSION);
+
+    @Setup
+    public void setup() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<web-app version=\"3.0\">\n");
+        for (int i = 0; i < elements; i++) {
+            xml.append("    <context-param id=\"param").append(i).append("\">\n");
+            xml.append("        <param-name>name").append(i).append("</param-name>\n");
+            xml.append("        <param-value>value").append(i).append("</param-value>\n");
+            xml.append("    </context-param>\n");
+            xml.append("    <servlet").append(i % 10 == 0 ? " load-on-startup=\"1\"" : "").append(">\n");
+            xml.append("        <servlet-name>servlet").append(i).append("</servlet-name>\n");
+            xml.append("        <servlet-class>com.test.Servlet").append(i).append("</servlet-class>\n");
+            xml.append("    </servlet>\n");
+        }
+        xml.append("</web-app>\n");
+        content = xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String domRetrieve() throws IOException, SAXException, XPathExpressionException {
+        Document document = XmlParserPool.getDocumentBuilder().parse(new ByteArrayInputStream(content));
+        return XmlParserPool.getXPath().evaluate(RETRIEVE_EXPRESSION, document);
+    }
+
+    @Benchmark
+    public String streamingRetrieve() throws IOException, SAXException {
+        return retrieveStreamingXPath.evaluate(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public byte[] domReplace() throws IOException, SAXException, XPathExpressionException, TransformerException {
+        Document document = XmlParserPool.getDocumentBuilder().parse(new ByteArrayInputStream(content));
+        NodeList nodes = (NodeList) XmlParserPool.getXPath().evaluate(REPLACE_EXPRESSION, document, XPathConstants.NODESET);
+        for (int i = 0; i < nodes.getLength(); i++) {
+            nodes.item(i).setTextContent("com.test.NewServlet");
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length);
+        XmlParserPool.getTransformer().transform(new DOMSource(document), new StreamResult(outputStream));
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] streamingReplace() throws IOException, SAXException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length);
+        replaceStreamingXPath.replaceText(new ByteArrayInputStream(content), outputStream, "com.test.NewServlet");
+        return outputStream.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StreamingXPathBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
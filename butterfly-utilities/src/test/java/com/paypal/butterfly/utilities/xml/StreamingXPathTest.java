@@ -0,0 +1,318 @@
+package com.paypal.butterfly.utilities.xml;
+
+import org.apache.commons.io.IOUtils;
+import org.custommonkey.xmlunit.Diff;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+/**
+ * Unit tests for {@link StreamingXPath}
+ *
+ * @author facarvalho
+ */
+public class StreamingXPathTest {
+
+    private static final String[] FILES = {"/test-app/pom.xml", "/test-app/foo.xml", "/test-app/foo1.xml", "/test-app/src/main/webapp/WEB-INF/web.xml"};
+
+    private static final String[] EXPRESSIONS = {
+            "/project/artifactId",
+            "/project/parent/version",
+            "//artifactId",
+            "/project/dependencies/dependency/artifactId/text()",
+            "//dependency",
+            "/project/*/groupId",
+            "/project/@xmlns",
+            "/project/foo",
+            "//data-source[@name='DS_test2']/maximum-pool-size",
+            "//data-source[@name]/@name",
+            "//property[@name = \"connRateThrottle\"][@value]/@value",
+            "/deliverable-settings/data-sources/defaultDataSource/text()",
+            "/web-app/context-param/param-name",
+            "//param-value/text()",
+            "/web-app/@version",
+            "//*[@id]/@id",
+            "/*/text()",
+            "//*"
+    };
+
+    // Spring style XML content, whose element and attribute names have prefixes
+    private static final String PREFIXED_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<beans xmlns=\"http://www.springframework.org/schema/beans\" xmlns:p=\"http://www.springframework.org/schema/p\"\n"
+            + "       xmlns:jaxrs=\"http://cxf.apache.org/jaxrs\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+            + "       xsi:schemaLocation=\"http://www.springframework.org/schema/beans beans.xsd\">\n"
+            + "    <jaxrs:server id=\"server\" address=\"/api\">\n"
+            + "        <jaxrs:serviceBeans><ref bean=\"service\"/></jaxrs:serviceBeans>\n"
+            + "    </jaxrs:server>\n"
+            + "    <bean id=\"service\" class=\"com.test.Service\" p:timeout=\"10\"/>\n"
+            + "    <bean class=\"com.test.Other\" p:id=\"other\" id=\"otherId\"/>\n"
+            + "    <a><p:b id=\"1\">text</p:b></a>\n"
+            + "</beans>\n";
+
+    private static final String[] PREFIXED_EXPRESSIONS = {
+            "/beans/server/@address",
+            "//server/serviceBeans/ref/@bean",
+            "/beans/*/serviceBeans",
+            "//bean/@timeout",
+            "//bean[@timeout='10']/@class",
+            "//bean[@id='other']/@class",
+            "//bean/@id",
+            "/beans/a/b/@id",
+            "/beans/a/b",
+            "//b/text()",
+            "/beans/@schemaLocation",
+            "/beans/@p",
+            "/beans/@xsi",
+            "//*[@p]/@class"
+    };
+
+    @Test
+    public void compileTest() {
+        for (String expression : EXPRESSIONS) {
+            assertNotNull(StreamingXPath.compile(expression), expression);
+        }
+        assertTrue(StreamingXPath.compile("//dependency").selectsNodes());
+        assertTrue(StreamingXPath.compile("/a/text()").selectsNodes());
+        assertFalse(StreamingXPath.compile("/a/@b").selectsNodes());
+
+        String[] unsupported = {null, "", "/", "/a/", "a/b", "./a", "/a/b[1]", "/a/b[c='d']", "/a:b", "/a/@*", "//@x", "/@x", "/a//text()",
+                "/a/node()", "count(/a)", "/a | /b", "/a/b/@c/d", "/a[@x='y' and @z]", "/a[@x='y]", "/a/../b"};
+        for (String expression : unsupported) {
+            assertNull(StreamingXPath.compile(expression), expression);
+        }
+    }
+
+    @Test
+    public void evaluateTest() throws Exception {
+        for (String file : FILES) {
+            byte[] content = getContent(file);
+            Document document = parse(content);
+            for (String expression : EXPRESSIONS) {
+                String expected = XPathFactory.newInstance().newXPath().evaluate(expression, document);
+                String actual = StreamingXPath.compile(expression).evaluate(new ByteArrayInputStream(content));
+                assertEquals(actual, expected, file + " " + expression);
+            }
+        }
+    }
+
+    @Test
+    public void prefixedNamesEvaluateTest() throws Exception {
+        byte[] content = PREFIXED_XML.getBytes(StandardCharsets.UTF_8);
+        Document document = parse(content);
+        for (String expression : PREFIXED_EXPRESSIONS) {
+            String expected = XPathFactory.newInstance().newXPath().evaluate(expression, document);
+            String actual = StreamingXPath.compile(expression).evaluate(new ByteArrayInputStream(content));
+            assertEquals(actual, expected, expression);
+        }
+
+        content = "<a><p:b id=\"1\"/></a>".getBytes(StandardCharsets.UTF_8);
+        assertEquals(StreamingXPath.compile("/a/b/@id").evaluate(new ByteArrayInputStream(content)), "1");
+
+        // More than one attribute with the same local name in the first selected element
+        content = PREFIXED_XML.getBytes(StandardCharsets.UTF_8);
+        assertNull(StreamingXPath.compile("//bean[@class='com.test.Other']/@id").evaluate(new ByteArrayInputStream(content)));
+    }
+
+    @Test
+    public void prefixedNamesEditTest() throws Exception {
+        byte[] content = PREFIXED_XML.getBytes(StandardCharsets.UTF_8);
+        assertEdit(content, "//bean/@id", "id", 3);
+        assertEdit(content, "/beans/a/b/@id", "2", 1);
+        assertEdit(content, "/beans/server/serviceBeans", "bar", 1);
+        assertEdit(content, "//b/text()", "bar", 1);
+        assertEdit(content, "/beans/server", null, 1);
+        assertEdit(content, "//bean[@timeout]", null, 1);
+
+        Element element = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument().createElement("foo");
+        assertEdit(content, "//serviceBeans/ref", element, 1);
+    }
+
+    /*
+     * Compares evaluations and edits while streaming against DOM based ones,
+     * over random XML content with and without prefixes
+     */
+    @Test
+    public void prefixedNamesRandomTest() throws Exception {
+        String[] elementNames = {"a", "b", "p:a", "p:b", "q:b"};
+        String[] attributeNames = {"id", "p:id", "x", "q:x"};
+        String[] expressions = {"/a/b", "/a/b/@id", "//b/@x", "//b[@id]/text()", "/*/a[@x='1']", "//a/@id", "//*[@id='0']/@x", "/b//a"};
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder xml = new StringBuilder();
+            appendRandomElement(xml, random, elementNames, attributeNames, 0);
+            byte[] content = xml.toString().getBytes(StandardCharsets.UTF_8);
+            Document document = parse(content);
+            for (String expression : expressions) {
+                String actual = StreamingXPath.compile(expression).evaluate(new ByteArrayInputStream(content));
+                if (actual != null) {
+                    assertEquals(actual, XPathFactory.newInstance().newXPath().evaluate(expression, document), xml + " " + expression);
+                }
+                NodeList nodes = (NodeList) XPathFactory.newInstance().newXPath().evaluate(expression, document, XPathConstants.NODESET);
+                assertEdit(content, expression, "r", nodes.getLength());
+            }
+        }
+    }
+
+    private static void appendRandomElement(StringBuilder xml, Random random, String[] elementNames, String[] attributeNames, int depth) {
+        String name = elementNames[random.nextInt(elementNames.length)];
+        xml.append('<').append(name);
+        if (depth == 0) {
+            // Otherwise DOM based edits could not be written back
+            xml.append(" xmlns:p=\"urn:p\" xmlns:q=\"urn:q\"");
+        }
+        Set<String> attributes = new HashSet<>();
+        for (int i = random.nextInt(3); i > 0; i--) {
+            String attribute = attributeNames[random.nextInt(attributeNames.length)];
+            if (attributes.add(attribute)) {
+                xml.append(' ').append(attribute).append("=\"").append(random.nextInt(2)).append('"');
+            }
+        }
+        xml.append('>');
+        for (int i = (depth < 3 ? random.nextInt(3) : 0); i > 0; i--) {
+            appendRandomElement(xml, random, elementNames, attributeNames, depth + 1);
+        }
+        xml.append(random.nextInt(2)).append("</").append(name).append('>');
+    }
+
+    @Test
+    public void replaceTextTest() throws Exception {
+        assertEdit("/test-app/pom.xml", "/project/artifactId", "bar", 1);
+        assertEdit("/test-app/pom.xml", "//dependency/version", "1.0", 6);
+        assertEdit("/test-app/pom.xml", "/project/dependencies/dependency/artifactId/text()", "bar", 6);
+        assertEdit("/test-app/pom.xml", "//dependencies", "bar & <baz>", 3);
+        assertEdit("/test-app/foo1.xml", "//data-source[@name='DS_test1']/@name", "DS_test3", 1);
+        assertEdit("/test-app/foo1.xml", "//property/@value", "1", 2);
+    }
+
+    @Test
+    public void replaceElementTest() throws Exception {
+        Element element = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument().createElement("foo");
+        element.setAttribute("bar", "\"baz\"");
+        element.appendChild(element.getOwnerDocument().createElement("child"));
+        element.appendChild(element.getOwnerDocument().createTextNode("text & <text>"));
+        element.appendChild(element.getOwnerDocument().createComment("comment"));
+
+        assertTrue(StreamingXPath.isWritable(element));
+        assertEdit("/test-app/pom.xml", "/project/parent", element, 1);
+        assertEdit("/test-app/pom.xml", "//dependency", element, 10);
+        assertEdit("/test-app/foo1.xml", "//data-source[@name='DS_test2']/config-properties/text()", element, 2);
+
+        Element namespacedElement = element.getOwnerDocument().createElementNS("urn:foo", "foo");
+        element.appendChild(namespacedElement);
+        assertFalse(StreamingXPath.isWritable(element));
+    }
+
+    @Test
+    public void removeTest() throws Exception {
+        assertEdit("/test-app/pom.xml", "//dependency", null, 10);
+        assertEdit("/test-app/pom.xml", "/project/modules", null, 1);
+        assertEdit("/test-app/foo1.xml", "//data-source[@name='DS_test1']", null, 1);
+        assertEdit("/test-app/foo1.xml", "/deliverable-settings/data-sources/text()", null, 4);
+    }
+
+    @Test
+    public void noMatchTest() throws Exception {
+        // Content not selected by the expression is kept as it is
+        for (String file : new String[]{"/test-app/foo.xml", "/test-app/foo1.xml", "/test-app/src/main/webapp/WEB-INF/web.xml"}) {
+            byte[] content = getContent(file);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            assertEquals(StreamingXPath.compile("/foo/bar").remove(new ByteArrayInputStream(content), outputStream), 0);
+            assertEquals(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), new String(content, StandardCharsets.UTF_8), file);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void attributeRemovalTest() throws IOException, SAXException {
+        StreamingXPath.compile("/project/@foo").remove(new ByteArrayInputStream(getContent("/test-app/pom.xml")), new ByteArrayOutputStream());
+    }
+
+    @Test(expectedExceptions = SAXParseException.class)
+    public void invalidXmlTest() throws IOException, SAXException {
+        StreamingXPath.compile("/foo/bar").evaluate(new ByteArrayInputStream(getContent("/test-app/src/main/resources/dogs.yaml")));
+    }
+
+    /*
+     * Asserts that editing the given file while streaming results in the same XML content,
+     * and the same number of selected nodes, as editing its DOM
+     */
+    private static void assertEdit(String file, String expression, Object replacement, int expectedCount) throws Exception {
+        assertEdit(getContent(file), expression, replacement, expectedCount);
+    }
+
+    private static void assertEdit(byte[] content, String expression, Object replacement, int expectedCount) throws Exception {
+        StreamingXPath streamingXPath = StreamingXPath.compile(expression);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        int count;
+        if (replacement == null) {
+            count = streamingXPath.remove(new ByteArrayInputStream(content), outputStream);
+        } else if (replacement instanceof Element) {
+            count = streamingXPath.replaceElement(new ByteArrayInputStream(content), outputStream, (Element) replacement);
+        } else {
+            count = streamingXPath.replaceText(new ByteArrayInputStream(content), outputStream, (String) replacement);
+        }
+        assertEquals(count, expectedCount, expression);
+
+        Document expected = parse(editDocument(content, expression, replacement));
+        Document actual = parse(outputStream.toByteArray());
+        Diff diff = new Diff(expected, actual);
+        assertTrue(diff.identical(), expression + " " + diff);
+    }
+
+    /*
+     * Edits the given XML content the same way XmlXPathReplace does using DOM
+     */
+    private static byte[] editDocument(byte[] content, String expression, Object replacement) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
+        Document document = parse(content);
+        NodeList nodes = (NodeList) XPathFactory.newInstance().newXPath().evaluate(expression, document, XPathConstants.NODESET);
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            if (replacement == null) {
+                node.getParentNode().removeChild(node);
+            } else if (replacement instanceof Element) {
+                node.getParentNode().replaceChild(document.importNode((Element) replacement, true), node);
+            } else {
+                node.setTextContent((String) replacement);
+            }
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(outputStream));
+        return outputStream.toByteArray();
+    }
+
+    private static Document parse(byte[] content) throws ParserConfigurationException, IOException, SAXException {
+        DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        return documentBuilder.parse(new ByteArrayInputStream(content));
+    }
+
+    private static byte[] getContent(String resource) throws IOException {
+        try (InputStream inputStream = StreamingXPathTest.class.getResourceAsStream(resource)) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+}